@@ -0,0 +1,32 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.api;
+
+/**
+ * Source of events that a remote method can return to push events to the caller. It has the contract of
+ * {@code java.util.concurrent.Flow.Publisher}: events are only sent as far as the subscriber requested them.
+ * <p>
+ * The publisher returned by an imported proxy keeps one connection open for the events and accepts a single
+ * subscriber.
+ *
+ * @param <T> type of the events
+ */
+public interface EventPublisher<T> {
+    void subscribe(EventSubscriber<? super T> subscriber);
+}
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.api;
+
+/**
+ * Receives the events of an {@link EventPublisher}. The methods are called one after another, never
+ * concurrently, and after {@link #onError(Throwable)} or {@link #onComplete()} no more events follow.
+ *
+ * @param <T> type of the events
+ */
+public interface EventSubscriber<T> {
+    /**
+     * Called first. No events are sent before the subscriber requests them from the subscription.
+     */
+    void onSubscribe(EventSubscription subscription);
+
+    void onEvent(T event);
+
+    void onError(Throwable error);
+
+    void onComplete();
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses a message body if it reaches the threshold size. Smaller bodies are written unchanged.
+ * The body is buffered until the threshold is reached, so {@link #onCompress()} can still set the
+ * headers of the message before the first byte is written to the underlying stream.
+ */
+public abstract class CompressingOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final ContentCoding coding;
+    private final int threshold;
+    private ByteArrayOutputStream buffer;
+    private CountingOutputStream counter;
+    private OutputStream compressor;
+    private long uncompressed;
+    private long cpuNanos;
+    private boolean closed;
+
+    protected CompressingOutputStream(OutputStream out, ContentCoding coding, int threshold) {
+        this.out = out;
+        this.coding = coding;
+        this.threshold = threshold;
+        this.buffer = new ByteArrayOutputStream(Math.min(Math.max(threshold, 32), 8192));
+    }
+
+    /**
+     * Called before the first compressed byte is written.
+     */
+    protected abstract void onCompress() throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte)b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (buffer != null) {
+            if (buffer.size() + len < threshold) {
+                buffer.write(b, off, len);
+                return;
+            }
+            startCompression();
+        }
+        compress(b, off, len);
+    }
+
+    private void startCompression() throws IOException {
+        onCompress();
+        counter = new CountingOutputStream(out);
+        long start = CpuTime.now();
+        compressor = coding.compress(counter);
+        cpuNanos += CpuTime.now() - start;
+        byte[] buffered = buffer.toByteArray();
+        buffer = null;
+        compress(buffered, 0, buffered.length);
+    }
+
+    private void compress(byte[] b, int off, int len) throws IOException {
+        long start = CpuTime.now();
+        compressor.write(b, off, len);
+        cpuNanos += CpuTime.now() - start;
+        uncompressed += len;
+    }
+
+    /**
+     * @return true once the threshold is reached and the body is compressed
+     */
+    public boolean isCompressing() {
+        return compressor != null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (compressor != null) {
+            compressor.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (buffer != null) {
+            buffer.writeTo(out);
+            buffer = null;
+            out.close();
+            return;
+        }
+        long start = CpuTime.now();
+        compressor.close();
+        cpuNanos += CpuTime.now() - start;
+        coding.getStats().recordCompression(uncompressed, counter.count, cpuNanos);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
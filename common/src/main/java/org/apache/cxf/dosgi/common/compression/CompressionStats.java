@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the messages and bytes of a {@link ContentCoding} and the time spent compressing them.
+ */
+public class CompressionStats implements CompressionStatsMXBean {
+    private final AtomicLong compressedMessages = new AtomicLong();
+    private final AtomicLong decompressedMessages = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+    private final AtomicLong decompressionNanos = new AtomicLong();
+
+    void recordCompression(long uncompressed, long compressed, long cpuNanos) {
+        compressedMessages.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressed);
+        compressedBytes.addAndGet(compressed);
+        compressionNanos.addAndGet(cpuNanos);
+    }
+
+    void recordDecompression(long compressed, long uncompressed, long cpuNanos) {
+        decompressedMessages.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressed);
+        compressedBytes.addAndGet(compressed);
+        decompressionNanos.addAndGet(cpuNanos);
+    }
+
+    @Override
+    public long getCompressedMessages() {
+        return compressedMessages.get();
+    }
+
+    @Override
+    public long getDecompressedMessages() {
+        return decompressedMessages.get();
+    }
+
+    @Override
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    @Override
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    @Override
+    public double getCompressionRatio() {
+        long compressed = compressedBytes.get();
+        return compressed == 0 ? 0 : (double)uncompressedBytes.get() / compressed;
+    }
+
+    @Override
+    public double getCompressionCpuMillis() {
+        return compressionNanos.get() / 1000000.0;
+    }
+
+    @Override
+    public double getDecompressionCpuMillis() {
+        return decompressionNanos.get() / 1000000.0;
+    }
+}
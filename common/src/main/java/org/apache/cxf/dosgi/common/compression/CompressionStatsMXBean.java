@@ -0,0 +1,45 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+public interface CompressionStatsMXBean {
+
+    long getCompressedMessages();
+
+    long getDecompressedMessages();
+
+    /**
+     * @return size of the compressed and decompressed messages before compression
+     */
+    long getUncompressedBytes();
+
+    long getCompressedBytes();
+
+    /**
+     * @return uncompressed bytes divided by compressed bytes, 0 before the first message
+     */
+    double getCompressionRatio();
+
+    /**
+     * @return CPU time spent compressing, or elapsed time if the JVM does not measure thread CPU time
+     */
+    double getCompressionCpuMillis();
+
+    double getDecompressionCpuMillis();
+}
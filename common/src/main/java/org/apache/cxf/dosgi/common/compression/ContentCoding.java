@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An HTTP content coding like gzip. Each coding keeps the {@link CompressionStats} of the messages
+ * it compressed and decompressed.
+ */
+public abstract class ContentCoding {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String ZSTD = "zstd";
+    public static final String LZ4 = "lz4";
+    private static final Logger LOG = LoggerFactory.getLogger(ContentCoding.class);
+
+    private final String name;
+    private final CompressionStats stats = new CompressionStats();
+
+    protected ContentCoding(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates the coding with the given name.
+     *
+     * @param level compression level of gzip and deflate
+     * @param poolSize maximum number of idle deflaters and inflaters kept by gzip and deflate
+     * @return the coding or null if the name is unknown or the library of the coding is not available
+     */
+    public static ContentCoding create(String name, int level, int poolSize) {
+        String coding = name.trim().toLowerCase(Locale.ENGLISH);
+        switch (coding) {
+        case GZIP:
+            return new DeflateCoding(GZIP, new DeflaterPool(level, true, poolSize));
+        case DEFLATE:
+            return new DeflateCoding(DEFLATE, new DeflaterPool(level, false, poolSize));
+        case ZSTD:
+            return StreamCoding.create(ZSTD, "com.github.luben.zstd.ZstdOutputStream",
+                                       "com.github.luben.zstd.ZstdInputStream");
+        case LZ4:
+            return StreamCoding.create(LZ4, "net.jpountz.lz4.LZ4FrameOutputStream",
+                                       "net.jpountz.lz4.LZ4FrameInputStream");
+        default:
+            LOG.warn("Unknown content coding {}", name);
+            return null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CompressionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return a stream that compresses into the given stream. Closing it closes the given stream
+     */
+    public abstract OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @return a stream that decompresses the given stream. Closing it closes the given stream
+     */
+    public abstract InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Releases the resources kept for reuse.
+     */
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
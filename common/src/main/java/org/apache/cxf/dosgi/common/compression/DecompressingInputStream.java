@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a message body with a {@link ContentCoding} and records the sizes and the time spent
+ * in its stats once the body is read or the stream is closed. Bodies that decompress to more than the
+ * maximum size fail, so a small compressed body cannot fill the heap.
+ */
+public class DecompressingInputStream extends InputStream {
+    private final ContentCoding coding;
+    private final CountingInputStream counter;
+    private final InputStream decompressor;
+    private final long maxSize;
+    private long uncompressed;
+    private long cpuNanos;
+    private boolean recorded;
+
+    public DecompressingInputStream(InputStream in, ContentCoding coding) throws IOException {
+        this(in, coding, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSize maximum number of uncompressed bytes
+     */
+    public DecompressingInputStream(InputStream in, ContentCoding coding, long maxSize) throws IOException {
+        this.coding = coding;
+        this.maxSize = maxSize;
+        this.counter = new CountingInputStream(in);
+        long start = CpuTime.now();
+        this.decompressor = coding.decompress(counter);
+        cpuNanos = CpuTime.now() - start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = CpuTime.now();
+        int read = decompressor.read(b, off, len);
+        cpuNanos += CpuTime.now() - start;
+        if (read == -1) {
+            record();
+        } else {
+            uncompressed += read;
+            if (uncompressed > maxSize) {
+                onTooLarge(maxSize);
+                throw new IOException("Uncompressed body exceeds " + maxSize + " bytes");
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Called once the uncompressed body exceeds the maximum size, before the read fails with an IOException.
+     */
+    protected void onTooLarge(long max) throws IOException {
+    }
+
+    @Override
+    public int available() throws IOException {
+        return decompressor.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+        record();
+        decompressor.close();
+    }
+
+    private void record() {
+        if (!recorded) {
+            recorded = true;
+            coding.getStats().recordDecompression(counter.count, uncompressed, cpuNanos);
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
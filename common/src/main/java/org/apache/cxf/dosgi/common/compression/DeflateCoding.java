@@ -0,0 +1,247 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * The gzip and deflate codings of the JDK with pooled deflaters and inflaters. The gzip streams of the
+ * JDK always create a new deflater, so the gzip header and trailer are written and read here.
+ */
+final class DeflateCoding extends ContentCoding {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff};
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final DeflaterPool pool;
+    private final boolean gzip;
+
+    DeflateCoding(String name, DeflaterPool pool) {
+        super(name);
+        this.pool = pool;
+        this.gzip = GZIP.equals(name);
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        if (gzip) {
+            out.write(GZIP_HEADER);
+        }
+        return new PooledDeflaterOutputStream(out, pool.acquireDeflater());
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        if (gzip) {
+            readGzipHeader(in);
+        }
+        return new PooledInflaterInputStream(in, pool.acquireInflater());
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    DeflaterPool getPool() {
+        return pool;
+    }
+
+    private static void readGzipHeader(InputStream in) throws IOException {
+        if ((readUByte(in) | readUByte(in) << 8) != GZIP_MAGIC) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (readUByte(in) != Deflater.DEFLATED) {
+            throw new ZipException("Unsupported gzip compression method");
+        }
+        int flags = readUByte(in);
+        // modification time, extra flags and operating system
+        skipFully(in, 6);
+        if ((flags & FEXTRA) != 0) {
+            skipFully(in, readUByte(in) | readUByte(in) << 8);
+        }
+        if ((flags & FNAME) != 0) {
+            skipString(in);
+        }
+        if ((flags & FCOMMENT) != 0) {
+            skipString(in);
+        }
+        if ((flags & FHCRC) != 0) {
+            skipFully(in, 2);
+        }
+    }
+
+    private static int readUByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of gzip data");
+        }
+        return b;
+    }
+
+    private static void skipFully(InputStream in, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUByte(in);
+        }
+    }
+
+    private static void skipString(InputStream in) throws IOException {
+        while (readUByte(in) != 0) {
+            // skip until the terminating zero
+        }
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        out.write((int)value & 0xff);
+        out.write((int)(value >> 8) & 0xff);
+        out.write((int)(value >> 16) & 0xff);
+        out.write((int)(value >> 24) & 0xff);
+    }
+
+    /**
+     * Returns the deflater to the pool when closed, the stream of the JDK would leave it to the caller.
+     */
+    private final class PooledDeflaterOutputStream extends DeflaterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private boolean closed;
+
+        PooledDeflaterOutputStream(OutputStream out, Deflater deflater) {
+            super(out, deflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (gzip) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finish();
+                if (gzip) {
+                    writeInt(out, crc.getValue());
+                    writeInt(out, def.getBytesRead());
+                }
+                out.close();
+            } finally {
+                pool.releaseDeflater(def);
+            }
+        }
+    }
+
+    /**
+     * Checks the gzip trailer at the end of the data and returns the inflater to the pool at the end
+     * of the data or when closed.
+     */
+    private final class PooledInflaterInputStream extends InflaterInputStream {
+        private final CRC32 crc = new CRC32();
+        private boolean released;
+
+        PooledInflaterInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater, BUFFER_SIZE);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (released) {
+                return -1;
+            }
+            int read;
+            try {
+                read = super.read(b, off, len);
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+            if (read == -1) {
+                try {
+                    if (gzip) {
+                        readGzipTrailer();
+                    }
+                } finally {
+                    release();
+                }
+            } else if (gzip) {
+                crc.update(b, off, read);
+            }
+            return read;
+        }
+
+        private void readGzipTrailer() throws IOException {
+            byte[] trailer = new byte[8];
+            int remaining = Math.min(inf.getRemaining(), trailer.length);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+            for (int i = remaining; i < trailer.length; i++) {
+                trailer[i] = (byte)readUByte(in);
+            }
+            if (readInt(trailer, 0) != crc.getValue()) {
+                throw new ZipException("Corrupt gzip data, invalid CRC");
+            }
+            if (readInt(trailer, 4) != (inf.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt gzip data, invalid size");
+            }
+        }
+
+        private long readInt(byte[] b, int off) {
+            long value = 0;
+            for (int i = 3; i >= 0; i--) {
+                value = value << 8 | b[off + i] & 0xff;
+            }
+            return value;
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                pool.releaseInflater(inf);
+            }
+        }
+
+        @Override
+        public int available() throws IOException {
+            return released ? 0 : super.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            release();
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps idle {@link Deflater} and {@link Inflater} instances for reuse. Creating them allocates native
+ * zlib memory, which is costly compared to compressing a small message. Instances beyond the maximum
+ * number of idle instances are ended when they are released.
+ */
+public class DeflaterPool {
+    private final int level;
+    private final boolean nowrap;
+    private final BlockingQueue<Deflater> deflaters;
+    private final BlockingQueue<Inflater> inflaters;
+    private volatile boolean closed;
+
+    /**
+     * @param nowrap true for raw deflate data as in gzip, false for the zlib format
+     */
+    public DeflaterPool(int level, boolean nowrap, int maxIdle) {
+        this.level = level;
+        this.nowrap = nowrap;
+        this.deflaters = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+        this.inflaters = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+    }
+
+    public Deflater acquireDeflater() {
+        Deflater deflater = deflaters.poll();
+        return deflater == null ? new Deflater(level, nowrap) : deflater;
+    }
+
+    public void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (closed || !deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    public Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater == null ? new Inflater(nowrap) : inflater;
+    }
+
+    public void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        if (closed || !inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    int getIdleDeflaters() {
+        return deflaters.size();
+    }
+
+    int getIdleInflaters() {
+        return inflaters.size();
+    }
+
+    /**
+     * Ends all idle instances. Instances in use are ended when they are released.
+     */
+    public void close() {
+        closed = true;
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.poll()) != null) {
+            inflater.end();
+        }
+    }
+}
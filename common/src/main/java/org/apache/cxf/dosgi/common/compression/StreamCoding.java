@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A coding of an optional library that provides a compressing output stream and a decompressing input
+ * stream, like zstd-jni or lz4-java. The library is looked up by reflection, so it is not needed unless
+ * the coding is configured.
+ */
+final class StreamCoding extends ContentCoding {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamCoding.class);
+
+    private final Constructor<?> outputStream;
+    private final Constructor<?> inputStream;
+
+    private StreamCoding(String name, Constructor<?> outputStream, Constructor<?> inputStream) {
+        super(name);
+        this.outputStream = outputStream;
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * @return the coding or null if the library is not available
+     */
+    static StreamCoding create(String name, String outputStreamClass, String inputStreamClass) {
+        ClassLoader loader = StreamCoding.class.getClassLoader();
+        try {
+            StreamCoding coding = new StreamCoding(name,
+                Class.forName(outputStreamClass, true, loader).getConstructor(OutputStream.class),
+                Class.forName(inputStreamClass, true, loader).getConstructor(InputStream.class));
+            coding.verify();
+            return coding;
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            LOG.info("Content coding {} is not available as {} is missing", name, outputStreamClass);
+            return null;
+        } catch (IOException | RuntimeException | LinkageError e) {
+            // e.g. the native library of zstd-jni cannot be loaded on this platform
+            LOG.warn("Content coding {} is not available", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Compresses and decompresses a few bytes, so a native library that cannot be loaded is found early.
+     */
+    private void verify() throws IOException {
+        byte[] data = {1, 2, 3};
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = compress(compressed)) {
+            out.write(data);
+        }
+        try (InputStream in = decompress(new ByteArrayInputStream(compressed.toByteArray()))) {
+            for (byte b : data) {
+                if (in.read() != b) {
+                    throw new IOException("Content coding " + getName() + " returned different data");
+                }
+            }
+        }
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return (OutputStream)newInstance(outputStream, out);
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return (InputStream)newInstance(inputStream, in);
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object stream) throws IOException {
+        try {
+            return constructor.newInstance(stream);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IOException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.endpoint;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service objects of the endpoints exported by this framework, by endpoint id. Imports of these
+ * endpoints in the same framework can call the service object directly instead of using HTTP.
+ */
+public final class LocalEndpoints {
+    /**
+     * Endpoint property to enable direct calls of endpoints in the same framework, defaults to false.
+     */
+    public static final String LOCAL = "org.apache.cxf.dosgi.local";
+    /**
+     * Endpoint property to copy parameters and results of direct calls, defaults to true.
+     */
+    public static final String LOCAL_COPY = "org.apache.cxf.dosgi.local.copy";
+    private static final Map<String, Object> SERVICES = new ConcurrentHashMap<>();
+
+    private LocalEndpoints() {
+    }
+
+    public static void register(String endpointId, Object service) {
+        SERVICES.put(endpointId, service);
+    }
+
+    public static void unregister(String endpointId) {
+        SERVICES.remove(endpointId);
+    }
+
+    /**
+     * @return the service object or null if the endpoint is not exported by this framework
+     */
+    public static Object get(String endpointId) {
+        return SERVICES.get(endpointId);
+    }
+}
@@ -18,26 +18,70 @@
  */
 package org.apache.cxf.dosgi.common.endpoint;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.aries.rsa.spi.Endpoint;
 import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.feature.Feature;
 import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class ServerEndpoint implements Endpoint {
+    private static final Logger LOG = LoggerFactory.getLogger(ServerEndpoint.class);
     private EndpointDescription desc;
-    private Server server;
+    private List<Server> servers;
+    private List<? extends Feature> features;
 
     public ServerEndpoint(EndpointDescription desc, Server server) {
+        this(desc, server, Collections.<Feature>emptyList());
+    }
+
+    /**
+     * @param features features of the server. Features that are {@link Closeable} are closed with the endpoint
+     */
+    public ServerEndpoint(EndpointDescription desc, Server server, List<? extends Feature> features) {
+        this(desc, Collections.singletonList(server), features);
+    }
+
+    /**
+     * @param servers the servers of an endpoint with several interfaces. They share the features
+     */
+    public ServerEndpoint(EndpointDescription desc, List<Server> servers, List<? extends Feature> features) {
         this.desc = desc;
-        this.server = server;
+        this.servers = servers;
+        this.features = features;
     }
 
+    /**
+     * @return the server of the first interface
+     */
     public Server getServer() {
-        return this.server;
+        return this.servers.get(0);
+    }
+
+    public List<Server> getServers() {
+        return this.servers;
     }
 
     @Override
     public void close() {
-        this.server.destroy();
+        LocalEndpoints.unregister(desc.getId());
+        for (Server server : servers) {
+            server.destroy();
+        }
+        for (Feature feature : features) {
+            if (feature instanceof Closeable) {
+                try {
+                    ((Closeable)feature).close();
+                } catch (IOException e) {
+                    LOG.warn("Error closing feature {}", feature, e);
+                }
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.net.HttpURLConnection;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.resilience.Cancellation;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.http.HTTPConduit;
+
+/**
+ * Lets a {@link Cancellation} abort calls of clients. The default HTTP conduit blocks in socket reads that
+ * ignore interrupts, so its connection is disconnected when the current call is cancelled.
+ */
+public class CancellationFeature extends AbstractFeature {
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getOutInterceptors().add(new AbortConnectionInterceptor());
+    }
+
+    static class AbortConnectionInterceptor extends AbstractPhaseInterceptor<Message> {
+        AbortConnectionInterceptor() {
+            super(Phase.PREPARE_SEND);
+            // the conduit opens the connection in the message sender
+            addAfter(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            Cancellation cancellation = Cancellation.get();
+            if (cancellation == null || !MessageUtils.isRequestor(message)) {
+                return;
+            }
+            Object connection = message.get(HTTPConduit.KEY_HTTP_CONNECTION);
+            if (connection instanceof HttpURLConnection) {
+                cancellation.onCancel(new Disconnect((HttpURLConnection)connection));
+            }
+        }
+    }
+
+    private static final class Disconnect implements Runnable {
+        private final HttpURLConnection connection;
+
+        Disconnect(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void run() {
+            connection.disconnect();
+        }
+    }
+}
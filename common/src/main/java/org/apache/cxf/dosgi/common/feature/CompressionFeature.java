@@ -0,0 +1,283 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.compression.CompressingOutputStream;
+import org.apache.cxf.dosgi.common.compression.ContentCoding;
+import org.apache.cxf.dosgi.common.compression.DecompressingInputStream;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Compresses the request and response bodies of remote calls with the first content coding the other
+ * side accepts. Bodies smaller than the threshold are sent unchanged.
+ * <p>
+ * Clients list their codings in the Accept-Encoding header of each request, so servers can compress the
+ * response. Servers list their codings in the Accept-Encoding header of each response as proposed by
+ * RFC 7694, so clients learn which coding to use for the requests to this server. Until then they use
+ * gzip or deflate, which every server with this feature accepts.
+ * <p>
+ * Compressed bodies are limited to the maximum size once decompressed. Servers reject larger requests
+ * with 413 Payload Too Large.
+ */
+public class CompressionFeature extends AbstractFeature {
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+    static final String CONTENT_ENCODING = "Content-Encoding";
+    static final String CONTENT_LENGTH = "Content-Length";
+    static final String VARY = "Vary";
+    static final int PAYLOAD_TOO_LARGE = 413;
+    static final int UNSUPPORTED_MEDIA_TYPE = 415;
+
+    private final List<ContentCoding> codings;
+    private final int threshold;
+    private final long maxBodySize;
+    private final String acceptEncoding;
+    private final ContentCoding defaultRequestCoding;
+    private final Map<String, ContentCoding> requestCodings = new ConcurrentHashMap<>();
+
+    /**
+     * @param codings the codings in the order of preference. Must contain gzip or deflate
+     * @param threshold minimum body size in bytes to compress
+     * @param maxBodySize maximum size in bytes of a decompressed body
+     */
+    public CompressionFeature(List<ContentCoding> codings, int threshold, long maxBodySize) {
+        this.codings = codings;
+        this.threshold = threshold;
+        this.maxBodySize = maxBodySize;
+        StringBuilder names = new StringBuilder();
+        ContentCoding builtIn = null;
+        for (ContentCoding coding : codings) {
+            names.append(names.length() == 0 ? "" : ", ").append(coding.getName());
+            if (builtIn == null && (ContentCoding.GZIP.equals(coding.getName())
+                || ContentCoding.DEFLATE.equals(coding.getName()))) {
+                builtIn = coding;
+            }
+        }
+        if (builtIn == null) {
+            throw new IllegalArgumentException("The codings must contain gzip or deflate");
+        }
+        this.acceptEncoding = names.toString();
+        this.defaultRequestCoding = builtIn;
+    }
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getOutInterceptors().add(new CompressInterceptor());
+        provider.getInInterceptors().add(new DecompressInterceptor());
+        Rejection.install(provider);
+    }
+
+    ContentCoding getCoding(String name) {
+        for (ContentCoding coding : codings) {
+            if (coding.getName().equalsIgnoreCase(name)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the first of our codings that the given Accept-Encoding header allows or null if none
+     */
+    ContentCoding selectCoding(String acceptHeader) {
+        if (acceptHeader == null) {
+            return null;
+        }
+        Set<String> accepted = new HashSet<>();
+        Set<String> refused = new HashSet<>();
+        for (String element : acceptHeader.split(",")) {
+            String[] parts = element.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (isZeroQuality(parts)) {
+                refused.add(name);
+            } else {
+                accepted.add(name);
+            }
+        }
+        for (ContentCoding coding : codings) {
+            String name = coding.getName();
+            if (!refused.contains(name) && (accepted.contains(name) || accepted.contains("*"))) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    ContentCoding getRequestCoding(Message message) {
+        ContentCoding coding = requestCodings.get(getAddress(message.getExchange()));
+        return coding == null ? defaultRequestCoding : coding;
+    }
+
+    private static String getAddress(Exchange exchange) {
+        Endpoint endpoint = exchange == null ? null : exchange.getEndpoint();
+        String address = endpoint == null ? null : endpoint.getEndpointInfo().getAddress();
+        return address == null ? "" : address;
+    }
+
+    private static void removeHeader(Message message, String name) {
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers != null) {
+            headers.remove(name);
+        }
+    }
+
+    class CompressInterceptor extends AbstractPhaseInterceptor<Message> {
+        CompressInterceptor() {
+            super(Phase.PREPARE_SEND);
+            addAfter(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            Rejection.setHeader(message, ACCEPT_ENCODING, acceptEncoding);
+            ContentCoding coding;
+            if (MessageUtils.isRequestor(message)) {
+                coding = getRequestCoding(message);
+            } else {
+                Message request = message.getExchange().getInMessage();
+                coding = request == null ? null : selectCoding(Rejection.getHeader(request, ACCEPT_ENCODING));
+            }
+            OutputStream out = message.getContent(OutputStream.class);
+            if (coding == null || out == null || Rejection.getHeader(message, CONTENT_ENCODING) != null) {
+                return;
+            }
+            message.setContent(OutputStream.class, new MessageCompressingOutputStream(out, coding, message));
+        }
+    }
+
+    class DecompressInterceptor extends AbstractPhaseInterceptor<Message> {
+        DecompressInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                learnRequestCoding(message);
+            }
+            String encoding = Rejection.getHeader(message, CONTENT_ENCODING);
+            InputStream in = message.getContent(InputStream.class);
+            if (encoding == null || in == null || "identity".equalsIgnoreCase(encoding.trim())) {
+                return;
+            }
+            ContentCoding coding = getCoding(encoding.trim());
+            if (coding == null) {
+                if (MessageUtils.isRequestor(message)) {
+                    throw new Fault(new IOException("Unsupported content coding " + encoding));
+                }
+                throw Rejection.reject(message, UNSUPPORTED_MEDIA_TYPE, -1, "Unsupported content coding "
+                                       + encoding + ", supported are " + acceptEncoding);
+            }
+            try {
+                message.setContent(InputStream.class, new MessageDecompressingInputStream(in, coding, message));
+            } catch (IOException e) {
+                throw new Fault(e);
+            }
+            removeHeader(message, CONTENT_ENCODING);
+            removeHeader(message, CONTENT_LENGTH);
+        }
+
+        private void learnRequestCoding(Message response) {
+            ContentCoding coding = selectCoding(Rejection.getHeader(response, ACCEPT_ENCODING));
+            if (coding != null) {
+                requestCodings.put(getAddress(response.getExchange()), coding);
+            }
+        }
+    }
+
+    /**
+     * Rejects requests whose body exceeds the maximum size once decompressed.
+     */
+    private final class MessageDecompressingInputStream extends DecompressingInputStream {
+        private final Message message;
+
+        MessageDecompressingInputStream(InputStream in, ContentCoding coding, Message message) throws IOException {
+            super(in, coding, maxBodySize);
+            this.message = message;
+        }
+
+        @Override
+        protected void onTooLarge(long max) {
+            if (!MessageUtils.isRequestor(message)) {
+                throw Rejection.reject(message, PAYLOAD_TOO_LARGE, -1, "Uncompressed request body exceeds "
+                                       + max + " bytes");
+            }
+        }
+    }
+
+    /**
+     * Sets the Content-Encoding header once the body reaches the threshold.
+     */
+    private final class MessageCompressingOutputStream extends CompressingOutputStream {
+        private final ContentCoding coding;
+        private final Message message;
+
+        MessageCompressingOutputStream(OutputStream out, ContentCoding coding, Message message) {
+            super(out, coding, threshold);
+            this.coding = coding;
+            this.message = message;
+        }
+
+        @Override
+        protected void onCompress() {
+            Rejection.setHeader(message, CONTENT_ENCODING, coding.getName());
+            removeHeader(message, CONTENT_LENGTH);
+            if (!MessageUtils.isRequestor(message)) {
+                Rejection.setHeader(message, VARY, ACCEPT_ENCODING);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.Closeable;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.dosgi.common.resilience.ConcurrencyLimiter;
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.OutgoingChainInterceptor;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Applies a {@link ConcurrencyLimiter} to the requests of an exported endpoint.
+ * <p>
+ * A permit is acquired as soon as the request is received, before its body is read, and
+ * released after the response is sent. Requests that get no permit within the maximum wait
+ * time, or before their deadline expires, are rejected with status 503 and a Retry-After header.
+ */
+public class ConcurrencyLimitFeature extends AbstractFeature implements Closeable {
+    /**
+     * Maximum time in milliseconds a request waits for a permit, defaults to 1000.
+     */
+    public static final String MAX_WAIT = "org.apache.cxf.dosgi.server.max.wait";
+    /**
+     * Value of the Retry-After header of rejected requests in seconds, defaults to 1.
+     */
+    public static final String RETRY_AFTER = "org.apache.cxf.dosgi.server.retry.after";
+
+    static final int SERVICE_UNAVAILABLE = 503;
+
+    private final ConcurrencyLimiter limiter;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final String endpointId;
+    private final String permitKey;
+    private ObjectName metricsName;
+
+    public ConcurrencyLimitFeature(ConcurrencyLimiter limiter, long maxWaitMillis, long retryAfterSeconds,
+                                   String endpointId) {
+        this.limiter = limiter;
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.endpointId = endpointId;
+        this.permitKey = ConcurrencyLimitFeature.class.getName() + "@" + System.identityHashCode(this);
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getInInterceptors().add(new AcquireInterceptor());
+        provider.getInInterceptors().add(new ReleaseInterceptor());
+        Rejection.install(provider);
+        if (metricsName == null) {
+            // the servers of an endpoint with several interfaces share the limiter and its metrics
+            metricsName = MetricsRegistry.register(endpointId, limiter);
+        }
+    }
+
+    @Override
+    public void close() {
+        MetricsRegistry.unregister(metricsName);
+    }
+
+    private void release(Exchange exchange, boolean success) {
+        Long start = (Long)exchange.remove(permitKey);
+        if (start != null) {
+            limiter.release(System.nanoTime() - start, success);
+        }
+    }
+
+    class AcquireInterceptor extends AbstractPhaseInterceptor<Message> {
+        AcquireInterceptor() {
+            super(Phase.RECEIVE);
+            addAfter(DeadlineFeature.ReceiveDeadlineInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            long wait = maxWaitMillis;
+            Long deadline = (Long)message.getExchange().get(DeadlineFeature.DEADLINE_KEY);
+            if (deadline != null) {
+                wait = Math.min(wait, Deadline.remainingMillis(deadline));
+            }
+            boolean acquired;
+            try {
+                acquired = limiter.acquire(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                throw Rejection.reject(message, SERVICE_UNAVAILABLE, retryAfterSeconds,
+                                       "Too many concurrent requests for endpoint " + endpointId);
+            }
+            message.getExchange().put(permitKey, System.nanoTime());
+        }
+
+        @Override
+        public void handleFault(Message message) {
+            release(message.getExchange(), false);
+        }
+    }
+
+    class ReleaseInterceptor extends AbstractPhaseInterceptor<Message> {
+        ReleaseInterceptor() {
+            super(Phase.POST_INVOKE);
+            addAfter(OutgoingChainInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            release(message.getExchange(), true);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+import org.apache.cxf.dosgi.common.resilience.RejectedCallException;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Propagates the {@link Deadline} of remote calls.
+ * <p>
+ * On clients the remaining time of the current deadline is sent in the {@link Deadline#HEADER}
+ * header and limits the receive timeout. On servers the header of the request is turned into a
+ * deadline. Requests whose deadline has expired before the service is invoked are rejected with
+ * status 504. Otherwise the deadline is current while the service runs.
+ */
+public class DeadlineFeature extends AbstractFeature {
+    static final int GATEWAY_TIMEOUT = 504;
+    static final String DEADLINE_KEY = Deadline.class.getName();
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlineFeature.class);
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getOutInterceptors().add(new SendDeadlineInterceptor());
+        provider.getInInterceptors().add(new ReceiveDeadlineInterceptor());
+        provider.getInInterceptors().add(new ApplyDeadlineInterceptor());
+        provider.getInInterceptors().add(new ClearDeadlineInterceptor());
+        Rejection.install(provider);
+    }
+
+    static class SendDeadlineInterceptor extends AbstractPhaseInterceptor<Message> {
+        SendDeadlineInterceptor() {
+            super(Phase.PREPARE_SEND);
+            addBefore(MessageSenderInterceptor.class.getName());
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            Long deadline = Deadline.get();
+            if (deadline == null || !MessageUtils.isRequestor(message)) {
+                return;
+            }
+            long remaining = Deadline.remainingMillis(deadline);
+            if (remaining <= 0) {
+                throw new Fault(new RejectedCallException("Deadline expired before sending the request"));
+            }
+            Rejection.setHeader(message, Deadline.HEADER, String.valueOf(remaining));
+            long timeout = remaining;
+            Conduit conduit = message.getExchange().getConduit(message);
+            if (conduit instanceof HTTPConduit && ((HTTPConduit)conduit).getClient() != null) {
+                long configured = ((HTTPConduit)conduit).getClient().getReceiveTimeout();
+                timeout = configured > 0 ? Math.min(configured, remaining) : remaining;
+            }
+            message.put(Message.RECEIVE_TIMEOUT, timeout);
+        }
+    }
+
+    /**
+     * Computes the deadline when the request arrives, so time spent in the server counts against it.
+     */
+    static class ReceiveDeadlineInterceptor extends AbstractPhaseInterceptor<Message> {
+        ReceiveDeadlineInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            String timeout = Rejection.getHeader(message, Deadline.HEADER);
+            if (timeout == null) {
+                return;
+            }
+            long remaining;
+            try {
+                remaining = Long.parseLong(timeout.trim());
+            } catch (NumberFormatException e) {
+                LOG.debug("Ignoring invalid {} header {}", Deadline.HEADER, timeout);
+                return;
+            }
+            if (remaining <= 0) {
+                throw Rejection.reject(message, GATEWAY_TIMEOUT, -1, "Request deadline expired");
+            }
+            message.getExchange().put(DEADLINE_KEY, System.currentTimeMillis() + remaining);
+        }
+    }
+
+    static class ApplyDeadlineInterceptor extends AbstractPhaseInterceptor<Message> {
+        ApplyDeadlineInterceptor() {
+            super(Phase.PRE_INVOKE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            Long deadline = (Long)message.getExchange().get(DEADLINE_KEY);
+            if (deadline != null && Deadline.isExpired(deadline)) {
+                throw Rejection.reject(message, GATEWAY_TIMEOUT, -1, "Request deadline expired before invocation");
+            }
+            Deadline.set(deadline);
+        }
+
+        @Override
+        public void handleFault(Message message) {
+            Deadline.set(null);
+        }
+    }
+
+    static class ClearDeadlineInterceptor extends AbstractPhaseInterceptor<Message> {
+        ClearDeadlineInterceptor() {
+            super(Phase.POST_INVOKE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (!MessageUtils.isRequestor(message)) {
+                Deadline.set(null);
+            }
+        }
+    }
+}
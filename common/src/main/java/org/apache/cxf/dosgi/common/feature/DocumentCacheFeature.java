@@ -0,0 +1,379 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.util.UrlUtils;
+import org.apache.cxf.endpoint.ConduitSelector;
+import org.apache.cxf.endpoint.PreexistingConduitSelector;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the WSDL, schema and WADL documents of an exported endpoint from memory.
+ * <p>
+ * The first GET request for a document renders it as usual. The rendered bytes are kept together with
+ * an ETag and a Last-Modified date, and later requests for the same URL are answered from them without
+ * running the interceptor chain. Conditional requests that match get status 304. The documents contain
+ * addresses derived from the request URL, so they are cached per URL and Accept header. The cache belongs to the server
+ * of one endpoint, so a re-export starts with an empty cache.
+ * <p>
+ * Cached documents are sent before any other interceptor runs, so the feature must only be used on endpoints
+ * without security, limits or other server side features that documents should pass.
+ */
+public class DocumentCacheFeature extends AbstractFeature {
+    /**
+     * Endpoint property that enables the cache if set to true. Defaults to false.
+     */
+    public static final String DOCUMENT_CACHE = "org.apache.cxf.dosgi.document.cache";
+
+    static final int MAX_DOCUMENTS = 64;
+    static final int MAX_DOCUMENT_SIZE = 2 * 1024 * 1024;
+    static final int MAX_TOTAL_SIZE = 8 * 1024 * 1024;
+    private static final int NOT_MODIFIED = 304;
+    private static final String[] DOCUMENT_QUERIES = {"wsdl", "xsd", "_wadl"};
+    private static final Logger LOG = LoggerFactory.getLogger(DocumentCacheFeature.class);
+
+    // in access order, so the least recently used documents are evicted first
+    private final Map<String, Document> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getInInterceptors().add(new DocumentCacheInterceptor());
+    }
+
+    synchronized Document getDocument(String key) {
+        return documents.get(key);
+    }
+
+    /**
+     * Caches the document and evicts the least recently used documents until at most {@link #MAX_DOCUMENTS}
+     * documents with at most {@link #MAX_TOTAL_SIZE} bytes are left.
+     */
+    synchronized void putDocument(String key, Document document) {
+        Document previous = documents.put(key, document);
+        totalSize += document.size() - (previous == null ? 0 : previous.size());
+        Iterator<Document> eldest = documents.values().iterator();
+        while (documents.size() > MAX_DOCUMENTS || totalSize > MAX_TOTAL_SIZE) {
+            totalSize -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return the cache key of a request for a document or null if the request is not for a document
+     */
+    static String getKey(Message message) {
+        if (!"GET".equals(message.get(Message.HTTP_REQUEST_METHOD))) {
+            return null;
+        }
+        String query = (String)message.get(Message.QUERY_STRING);
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        for (String name : UrlUtils.parseQueryString(query).keySet()) {
+            for (String documentQuery : DOCUMENT_QUERIES) {
+                if (documentQuery.equalsIgnoreCase(name)) {
+                    // documents like the WADL are rendered in the format the client accepts
+                    return message.get(Message.REQUEST_URL) + "?" + query + " "
+                        + Rejection.getHeader(message, "Accept");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Answers requests for cached documents. Other document requests get a back channel that caches
+     * the rendered document.
+     */
+    class DocumentCacheInterceptor extends AbstractPhaseInterceptor<Message> {
+        DocumentCacheInterceptor() {
+            super(Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            Exchange exchange = message.getExchange();
+            String key = getKey(message);
+            if (key == null || exchange.getDestination() == null || exchange.get(ConduitSelector.class) != null) {
+                return;
+            }
+            try {
+                Conduit backChannel = exchange.getDestination().getBackChannel(message);
+                Document document = getDocument(key);
+                if (document == null) {
+                    exchange.put(ConduitSelector.class,
+                                 new PreexistingConduitSelector(new CachingConduit(backChannel, key),
+                                                                exchange.getEndpoint()));
+                    return;
+                }
+                document.send(message, backChannel);
+            } catch (IOException e) {
+                throw new Fault(e);
+            }
+            message.getInterceptorChain().abort();
+        }
+    }
+
+    /**
+     * A rendered document.
+     */
+    static final class Document {
+        private final byte[] content;
+        private final String contentType;
+        private final String etag;
+        private final String lastModified;
+
+        Document(byte[] content, String contentType) {
+            this.content = content;
+            this.contentType = contentType;
+            this.etag = createETag(content);
+            this.lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+        }
+
+        boolean isNotModified(Message request) {
+            String ifNoneMatch = Rejection.getHeader(request, "If-None-Match");
+            if (ifNoneMatch != null) {
+                for (String tag : ifNoneMatch.split(",")) {
+                    String trimmed = tag.trim();
+                    if ("*".equals(trimmed) || etag.equals(trimmed) || ("W/" + etag).equals(trimmed)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            String ifModifiedSince = Rejection.getHeader(request, "If-Modified-Since");
+            if (ifModifiedSince == null) {
+                return false;
+            }
+            try {
+                return !parseDate(ifModifiedSince).isBefore(parseDate(lastModified));
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+
+        void addHeaders(Message response) {
+            Rejection.setHeader(response, "ETag", etag);
+            Rejection.setHeader(response, "Last-Modified", lastModified);
+        }
+
+        void send(Message request, Conduit backChannel) throws IOException {
+            Exchange exchange = request.getExchange();
+            Message response = new MessageImpl();
+            response.setExchange(exchange);
+            exchange.setOutMessage(response);
+            response.put(Message.PROTOCOL_HEADERS, new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER));
+            addHeaders(response);
+            boolean notModified = isNotModified(request);
+            response.put(Message.RESPONSE_CODE, notModified ? NOT_MODIFIED : 200);
+            if (contentType != null) {
+                response.put(Message.CONTENT_TYPE, contentType);
+            }
+            backChannel.prepare(response);
+            try (OutputStream out = response.getContent(OutputStream.class)) {
+                if (!notModified) {
+                    out.write(content);
+                }
+            }
+            backChannel.close(response);
+        }
+
+        String getETag() {
+            return etag;
+        }
+
+        int size() {
+            return content.length;
+        }
+
+        private static Instant parseDate(String date) {
+            return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        }
+
+        private static String createETag(byte[] content) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+                StringBuilder etag = new StringBuilder("\"");
+                for (int i = 0; i < 16; i++) {
+                    etag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+                        .append(Character.forDigit(digest[i] & 0xF, 16));
+                }
+                return etag.append('"').toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Back channel that buffers the rendered document. When the document is complete it is cached
+     * and sent with its ETag. Error responses and encoded or very large documents are passed through
+     * without caching.
+     */
+    final class CachingConduit implements Conduit {
+        private final Conduit delegate;
+        private final String key;
+
+        CachingConduit(Conduit delegate, String key) {
+            this.delegate = delegate;
+            this.key = key;
+        }
+
+        @Override
+        public void prepare(Message message) throws IOException {
+            delegate.prepare(message);
+            OutputStream out = message.getContent(OutputStream.class);
+            if (out != null) {
+                message.setContent(OutputStream.class, new CachingOutputStream(message, out, key));
+            }
+        }
+
+        @Override
+        public void close(Message message) throws IOException {
+            delegate.close(message);
+        }
+
+        @Override
+        public EndpointReferenceType getTarget() {
+            return delegate.getTarget();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        @Override
+        public void setMessageObserver(MessageObserver observer) {
+            delegate.setMessageObserver(observer);
+        }
+
+        @Override
+        public MessageObserver getMessageObserver() {
+            return delegate.getMessageObserver();
+        }
+    }
+
+    final class CachingOutputStream extends OutputStream {
+        private final Message message;
+        private final OutputStream out;
+        private final String key;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean closed;
+
+        CachingOutputStream(Message message, OutputStream out, String key) {
+            this.message = message;
+            this.out = out;
+            this.key = key;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (buffer != null && buffer.size() + len > MAX_DOCUMENT_SIZE) {
+                passThrough();
+            }
+            if (buffer == null) {
+                out.write(b, off, len);
+            } else {
+                buffer.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer == null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (buffer != null && isCacheable()) {
+                Document document = new Document(buffer.toByteArray(), (String)message.get(Message.CONTENT_TYPE));
+                putDocument(key, document);
+                document.addHeaders(message);
+                LOG.debug("Cached document {} with ETag {}", key, document.getETag());
+            }
+            passThrough();
+            out.close();
+        }
+
+        private boolean isCacheable() {
+            Integer status = (Integer)message.get(Message.RESPONSE_CODE);
+            return (status == null || status == 200) && Rejection.getHeader(message, "Content-Encoding") == null;
+        }
+
+        /**
+         * Gives up caching and sends what has been buffered so far.
+         */
+        private void passThrough() throws IOException {
+            if (buffer != null) {
+                buffer.writeTo(out);
+                buffer = null;
+            }
+        }
+    }
+}
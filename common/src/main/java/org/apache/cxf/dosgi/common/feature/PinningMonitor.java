@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports virtual threads of exported endpoints that are pinned to their carrier thread, e.g. because
+ * the service blocks inside a synchronized block or a native method. A pinned virtual thread blocks
+ * its carrier, so a few of them can stall all virtual threads of the JVM.
+ * <p>
+ * The {@code jdk.VirtualThreadPinned} events are read from a JFR event stream. Pinnings longer than
+ * the threshold are logged with their stack trace and counted in the metrics of the endpoint.
+ * The JFR API is called by reflection as DOSGi is compiled for Java 8.
+ */
+final class PinningMonitor {
+    /**
+     * System property with the minimum duration in milliseconds of a reported pinning, defaults to 20.
+     */
+    static final String THRESHOLD = "org.apache.cxf.dosgi.virtual.threads.pinned.threshold";
+    static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final long DEFAULT_THRESHOLD = 20;
+    private static final Logger LOG = LoggerFactory.getLogger(PinningMonitor.class);
+    private static final Map<String, VirtualThreadDispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+    private static AutoCloseable stream;
+
+    private PinningMonitor() {
+    }
+
+    static synchronized void register(VirtualThreadDispatcher dispatcher) {
+        DISPATCHERS.put(dispatcher.getThreadPrefix(), dispatcher);
+        if (stream == null) {
+            stream = start(Long.getLong(THRESHOLD, DEFAULT_THRESHOLD));
+        }
+    }
+
+    static synchronized void unregister(VirtualThreadDispatcher dispatcher) {
+        DISPATCHERS.remove(dispatcher.getThreadPrefix(), dispatcher);
+        if (DISPATCHERS.isEmpty() && stream != null) {
+            try {
+                stream.close();
+            } catch (Exception e) {
+                LOG.debug("Error closing the JFR event stream", e);
+            }
+            stream = null;
+        }
+    }
+
+    /**
+     * @param threadName name of the pinned virtual thread
+     * @param details description of the event including the stack trace
+     */
+    static void onPinned(String threadName, long durationNanos, String details) {
+        VirtualThreadDispatcher dispatcher = find(threadName);
+        if (dispatcher == null) {
+            // a virtual thread not started by DOSGi
+            return;
+        }
+        dispatcher.onPinned(durationNanos);
+        LOG.warn("Virtual thread {} was pinned to its carrier thread for {} ms. "
+                 + "Avoid blocking in synchronized blocks or native methods of the service. {}",
+                 threadName, durationNanos / 1000000, details);
+    }
+
+    private static VirtualThreadDispatcher find(String threadName) {
+        if (threadName == null) {
+            return null;
+        }
+        for (Map.Entry<String, VirtualThreadDispatcher> entry : DISPATCHERS.entrySet()) {
+            if (threadName.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static AutoCloseable start(long thresholdMillis) {
+        try {
+            Class<?> streamClass = loadClass("jdk.jfr.consumer.RecordingStream");
+            Object recordingStream = streamClass.getConstructor().newInstance();
+            Object settings = streamClass.getMethod("enable", String.class).invoke(recordingStream, EVENT);
+            loadClass("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class)
+                .invoke(settings, Duration.ofMillis(thresholdMillis));
+            streamClass.getMethod("onEvent", String.class, Consumer.class)
+                .invoke(recordingStream, EVENT, new EventHandler());
+            streamClass.getMethod("startAsync").invoke(recordingStream);
+            return (AutoCloseable)recordingStream;
+        } catch (Exception | LinkageError e) {
+            LOG.info("Pinning of virtual threads is not monitored as JFR event streaming is not available: {}",
+                     e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * JDK packages other than java.* are not visible to bundles by default.
+     */
+    private static Class<?> loadClass(String name) throws ClassNotFoundException {
+        return Class.forName(name, true, ClassLoader.getSystemClassLoader());
+    }
+
+    private static final class EventHandler implements Consumer<Object> {
+        private final Method getThread;
+        private final Method getJavaName;
+        private final Method getDuration;
+
+        EventHandler() throws ClassNotFoundException, NoSuchMethodException {
+            Class<?> eventClass = loadClass("jdk.jfr.consumer.RecordedEvent");
+            getThread = eventClass.getMethod("getThread");
+            getDuration = eventClass.getMethod("getDuration");
+            getJavaName = loadClass("jdk.jfr.consumer.RecordedThread").getMethod("getJavaName");
+        }
+
+        @Override
+        public void accept(Object event) {
+            try {
+                Object thread = getThread.invoke(event);
+                String threadName = thread == null ? null : (String)getJavaName.invoke(thread);
+                Duration duration = (Duration)getDuration.invoke(event);
+                onPinned(threadName, duration.toNanos(), event.toString());
+            } catch (Exception e) {
+                LOG.debug("Unable to read JFR event {}", event, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.Closeable;
+import java.security.Principal;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.dosgi.common.resilience.RateLimiter;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.apache.cxf.security.SecurityContext;
+import org.apache.cxf.transport.http.AbstractHTTPDestination;
+
+/**
+ * Applies a {@link RateLimiter} to the requests of an exported endpoint. Throttled requests are
+ * rejected with status 429 and a Retry-After header. Requests are checked as soon as they are
+ * received, except if clients are told apart by principal. Then the check runs after the
+ * authentication interceptors, just before the service is invoked.
+ */
+public class RateLimitFeature extends AbstractFeature implements Closeable {
+    static final int TOO_MANY_REQUESTS = 429;
+
+    private final RateLimiter limiter;
+    private final String endpointId;
+    private ObjectName metricsName;
+
+    public RateLimitFeature(RateLimiter limiter, String endpointId) {
+        this.limiter = limiter;
+        this.endpointId = endpointId;
+    }
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getInInterceptors().add(new RateLimitInterceptor());
+        Rejection.install(provider);
+        if (metricsName == null) {
+            // the servers of an endpoint with several interfaces share the limiter and its metrics
+            metricsName = MetricsRegistry.register(endpointId, limiter);
+        }
+    }
+
+    @Override
+    public void close() {
+        MetricsRegistry.unregister(metricsName);
+    }
+
+    String getClientKey(Message message) {
+        String keyType = limiter.getClientKey();
+        if (!limiter.isClientLimited() || keyType == null) {
+            return null;
+        }
+        if (RateLimiter.KEY_IP.equals(keyType)) {
+            HttpServletRequest request = (HttpServletRequest)message.get(AbstractHTTPDestination.HTTP_REQUEST);
+            return request == null ? null : request.getRemoteAddr();
+        }
+        if (RateLimiter.KEY_PRINCIPAL.equals(keyType)) {
+            SecurityContext context = message.get(SecurityContext.class);
+            Principal principal = context == null ? null : context.getUserPrincipal();
+            return principal == null ? null : principal.getName();
+        }
+        if (keyType.startsWith(RateLimiter.KEY_HEADER_PREFIX)) {
+            return Rejection.getHeader(message, keyType.substring(RateLimiter.KEY_HEADER_PREFIX.length()));
+        }
+        return null;
+    }
+
+    class RateLimitInterceptor extends AbstractPhaseInterceptor<Message> {
+        RateLimitInterceptor() {
+            super(RateLimiter.KEY_PRINCIPAL.equals(limiter.getClientKey()) ? Phase.PRE_INVOKE : Phase.RECEIVE);
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            long wait = limiter.tryAcquire(getClientKey(message));
+            if (wait > 0) {
+                long retryAfter = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+                throw Rejection.reject(message, TOO_MANY_REQUESTS, retryAfter,
+                                       "Request rate exceeded for endpoint " + endpointId);
+            }
+        }
+    }
+}
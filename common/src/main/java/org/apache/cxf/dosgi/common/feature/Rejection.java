@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.cxf.dosgi.common.resilience.RejectedCallException;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.message.Message;
+
+/**
+ * A request that an exported endpoint refused to process. Interceptors reject requests with
+ * {@link #reject(Message, int, long, String)}. The {@link RejectionInterceptor} then sends the
+ * given HTTP status and an optional Retry-After header instead of the generic fault status.
+ */
+public final class Rejection {
+    private static final String PROPAGATE_EXCEPTION = "org.apache.cxf.propagate.exception";
+    private final int status;
+    private final long retryAfterSeconds;
+
+    private Rejection(int status, long retryAfterSeconds) {
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * @param retryAfterSeconds value of the Retry-After header or a negative value to omit it
+     * @return the fault to throw from the interceptor
+     */
+    public static Fault reject(Message message, int status, long retryAfterSeconds, String reason) {
+        message.getExchange().put(Rejection.class, new Rejection(status, retryAfterSeconds));
+        // JAX-RS would otherwise hand faults thrown while reading the body to the container, which answers 500
+        message.put(PROPAGATE_EXCEPTION, Boolean.FALSE);
+        Fault fault = new Fault(new RejectedCallException(reason));
+        fault.setStatusCode(status);
+        return fault;
+    }
+
+    /**
+     * Adds the {@link RejectionInterceptor} to the out fault chain unless it is already present.
+     */
+    public static void install(InterceptorProvider provider) {
+        for (Interceptor<? extends Message> interceptor : provider.getOutFaultInterceptors()) {
+            if (interceptor instanceof RejectionInterceptor) {
+                return;
+            }
+        }
+        provider.getOutFaultInterceptors().add(new RejectionInterceptor());
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    static String getHeader(Message message, String name) {
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    static void setHeader(Message message, String name, String value) {
+        Map<String, List<String>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers == null) {
+            headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            message.put(Message.PROTOCOL_HEADERS, headers);
+        }
+        headers.put(name, Collections.singletonList(value));
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Out fault interceptor that answers requests rejected by {@link Rejection} with their status.
+ */
+public class RejectionInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    public RejectionInterceptor() {
+        super(Phase.PREPARE_SEND);
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        Rejection rejection = message.getExchange().get(Rejection.class);
+        if (rejection == null) {
+            return;
+        }
+        message.put(Message.RESPONSE_CODE, rejection.getStatus());
+        if (rejection.getRetryAfterSeconds() >= 0) {
+            Rejection.setHeader(message, "Retry-After", String.valueOf(rejection.getRetryAfterSeconds()));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.continuations.Continuation;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.continuations.SuspendedInvocationException;
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+import org.apache.cxf.dosgi.common.util.VirtualThreads;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.invoker.Invoker;
+
+/**
+ * Invokes the service of an exported endpoint on virtual threads.
+ * <p>
+ * The request is suspended with a CXF {@link Continuation}, so the thread of the HTTP server returns
+ * to its pool while the service runs on a new virtual thread. When the service has returned the request
+ * is resumed and the response is written by a thread of the HTTP server. Transports without
+ * continuations and one way calls invoke the service directly.
+ */
+public class VirtualThreadDispatcher implements Invoker, VirtualThreadDispatcherMXBean {
+    private final Invoker delegate;
+    private final Map<Service, Invoker> serviceDelegates = new ConcurrentHashMap<>();
+    private final String threadPrefix;
+    private final ExecutorService executor;
+    private final String outcomeKey;
+    private final AtomicLong dispatchedCalls = new AtomicLong();
+    private final AtomicLong directCalls = new AtomicLong();
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private final AtomicLong maxPinnedNanos = new AtomicLong();
+
+    public VirtualThreadDispatcher(Invoker delegate, String endpointId) {
+        this(delegate, endpointId, VirtualThreads.newThreadPerTaskExecutor(getThreadPrefix(endpointId)));
+    }
+
+    VirtualThreadDispatcher(Invoker delegate, String endpointId, ExecutorService executor) {
+        this.delegate = delegate;
+        this.threadPrefix = getThreadPrefix(endpointId);
+        this.executor = executor;
+        this.outcomeKey = VirtualThreadDispatcher.class.getName() + "@" + System.identityHashCode(this);
+    }
+
+    @Override
+    public Object invoke(Exchange exchange, Object o) {
+        Outcome outcome = (Outcome)exchange.remove(outcomeKey);
+        if (outcome != null) {
+            return outcome.get();
+        }
+        Continuation continuation = getContinuation(exchange);
+        if (continuation == null) {
+            directCalls.incrementAndGet();
+            return getDelegate(exchange).invoke(exchange, o);
+        }
+        Dispatch dispatch = new Dispatch(exchange, o, continuation);
+        continuation.suspend(0);
+        try {
+            executor.execute(dispatch);
+            dispatchedCalls.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            dispatch.complete(new Outcome(null, e));
+        }
+        // the service now runs on the virtual thread, the chain resumes on a thread of the HTTP server
+        Deadline.set(null);
+        throw new SuspendedInvocationException();
+    }
+
+    /**
+     * Dispatches the calls of another service of the same endpoint. The service keeps its invoker as delegate.
+     */
+    public void addService(Service service) {
+        serviceDelegates.put(service, service.getInvoker());
+        service.setInvoker(this);
+    }
+
+    private Invoker getDelegate(Exchange exchange) {
+        Invoker invoker = exchange.getService() == null ? null : serviceDelegates.get(exchange.getService());
+        return invoker == null ? delegate : invoker;
+    }
+
+    private static Continuation getContinuation(Exchange exchange) {
+        Message in = exchange.getInMessage();
+        if (exchange.isOneWay() || in == null) {
+            return null;
+        }
+        ContinuationProvider provider = in.get(ContinuationProvider.class);
+        Continuation continuation = provider == null ? null : provider.getContinuation();
+        return continuation != null && continuation.isNew() ? continuation : null;
+    }
+
+    /**
+     * Virtual threads of an endpoint have names starting with this prefix.
+     */
+    static String getThreadPrefix(String endpointId) {
+        return "dosgi-vt[" + endpointId + "]-";
+    }
+
+    String getThreadPrefix() {
+        return threadPrefix;
+    }
+
+    void onPinned(long durationNanos) {
+        pinnedEvents.incrementAndGet();
+        long max = maxPinnedNanos.get();
+        while (durationNanos > max && !maxPinnedNanos.compareAndSet(max, durationNanos)) {
+            max = maxPinnedNanos.get();
+        }
+    }
+
+    void close() {
+        executor.shutdown();
+    }
+
+    @Override
+    public long getDispatchedCalls() {
+        return dispatchedCalls.get();
+    }
+
+    @Override
+    public long getDirectCalls() {
+        return directCalls.get();
+    }
+
+    @Override
+    public int getActiveCalls() {
+        return activeCalls.get();
+    }
+
+    @Override
+    public long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    @Override
+    public double getMaxPinnedMillis() {
+        return maxPinnedNanos.get() / 1000000.0;
+    }
+
+    private static final class Outcome {
+        private final Object result;
+        private final Throwable failure;
+
+        Outcome(Object result, Throwable failure) {
+            this.result = result;
+            this.failure = failure;
+        }
+
+        Object get() {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException)failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error)failure;
+            }
+            return result;
+        }
+    }
+
+    private final class Dispatch implements Runnable {
+        private final Exchange exchange;
+        private final Object invokee;
+        private final Continuation continuation;
+        private final ClassLoader contextClassLoader;
+        private final Long deadline;
+
+        Dispatch(Exchange exchange, Object invokee, Continuation continuation) {
+            this.exchange = exchange;
+            this.invokee = invokee;
+            this.continuation = continuation;
+            this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+            this.deadline = Deadline.get();
+        }
+
+        @Override
+        public void run() {
+            activeCalls.incrementAndGet();
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            Deadline.set(deadline);
+            Outcome outcome;
+            try {
+                outcome = new Outcome(getDelegate(exchange).invoke(exchange, invokee), null);
+            } catch (RuntimeException | Error e) {
+                outcome = new Outcome(null, e);
+            } finally {
+                activeCalls.decrementAndGet();
+            }
+            complete(outcome);
+        }
+
+        void complete(Outcome outcome) {
+            exchange.put(outcomeKey, outcome);
+            continuation.resume();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.Closeable;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.endpoint.Server;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.service.Service;
+
+/**
+ * Invokes the service of an exported endpoint on virtual threads using a {@link VirtualThreadDispatcher},
+ * so blocking services do not need a large thread pool in the HTTP server. Needs Java 21 or later.
+ */
+public class VirtualThreadFeature extends AbstractFeature implements Closeable {
+    /**
+     * Invokes the service on virtual threads if true, defaults to false.
+     */
+    public static final String VIRTUAL_THREADS = "org.apache.cxf.dosgi.server.virtual.threads";
+
+    private final String endpointId;
+    private VirtualThreadDispatcher dispatcher;
+    private ObjectName metricsName;
+
+    public VirtualThreadFeature(String endpointId) {
+        this.endpointId = endpointId;
+    }
+
+    @Override
+    public void initialize(Server server, Bus bus) {
+        Service service = server.getEndpoint().getService();
+        if (dispatcher != null) {
+            // further servers of an endpoint with several interfaces share the dispatcher
+            dispatcher.addService(service);
+            return;
+        }
+        dispatcher = new VirtualThreadDispatcher(service.getInvoker(), endpointId);
+        service.setInvoker(dispatcher);
+        PinningMonitor.register(dispatcher);
+        metricsName = MetricsRegistry.register(endpointId, dispatcher);
+    }
+
+    public VirtualThreadDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    public void close() {
+        if (dispatcher != null) {
+            MetricsRegistry.unregister(metricsName);
+            PinningMonitor.unregister(dispatcher);
+            dispatcher.close();
+        }
+    }
+}
@@ -20,20 +20,41 @@ package org.apache.cxf.dosgi.common.handlers;
 
 import static org.apache.cxf.dosgi.common.util.PropertyHelper.getMultiValueProperty;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.aries.rsa.spi.DistributionProvider;
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.feature.CancellationFeature;
+import org.apache.cxf.dosgi.common.feature.ConcurrencyLimitFeature;
+import org.apache.cxf.dosgi.common.feature.DeadlineFeature;
+import org.apache.cxf.dosgi.common.feature.DocumentCacheFeature;
+import org.apache.cxf.dosgi.common.feature.RateLimitFeature;
+import org.apache.cxf.dosgi.common.feature.VirtualThreadFeature;
 import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
 import org.apache.cxf.dosgi.common.intent.IntentManager;
+import org.apache.cxf.dosgi.common.proxy.LocalInvocationHandler;
+import org.apache.cxf.dosgi.common.resilience.ConcurrencyLimiter;
+import org.apache.cxf.dosgi.common.resilience.RateLimiter;
+import org.apache.cxf.dosgi.common.resilience.ServerBulkhead;
+import org.apache.cxf.dosgi.common.transport.TransportIntent;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.apache.cxf.dosgi.common.util.VirtualThreads;
 import org.apache.cxf.endpoint.AbstractEndpointFactory;
+import org.apache.cxf.feature.Feature;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
 import org.osgi.service.remoteserviceadmin.EndpointDescription;
 import org.osgi.service.remoteserviceadmin.RemoteConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public abstract class BaseDistributionProvider implements DistributionProvider {
+    private static final Logger LOG = LoggerFactory.getLogger(BaseDistributionProvider.class);
 
     protected IntentManager intentManager;
     protected HttpServiceManager httpServiceManager;
@@ -69,6 +90,146 @@ public abstract class BaseDistributionProvider implements DistributionProvider {
         return bus;
     }
 
+    /**
+     * Returns the address of the endpoint followed by the alternate addresses of its replicas.
+     */
+    protected List<String> getAddresses(String address, Map<String, Object> endpointProps,
+                                        String alternatesPropName) {
+        List<String> addresses = new ArrayList<>();
+        addresses.add(address);
+        for (String alternate : getMultiValueProperty(endpointProps.get(alternatesPropName))) {
+            if (!addresses.contains(alternate)) {
+                addresses.add(alternate);
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * Returns the features of the given intents followed by the features every endpoint uses.
+     */
+    protected List<Feature> getFeatures(List<Object> intents) {
+        List<Feature> features = new ArrayList<>(intentManager.getIntents(Feature.class, intents));
+        features.add(new DeadlineFeature());
+        features.add(new CancellationFeature());
+        return features;
+    }
+
+    /**
+     * Adds the features that protect an exported endpoint as configured by its properties
+     * and the {@link RateLimiter} and {@link ConcurrencyLimiter} intents. Also adds the
+     * {@link DocumentCacheFeature} unless it is disabled and the {@link VirtualThreadFeature}
+     * if the endpoint asks for virtual threads.
+     */
+    protected void addServerFeatures(AbstractEndpointFactory factory, EndpointDescription epd,
+                                     List<Object> intents) {
+        for (RateLimiter limiter : intentManager.getIntents(RateLimiter.class, intents)) {
+            factory.getFeatures().add(new RateLimitFeature(limiter, epd.getId()));
+        }
+        for (ConcurrencyLimiter limiter : intentManager.getIntents(ConcurrencyLimiter.class, intents)) {
+            factory.getFeatures().add(createLimitFeature(limiter, epd));
+        }
+        Map<String, Object> props = epd.getProperties();
+        if (props.get(ServerBulkhead.MAX_CONCURRENT) != null) {
+            int maxConcurrent = (int)PropertyHelper.getLongProperty(props, ServerBulkhead.MAX_CONCURRENT,
+                                                                    Integer.MAX_VALUE);
+            int maxQueue = (int)PropertyHelper.getLongProperty(props, ServerBulkhead.MAX_QUEUE, maxConcurrent);
+            factory.getFeatures().add(createLimitFeature(new ServerBulkhead(maxConcurrent, maxQueue), epd));
+        }
+        if (PropertyHelper.getBooleanProperty(props, DocumentCacheFeature.DOCUMENT_CACHE, false)) {
+            // cached documents skip the interceptors, including those of security intents and limits
+            if (intents.isEmpty() && props.get(ServerBulkhead.MAX_CONCURRENT) == null) {
+                factory.getFeatures().add(new DocumentCacheFeature());
+            } else {
+                LOG.info("Endpoint {} does not cache its documents as it has intents or server side limits",
+                         epd.getId());
+            }
+        }
+        if (PropertyHelper.getBooleanProperty(props, VirtualThreadFeature.VIRTUAL_THREADS, false)) {
+            if (VirtualThreads.isSupported()) {
+                factory.getFeatures().add(new VirtualThreadFeature(epd.getId()));
+            } else {
+                LOG.warn("Endpoint {} asks for virtual threads, which need Java 21 or later. "
+                         + "Its services run on the threads of the HTTP server", epd.getId());
+            }
+        }
+    }
+
+    /**
+     * Applies the transport intents to the bus of an exported endpoint before its server is created.
+     */
+    protected void configureServerTransport(Bus bus, List<Object> intents) {
+        for (TransportIntent transport : intentManager.getIntents(TransportIntent.class, intents)) {
+            transport.configureServer(bus);
+        }
+    }
+
+    /**
+     * Applies the transport intents to the client factory of an imported endpoint.
+     */
+    protected void configureClientTransport(AbstractEndpointFactory factory, Class<?> serviceClass,
+                                            List<Object> intents) {
+        for (TransportIntent transport : intentManager.getIntents(TransportIntent.class, intents)) {
+            transport.configureClient(factory, serviceClass);
+        }
+    }
+
+    protected ConcurrencyLimitFeature createLimitFeature(ConcurrencyLimiter limiter, EndpointDescription epd) {
+        Map<String, Object> props = epd.getProperties();
+        return new ConcurrencyLimitFeature(limiter,
+            PropertyHelper.getLongProperty(props, ConcurrencyLimitFeature.MAX_WAIT, 1000),
+            PropertyHelper.getLongProperty(props, ConcurrencyLimitFeature.RETRY_AFTER, 1),
+            epd.getId());
+    }
+
+    /**
+     * Offers the service of an exported endpoint for direct calls of imports in this framework if the endpoint
+     * asks for it. Endpoints with intents or a server bulkhead are not offered, as direct calls would bypass
+     * their server side features like security and limits.
+     */
+    protected void registerLocalService(EndpointDescription epd, Object service, List<Object> intents) {
+        Map<String, Object> props = epd.getProperties();
+        if (!PropertyHelper.getBooleanProperty(props, LocalEndpoints.LOCAL, false)) {
+            return;
+        }
+        if (!intents.isEmpty() || props.get(ServerBulkhead.MAX_CONCURRENT) != null) {
+            LOG.info("Endpoint {} is not called directly as it has intents or server side limits", epd.getId());
+            return;
+        }
+        LocalEndpoints.register(epd.getId(), service);
+    }
+
+    /**
+     * Returns an object that calls the service directly if the endpoint is exported by the framework of
+     * the consumer for direct calls and the consumer sees the same interface classes.
+     *
+     * @return the local service or null if the endpoint has to be called remotely
+     */
+    protected Object getLocalService(BundleContext consumerContext, Class<?>[] interfaces,
+                                     EndpointDescription endpoint) {
+        Map<String, Object> props = endpoint.getProperties();
+        String frameworkUUID = endpoint.getFrameworkUUID();
+        if (frameworkUUID == null || consumerContext == null
+            || !PropertyHelper.getBooleanProperty(props, LocalEndpoints.LOCAL, false)
+            || !frameworkUUID.equals(consumerContext.getProperty(Constants.FRAMEWORK_UUID))) {
+            return null;
+        }
+        Object service = LocalEndpoints.get(endpoint.getId());
+        for (Class<?> iClass : interfaces) {
+            if (!iClass.isInstance(service)) {
+                return null;
+            }
+        }
+        boolean copy = PropertyHelper.getBooleanProperty(props, LocalEndpoints.LOCAL_COPY, true);
+        if (copy && !LocalInvocationHandler.canCopy(interfaces)) {
+            LOG.info("Endpoint {} is not called directly as its methods use classes that can not be copied",
+                     endpoint.getId());
+            return null;
+        }
+        LOG.info("Calling endpoint {} directly as it is exported by this framework", endpoint.getId());
+        return LocalInvocationHandler.createForEndpoint(endpoint.getId(), interfaces, copy);
+    }
+
     protected void addContextProperties(AbstractEndpointFactory factory, Map<String, Object> sd, String propName) {
         @SuppressWarnings("unchecked")
         Map<String, Object> props = (Map<String, Object>)sd.get(propName);
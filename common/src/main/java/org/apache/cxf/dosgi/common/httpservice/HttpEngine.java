@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+
+/**
+ * Makes a bus use an embedded HTTP engine and tunes the engine of the port of an endpoint.
+ * Implementations are only loaded when the engine is selected, so the engine libraries are optional.
+ */
+interface HttpEngine {
+
+    /**
+     * Engines are shared by all endpoints on the same port. The settings of the first endpoint apply,
+     * differing settings of later endpoints are logged with {@link HttpEngines#checkSetting}.
+     */
+    void configure(Bus bus, URI address, Map<String, Object> endpointProps) throws Exception;
+}
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.util.PropertyUtils;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Selects the embedded HTTP engine of endpoints that are exported with an absolute http or https address.
+ * Without the {@link #ENGINE} property CXF uses the engine it finds first. The threads and the idle timeout
+ * are only tuned for http addresses, https engines are configured with the TLS settings of CXF. Endpoints
+ * with the {@code http2} intent get an undertow engine that also serves h2c.
+ */
+public final class HttpEngines {
+    /**
+     * Embedded HTTP engine of the endpoint: jetty, netty or undertow.
+     */
+    public static final String ENGINE = "org.apache.cxf.dosgi.http.engine";
+    /**
+     * Number of IO threads of the engine, supported by undertow.
+     */
+    public static final String IO_THREADS = "org.apache.cxf.dosgi.http.engine.io.threads";
+    /**
+     * Minimum number of worker threads, supported by jetty and undertow.
+     */
+    public static final String MIN_THREADS = "org.apache.cxf.dosgi.http.engine.min.threads";
+    /**
+     * Maximum number of worker threads.
+     */
+    public static final String MAX_THREADS = "org.apache.cxf.dosgi.http.engine.max.threads";
+    /**
+     * Time in milliseconds after which idle connections are closed.
+     */
+    public static final String IDLE_TIMEOUT = "org.apache.cxf.dosgi.http.engine.idle.timeout";
+    /**
+     * Bus property of endpoints whose engine should accept HTTP/2 connections, set by the {@code http2} intent.
+     */
+    public static final String HTTP2 = "org.apache.cxf.dosgi.http.engine.http2";
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpEngines.class);
+    private static final String[] SETTINGS = {IO_THREADS, MIN_THREADS, MAX_THREADS, IDLE_TIMEOUT};
+    private static final String HTTP2_ENGINE = "undertow";
+    private static final Map<String, String> ENGINES = new HashMap<>();
+    static {
+        ENGINES.put("jetty", HttpEngines.class.getPackage().getName() + ".JettyEngine");
+        ENGINES.put("netty", HttpEngines.class.getPackage().getName() + ".NettyEngine");
+        ENGINES.put("undertow", HttpEngines.class.getPackage().getName() + ".UndertowEngine");
+    }
+
+    private HttpEngines() {
+    }
+
+    /**
+     * Configures the engine selected by the endpoint properties on the bus of the endpoint.
+     *
+     * @throws IllegalArgumentException if the engine is unknown or its libraries are not available
+     */
+    public static void configure(Bus bus, String address, Map<String, Object> endpointProps) {
+        String name = PropertyHelper.getProperty(endpointProps, ENGINE);
+        if (address == null || !address.startsWith("http")) {
+            return;
+        }
+        if (isHttp2(bus) && (name == null || !HTTP2_ENGINE.equals(name.trim().toLowerCase()))) {
+            LOG.warn("HTTP/2 is only served by the undertow engine, set {}=undertow. Endpoint {} serves HTTP/1.1",
+                     ENGINE, address);
+        }
+        if (name == null) {
+            return;
+        }
+        String className = ENGINES.get(name.trim().toLowerCase());
+        if (className == null) {
+            throw new IllegalArgumentException("Unknown HTTP engine " + name + ", supported are " + ENGINES.keySet());
+        }
+        try {
+            HttpEngine engine = (HttpEngine)Class.forName(className).newInstance();
+            URI uri = URI.create(address);
+            engine.configure(bus, uri, endpointProps);
+            if (!"http".equals(uri.getScheme())) {
+                warnIgnoredSettings(address, endpointProps);
+                if (isHttp2(bus) && HTTP2_ENGINE.equals(name.trim().toLowerCase())) {
+                    LOG.warn("HTTP/2 is only served on http addresses. Endpoint {} serves HTTP/1.1", address);
+                }
+            }
+        } catch (LinkageError | ClassNotFoundException e) {
+            throw new IllegalArgumentException("HTTP engine " + name + " is not available", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to configure HTTP engine " + name + " for " + address, e);
+        }
+    }
+
+    private static void warnIgnoredSettings(String address, Map<String, Object> endpointProps) {
+        for (String setting : SETTINGS) {
+            if (endpointProps.get(setting) != null) {
+                LOG.warn("{} is ignored for endpoint {}, as engines are only tuned for http addresses",
+                         setting, address);
+            }
+        }
+    }
+
+    static boolean isHttp2(Bus bus) {
+        return PropertyUtils.isTrue(bus.getProperty(HTTP2));
+    }
+
+    /**
+     * Warns if an endpoint on a port with an existing engine asks for a setting the engine was not created with.
+     *
+     * @param requested the value of the setting the endpoint asks for or null if it does not set it
+     * @param current the value of the existing engine or null if it uses its default
+     * @return false if the values differ
+     */
+    static boolean checkSetting(URI address, String setting, Integer requested, Integer current) {
+        if (requested == null || requested.equals(current)) {
+            return true;
+        }
+        LOG.warn("{}={} is ignored for endpoint {}. The HTTP engine on port {} was created by an earlier endpoint "
+                 + "with {}", setting, requested, address, address.getPort(),
+                 current == null ? "its default" : current);
+        return false;
+    }
+
+    /**
+     * @return the value of the setting or null if the endpoint does not set it
+     */
+    static Integer getSetting(Map<String, Object> endpointProps, String setting) {
+        return endpointProps.get(setting) == null ? null : getInt(endpointProps, setting, 0);
+    }
+
+    static int getInt(Map<String, Object> endpointProps, String name, int defaultValue) {
+        return (int)PropertyHelper.getLongProperty(endpointProps, name, defaultValue);
+    }
+}
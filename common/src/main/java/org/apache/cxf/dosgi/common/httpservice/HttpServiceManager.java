@@ -25,6 +25,7 @@ import java.util.Hashtable;
 import java.util.Map;
 
 import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.transport.Transports;
 import org.apache.cxf.transport.http.DestinationRegistry;
 import org.apache.cxf.transport.http.DestinationRegistryImpl;
 import org.apache.cxf.transport.servlet.CXFNonSpringServlet;
@@ -134,7 +135,7 @@ public class HttpServiceManager {
     }
 
     public String getAbsoluteAddress(String contextRoot, String endpointAddress) {
-        if (endpointAddress.startsWith("http")) {
+        if (endpointAddress.startsWith("http") || Transports.isTransportAddress(endpointAddress)) {
             return endpointAddress;
         }
         String effContextRoot = contextRoot == null ? cxfServletAlias : contextRoot;
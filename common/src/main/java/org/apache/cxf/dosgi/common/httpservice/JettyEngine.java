@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.transport.http.HttpDestinationFactory;
+import org.apache.cxf.transport.http_jetty.JettyDestinationFactory;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngine;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngineFactory;
+import org.apache.cxf.transport.http_jetty.ThreadingParameters;
+
+class JettyEngine implements HttpEngine {
+
+    @Override
+    public void configure(Bus bus, URI address, Map<String, Object> endpointProps) throws Exception {
+        bus.setExtension(new JettyDestinationFactory(), HttpDestinationFactory.class);
+        JettyHTTPServerEngineFactory factory = bus.getExtension(JettyHTTPServerEngineFactory.class);
+        if (factory == null) {
+            factory = new JettyHTTPServerEngineFactory(bus);
+        }
+        if (!"http".equals(address.getScheme())) {
+            return;
+        }
+        JettyHTTPServerEngine existing = factory.retrieveJettyHTTPServerEngine(address.getPort());
+        if (existing != null) {
+            ThreadingParameters threading = existing.isSetThreadingParameters()
+                ? existing.getThreadingParameters() : new ThreadingParameters();
+            HttpEngines.checkSetting(address, HttpEngines.MIN_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.MIN_THREADS),
+                                     threading.isSetMinThreads() ? threading.getMinThreads() : null);
+            HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.MAX_THREADS),
+                                     threading.isSetMaxThreads() ? threading.getMaxThreads() : null);
+            HttpEngines.checkSetting(address, HttpEngines.IDLE_TIMEOUT,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.IDLE_TIMEOUT),
+                                     existing.getMaxIdleTime());
+            return;
+        }
+        JettyHTTPServerEngine engine = factory.createJettyHTTPServerEngine(address.getHost(), address.getPort(),
+                                                                           address.getScheme());
+        ThreadingParameters threading = new ThreadingParameters();
+        if (endpointProps.get(HttpEngines.MIN_THREADS) != null) {
+            threading.setMinThreads(HttpEngines.getInt(endpointProps, HttpEngines.MIN_THREADS, 8));
+        }
+        if (endpointProps.get(HttpEngines.MAX_THREADS) != null) {
+            threading.setMaxThreads(HttpEngines.getInt(endpointProps, HttpEngines.MAX_THREADS, 200));
+        }
+        engine.setThreadingParameters(threading);
+        if (endpointProps.get(HttpEngines.IDLE_TIMEOUT) != null) {
+            engine.setMaxIdleTime(HttpEngines.getInt(endpointProps, HttpEngines.IDLE_TIMEOUT, 200000));
+        }
+    }
+}
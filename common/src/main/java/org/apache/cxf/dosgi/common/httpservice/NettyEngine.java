@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.transport.http.HttpDestinationFactory;
+import org.apache.cxf.transport.http.netty.server.NettyHttpDestinationFactory;
+import org.apache.cxf.transport.http.netty.server.NettyHttpServerEngine;
+import org.apache.cxf.transport.http.netty.server.NettyHttpServerEngineFactory;
+import org.apache.cxf.transport.http.netty.server.ThreadingParameters;
+
+/**
+ * Netty handles IO and requests on its event loop threads, so only the maximum number of threads applies.
+ */
+class NettyEngine implements HttpEngine {
+
+    @Override
+    public void configure(Bus bus, URI address, Map<String, Object> endpointProps) throws Exception {
+        bus.setExtension(new NettyHttpDestinationFactory(), HttpDestinationFactory.class);
+        NettyHttpServerEngineFactory factory = bus.getExtension(NettyHttpServerEngineFactory.class);
+        if (factory == null) {
+            factory = new NettyHttpServerEngineFactory(bus);
+        }
+        if (!"http".equals(address.getScheme())) {
+            return;
+        }
+        NettyHttpServerEngine existing = factory.retrieveNettyHttpServerEngine(address.getPort());
+        if (existing != null) {
+            ThreadingParameters threading = existing.getThreadingParameters();
+            HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.MAX_THREADS),
+                                     threading != null && threading.isSeThreadPoolSize()
+                                         ? threading.getThreadPoolSize() : null);
+            Integer idleTimeout = HttpEngines.getSetting(endpointProps, HttpEngines.IDLE_TIMEOUT);
+            HttpEngines.checkSetting(address, HttpEngines.IDLE_TIMEOUT,
+                                     idleTimeout == null ? null : toSeconds(idleTimeout) * 1000,
+                                     existing.getReadIdleTime() * 1000);
+            return;
+        }
+        NettyHttpServerEngine engine = factory.createNettyHttpServerEngine(address.getHost(), address.getPort(),
+                                                                             address.getScheme());
+        if (endpointProps.get(HttpEngines.MAX_THREADS) != null) {
+            ThreadingParameters threading = new ThreadingParameters();
+            threading.setThreadPoolSize(HttpEngines.getInt(endpointProps, HttpEngines.MAX_THREADS, 200));
+            engine.setThreadingParameters(threading);
+        }
+        if (endpointProps.get(HttpEngines.IDLE_TIMEOUT) != null) {
+            int idleSeconds = toSeconds(HttpEngines.getInt(endpointProps, HttpEngines.IDLE_TIMEOUT, 60000));
+            engine.setReadIdleTime(idleSeconds);
+            engine.setWriteIdleTime(idleSeconds);
+        }
+    }
+
+    private static int toSeconds(int millis) {
+        return Math.max(1, millis / 1000);
+    }
+}
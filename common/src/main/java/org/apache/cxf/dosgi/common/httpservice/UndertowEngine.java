@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+
+import io.undertow.Undertow;
+import io.undertow.UndertowOptions;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.transport.http.HttpDestinationFactory;
+import org.apache.cxf.transport.http_undertow.ThreadingParameters;
+import org.apache.cxf.transport.http_undertow.UndertowDestinationFactory;
+import org.apache.cxf.transport.http_undertow.UndertowHTTPServerEngine;
+import org.apache.cxf.transport.http_undertow.UndertowHTTPServerEngineFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class UndertowEngine implements HttpEngine {
+    private static final Logger LOG = LoggerFactory.getLogger(UndertowEngine.class);
+
+    @Override
+    public void configure(Bus bus, URI address, Map<String, Object> endpointProps) throws Exception {
+        bus.setExtension(new UndertowDestinationFactory(), HttpDestinationFactory.class);
+        UndertowHTTPServerEngineFactory factory = bus.getExtension(UndertowHTTPServerEngineFactory.class);
+        if (factory == null) {
+            factory = new UndertowHTTPServerEngineFactory(bus);
+        }
+        if (!"http".equals(address.getScheme())) {
+            return;
+        }
+        UndertowHTTPServerEngine existing = factory.retrieveUndertowHTTPServerEngine(address.getPort());
+        if (existing != null) {
+            ThreadingParameters threading = existing.isSetThreadingParameters()
+                ? existing.getThreadingParameters() : new ThreadingParameters();
+            HttpEngines.checkSetting(address, HttpEngines.IO_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.IO_THREADS),
+                                     threading.isWorkerIOThreadsSet() ? threading.getWorkerIOThreads() : null);
+            HttpEngines.checkSetting(address, HttpEngines.MIN_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.MIN_THREADS),
+                                     threading.isMinThreadsSet() ? threading.getMinThreads() : null);
+            HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.MAX_THREADS),
+                                     threading.isMaxThreadsSet() ? threading.getMaxThreads() : null);
+            HttpEngines.checkSetting(address, HttpEngines.IDLE_TIMEOUT,
+                                     HttpEngines.getSetting(endpointProps, HttpEngines.IDLE_TIMEOUT),
+                                     existing.getMaxIdleTime());
+            if (HttpEngines.isHttp2(bus) && !(existing instanceof Http2ServerEngine)) {
+                LOG.warn("HTTP/2 is not served for endpoint {}. The HTTP engine on port {} was created by an earlier "
+                         + "endpoint without the http2 intent", address, address.getPort());
+            }
+            return;
+        }
+        if (HttpEngines.isHttp2(bus)) {
+            // the factory uses a listed engine instead of creating a plain one for the port
+            Http2ServerEngine http2Engine = new Http2ServerEngine(address.getHost(), address.getPort());
+            http2Engine.finalizeConfig();
+            factory.setEnginesList(Collections.<UndertowHTTPServerEngine>singletonList(http2Engine));
+        }
+        UndertowHTTPServerEngine engine = factory.createUndertowHTTPServerEngine(address.getHost(),
+                                                                                 address.getPort(),
+                                                                                 address.getScheme());
+        ThreadingParameters threading = new ThreadingParameters();
+        if (endpointProps.get(HttpEngines.IO_THREADS) != null) {
+            threading.setWorkerIOThreads(HttpEngines.getInt(endpointProps, HttpEngines.IO_THREADS, 2));
+        }
+        if (endpointProps.get(HttpEngines.MIN_THREADS) != null) {
+            threading.setMinThreads(HttpEngines.getInt(endpointProps, HttpEngines.MIN_THREADS, 8));
+        }
+        if (endpointProps.get(HttpEngines.MAX_THREADS) != null) {
+            threading.setMaxThreads(HttpEngines.getInt(endpointProps, HttpEngines.MAX_THREADS, 200));
+        }
+        engine.setThreadingParameters(threading);
+        if (endpointProps.get(HttpEngines.IDLE_TIMEOUT) != null) {
+            engine.setMaxIdleTime(HttpEngines.getInt(endpointProps, HttpEngines.IDLE_TIMEOUT, 200000));
+        }
+    }
+
+    /**
+     * Engine that also accepts h2c, both as upgrade from HTTP/1.1 and with prior knowledge.
+     */
+    static class Http2ServerEngine extends UndertowHTTPServerEngine {
+
+        Http2ServerEngine(String host, int port) {
+            super(host, port);
+        }
+
+        @Override
+        public Undertow.Builder decorateUndertowSocketConnection(Undertow.Builder builder) {
+            return super.decorateUndertowSocketConnection(builder).setServerOption(UndertowOptions.ENABLE_HTTP2, true);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.intent.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.cxf.dosgi.common.resilience.AdaptiveLimiter;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Built in intent {@code adaptivelimit} that limits the concurrent requests of exported
+ * endpoints adaptively. Each endpoint gets its own {@link AdaptiveLimiter}.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.adaptivelimit", //
+    property = "org.apache.cxf.dosgi.IntentName=adaptivelimit" //
+)
+public class AdaptiveLimitIntent implements Callable<List<Object>> {
+    public static final String KEY_INITIAL_LIMIT = "initialLimit";
+    public static final String KEY_MIN_LIMIT = "minLimit";
+    public static final String KEY_MAX_LIMIT = "maxLimit";
+    public static final String KEY_TOLERANCE = "tolerance";
+
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1000;
+    private double tolerance = 1.5;
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        initialLimit = (int)PropertyHelper.getLongProperty(config, KEY_INITIAL_LIMIT, initialLimit);
+        minLimit = (int)PropertyHelper.getLongProperty(config, KEY_MIN_LIMIT, minLimit);
+        maxLimit = (int)PropertyHelper.getLongProperty(config, KEY_MAX_LIMIT, maxLimit);
+        tolerance = PropertyHelper.getDoubleProperty(config, KEY_TOLERANCE, tolerance);
+    }
+
+    @Override
+    public List<Object> call() {
+        return Collections.<Object>singletonList(new AdaptiveLimiter(initialLimit, minLimit, maxLimit, tolerance));
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.intent.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.cxf.dosgi.common.transport.AsyncHttpTransport;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Built in intent {@code asynchttp} that calls imported endpoints with a non blocking HTTP client.
+ * All endpoints share one {@link AsyncHttpTransport} with a connection pool per remote host.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.asynchttp", //
+    property = "org.apache.cxf.dosgi.IntentName=asynchttp" //
+)
+public class AsyncHttpIntent implements Callable<List<Object>> {
+    public static final String KEY_MAX_CONNECTIONS = "maxConnections";
+    public static final String KEY_MAX_CONNECTIONS_PER_HOST = "maxConnectionsPerHost";
+    public static final String KEY_IDLE_TIMEOUT = "idleTimeout";
+    public static final String KEY_CONNECT_TIMEOUT = "connectTimeout";
+    public static final String KEY_READ_TIMEOUT = "readTimeout";
+    public static final String KEY_IO_THREADS = "ioThreads";
+    private static final int DEFAULT_MAX_CONNECTIONS = 100;
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+    private static final long DEFAULT_IDLE_TIMEOUT = 60000;
+    private static final long DEFAULT_CONNECT_TIMEOUT = 30000;
+    private static final long DEFAULT_READ_TIMEOUT = 60000;
+
+    private AsyncHttpTransport transport = create(Collections.<String, Object>emptyMap());
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        transport.close();
+        transport = create(config);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        transport.close();
+    }
+
+    private static AsyncHttpTransport create(Map<String, Object> config) {
+        return new AsyncHttpTransport(
+            (int)PropertyHelper.getLongProperty(config, KEY_MAX_CONNECTIONS, DEFAULT_MAX_CONNECTIONS),
+            (int)PropertyHelper.getLongProperty(config, KEY_MAX_CONNECTIONS_PER_HOST, DEFAULT_MAX_CONNECTIONS_PER_HOST),
+            PropertyHelper.getLongProperty(config, KEY_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT),
+            (int)PropertyHelper.getLongProperty(config, KEY_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT),
+            (int)PropertyHelper.getLongProperty(config, KEY_READ_TIMEOUT, DEFAULT_READ_TIMEOUT),
+            (int)PropertyHelper.getLongProperty(config, KEY_IO_THREADS, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public List<Object> call() {
+        return Collections.<Object>singletonList(transport);
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.intent.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.Deflater;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.dosgi.common.compression.ContentCoding;
+import org.apache.cxf.dosgi.common.feature.CompressionFeature;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Built in intent {@code compression} that compresses the request and response bodies of remote calls.
+ * Each endpoint gets its own {@link CompressionFeature}, all share the codings and their pools.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.compression", //
+    property = "org.apache.cxf.dosgi.IntentName=compression" //
+)
+public class CompressionIntent implements Callable<List<Object>> {
+    public static final String KEY_THRESHOLD = "threshold";
+    public static final String KEY_CODINGS = "codings";
+    public static final String KEY_LEVEL = "level";
+    public static final String KEY_POOL_SIZE = "poolSize";
+    public static final String KEY_MAX_BODY_SIZE = "maxBodySize";
+    static final String METRICS_TYPE = "Compression";
+    private static final int DEFAULT_THRESHOLD = 1024;
+    private static final String DEFAULT_CODINGS = "zstd,lz4,gzip,deflate";
+    private static final int DEFAULT_POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final long DEFAULT_MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+    private int threshold = DEFAULT_THRESHOLD;
+    private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private List<ContentCoding> codings = createCodings(DEFAULT_CODINGS, Deflater.DEFAULT_COMPRESSION,
+                                                        DEFAULT_POOL_SIZE);
+    private final List<ObjectName> metrics = new ArrayList<>();
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        threshold = (int)PropertyHelper.getLongProperty(config, KEY_THRESHOLD, DEFAULT_THRESHOLD);
+        maxBodySize = PropertyHelper.getLongProperty(config, KEY_MAX_BODY_SIZE, DEFAULT_MAX_BODY_SIZE);
+        String names = PropertyHelper.getProperty(config, KEY_CODINGS);
+        deactivate();
+        codings = createCodings(names == null ? DEFAULT_CODINGS : names,
+            (int)PropertyHelper.getLongProperty(config, KEY_LEVEL, Deflater.DEFAULT_COMPRESSION),
+            (int)PropertyHelper.getLongProperty(config, KEY_POOL_SIZE, DEFAULT_POOL_SIZE));
+        for (ContentCoding coding : codings) {
+            metrics.add(MetricsRegistry.register(METRICS_TYPE, coding.getName(), coding.getStats()));
+        }
+    }
+
+    @Deactivate
+    public void deactivate() {
+        for (ObjectName name : metrics) {
+            MetricsRegistry.unregister(name);
+        }
+        metrics.clear();
+        for (ContentCoding coding : codings) {
+            coding.close();
+        }
+    }
+
+    /**
+     * Creates the available codings in the given order. Gzip and deflate are always added, so the
+     * requests of any client with this intent can be decompressed.
+     */
+    static List<ContentCoding> createCodings(String names, int level, int poolSize) {
+        List<String> requested = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                requested.add(name.trim().toLowerCase(Locale.ENGLISH));
+            }
+        }
+        for (String builtIn : new String[] {ContentCoding.GZIP, ContentCoding.DEFLATE}) {
+            if (!requested.contains(builtIn)) {
+                requested.add(builtIn);
+            }
+        }
+        List<ContentCoding> result = new ArrayList<>();
+        for (String name : requested) {
+            ContentCoding coding = ContentCoding.create(name, level, poolSize);
+            if (coding != null) {
+                result.add(coding);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Object> call() {
+        return Collections.<Object>singletonList(new CompressionFeature(codings, threshold, maxBodySize));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.intent.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.cxf.dosgi.common.transport.Http2Transport;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Built in intent {@code http2} that enables HTTP/2 on exported and imported endpoints.
+ * All endpoints share one {@link Http2Transport}, so calls to the same host share one connection.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.http2", //
+    property = "org.apache.cxf.dosgi.IntentName=http2" //
+)
+public class Http2Intent implements Callable<List<Object>> {
+    public static final String KEY_CONNECT_TIMEOUT = "connectTimeout";
+    private static final long DEFAULT_CONNECT_TIMEOUT = 30000;
+
+    private Http2Transport transport = new Http2Transport(DEFAULT_CONNECT_TIMEOUT);
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        long connectTimeout = PropertyHelper.getLongProperty(config, KEY_CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
+        transport = new Http2Transport(connectTimeout);
+    }
+
+    @Override
+    public List<Object> call() {
+        return Collections.<Object>singletonList(transport);
+    }
+}
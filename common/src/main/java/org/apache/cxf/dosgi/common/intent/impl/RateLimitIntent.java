@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.intent.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.cxf.dosgi.common.resilience.RateLimiter;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Built in intent {@code ratelimit} that limits the request rate of exported endpoints.
+ * Each endpoint gets its own {@link RateLimiter}.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.ratelimit", //
+    property = "org.apache.cxf.dosgi.IntentName=ratelimit" //
+)
+public class RateLimitIntent implements Callable<List<Object>> {
+    public static final String KEY_RATE = "rate";
+    public static final String KEY_BURST = "burst";
+    public static final String KEY_CLIENT_RATE = "clientRate";
+    public static final String KEY_CLIENT_BURST = "clientBurst";
+    public static final String KEY_CLIENT_KEY = "clientKey";
+    public static final String KEY_IDLE_TIMEOUT = "idleTimeout";
+    public static final String KEY_MAX_CLIENTS = "maxClients";
+
+    private double rate = 100;
+    private int burst = 100;
+    private double clientRate;
+    private int clientBurst = 10;
+    private String clientKey = RateLimiter.KEY_IP;
+    private long idleTimeout = 60000;
+    private int maxClients = 100000;
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        rate = PropertyHelper.getDoubleProperty(config, KEY_RATE, rate);
+        burst = (int)PropertyHelper.getLongProperty(config, KEY_BURST, burst);
+        clientRate = PropertyHelper.getDoubleProperty(config, KEY_CLIENT_RATE, clientRate);
+        clientBurst = (int)PropertyHelper.getLongProperty(config, KEY_CLIENT_BURST, clientBurst);
+        Object key = config.get(KEY_CLIENT_KEY);
+        clientKey = key == null ? clientKey : key.toString();
+        idleTimeout = PropertyHelper.getLongProperty(config, KEY_IDLE_TIMEOUT, idleTimeout);
+        maxClients = (int)PropertyHelper.getLongProperty(config, KEY_MAX_CLIENTS, maxClients);
+    }
+
+    @Override
+    public List<Object> call() {
+        return Collections.<Object>singletonList(
+            new RateLimiter(rate, burst, clientRate, clientBurst, clientKey, idleTimeout, maxClients));
+    }
+}
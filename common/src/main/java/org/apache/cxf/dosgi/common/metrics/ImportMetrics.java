@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.metrics;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+
+/**
+ * Registers the MXBeans of imported endpoints. Aries RSA drops the proxy of a closed import without telling
+ * the distribution provider, so the MBeans of an import are unregistered once its proxy is garbage collected.
+ * As an endpoint can be imported more than once the names get the additional key {@code import=<n>}.
+ * <p>
+ * A cleaner thread waits for collected proxies. It only runs while imports are registered and is stopped by
+ * {@link #shutdown()} when the bundle stops.
+ */
+public final class ImportMetrics {
+    private static final AtomicLong IMPORT_COUNTER = new AtomicLong();
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+    private static final Set<ImportReference> IMPORTS = new HashSet<>();
+    private static Thread cleaner;
+
+    private ImportMetrics() {
+    }
+
+    /**
+     * @param proxy the proxy of the import. The MBeans stay registered as long as it is reachable
+     * @param mbeans objects that implement an MXBean interface. Others are skipped
+     * @return the names of the registered MBeans
+     */
+    public static List<ObjectName> register(Object proxy, String endpointId, List<?> mbeans) {
+        String importId = Long.toString(IMPORT_COUNTER.incrementAndGet());
+        List<ObjectName> names = new ArrayList<>();
+        for (Object mbean : mbeans) {
+            ObjectName name = MetricsRegistry.registerImport(endpointId, importId, mbean);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        if (!names.isEmpty()) {
+            track(new ImportReference(proxy, names));
+        }
+        return names;
+    }
+
+    private static synchronized void track(ImportReference ref) {
+        IMPORTS.add(ref);
+        if (cleaner == null) {
+            cleaner = new NamedThreadFactory("dosgi-metrics-cleaner").newThread(new Cleaner());
+            cleaner.start();
+        }
+    }
+
+    /**
+     * @return true if the cleaner should continue waiting
+     */
+    private static synchronized boolean release(ImportReference ref) {
+        IMPORTS.remove(ref);
+        if (cleaner != Thread.currentThread()) {
+            // replaced by the cleaner started after a shutdown
+            return false;
+        }
+        if (IMPORTS.isEmpty()) {
+            cleaner = null;
+            return false;
+        }
+        return true;
+    }
+
+    private static synchronized void stopped() {
+        if (cleaner == Thread.currentThread()) {
+            cleaner = null;
+        }
+    }
+
+    /**
+     * Stops the cleaner thread and unregisters the MBeans of all imports.
+     */
+    public static synchronized void shutdown() {
+        if (cleaner != null) {
+            cleaner.interrupt();
+            cleaner = null;
+        }
+        for (ImportReference ref : IMPORTS) {
+            ref.unregister();
+        }
+        IMPORTS.clear();
+    }
+
+    private static final class ImportReference extends PhantomReference<Object> {
+        private final List<ObjectName> names;
+
+        ImportReference(Object proxy, List<ObjectName> names) {
+            super(proxy, COLLECTED);
+            this.names = names;
+        }
+
+        void unregister() {
+            for (ObjectName name : names) {
+                MetricsRegistry.unregister(name);
+            }
+        }
+    }
+
+    private static final class Cleaner implements Runnable {
+        @Override
+        public void run() {
+            boolean running = true;
+            while (running) {
+                try {
+                    Reference<?> ref = COLLECTED.remove();
+                    ((ImportReference)ref).unregister();
+                    running = release((ImportReference)ref);
+                } catch (InterruptedException e) {
+                    stopped();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the runtime state of DOSGi endpoints as MXBeans in the platform MBeanServer.
+ * Names have the form {@code org.apache.cxf.dosgi:type=<type>,endpoint="<endpoint id>"}.
+ */
+public final class MetricsRegistry {
+    public static final String DOMAIN = "org.apache.cxf.dosgi";
+    private static final Logger LOG = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Registers the given MXBean. An MBean already registered under the same name is replaced.
+     *
+     * @return the name of the registered MBean or null if registration failed
+     */
+    public static ObjectName register(String type, String endpointId, Object mbean) {
+        try {
+            return register(createName(type, endpointId), mbean);
+        } catch (MalformedObjectNameException e) {
+            LOG.warn("Unable to register {} metrics for endpoint {}", type, endpointId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Registers the given object like {@link #register(String, Object)} with the additional key
+     * {@code import=<importId>}, so several imports of one endpoint do not replace each other.
+     *
+     * @return the name of the registered MBean or null if the object is no MXBean or registration failed
+     */
+    public static ObjectName registerImport(String endpointId, String importId, Object mbean) {
+        if (!isMXBean(mbean)) {
+            return null;
+        }
+        String type = mbean.getClass().getSimpleName();
+        try {
+            return register(new ObjectName(createName(type, endpointId) + ",import=" + importId), mbean);
+        } catch (MalformedObjectNameException e) {
+            LOG.warn("Unable to register {} metrics for endpoint {}", type, endpointId, e);
+            return null;
+        }
+    }
+
+    private static ObjectName register(ObjectName name, Object mbean) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            try {
+                server.registerMBean(mbean, name);
+            } catch (InstanceAlreadyExistsException e) {
+                LOG.debug("Replacing existing MBean {}", name);
+                server.unregisterMBean(name);
+                server.registerMBean(mbean, name);
+            }
+            return name;
+        } catch (Exception e) {
+            LOG.warn("Unable to register MBean {}", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * Registers the given object under the simple name of its class if it implements an MXBean interface.
+     *
+     * @return the name of the registered MBean or null if the object is no MXBean or registration failed
+     */
+    public static ObjectName register(String endpointId, Object mbean) {
+        return isMXBean(mbean) ? register(mbean.getClass().getSimpleName(), endpointId, mbean) : null;
+    }
+
+    private static boolean isMXBean(Object mbean) {
+        for (Class<?> iface : mbean.getClass().getInterfaces()) {
+            if (iface.getName().endsWith("MXBean")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void unregister(ObjectName name) {
+        if (name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            LOG.warn("Unable to unregister MBean {}", name, e);
+        }
+    }
+
+    public static ObjectName createName(String type, String endpointId) throws MalformedObjectNameException {
+        String endpoint = endpointId == null ? "unknown" : endpointId;
+        return new ObjectName(DOMAIN + ":type=" + type + ",endpoint=" + ObjectName.quote(endpoint));
+    }
+}
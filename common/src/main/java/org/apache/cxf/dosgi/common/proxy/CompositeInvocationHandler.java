@@ -0,0 +1,55 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.proxy;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Calls the delegate that implements the interface declaring the method. Used for endpoints with several
+ * interfaces, whose client proxies each implement one interface.
+ */
+class CompositeInvocationHandler implements InvocationHandler {
+    private final List<?> delegates;
+
+    CompositeInvocationHandler(List<?> delegates) {
+        this.delegates = delegates;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] params) throws Throwable {
+        try {
+            return m.invoke(getDelegate(m), params);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Object getDelegate(Method m) {
+        for (Object delegate : delegates) {
+            if (m.getDeclaringClass().isInstance(delegate)) {
+                return delegate;
+            }
+        }
+        // methods of Object
+        return delegates.get(0);
+    }
+}
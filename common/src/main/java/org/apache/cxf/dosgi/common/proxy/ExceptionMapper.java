@@ -30,8 +30,10 @@ public class ExceptionMapper {
     private static final String REMOTE_EXCEPTION_TYPE = "REMOTE";
     private Map<Method, Set<Class<?>>> exceptionsMap = new HashMap<>();
 
-    public ExceptionMapper(Class<?> iType) {
-        introspectTypeForExceptions(iType);
+    public ExceptionMapper(Class<?>... iTypes) {
+        for (Class<?> iType : iTypes) {
+            introspectTypeForExceptions(iType);
+        }
     }
 
     public Throwable mapException(Method m, Throwable ex) {
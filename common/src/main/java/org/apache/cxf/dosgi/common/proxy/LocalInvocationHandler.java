@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.proxy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.osgi.framework.ServiceException;
+
+/**
+ * Calls the service object of an endpoint exported in the same framework directly. The service object
+ * is looked up in {@link LocalEndpoints} on every call, so calls fail once the endpoint is closed.
+ * <p>
+ * Optionally parameters and results are copied by serialization. This keeps the pass by value
+ * semantics of a remote call, so neither side sees changes the other side makes to the objects.
+ * Immutable values like strings and numbers are never copied.
+ */
+public class LocalInvocationHandler implements InvocationHandler {
+    private final Object service;
+    private final String endpointId;
+    private final boolean copy;
+
+    LocalInvocationHandler(Object service, boolean copy) {
+        this.service = service;
+        this.endpointId = null;
+        this.copy = copy;
+    }
+
+    LocalInvocationHandler(String endpointId, boolean copy) {
+        this.service = null;
+        this.endpointId = endpointId;
+        this.copy = copy;
+    }
+
+    /**
+     * @param copy true to copy parameters and results
+     * @return an object implementing the interface that calls the service object
+     */
+    public static <T> T create(Object service, Class<T> iType, boolean copy) {
+        return iType.cast(create(service, new Class<?>[] {iType}, copy));
+    }
+
+    /**
+     * @param copy true to copy parameters and results
+     * @return an object implementing all interfaces that calls the service object
+     */
+    public static Object create(Object service, Class<?>[] iTypes, boolean copy) {
+        return Proxy.newProxyInstance(ProxyFactory.getClassLoader(iTypes), iTypes.clone(),
+                                      new LocalInvocationHandler(service, copy));
+    }
+
+    /**
+     * @param endpointId the id of an endpoint registered in {@link LocalEndpoints}
+     * @param copy true to copy parameters and results
+     * @return an object implementing all interfaces that calls the current service object of the endpoint
+     */
+    public static Object createForEndpoint(String endpointId, Class<?>[] iTypes, boolean copy) {
+        return Proxy.newProxyInstance(ProxyFactory.getClassLoader(iTypes), iTypes.clone(),
+                                      new LocalInvocationHandler(endpointId, copy));
+    }
+
+    /**
+     * @return false if a method of the interfaces uses a concrete class that is not Serializable, so its
+     *         parameters or results can not be copied
+     */
+    public static boolean canCopy(Class<?>[] iTypes) {
+        for (Class<?> iType : iTypes) {
+            for (Method m : iType.getMethods()) {
+                if (!canCopy(m.getReturnType())) {
+                    return false;
+                }
+                for (Class<?> paramType : m.getParameterTypes()) {
+                    if (!canCopy(paramType)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean canCopy(Class<?> type) {
+        Class<?> cur = type;
+        while (cur.isArray()) {
+            cur = cur.getComponentType();
+        }
+        return cur.isPrimitive() || cur.isInterface() || Modifier.isAbstract(cur.getModifiers())
+            || cur == Object.class || Serializable.class.isAssignableFrom(cur);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method m, Object[] params) throws Throwable {
+        Object target = getService(m);
+        ClassLoader serviceLoader = target.getClass().getClassLoader();
+        Object[] actualParams = params;
+        if (copy && params != null) {
+            actualParams = new Object[params.length];
+            for (int i = 0; i < params.length; i++) {
+                actualParams[i] = copy(params[i], serviceLoader);
+            }
+        }
+        ClassLoader oldCl = Thread.currentThread().getContextClassLoader();
+        Object result;
+        try {
+            Thread.currentThread().setContextClassLoader(serviceLoader);
+            result = m.invoke(target, actualParams);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            Thread.currentThread().setContextClassLoader(oldCl);
+        }
+        return copy ? copy(result, m.getDeclaringClass().getClassLoader()) : result;
+    }
+
+    private Object getService(Method m) {
+        if (endpointId == null) {
+            return service;
+        }
+        Object current = LocalEndpoints.get(endpointId);
+        if (current == null || !m.getDeclaringClass().isInstance(current)) {
+            throw new ServiceException("Endpoint " + endpointId + " is no longer exported", ServiceException.REMOTE);
+        }
+        return current;
+    }
+
+    static Object copy(Object value, ClassLoader loader) throws IOException, ClassNotFoundException {
+        if (isImmutable(value)) {
+            return value;
+        }
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("Can not copy " + value.getClass().getName()
+                                               + " as it is not Serializable");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        try (ObjectInputStream in = new LoaderObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()),
+                                                                loader)) {
+            return in.readObject();
+        }
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null
+            || value instanceof String
+            || (value instanceof Number && value.getClass().getName().startsWith("java.lang."))
+            || value instanceof Boolean
+            || value instanceof Character
+            || value instanceof Enum;
+    }
+
+    /**
+     * Resolves classes with the loader of the receiving side first.
+     */
+    private static final class LoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader loader;
+
+        LoaderObjectInputStream(InputStream in, ClassLoader loader) throws IOException {
+            super(in);
+            this.loader = loader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (loader != null) {
+                try {
+                    return Class.forName(desc.getName(), false, loader);
+                } catch (ClassNotFoundException e) {
+                    // fall back to the default resolution
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
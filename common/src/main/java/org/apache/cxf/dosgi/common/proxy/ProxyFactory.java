@@ -19,15 +19,79 @@
 package org.apache.cxf.dosgi.common.proxy;
 
 import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
 
 public final class ProxyFactory {
     private ProxyFactory() {
     }
 
-    @SuppressWarnings("unchecked")
     public static <T> T create(Object serviceProxy, Class<T> iType) {
-        Class<?>[] ifaces = new Class<?>[] {iType};
-        return (T)Proxy.newProxyInstance(iType.getClassLoader(), ifaces,
-                                         new ServiceInvocationHandler(serviceProxy, iType));
+        return create(Collections.singletonList(serviceProxy), iType, Collections.<InvocationPolicy>emptyList());
+    }
+
+    /**
+     * Creates a proxy that applies the given policies and calls one of the given client proxies.
+     *
+     * @param serviceProxies one client proxy per address of the endpoint
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(List<?> serviceProxies, Class<T> iType, List<InvocationPolicy> policies) {
+        return (T)create(serviceProxies, new Class<?>[] {iType}, policies);
+    }
+
+    /**
+     * Creates a proxy that implements all given interfaces, applies the given policies and calls one of the
+     * given client proxies.
+     *
+     * @param serviceProxies one client proxy per address of the endpoint. Each implements all interfaces
+     */
+    public static Object create(List<?> serviceProxies, Class<?>[] iTypes, List<InvocationPolicy> policies) {
+        return Proxy.newProxyInstance(getClassLoader(iTypes), iTypes.clone(),
+                                      new ServiceInvocationHandler(serviceProxies, iTypes, policies));
+    }
+
+    /**
+     * Combines the client proxies of the interfaces of one address into an object that implements all
+     * interfaces. Each call goes to the client proxy of the interface that declares the method.
+     *
+     * @param clients one client proxy per interface, in the order of the interfaces
+     */
+    public static Object combine(List<?> clients, Class<?>[] iTypes) {
+        if (clients.size() == 1) {
+            return clients.get(0);
+        }
+        return Proxy.newProxyInstance(getClassLoader(iTypes), iTypes.clone(),
+                                      new CompositeInvocationHandler(clients));
+    }
+
+    /**
+     * Interfaces of one endpoint can come from different bundles, so the proxy needs a loader that sees all.
+     *
+     * @return the loader of the first interface that sees all interfaces
+     */
+    static ClassLoader getClassLoader(Class<?>[] iTypes) {
+        for (Class<?> candidate : iTypes) {
+            if (seesAll(candidate.getClassLoader(), iTypes)) {
+                return candidate.getClassLoader();
+            }
+        }
+        throw new IllegalArgumentException("No class loader sees all interfaces " + Arrays.toString(iTypes));
+    }
+
+    private static boolean seesAll(ClassLoader loader, Class<?>[] iTypes) {
+        for (Class<?> iType : iTypes) {
+            try {
+                if (Class.forName(iType.getName(), false, loader) != iType) {
+                    return false;
+                }
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+        return true;
     }
 }
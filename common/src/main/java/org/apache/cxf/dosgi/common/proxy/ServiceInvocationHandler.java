@@ -19,22 +19,44 @@
 package org.apache.cxf.dosgi.common.proxy;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.security.AccessController;
+import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.dosgi.common.resilience.HedgingPolicy;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
+import org.apache.cxf.dosgi.common.resilience.RemoteInvocation;
 
 public class ServiceInvocationHandler implements InvocationHandler {
     private static final Collection<Method> OBJECT_METHODS = Arrays.asList(Object.class.getMethods());
-    private Object serviceObject;
+    private List<?> serviceObjects;
+    private List<InvocationPolicy> chain;
+    private AtomicInteger nextTarget = new AtomicInteger();
+    private boolean roundRobin;
     private ExceptionMapper exceptionMapper;
 
     ServiceInvocationHandler(Object serviceObject, Class<?> iType) {
-        this.serviceObject = serviceObject;
-        this.exceptionMapper = new ExceptionMapper(iType);
+        this(Collections.singletonList(serviceObject), new Class<?>[] {iType},
+             Collections.<InvocationPolicy>emptyList());
+    }
 
+    ServiceInvocationHandler(List<?> serviceObjects, Class<?>[] iTypes, List<InvocationPolicy> policies) {
+        this.serviceObjects = serviceObjects;
+        this.exceptionMapper = new ExceptionMapper(iTypes);
+        this.chain = new ArrayList<>(policies);
+        this.chain.add(new TargetInvoker());
+        for (InvocationPolicy policy : policies) {
+            roundRobin |= policy instanceof HedgingPolicy;
+        }
     }
 
     @Override
@@ -46,22 +68,47 @@ public class ServiceInvocationHandler implements InvocationHandler {
             return m.invoke(this, params);
         }
 
-        ClassLoader oldCl = Thread.currentThread().getContextClassLoader();
         try {
-            Thread.currentThread().setContextClassLoader(getClass().getClassLoader());
-            final Object[] paramsFinal = params;
-            return AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
-                @Override
-                public Object run() throws Exception {
-                    return m.invoke(serviceObject, paramsFinal);
-                }
-            });
+            return new RemoteInvocation(m, params, serviceObjects, chain, selectTarget()).proceed();
         } catch (Throwable ex) {
-            Throwable theCause = ex.getCause() == null ? ex : ex.getCause();
-            throw exceptionMapper.mapException(m, theCause);
-        } finally {
-            Thread.currentThread().setContextClassLoader(oldCl);
+            throw exceptionMapper.mapException(m, ex);
         }
     }
 
+    /**
+     * Calls go to the first address. Only hedged endpoints distribute calls round robin over their
+     * addresses, as each address then also receives the hedges of its predecessor.
+     */
+    private int selectTarget() {
+        int size = serviceObjects.size();
+        return !roundRobin || size == 1 ? 0 : (nextTarget.getAndIncrement() & Integer.MAX_VALUE) % size;
+    }
+
+    /**
+     * Last element of the policy chain. Calls the client proxy of the selected target.
+     */
+    private static final class TargetInvoker implements InvocationPolicy {
+
+        @Override
+        public Object invoke(final RemoteInvocation invocation) throws Throwable {
+            ClassLoader oldCl = Thread.currentThread().getContextClassLoader();
+            try {
+                Thread.currentThread().setContextClassLoader(ServiceInvocationHandler.class.getClassLoader());
+                return AccessController.doPrivileged(new PrivilegedExceptionAction<Object>() {
+                    @Override
+                    public Object run() throws Exception {
+                        return invocation.getMethod().invoke(invocation.getTarget(), invocation.getParams());
+                    }
+                });
+            } catch (PrivilegedActionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof InvocationTargetException && cause.getCause() != null) {
+                    throw cause.getCause();
+                }
+                throw cause;
+            } finally {
+                Thread.currentThread().setContextClassLoader(oldCl);
+            }
+        }
+    }
 }
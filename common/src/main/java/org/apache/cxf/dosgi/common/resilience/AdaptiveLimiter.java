@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to the latency of the endpoint, following the gradient algorithm.
+ * <p>
+ * Latencies are averaged over windows of {@link #WINDOW_SIZE} requests. The lowest window average
+ * is the baseline, the latency without load. After each window the limit is multiplied by the
+ * gradient {@code tolerance * baseline / recent}, which is capped to [0.5, 1], and a headroom of
+ * {@code sqrt(limit)} is added. While latency stays within the tolerance the limit grows, when
+ * requests start to queue and latency rises the limit shrinks and excess requests are rejected.
+ * Failed requests reduce the limit as well. The limit is not raised while less than half of it is
+ * used, so a quiet period does not lead to an unbounded limit.
+ * <p>
+ * To follow lasting changes of the endpoint the baseline is measured again every
+ * {@link #PROBE_INTERVAL} windows. For this the limit is halved until the requests admitted
+ * before have completed and one window has been measured without queueing.
+ */
+public class AdaptiveLimiter implements ConcurrencyLimiter, AdaptiveLimiterMXBean {
+    static final int WINDOW_SIZE = 20;
+    static final int PROBE_INTERVAL = 500;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong acceptedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final Object waitLock = new Object();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double baselineNanos = Double.MAX_VALUE;
+    private double recentNanos;
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+    private boolean windowFailed;
+    private int windowsToProbe = PROBE_INTERVAL;
+    private boolean probing;
+    private int probeDrain;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1) {
+            throw new IllegalArgumentException("Invalid limits " + minLimit + ".." + maxLimit
+                                               + " or tolerance " + tolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimatedLimit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.limit = (int)estimatedLimit;
+    }
+
+    @Override
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        if (tryAcquire()) {
+            return true;
+        }
+        if (maxWaitMillis > 0) {
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            waiting.incrementAndGet();
+            try {
+                synchronized (waitLock) {
+                    long remaining = end - System.nanoTime();
+                    while (remaining > 0) {
+                        if (tryAcquire()) {
+                            return true;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(waitLock, remaining);
+                        remaining = end - System.nanoTime();
+                    }
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        rejectedCalls.incrementAndGet();
+        return false;
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        acceptedCalls.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void release(long latencyNanos, boolean success) {
+        int current = inFlight.getAndDecrement();
+        update(latencyNanos, success, current);
+        if (waiting.get() > 0) {
+            synchronized (waitLock) {
+                waitLock.notifyAll();
+            }
+        }
+    }
+
+    private synchronized void update(long latencyNanos, boolean success, int currentInFlight) {
+        if (probeDrain > 0) {
+            // requests admitted before the probe started still show the latency under load
+            probeDrain--;
+            return;
+        }
+        windowSum += latencyNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, currentInFlight);
+        windowFailed |= !success;
+        if (windowCount < WINDOW_SIZE) {
+            return;
+        }
+        recentNanos = (double)windowSum / windowCount;
+        boolean failed = windowFailed;
+        int maxInFlight = windowMaxInFlight;
+        windowSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+        windowFailed = false;
+        if (probing) {
+            baselineNanos = recentNanos;
+            probing = false;
+            windowsToProbe = PROBE_INTERVAL;
+            limit = (int)estimatedLimit;
+            return;
+        }
+        baselineNanos = Math.min(recentNanos, baselineNanos);
+        if (--windowsToProbe == 0) {
+            probing = true;
+            probeDrain = inFlight.get();
+            limit = Math.max(minLimit, (int)estimatedLimit / 2);
+            return;
+        }
+        double newLimit;
+        if (failed) {
+            newLimit = estimatedLimit * FAILURE_BACKOFF;
+        } else if (maxInFlight < estimatedLimit / 2) {
+            newLimit = estimatedLimit;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineNanos / recentNanos));
+            newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int)estimatedLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public synchronized double getBaselineLatencyMillis() {
+        return baselineNanos == Double.MAX_VALUE ? -1 : baselineNanos / 1000000.0;
+    }
+
+    @Override
+    public synchronized double getRecentLatencyMillis() {
+        return recentNanos / 1000000.0;
+    }
+
+    @Override
+    public long getAcceptedCalls() {
+        return acceptedCalls.get();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+}
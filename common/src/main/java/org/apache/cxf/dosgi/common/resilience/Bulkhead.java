@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of concurrent calls to an endpoint so that a slow endpoint can not block
+ * an unbounded number of caller threads. Calls that do not get a permit within the configured
+ * wait time are rejected with a {@link RejectedCallException}.
+ */
+public class Bulkhead implements InvocationPolicy, BulkheadMXBean {
+    /**
+     * Maximum number of concurrent calls. Enables the bulkhead.
+     */
+    public static final String MAX_CONCURRENT = "org.apache.cxf.dosgi.bulkhead.max.concurrent";
+    /**
+     * Maximum time in milliseconds to wait for a permit, defaults to 0.
+     */
+    public static final String MAX_WAIT = "org.apache.cxf.dosgi.bulkhead.max.wait";
+
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    public Bulkhead(int maxConcurrentCalls, long maxWaitMillis) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        boolean acquired = maxWaitMillis <= 0
+            ? permits.tryAcquire() : permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        if (!acquired) {
+            rejectedCalls.incrementAndGet();
+            throw new RejectedCallException("Bulkhead is full. " + maxConcurrentCalls
+                                            + " calls are in progress");
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    @Override
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aborts the remote call in progress on another thread.
+ * <p>
+ * Policies that give up on a call, like {@link HedgingPolicy} for the losing attempt, make a cancellation
+ * current while the call runs and cancel it once the call is no longer needed. Waiting for a response is
+ * interrupted anyway. Transports whose I/O does not react to interrupts register an action that aborts it,
+ * for example by closing the connection.
+ */
+public final class Cancellation {
+    private static final Logger LOG = LoggerFactory.getLogger(Cancellation.class);
+    private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> actions = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * @return the cancellation of the call in progress on the current thread or null
+     */
+    public static Cancellation get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the cancellation of the current thread.
+     *
+     * @param cancellation the cancellation or null to remove it
+     * @return the previous cancellation so it can be restored
+     */
+    public static Cancellation set(Cancellation cancellation) {
+        Cancellation previous = CURRENT.get();
+        if (cancellation == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(cancellation);
+        }
+        return previous;
+    }
+
+    /**
+     * Registers an action that aborts the call. It runs immediately if the call is already cancelled.
+     */
+    public void onCancel(Runnable action) {
+        synchronized (this) {
+            if (!cancelled) {
+                actions.add(action);
+                return;
+            }
+        }
+        run(action);
+    }
+
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(actions);
+            actions.clear();
+        }
+        for (Runnable action : toRun) {
+            run(action);
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private static void run(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            LOG.debug("Unable to abort cancelled call", e);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fails calls fast while an endpoint is degraded.
+ * <p>
+ * The outcomes of the most recent calls are kept in a lock free ring buffer. Once the failure
+ * rate in this window reaches the threshold the breaker opens and rejects all calls with a
+ * {@link RejectedCallException}. After the open duration a limited number of trial calls is let
+ * through. If they all succeed the breaker closes again, otherwise it opens for another period.
+ * <p>
+ * Specific exceptions declared by the called method are application results and count as successes.
+ * Calls rejected on the client, for example by the {@link Bulkhead} or an expired deadline, do not count.
+ */
+public class CircuitBreaker implements InvocationPolicy, CircuitBreakerMXBean {
+    /**
+     * Failure rate in percent at which the breaker opens. Enables the circuit breaker.
+     */
+    public static final String FAILURE_RATE = "org.apache.cxf.dosgi.circuitbreaker.failure.rate";
+    /**
+     * Number of recent calls the failure rate is computed from, defaults to 100.
+     */
+    public static final String WINDOW_SIZE = "org.apache.cxf.dosgi.circuitbreaker.window";
+    /**
+     * Minimum number of calls in the window before the breaker can open, defaults to 20.
+     */
+    public static final String MIN_CALLS = "org.apache.cxf.dosgi.circuitbreaker.min.calls";
+    /**
+     * Time in milliseconds the breaker stays open, defaults to 30000.
+     */
+    public static final String OPEN_DURATION = "org.apache.cxf.dosgi.circuitbreaker.open.duration";
+    /**
+     * Number of trial calls in half open state, defaults to 5.
+     */
+    public static final String HALF_OPEN_CALLS = "org.apache.cxf.dosgi.circuitbreaker.halfopen.calls";
+
+    private static final int EMPTY = 0;
+    private static final int SUCCESS = 1;
+    private static final int FAILURE = 2;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    private final AtomicIntegerArray outcomes;
+    private final AtomicLong position = new AtomicLong();
+    private final AtomicInteger bufferedCalls = new AtomicInteger();
+    private final AtomicInteger failedCalls = new AtomicInteger();
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong openCount = new AtomicLong();
+
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minCalls,
+                          long openDurationMillis, int halfOpenCalls) {
+        if (windowSize <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("windowSize and halfOpenCalls must be positive");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new AtomicIntegerArray(windowSize);
+        this.minCalls = Math.min(Math.max(1, minCalls), windowSize);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        State permittedIn = acquirePermission();
+        if (permittedIn == null) {
+            rejectedCalls.incrementAndGet();
+            throw new RejectedCallException("Circuit breaker is open for method "
+                                            + invocation.getMethod().getName());
+        }
+        try {
+            Object result = invocation.proceed();
+            onResult(permittedIn, true);
+            return result;
+        } catch (Throwable e) {
+            if (Failures.isLocalRejection(e)) {
+                release(permittedIn);
+            } else {
+                onResult(permittedIn, Failures.isApplicationException(invocation.getMethod(), e));
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the state in which the call was permitted or null if it is rejected
+     */
+    private State acquirePermission() {
+        State current = state.get();
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAt.get() < openDurationNanos) {
+                return null;
+            }
+            if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+                trialSuccesses.set(0);
+                trialPermits.set(halfOpenCalls);
+            }
+            current = state.get();
+        }
+        if (current == State.HALF_OPEN) {
+            return trialPermits.getAndDecrement() > 0 ? State.HALF_OPEN : null;
+        }
+        return current;
+    }
+
+    /**
+     * Gives back the permit of a call that did not reach the remote endpoint.
+     */
+    private void release(State permittedIn) {
+        if (permittedIn == State.HALF_OPEN && state.get() == State.HALF_OPEN) {
+            trialPermits.incrementAndGet();
+        }
+    }
+
+    private void onResult(State permittedIn, boolean success) {
+        if (permittedIn == State.HALF_OPEN) {
+            if (!success) {
+                open(State.HALF_OPEN);
+            } else if (trialSuccesses.incrementAndGet() >= halfOpenCalls
+                && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                clearWindow();
+            }
+            return;
+        }
+        record(success ? SUCCESS : FAILURE);
+        if (!success && state.get() == State.CLOSED) {
+            int buffered = bufferedCalls.get();
+            if (buffered >= minCalls && failedCalls.get() * 100.0 / buffered >= failureRateThreshold) {
+                open(State.CLOSED);
+            }
+        }
+    }
+
+    private void record(int outcome) {
+        int slot = (int)(position.getAndIncrement() % outcomes.length());
+        int previous = outcomes.getAndSet(slot, outcome);
+        if (previous == EMPTY) {
+            bufferedCalls.incrementAndGet();
+        } else if (previous == FAILURE) {
+            failedCalls.decrementAndGet();
+        }
+        if (outcome == FAILURE) {
+            failedCalls.incrementAndGet();
+        }
+    }
+
+    private void open(State expected) {
+        long now = System.nanoTime();
+        if (state.get() == expected) {
+            // set before the state changes so no caller sees the open state with an old timestamp
+            openedAt.set(now);
+            if (state.compareAndSet(expected, State.OPEN)) {
+                openCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < outcomes.length(); i++) {
+            int previous = outcomes.getAndSet(i, EMPTY);
+            if (previous != EMPTY) {
+                bufferedCalls.decrementAndGet();
+            }
+            if (previous == FAILURE) {
+                failedCalls.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public String getState() {
+        return state.get().name();
+    }
+
+    @Override
+    public double getFailureRate() {
+        int buffered = bufferedCalls.get();
+        return buffered == 0 ? 0 : failedCalls.get() * 100.0 / buffered;
+    }
+
+    @Override
+    public int getBufferedCalls() {
+        return bufferedCalls.get();
+    }
+
+    @Override
+    public int getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    @Override
+    public void reset() {
+        state.set(State.CLOSED);
+        clearWindow();
+    }
+}
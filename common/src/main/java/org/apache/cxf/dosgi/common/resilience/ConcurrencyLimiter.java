@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+/**
+ * Limits the number of requests an exported endpoint processes concurrently.
+ * Each successful {@link #acquire(long)} must be followed by exactly one {@link #release(long, boolean)}.
+ */
+public interface ConcurrencyLimiter {
+
+    /**
+     * @param maxWaitMillis maximum time to wait for a permit
+     * @return true if the request may be processed, false if it is to be rejected
+     */
+    boolean acquire(long maxWaitMillis) throws InterruptedException;
+
+    /**
+     * @param latencyNanos time the request held the permit
+     * @param success false if processing the request failed
+     */
+    void release(long latencyNanos, boolean success);
+}
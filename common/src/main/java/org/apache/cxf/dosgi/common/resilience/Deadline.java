@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+/**
+ * Holds the deadline of the remote call in progress on the current thread.
+ * <p>
+ * The deadline is an absolute time in epoch milliseconds. Imported proxies send the remaining
+ * time in milliseconds to the server in the {@link #HEADER} header, so the clocks of client and
+ * server need not be synchronized. Exported endpoints reject requests whose deadline has expired
+ * and make the deadline of the request current while the service is invoked, so it is
+ * propagated to all remote calls the service makes.
+ */
+public final class Deadline {
+    public static final String HEADER = "X-DOSGi-Timeout";
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * @return the deadline in epoch milliseconds or null if the current call has no deadline
+     */
+    public static Long get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the deadline of the current thread.
+     *
+     * @param deadline the deadline in epoch milliseconds or null to remove it
+     * @return the previous deadline so it can be restored
+     */
+    public static Long set(Long deadline) {
+        Long previous = CURRENT.get();
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+        return previous;
+    }
+
+    public static long remainingMillis(long deadline) {
+        return deadline - System.currentTimeMillis();
+    }
+
+    public static boolean isExpired(long deadline) {
+        return remainingMillis(deadline) <= 0;
+    }
+
+    /**
+     * @return the earlier of the two deadlines, each of them may be null
+     */
+    public static Long earliest(Long deadline1, Long deadline2) {
+        if (deadline1 == null) {
+            return deadline2;
+        }
+        return deadline2 == null || deadline1 < deadline2 ? deadline1 : deadline2;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+
+/**
+ * Classifies exceptions of remote calls.
+ */
+final class Failures {
+
+    private Failures() {
+    }
+
+    /**
+     * Specific exceptions declared by the method are results of the application and no remote failures.
+     * Generic declarations like {@code throws Exception} are not considered as they also match remote failures.
+     */
+    static boolean isApplicationException(Method m, Throwable e) {
+        for (Class<?> excType : m.getExceptionTypes()) {
+            if (excType != Exception.class && excType != Throwable.class && excType.isInstance(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the call was rejected or interrupted on the client, so the remote endpoint is not to blame.
+     *         Transports may wrap the rejection
+     */
+    static boolean isLocalRejection(Throwable e) {
+        for (Throwable cur = e; cur != null; cur = cur.getCause() == cur ? null : cur.getCause()) {
+            if (cur instanceof RejectedCallException || cur instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the request could not be sent, so it is safe to repeat it even if it is not idempotent
+     */
+    static boolean isConnectFailure(Throwable e) {
+        for (Throwable cur = e; cur != null; cur = cur.getCause() == cur ? null : cur.getCause()) {
+            if (cur instanceof ConnectException
+                || cur instanceof NoRouteToHostException
+                || cur instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reduces tail latency of idempotent calls on endpoints with more than one address.
+ * If the first attempt has not answered within the configured percentile of the recent
+ * latencies a second attempt is sent to the next address. The first successful answer wins
+ * and the other attempt is cancelled, which also aborts its connection (see {@link Cancellation}).
+ * A {@link RequestBudget} caps the number of hedges. If the executor rejects an attempt the call is not
+ * hedged.
+ */
+public class HedgingPolicy implements InvocationPolicy, HedgingPolicyMXBean {
+    /**
+     * Percentile of the recent latencies after which a hedge is sent, e.g. 95. Enables hedging.
+     */
+    public static final String HEDGE_PERCENTILE = "org.apache.cxf.dosgi.hedge.percentile";
+    /**
+     * Lower bound of the hedge delay in milliseconds.
+     */
+    public static final String HEDGE_MIN_DELAY = "org.apache.cxf.dosgi.hedge.min.delay";
+    /**
+     * Maximum ratio of hedges to calls, defaults to 0.1.
+     */
+    public static final String HEDGE_BUDGET = "org.apache.cxf.dosgi.hedge.budget";
+    /**
+     * System property with the maximum number of threads that run hedged calls of all endpoints,
+     * defaults to 256.
+     */
+    public static final String HEDGE_THREADS = "org.apache.cxf.dosgi.hedge.threads";
+
+    static final int WINDOW_SIZE = 1000;
+    static final int MIN_SAMPLES = 20;
+    static final int BUDGET_RESERVE = 10;
+
+    private final IdempotentMethods idempotentMethods;
+    private final Executor executor;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final RequestBudget budget;
+    private final LatencyTracker latencies = new LatencyTracker(WINDOW_SIZE);
+    private final AtomicLong hedgeableCalls = new AtomicLong();
+    private final AtomicLong hedgesSent = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+
+    public HedgingPolicy(IdempotentMethods idempotentMethods, Executor executor,
+                         double percentile, long minDelayMillis, double budgetRatio) {
+        this.idempotentMethods = idempotentMethods;
+        this.executor = executor;
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.budget = new RequestBudget(budgetRatio, BUDGET_RESERVE);
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        if (invocation.getTargetCount() < 2 || !idempotentMethods.isIdempotent(invocation.getMethod())) {
+            return invocation.proceed();
+        }
+        hedgeableCalls.incrementAndGet();
+        budget.deposit();
+        long delay = getHedgeDelayNanos();
+        if (delay < 0) {
+            return new Attempt(invocation, invocation.getTargetIndex()).call();
+        }
+        CompletionService<Object> completion = new ExecutorCompletionService<>(executor);
+        Attempt primary = new Attempt(invocation, invocation.getTargetIndex());
+        try {
+            primary.submit(completion);
+        } catch (RejectedExecutionException e) {
+            return primary.call();
+        }
+        Attempt hedge = null;
+        try {
+            if (completion.poll(delay, TimeUnit.NANOSECONDS) != null) {
+                return getResult(primary.future);
+            }
+            if (!budget.tryWithdraw()) {
+                hedgesDenied.incrementAndGet();
+                return getResult(primary.future);
+            }
+            int hedgeTarget = (invocation.getTargetIndex() + 1) % invocation.getTargetCount();
+            hedge = new Attempt(invocation, hedgeTarget);
+            try {
+                hedge.submit(completion);
+            } catch (RejectedExecutionException e) {
+                return getResult(primary.future);
+            }
+            hedgesSent.incrementAndGet();
+            return awaitFirstSuccess(completion, primary, hedge);
+        } catch (InterruptedException e) {
+            cancel(primary);
+            cancel(hedge);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private Object awaitFirstSuccess(CompletionService<Object> completion,
+                                     Attempt primary,
+                                     Attempt hedge) throws Throwable {
+        Future<Object> first = completion.take();
+        Attempt winner = first == primary.future ? primary : hedge;
+        Attempt loser = winner == primary ? hedge : primary;
+        try {
+            Object result = getResult(first);
+            countWin(winner, hedge);
+            cancel(loser);
+            return result;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Throwable firstFailure) {
+            try {
+                Object result = getResult(completion.take());
+                countWin(loser, hedge);
+                return result;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Throwable secondFailure) {
+                throw firstFailure;
+            }
+        }
+    }
+
+    private void countWin(Attempt winner, Attempt hedge) {
+        if (winner == hedge) {
+            hedgesWon.incrementAndGet();
+        }
+    }
+
+    private static Object getResult(Future<Object> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void cancel(Attempt attempt) {
+        if (attempt != null && attempt.future != null && !attempt.future.isDone()) {
+            attempt.future.cancel(true);
+            attempt.cancellation.cancel();
+        }
+    }
+
+    long getHedgeDelayNanos() {
+        if (latencies.getCount() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(minDelayNanos, latencies.getPercentile(percentile));
+    }
+
+    @Override
+    public long getHedgeableCalls() {
+        return hedgeableCalls.get();
+    }
+
+    @Override
+    public long getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    @Override
+    public long getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    @Override
+    public long getHedgesDeniedByBudget() {
+        return hedgesDenied.get();
+    }
+
+    @Override
+    public double getHedgeDelayMillis() {
+        long delay = getHedgeDelayNanos();
+        return delay < 0 ? -1 : delay / 1000000.0;
+    }
+
+    @Override
+    public double getBudgetBalance() {
+        return budget.getBalance();
+    }
+
+    private final class Attempt implements Callable<Object> {
+        private final RemoteInvocation invocation;
+        private final int target;
+        private final Long deadline;
+        private final Cancellation cancellation = new Cancellation();
+        private Future<Object> future;
+
+        Attempt(RemoteInvocation invocation, int target) {
+            this.invocation = invocation;
+            this.target = target;
+            this.deadline = Deadline.get();
+        }
+
+        void submit(CompletionService<Object> completion) {
+            future = completion.submit(this);
+        }
+
+        @Override
+        public Object call() throws Exception {
+            long start = System.nanoTime();
+            Long previous = Deadline.set(deadline);
+            Cancellation previousCancellation = Cancellation.set(cancellation);
+            try {
+                Object result = invocation.proceed(target);
+                latencies.record(System.nanoTime() - start);
+                return result;
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            } finally {
+                Cancellation.set(previousCancellation);
+                Deadline.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.dosgi.common.api.Idempotent;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+
+/**
+ * Decides which methods of an imported interface may safely be called more than once.
+ * A method is idempotent if it or its interface is annotated with {@link Idempotent}, if it
+ * is mapped to an idempotent HTTP method using JAX-RS annotations or if its name is listed
+ * in the endpoint property {@link #IDEMPOTENT_METHODS}.
+ */
+public class IdempotentMethods {
+    public static final String IDEMPOTENT_METHODS = "org.apache.cxf.dosgi.idempotent.methods";
+
+    private static final Set<String> IDEMPOTENT_HTTP_METHODS = new HashSet<>(Arrays.asList(
+        "javax.ws.rs.GET", "javax.ws.rs.HEAD", "javax.ws.rs.PUT", "javax.ws.rs.DELETE", "javax.ws.rs.OPTIONS"));
+
+    private final Set<String> methodNames = new HashSet<>();
+    private final Map<Method, Boolean> cache = new ConcurrentHashMap<>();
+
+    public IdempotentMethods(Map<String, Object> endpointProps) {
+        Collection<String> names = PropertyHelper.getMultiValueProperty(endpointProps.get(IDEMPOTENT_METHODS));
+        for (String name : names) {
+            methodNames.addAll(Arrays.asList(name.trim().split("\\s*,\\s*")));
+        }
+    }
+
+    public boolean isIdempotent(Method m) {
+        Boolean idempotent = cache.get(m);
+        if (idempotent == null) {
+            idempotent = introspect(m);
+            cache.put(m, idempotent);
+        }
+        return idempotent;
+    }
+
+    private boolean introspect(Method m) {
+        if (methodNames.contains(m.getName())
+            || m.getAnnotation(Idempotent.class) != null
+            || m.getDeclaringClass().getAnnotation(Idempotent.class) != null) {
+            return true;
+        }
+        for (Annotation ann : m.getAnnotations()) {
+            if (IDEMPOTENT_HTTP_METHODS.contains(ann.annotationType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.dosgi.common.metrics.ImportMetrics;
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * Creates the invocation policies of an imported endpoint from its endpoint properties.
+ */
+public final class InvocationPolicies {
+    private static final double DEFAULT_HEDGE_BUDGET = 0.1;
+    private static final double DEFAULT_RETRY_BUDGET = 0.2;
+    private static final int RETRY_BUDGET_RESERVE = 10;
+    private static final int DEFAULT_ONEWAY_QUEUE = 1000;
+    private static final int DEFAULT_HEDGE_THREADS = 256;
+    private static final RequestBudget RETRY_BUDGET = new RequestBudget(getRetryBudgetRatio(), RETRY_BUDGET_RESERVE);
+    private static ExecutorService executor;
+
+    private InvocationPolicies() {
+    }
+
+    public static List<InvocationPolicy> create(Map<String, Object> endpointProps) {
+        return create(endpointProps, Collections.<InvocationPolicy>emptyList());
+    }
+
+    /**
+     * @param intentPolicies policies provided as intents. They are applied before the built in policies
+     */
+    public static List<InvocationPolicy> create(Map<String, Object> endpointProps,
+                                                List<InvocationPolicy> intentPolicies) {
+        return create(new Class<?>[0], endpointProps, intentPolicies);
+    }
+
+    /**
+     * @param interfaces the imported interfaces. Their one-way methods are sent in the background before all
+     *            other policies are applied
+     * @param intentPolicies policies provided as intents. They are applied before the other built in policies
+     */
+    public static List<InvocationPolicy> create(Class<?>[] interfaces, Map<String, Object> endpointProps,
+                                                List<InvocationPolicy> intentPolicies) {
+        IdempotentMethods idempotentMethods = new IdempotentMethods(endpointProps);
+        List<InvocationPolicy> policies = new ArrayList<>();
+        OneWayMethods oneWayMethods = new OneWayMethods(endpointProps);
+        if (oneWayMethods.hasOneWayMethods(interfaces)) {
+            policies.add(new OneWayPolicy(oneWayMethods,
+                (int)PropertyHelper.getLongProperty(endpointProps, OneWayPolicy.QUEUE_SIZE, DEFAULT_ONEWAY_QUEUE),
+                OneWayPolicy.Overflow.fromString(PropertyHelper.getProperty(endpointProps, OneWayPolicy.OVERFLOW)),
+                (int)PropertyHelper.getLongProperty(endpointProps, OneWayPolicy.SENDERS, 1)));
+        }
+        policies.addAll(intentPolicies);
+        if (endpointProps.get(TimeoutPolicy.TIMEOUT) != null) {
+            policies.add(new TimeoutPolicy(PropertyHelper.getLongProperty(endpointProps, TimeoutPolicy.TIMEOUT, 0)));
+        }
+        if (endpointProps.get(RetryPolicy.MAX_ATTEMPTS) != null) {
+            policies.add(new RetryPolicy(idempotentMethods, RETRY_BUDGET,
+                (int)PropertyHelper.getLongProperty(endpointProps, RetryPolicy.MAX_ATTEMPTS, 1),
+                PropertyHelper.getLongProperty(endpointProps, RetryPolicy.BACKOFF, 50),
+                PropertyHelper.getLongProperty(endpointProps, RetryPolicy.MAX_BACKOFF, 1000)));
+        }
+        if (endpointProps.get(CircuitBreaker.FAILURE_RATE) != null) {
+            policies.add(new CircuitBreaker(
+                PropertyHelper.getDoubleProperty(endpointProps, CircuitBreaker.FAILURE_RATE, 50),
+                (int)PropertyHelper.getLongProperty(endpointProps, CircuitBreaker.WINDOW_SIZE, 100),
+                (int)PropertyHelper.getLongProperty(endpointProps, CircuitBreaker.MIN_CALLS, 20),
+                PropertyHelper.getLongProperty(endpointProps, CircuitBreaker.OPEN_DURATION, 30000),
+                (int)PropertyHelper.getLongProperty(endpointProps, CircuitBreaker.HALF_OPEN_CALLS, 5)));
+        }
+        if (endpointProps.get(Bulkhead.MAX_CONCURRENT) != null) {
+            policies.add(new Bulkhead(
+                (int)PropertyHelper.getLongProperty(endpointProps, Bulkhead.MAX_CONCURRENT, Integer.MAX_VALUE),
+                PropertyHelper.getLongProperty(endpointProps, Bulkhead.MAX_WAIT, 0)));
+        }
+        if (endpointProps.get(HedgingPolicy.HEDGE_PERCENTILE) != null) {
+            policies.add(new HedgingPolicy(idempotentMethods, getExecutor(),
+                PropertyHelper.getDoubleProperty(endpointProps, HedgingPolicy.HEDGE_PERCENTILE, 95),
+                PropertyHelper.getLongProperty(endpointProps, HedgingPolicy.HEDGE_MIN_DELAY, 0),
+                PropertyHelper.getDoubleProperty(endpointProps, HedgingPolicy.HEDGE_BUDGET, DEFAULT_HEDGE_BUDGET)));
+        }
+        return policies;
+    }
+
+    /**
+     * Attempts the executor rejects when all threads are busy are not hedged.
+     */
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(0, getHedgeThreads(), 60L, TimeUnit.SECONDS,
+                                              new SynchronousQueue<Runnable>(), new NamedThreadFactory("dosgi-call"));
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the threads of hedged calls. Policies created before are no longer hedged.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Retries of all endpoints share one budget, so a failing remote system cannot cause a retry storm.
+     */
+    private static double getRetryBudgetRatio() {
+        String ratio = System.getProperty(RetryPolicy.BUDGET);
+        try {
+            return ratio == null ? DEFAULT_RETRY_BUDGET : Double.parseDouble(ratio);
+        } catch (NumberFormatException e) {
+            return DEFAULT_RETRY_BUDGET;
+        }
+    }
+
+    private static int getHedgeThreads() {
+        return Math.max(1, Integer.getInteger(HedgingPolicy.HEDGE_THREADS, DEFAULT_HEDGE_THREADS));
+    }
+
+    /**
+     * Publishes the metrics of the policies of an import until its proxy is garbage collected.
+     *
+     * @param proxy the proxy of the import that uses the policies
+     */
+    public static void registerMetrics(Object proxy, Map<String, Object> endpointProps,
+                                       List<InvocationPolicy> policies) {
+        ImportMetrics.register(proxy, PropertyHelper.getProperty(endpointProps, RemoteConstants.ENDPOINT_ID),
+                               policies);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the most recent call latencies in a ring buffer and computes percentiles over them.
+ * Recording is lock free. Percentiles are computed on a snapshot and cached until a
+ * sufficient number of new samples has been recorded.
+ */
+public class LatencyTracker {
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    private final int recomputeInterval;
+    private volatile double cachedPercentile = -1;
+    private volatile long cachedValue = -1;
+    private volatile long cachedAtCount = -1;
+
+    public LatencyTracker(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        this.samples = new AtomicLongArray(windowSize);
+        this.recomputeInterval = Math.max(1, windowSize / 16);
+    }
+
+    public void record(long latencyNanos) {
+        long index = count.getAndIncrement();
+        samples.set((int)(index % samples.length()), latencyNanos);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the latency in nanoseconds or -1 if nothing was recorded yet
+     */
+    public long getPercentile(double percentile) {
+        long current = count.get();
+        if (current == 0) {
+            return -1;
+        }
+        if (percentile == cachedPercentile && current - cachedAtCount < recomputeInterval) {
+            return cachedValue;
+        }
+        int size = (int)Math.min(current, samples.length());
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        int index = (int)Math.ceil(percentile / 100.0 * size) - 1;
+        long value = snapshot[Math.max(0, Math.min(size - 1, index))];
+        cachedValue = value;
+        cachedPercentile = percentile;
+        cachedAtCount = current;
+        return value;
+    }
+}
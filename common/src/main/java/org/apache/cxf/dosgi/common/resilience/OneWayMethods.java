@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.dosgi.common.api.OneWay;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+
+/**
+ * Decides which methods of an interface are called without waiting for an answer. A void method is one-way if
+ * it or its interface is annotated with {@link OneWay}, if it is annotated with {@code javax.jws.Oneway} or if
+ * its name is listed in the endpoint property {@link #ONEWAY_METHODS}.
+ */
+public class OneWayMethods {
+    public static final String ONEWAY_METHODS = "org.apache.cxf.dosgi.oneway.methods";
+
+    private static final String JAXWS_ONEWAY = "javax.jws.Oneway";
+
+    private final Set<String> methodNames = new HashSet<>();
+    private final Map<Method, Boolean> cache = new ConcurrentHashMap<>();
+
+    public OneWayMethods(Map<String, Object> endpointProps) {
+        Collection<String> names = PropertyHelper.getMultiValueProperty(endpointProps.get(ONEWAY_METHODS));
+        for (String name : names) {
+            methodNames.addAll(Arrays.asList(name.trim().split("\\s*,\\s*")));
+        }
+    }
+
+    public boolean isOneWay(Method m) {
+        Boolean oneWay = cache.get(m);
+        if (oneWay == null) {
+            oneWay = introspect(m);
+            cache.put(m, oneWay);
+        }
+        return oneWay;
+    }
+
+    /**
+     * @return true if any method of the interfaces is one-way
+     */
+    public boolean hasOneWayMethods(Class<?>... interfaces) {
+        for (Class<?> iClass : interfaces) {
+            for (Method m : iClass.getMethods()) {
+                if (isOneWay(m)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean introspect(Method m) {
+        if (m.getReturnType() != void.class) {
+            return false;
+        }
+        if (methodNames.contains(m.getName())
+            || m.getAnnotation(OneWay.class) != null
+            || m.getDeclaringClass().getAnnotation(OneWay.class) != null) {
+            return true;
+        }
+        for (Annotation ann : m.getAnnotations()) {
+            if (JAXWS_ONEWAY.equals(ann.annotationType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends calls of {@link OneWayMethods} in the background, so the caller does not wait for the round trip.
+ * Calls wait in a bounded queue until a sender thread is free. If the queue is full the caller either blocks
+ * until there is space or the call is dropped. Failures of sent calls are only logged.
+ */
+public class OneWayPolicy implements InvocationPolicy, OneWayPolicyMXBean {
+    /**
+     * Maximum number of calls waiting to be sent, defaults to 1000.
+     */
+    public static final String QUEUE_SIZE = "org.apache.cxf.dosgi.oneway.queue";
+    /**
+     * What happens to a call while the queue is full, {@code block} (default) or {@code drop}.
+     */
+    public static final String OVERFLOW = "org.apache.cxf.dosgi.oneway.overflow";
+    /**
+     * Number of threads that send calls, defaults to 1 which keeps the order of the calls.
+     */
+    public static final String SENDERS = "org.apache.cxf.dosgi.oneway.senders";
+
+    public enum Overflow {
+        BLOCK, DROP;
+
+        public static Overflow fromString(String value) {
+            return value == null ? BLOCK : valueOf(value.trim().toUpperCase(Locale.ENGLISH));
+        }
+    }
+
+    private static final Logger LOG = LoggerFactory.getLogger(OneWayPolicy.class);
+    private static final long SENDER_KEEP_ALIVE_SECONDS = 60;
+
+    private final OneWayMethods oneWayMethods;
+    private final int queueSize;
+    private final ThreadPoolExecutor senders;
+    private final AtomicLong sentCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong droppedCalls = new AtomicLong();
+
+    public OneWayPolicy(OneWayMethods oneWayMethods, int queueSize, Overflow overflow, int senderCount) {
+        this.oneWayMethods = oneWayMethods;
+        this.queueSize = queueSize;
+        this.senders = new ThreadPoolExecutor(senderCount, senderCount,
+                                              SENDER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                              new ArrayBlockingQueue<Runnable>(queueSize),
+                                              new NamedThreadFactory("dosgi-oneway"),
+                                              overflow == Overflow.DROP ? new Drop() : new Block());
+        // idle endpoints keep no threads
+        senders.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        if (!oneWayMethods.isOneWay(invocation.getMethod())) {
+            return invocation.proceed();
+        }
+        senders.execute(new Send(invocation));
+        return null;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    @Override
+    public int getQueuedCalls() {
+        return senders.getQueue().size();
+    }
+
+    @Override
+    public long getSentCalls() {
+        return sentCalls.get();
+    }
+
+    @Override
+    public long getFailedCalls() {
+        return failedCalls.get();
+    }
+
+    @Override
+    public long getDroppedCalls() {
+        return droppedCalls.get();
+    }
+
+    private final class Send implements Runnable {
+        private final RemoteInvocation invocation;
+        private final Long deadline;
+
+        Send(RemoteInvocation invocation) {
+            this.invocation = invocation;
+            this.deadline = Deadline.get();
+        }
+
+        @Override
+        public void run() {
+            Long previous = Deadline.set(deadline);
+            try {
+                invocation.proceed();
+                sentCalls.incrementAndGet();
+            } catch (Throwable e) {
+                failedCalls.incrementAndGet();
+                LOG.warn("One-way call of {} failed", invocation.getMethod().getName(), e);
+            } finally {
+                Deadline.set(previous);
+            }
+        }
+    }
+
+    private final class Drop implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            droppedCalls.incrementAndGet();
+            LOG.debug("Dropped one-way call as {} calls are waiting", queueSize);
+        }
+    }
+
+    /**
+     * Only called while the queue is full, so there is a running sender that takes the call.
+     */
+    private static final class Block implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            try {
+                executor.getQueue().put(r);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedCallException("Interrupted while waiting for space in the one-way queue");
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the request rate of an exported endpoint with token buckets, one for the whole endpoint
+ * and optionally one per client.
+ * <p>
+ * About every {@link #SWEEP_INTERVAL} requests the client buckets that have been full for the
+ * idle time are removed. If more than the maximum number of clients are tracked, new clients
+ * share one overflow bucket until the idle ones are evicted. A request the endpoint bucket
+ * rejects gives its token back to the client bucket, so it does not count against the client.
+ */
+public class RateLimiter implements RateLimiterMXBean {
+    /**
+     * Client key taken from the remote IP address.
+     */
+    public static final String KEY_IP = "ip";
+    /**
+     * Client key taken from the name of the authenticated principal.
+     */
+    public static final String KEY_PRINCIPAL = "principal";
+    /**
+     * Prefix of a client key taken from a request header, e.g. header:X-Api-Key.
+     */
+    public static final String KEY_HEADER_PREFIX = "header:";
+
+    static final int SWEEP_INTERVAL = 1024;
+
+    private final double rate;
+    private final double clientRate;
+    private final int clientBurst;
+    private final String clientKey;
+    private final long idleNanos;
+    private final int maxClients;
+    private final TokenBucket endpointBucket;
+    private final TokenBucket overflowBucket;
+    private final ConcurrentMap<String, TokenBucket> clients = new ConcurrentHashMap<>();
+    private final AtomicInteger trackedClients = new AtomicInteger();
+    private final LongAdder permitted = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder throttledClients = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param rate requests per second of the endpoint, 0 for no limit
+     * @param clientRate requests per second of each client, 0 for no limit per client
+     * @param clientKey how clients are told apart, see the KEY constants
+     */
+    public RateLimiter(double rate, int burst, double clientRate, int clientBurst, String clientKey,
+                       long idleMillis, int maxClients) {
+        long now = System.nanoTime();
+        this.rate = rate;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.clientKey = clientKey;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.maxClients = maxClients;
+        this.endpointBucket = rate > 0 ? new TokenBucket(rate, burst, now) : null;
+        this.overflowBucket = clientRate > 0 ? new TokenBucket(clientRate, clientBurst, now) : null;
+    }
+
+    public boolean isClientLimited() {
+        return clientRate > 0;
+    }
+
+    /**
+     * @param client the key of the client or null if it is unknown
+     * @return 0 if the request is permitted, otherwise the time in nanoseconds until it would be permitted
+     */
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long now) {
+        TokenBucket clientBucket = null;
+        if (clientRate > 0 && client != null) {
+            clientBucket = getClientBucket(client, now);
+            long wait = clientBucket.tryAcquire(now);
+            if (wait > 0) {
+                throttledClients.increment();
+                return wait;
+            }
+            if (ThreadLocalRandom.current().nextInt(SWEEP_INTERVAL) == 0) {
+                sweep(now);
+            }
+        }
+        if (endpointBucket != null) {
+            long wait = endpointBucket.tryAcquire(now);
+            if (wait > 0) {
+                if (clientBucket != null) {
+                    clientBucket.release();
+                }
+                throttled.increment();
+                return wait;
+            }
+        }
+        permitted.increment();
+        return 0;
+    }
+
+    private TokenBucket getClientBucket(String client, long now) {
+        TokenBucket bucket = clients.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (trackedClients.get() >= maxClients) {
+            return overflowBucket;
+        }
+        TokenBucket created = new TokenBucket(clientRate, clientBurst, now);
+        bucket = clients.putIfAbsent(client, created);
+        if (bucket == null) {
+            trackedClients.incrementAndGet();
+            return created;
+        }
+        return bucket;
+    }
+
+    void sweep(long now) {
+        for (Map.Entry<String, TokenBucket> entry : clients.entrySet()) {
+            if (entry.getValue().isIdle(now, idleNanos) && clients.remove(entry.getKey(), entry.getValue())) {
+                trackedClients.decrementAndGet();
+                evicted.increment();
+            }
+        }
+    }
+
+    @Override
+    public double getRate() {
+        return rate;
+    }
+
+    @Override
+    public double getClientRate() {
+        return clientRate;
+    }
+
+    @Override
+    public String getClientKey() {
+        return clientKey;
+    }
+
+    @Override
+    public long getPermittedRequests() {
+        return permitted.sum();
+    }
+
+    @Override
+    public long getThrottledRequests() {
+        return throttled.sum();
+    }
+
+    @Override
+    public long getThrottledClientRequests() {
+        return throttledClients.sum();
+    }
+
+    @Override
+    public int getTrackedClients() {
+        return trackedClients.get();
+    }
+
+    @Override
+    public long getEvictedClients() {
+        return evicted.sum();
+    }
+}
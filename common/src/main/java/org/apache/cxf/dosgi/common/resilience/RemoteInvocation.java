@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * A call of an imported service method as seen by an {@link InvocationPolicy}.
+ * Instances are immutable so that a policy may proceed more than once, also concurrently,
+ * for example to retry a call or to send it to several targets.
+ */
+public final class RemoteInvocation {
+    private final Method method;
+    private final Object[] params;
+    private final List<?> targets;
+    private final List<InvocationPolicy> chain;
+    private final int position;
+    private final int targetIndex;
+
+    /**
+     * @param targets the client proxies of all addresses of the endpoint
+     * @param chain the policies to apply, the last one must invoke the target and never proceed
+     * @param targetIndex the index of the target to call unless a policy selects another one
+     */
+    public RemoteInvocation(Method method, Object[] params, List<?> targets,
+                            List<InvocationPolicy> chain, int targetIndex) {
+        this(method, params, targets, chain, 0, targetIndex);
+    }
+
+    private RemoteInvocation(Method method, Object[] params, List<?> targets,
+                             List<InvocationPolicy> chain, int position, int targetIndex) {
+        this.method = method;
+        this.params = params;
+        this.targets = targets;
+        this.chain = chain;
+        this.position = position;
+        this.targetIndex = targetIndex;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Object[] getParams() {
+        return params;
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
+    public Object getTarget() {
+        return targets.get(targetIndex);
+    }
+
+    /**
+     * Continues the chain with the currently selected target.
+     */
+    public Object proceed() throws Throwable {
+        return proceed(targetIndex);
+    }
+
+    /**
+     * Continues the chain with the target at the given index.
+     */
+    public Object proceed(int index) throws Throwable {
+        if (position >= chain.size()) {
+            throw new IllegalStateException("No policy left to proceed to for " + method);
+        }
+        RemoteInvocation next = new RemoteInvocation(method, params, targets, chain, position + 1, index);
+        return chain.get(position).invoke(next);
+    }
+}
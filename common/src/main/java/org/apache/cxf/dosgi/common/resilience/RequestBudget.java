@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the additional load caused by hedged or retried calls to a fraction of the regular calls.
+ * Each regular call deposits {@code ratio} tokens and each additional call withdraws one token.
+ * The balance is capped at {@code reserve} tokens, which also allows some additional calls
+ * while there is little traffic.
+ */
+public class RequestBudget {
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long max;
+    private final AtomicLong balance;
+
+    public RequestBudget(double ratio, int reserve) {
+        if (ratio < 0 || reserve < 0) {
+            throw new IllegalArgumentException("ratio and reserve must not be negative");
+        }
+        this.deposit = Math.round(ratio * SCALE);
+        this.max = Math.max(1, reserve) * SCALE;
+        this.balance = new AtomicLong(reserve * SCALE);
+    }
+
+    public void deposit() {
+        long current;
+        long next;
+        do {
+            current = balance.get();
+            next = Math.min(max, current + deposit);
+        } while (current != next && !balance.compareAndSet(current, next));
+    }
+
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    public double getBalance() {
+        return (double)balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repeats calls that failed with a remote failure.
+ * <p>
+ * Idempotent methods are retried on any remote failure, other methods only if the request could
+ * not be sent at all. Declared application exceptions and calls rejected by other policies are
+ * never retried. The wait before each retry is chosen randomly between zero and an exponentially
+ * growing backoff (full jitter), so clients that failed together do not retry together.
+ * <p>
+ * All retries are paid from a {@link RequestBudget} that is usually shared by all endpoints.
+ * When the budget is exhausted or the current {@link Deadline} would expire during the backoff
+ * the last failure is thrown.
+ */
+public class RetryPolicy implements InvocationPolicy, RetryPolicyMXBean {
+    /**
+     * Maximum number of attempts including the first one. Enables retries.
+     */
+    public static final String MAX_ATTEMPTS = "org.apache.cxf.dosgi.retry.max.attempts";
+    /**
+     * Backoff before the first retry in milliseconds, defaults to 50. It doubles with each retry.
+     */
+    public static final String BACKOFF = "org.apache.cxf.dosgi.retry.backoff";
+    /**
+     * Upper bound of the backoff in milliseconds, defaults to 1000.
+     */
+    public static final String MAX_BACKOFF = "org.apache.cxf.dosgi.retry.max.backoff";
+    /**
+     * System property with the maximum ratio of retries to calls across all endpoints, defaults to 0.2.
+     */
+    public static final String BUDGET = "org.apache.cxf.dosgi.retry.budget";
+
+    private final IdempotentMethods idempotentMethods;
+    private final RequestBudget budget;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deniedByBudget = new AtomicLong();
+    private final AtomicLong deniedByDeadline = new AtomicLong();
+
+    public RetryPolicy(IdempotentMethods idempotentMethods, RequestBudget budget,
+                       int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        this.idempotentMethods = idempotentMethods;
+        this.budget = budget;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = Math.max(backoffMillis, maxBackoffMillis);
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        calls.incrementAndGet();
+        budget.deposit();
+        int attempt = 1;
+        while (true) {
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                if (attempt >= maxAttempts || !isRetryable(invocation, e)) {
+                    throw e;
+                }
+                long backoff = getBackoffMillis(attempt);
+                Long deadline = Deadline.get();
+                if (deadline != null && Deadline.remainingMillis(deadline) <= backoff) {
+                    deniedByDeadline.incrementAndGet();
+                    throw e;
+                }
+                if (!budget.tryWithdraw()) {
+                    deniedByBudget.incrementAndGet();
+                    throw e;
+                }
+                sleep(backoff, e);
+                retries.incrementAndGet();
+                attempt++;
+            }
+        }
+    }
+
+    private boolean isRetryable(RemoteInvocation invocation, Throwable e) {
+        if (Failures.isLocalRejection(e) || Failures.isApplicationException(invocation.getMethod(), e)) {
+            return false;
+        }
+        return Failures.isConnectFailure(e) || idempotentMethods.isIdempotent(invocation.getMethod());
+    }
+
+    long getBackoffMillis(int attempt) {
+        long cap = backoffMillis << Math.min(attempt - 1, 30);
+        cap = cap <= 0 || cap > maxBackoffMillis ? maxBackoffMillis : cap;
+        return cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void sleep(long millis, Throwable failure) throws Throwable {
+        if (millis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.get();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.get();
+    }
+
+    @Override
+    public long getRetriesDeniedByBudget() {
+        return deniedByBudget.get();
+    }
+
+    @Override
+    public long getRetriesDeniedByDeadline() {
+        return deniedByDeadline.get();
+    }
+
+    @Override
+    public double getBudgetBalance() {
+        return budget.getBalance();
+    }
+}
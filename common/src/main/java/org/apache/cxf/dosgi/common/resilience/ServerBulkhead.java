@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests an exported endpoint processes concurrently, so one slow
+ * service can not occupy all threads of the HTTP server. Requests beyond the limit wait in a
+ * bounded queue. When the queue is full they are rejected at once.
+ */
+public class ServerBulkhead implements ConcurrencyLimiter, ServerBulkheadMXBean {
+    /**
+     * Maximum number of concurrent requests. Enables the bulkhead.
+     */
+    public static final String MAX_CONCURRENT = "org.apache.cxf.dosgi.server.max.concurrent";
+    /**
+     * Maximum number of waiting requests, defaults to the maximum number of concurrent requests.
+     */
+    public static final String MAX_QUEUE = "org.apache.cxf.dosgi.server.max.queue";
+
+    private final int maxConcurrentCalls;
+    private final int maxQueueSize;
+    private final Semaphore permits;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong acceptedCalls = new AtomicLong();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timedOutCalls = new AtomicLong();
+
+    public ServerBulkhead(int maxConcurrentCalls, int maxQueueSize) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxQueueSize = maxQueueSize;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    @Override
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        if (permits.tryAcquire()) {
+            acceptedCalls.incrementAndGet();
+            return true;
+        }
+        if (queueDepth.incrementAndGet() > maxQueueSize || maxWaitMillis <= 0) {
+            queueDepth.decrementAndGet();
+            rejectedCalls.incrementAndGet();
+            return false;
+        }
+        try {
+            if (permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                acceptedCalls.incrementAndGet();
+                return true;
+            }
+            timedOutCalls.incrementAndGet();
+            return false;
+        } finally {
+            queueDepth.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void release(long latencyNanos, boolean success) {
+        permits.release();
+    }
+
+    @Override
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    @Override
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    @Override
+    public int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @Override
+    public long getAcceptedCalls() {
+        return acceptedCalls.get();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return rejectedCalls.get();
+    }
+
+    @Override
+    public long getTimedOutCalls() {
+        return timedOutCalls.get();
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+/**
+ * Limits the total time of a call including all retries. The deadline is made current for the
+ * rest of the chain, so the transport sends it to the server and uses the remaining time as
+ * receive timeout. A deadline inherited from an incoming request is kept if it is earlier.
+ */
+public class TimeoutPolicy implements InvocationPolicy {
+    /**
+     * Maximum duration of a call in milliseconds. Enables the timeout.
+     */
+    public static final String TIMEOUT = "org.apache.cxf.dosgi.timeout";
+
+    private final long timeoutMillis;
+
+    public TimeoutPolicy(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Object invoke(RemoteInvocation invocation) throws Throwable {
+        Long deadline = Deadline.earliest(Deadline.get(), System.currentTimeMillis() + timeoutMillis);
+        if (Deadline.isExpired(deadline)) {
+            throw new RejectedCallException("Deadline expired before calling method "
+                                            + invocation.getMethod().getName());
+        }
+        Long previous = Deadline.set(deadline);
+        try {
+            return invocation.proceed();
+        } finally {
+            Deadline.set(previous);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free token bucket in the form of the generic cell rate algorithm. The whole state is the
+ * theoretical arrival time of the next request, so a request needs a single compare and set.
+ * A request is permitted if the theoretical arrival time is at most the burst tolerance ahead
+ * of now. Each permitted request moves it one emission interval further.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong arrival;
+
+    /**
+     * @param rate permitted requests per second
+     * @param burst number of requests that may be sent at once after a quiet period
+     */
+    TokenBucket(double rate, int burst, long now) {
+        this.intervalNanos = Math.max(1, (long)(TimeUnit.SECONDS.toNanos(1) / rate));
+        this.toleranceNanos = intervalNanos * (Math.max(1, burst) - 1);
+        this.arrival = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0 if the request is permitted, otherwise the time in nanoseconds until it would be permitted
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long current = arrival.get();
+            long start = current - now < 0 ? now : current;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back the token of a permitted request that was not sent after all.
+     */
+    void release() {
+        arrival.addAndGet(-intervalNanos);
+    }
+
+    /**
+     * @return true if the bucket has been full for the given time, so removing it changes nothing
+     */
+    boolean isIdle(long now, long idleNanos) {
+        return now - arrival.get() > idleNanos;
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.ContentTooLongException;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Sends request frames with the non blocking HTTP client of Apache HttpComponents. A few I/O threads serve
+ * the connections to all hosts, so waiting calls do not hold a socket per thread. Connections are pooled
+ * per remote host and closed after they were idle for the configured time.
+ */
+final class AsyncHttpChannel implements FrameChannel, Closeable {
+    private static final String[] SKIPPED_HEADERS = {"Content-Length", "Transfer-Encoding", "Host", "Connection"};
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final CloseableHttpAsyncClient client;
+    private final ScheduledExecutorService evictor;
+    private final long readTimeoutMillis;
+
+    AsyncHttpChannel(int maxConnections, int maxConnectionsPerHost, long idleTimeoutMillis,
+                     int connectTimeoutMillis, int readTimeoutMillis, int ioThreads) {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+            .setIoThreadCount(ioThreads)
+            .setConnectTimeout(connectTimeoutMillis)
+            .setSoTimeout(readTimeoutMillis)
+            .setSoKeepAlive(true)
+            .build();
+        try {
+            connectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(reactorConfig, new NamedThreadFactory("dosgi-http")));
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Unable to start the HTTP client", e);
+        }
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeoutMillis)
+            .setSocketTimeout(readTimeoutMillis)
+            .setConnectionRequestTimeout(connectTimeoutMillis)
+            .build();
+        this.readTimeoutMillis = readTimeoutMillis;
+        client = HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .build();
+        client.start();
+        evictor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("dosgi-http-evictor"));
+        long period = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(new IdleEviction(idleTimeoutMillis), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sends the request. A call on a pooled connection that the server closed before the response
+     * started is sent once more if the request was not written yet or is idempotent, the pool then
+     * opens a new connection. Other requests may have been processed by the server and fail.
+     */
+    @Override
+    public Frame call(Frame request, long timeoutMillis) throws IOException {
+        long start = System.currentTimeMillis();
+        RequestProducer producer = new RequestProducer(createRequest(request));
+        FrameConsumer consumer = new FrameConsumer();
+        try {
+            return await(client.execute(producer, consumer, null), timeoutMillis);
+        } catch (ConnectionClosedException e) {
+            if (consumer.isStarted() || producer.isSent() && !request.isIdempotent()) {
+                throw e;
+            }
+        }
+        long remaining = timeoutMillis > 0
+            ? Math.max(1, timeoutMillis - (System.currentTimeMillis() - start)) : timeoutMillis;
+        return await(client.execute(new RequestProducer(createRequest(request)), new FrameConsumer(), null),
+                     remaining);
+    }
+
+    private static HttpUriRequest createRequest(Frame request) {
+        RequestBuilder builder = RequestBuilder.create(request.getMethod()).setUri(request.getPath());
+        if (request.getBody().length > 0) {
+            builder.setEntity(new ByteArrayEntity(request.getBody()));
+        }
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            if (isSkipped(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+        return builder.build();
+    }
+
+    private Frame await(Future<Frame> future, long timeoutMillis) throws IOException {
+        long timeout = timeoutMillis > 0 && (readTimeoutMillis <= 0 || timeoutMillis < readTimeoutMillis)
+            ? timeoutMillis : readTimeoutMillis;
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SocketTimeoutException("No response within " + timeout + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static boolean isSkipped(String name) {
+        for (String skipped : SKIPPED_HEADERS) {
+            if (skipped.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the statistics of the connections to the host of the given http or https address
+     */
+    PoolStats getStats(URI address) {
+        return connectionManager.getStats(createRoute(address));
+    }
+
+    static HttpRoute createRoute(URI address) {
+        boolean secure = "https".equalsIgnoreCase(address.getScheme());
+        int port = address.getPort() > 0 ? address.getPort() : secure ? 443 : 80;
+        HttpHost host = new HttpHost(address.getHost(), port, address.getScheme());
+        return new HttpRoute(host, null, secure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        evictor.shutdownNow();
+        client.close();
+    }
+
+    /**
+     * Remembers whether the request was handed to a connection, the server may have read it from then on.
+     */
+    private static final class RequestProducer extends BasicAsyncRequestProducer {
+        private volatile boolean sent;
+
+        RequestProducer(HttpUriRequest request) {
+            super(URIUtils.extractHost(request.getURI()), request);
+        }
+
+        @Override
+        public void produceContent(ContentEncoder encoder, IOControl ioControl) throws IOException {
+            sent = true;
+            super.produceContent(encoder, ioControl);
+        }
+
+        @Override
+        public void requestCompleted(HttpContext context) {
+            sent = true;
+            super.requestCompleted(context);
+        }
+
+        boolean isSent() {
+            return sent;
+        }
+    }
+
+    /**
+     * Reads the response into a frame. Bodies larger than {@link Frame#MAX_BODY_SIZE} fail the call
+     * instead of filling the heap.
+     */
+    private static final class FrameConsumer extends AbstractAsyncResponseConsumer<Frame> {
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private volatile boolean started;
+        private Frame frame;
+        private ByteArrayOutputStream body;
+
+        boolean isStarted() {
+            return started;
+        }
+
+        @Override
+        protected void onResponseReceived(HttpResponse response) {
+            started = true;
+            frame = new Frame();
+            frame.setStatus(response.getStatusLine().getStatusCode());
+            for (Header header : response.getAllHeaders()) {
+                frame.addHeader(header.getName(), header.getValue());
+            }
+        }
+
+        @Override
+        protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) throws IOException {
+            long length = entity.getContentLength();
+            if (length > Frame.MAX_BODY_SIZE) {
+                throw new ContentTooLongException("Response body of " + length + " bytes exceeds "
+                                                  + Frame.MAX_BODY_SIZE);
+            }
+            body = new ByteArrayOutputStream(length > 0 ? (int)length : 4096);
+        }
+
+        @Override
+        protected void onContentReceived(ContentDecoder decoder, IOControl control) throws IOException {
+            int read;
+            while ((read = decoder.read(buffer)) > 0) {
+                if (body.size() + read > Frame.MAX_BODY_SIZE) {
+                    throw new ContentTooLongException("Response body exceeds " + Frame.MAX_BODY_SIZE + " bytes");
+                }
+                body.write(buffer.array(), 0, read);
+                buffer.clear();
+            }
+        }
+
+        @Override
+        protected Frame buildResult(HttpContext context) {
+            if (body != null) {
+                frame.setBody(body.toByteArray());
+            }
+            return frame;
+        }
+
+        @Override
+        protected void releaseResources() {
+            body = null;
+        }
+    }
+
+    private final class IdleEviction implements Runnable {
+        private final long idleTimeoutMillis;
+
+        IdleEviction(long idleTimeoutMillis) {
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        @Override
+        public void run() {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.api.EventPublisher;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.endpoint.AbstractEndpointFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Intent object of the built in {@code asynchttp} intent.
+ * <p>
+ * Imported endpoints with an http or https address use a conduit based on the non blocking HTTP client of
+ * Apache HttpComponents. All endpoints of the intent share one client with a connection pool per remote host.
+ * The pool of each host is published as {@link HttpConnectionPoolMXBean}. Exported endpoints are not changed.
+ * Bodies are buffered and limited to 64 MB, so interfaces with streamed parameters or results keep using the
+ * CXF conduit.
+ */
+public class AsyncHttpTransport implements TransportIntent, Closeable {
+    static final String TRANSPORT_ID = "http://cxf.apache.org/dosgi/transports/asynchttp";
+    private static final String CLIENT_CLASS = "org.apache.http.impl.nio.client.HttpAsyncClients";
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncHttpTransport.class);
+    private static final Class<?>[] STREAMED_TYPES = {
+        InputStream.class, ReadableByteChannel.class, Stream.class, Iterator.class, EventPublisher.class
+    };
+    // MTOM attachments of ws endpoints, named as the activation API is optional
+    private static final Set<String> STREAMED_TYPE_NAMES = new HashSet<>(Arrays.asList(
+        "javax.activation.DataHandler", "javax.activation.DataSource"));
+
+    private final int maxConnections;
+    private final int maxConnectionsPerHost;
+    private final long idleTimeoutMillis;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int ioThreads;
+    private AsyncHttpChannel channel;
+    private HttpFrameConduitInitiator conduitInitiator;
+    private final Map<String, ObjectName> pools = new HashMap<>();
+
+    public AsyncHttpTransport(int maxConnections, int maxConnectionsPerHost, long idleTimeoutMillis,
+                              int connectTimeoutMillis, int readTimeoutMillis, int ioThreads) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.ioThreads = ioThreads;
+    }
+
+    static boolean isSupported() {
+        try {
+            Class.forName(CLIENT_CLASS, false, AsyncHttpTransport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void configureServer(Bus bus) {
+        // the intent only changes the client side
+    }
+
+    /**
+     * Makes the client factory of an imported endpoint use the async HTTP conduit if its address is an
+     * HTTP address. The conduit buffers whole bodies, so interfaces with streamed types keep the CXF conduit.
+     */
+    @Override
+    public void configureClient(AbstractEndpointFactory factory, Class<?> serviceClass) {
+        String address = factory.getAddress();
+        if (address == null || !address.startsWith("http")) {
+            return;
+        }
+        if (serviceClass != null && hasStreamedTypes(serviceClass)) {
+            LOG.info("{} streams parameters or results. Calling {} with the CXF conduit", serviceClass.getName(),
+                     address);
+            return;
+        }
+        HttpFrameConduitInitiator initiator = getConduitInitiator();
+        if (initiator == null) {
+            LOG.warn("The asynchttp intent needs the Apache HttpAsyncClient bundles. Calling {} with the CXF conduit",
+                     address);
+            return;
+        }
+        initiator.configure(factory);
+        registerPool(URI.create(address));
+    }
+
+    /**
+     * @return true if a method of the interface takes or returns a type that is transferred while it is
+     *         read or written, like streams, channels and event publishers
+     */
+    static boolean hasStreamedTypes(Class<?> serviceClass) {
+        for (Method method : serviceClass.getMethods()) {
+            if (isStreamed(method.getReturnType())) {
+                return true;
+            }
+            for (Class<?> type : method.getParameterTypes()) {
+                if (isStreamed(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStreamed(Class<?> type) {
+        for (Class<?> streamed : STREAMED_TYPES) {
+            if (streamed.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return STREAMED_TYPE_NAMES.contains(type.getName());
+    }
+
+    /**
+     * The client is created on first use, so exporting frameworks do not start client threads.
+     */
+    private synchronized HttpFrameConduitInitiator getConduitInitiator() {
+        if (conduitInitiator == null && isSupported()) {
+            channel = new AsyncHttpChannel(maxConnections, maxConnectionsPerHost, idleTimeoutMillis,
+                                           connectTimeoutMillis, readTimeoutMillis, ioThreads);
+            conduitInitiator = new HttpFrameConduitInitiator(TRANSPORT_ID, channel);
+        }
+        return conduitInitiator;
+    }
+
+    private synchronized void registerPool(URI address) {
+        AsyncHttpChannel current = channel;
+        if (current == null || address.getHost() == null) {
+            return;
+        }
+        String host = AsyncHttpChannel.createRoute(address).getTargetHost().toHostString();
+        if (!pools.containsKey(host)) {
+            pools.put(host, MetricsRegistry.register(host, new HttpConnectionPool(current, address)));
+        }
+    }
+
+    /**
+     * Closes all pooled connections and unregisters the pool metrics. Imported endpoints of the intent
+     * fail afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        for (ObjectName name : pools.values()) {
+            MetricsRegistry.unregister(name);
+        }
+        pools.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (Exception e) {
+                LOG.debug("Error closing the async HTTP client", e);
+            }
+            channel = null;
+            conduitInitiator = null;
+        }
+    }
+}
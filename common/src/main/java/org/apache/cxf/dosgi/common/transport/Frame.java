@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A request or response exchanged by the frame based transports. Requests carry the service path,
+ * the HTTP method and the path relative to the service, responses carry the status. Both carry
+ * headers and the body. Strings are written as length prefixed UTF-8, so header values and paths
+ * are not limited to the 64 KB of {@link DataOutput#writeUTF(String)}.
+ */
+final class Frame {
+    static final int MAX_BODY_SIZE = 64 * 1024 * 1024;
+    static final int MAX_STRING_SIZE = 1024 * 1024;
+    static final String CONTENT_TYPE = "Content-Type";
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+        "GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+    private String service = "";
+    private String method = "";
+    private String path = "";
+    private int status;
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private byte[] body = new byte[0];
+
+    String getService() {
+        return service;
+    }
+
+    void setService(String service) {
+        this.service = service;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    void setMethod(String method) {
+        this.method = method;
+    }
+
+    /**
+     * @return true if the HTTP method of the request is idempotent, so sending it twice does no harm
+     */
+    boolean isIdempotent() {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    void setPath(String path) {
+        this.path = path;
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    void setStatus(int status) {
+        this.status = status;
+    }
+
+    Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    void setHeader(String name, String value) {
+        headers.put(name, new ArrayList<>(Collections.singletonList(value)));
+    }
+
+    void addHeader(String name, String value) {
+        List<String> values = headers.get(name);
+        if (values == null) {
+            values = new ArrayList<>();
+            headers.put(name, values);
+        }
+        values.add(value);
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * Writes the frame. A frame with a string longer than {@link #MAX_STRING_SIZE} is rejected
+     * before anything is written.
+     */
+    void write(DataOutput out) throws IOException {
+        checkString(service);
+        checkString(method);
+        checkString(path);
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            checkString(header.getKey());
+            for (String value : header.getValue()) {
+                checkString(value == null ? "" : value);
+            }
+        }
+        writeString(out, service);
+        writeString(out, method);
+        writeString(out, path);
+        out.writeInt(status);
+        out.writeInt(headers.size());
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            writeString(out, header.getKey());
+            out.writeInt(header.getValue().size());
+            for (String value : header.getValue()) {
+                writeString(out, value == null ? "" : value);
+            }
+        }
+        out.writeInt(body.length);
+        out.write(body);
+    }
+
+    static Frame read(DataInput in) throws IOException {
+        Frame frame = new Frame();
+        frame.service = readString(in);
+        frame.method = readString(in);
+        frame.path = readString(in);
+        frame.status = in.readInt();
+        int headerCount = in.readInt();
+        if (headerCount < 0 || headerCount > MAX_STRING_SIZE) {
+            throw new IOException("Invalid frame header count " + headerCount);
+        }
+        for (int i = 0; i < headerCount; i++) {
+            String name = readString(in);
+            int valueCount = in.readInt();
+            if (valueCount < 0 || valueCount > MAX_STRING_SIZE) {
+                throw new IOException("Invalid frame header value count " + valueCount);
+            }
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(in));
+            }
+            frame.headers.put(name, values);
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_BODY_SIZE) {
+            throw new IOException("Invalid frame body size " + length);
+        }
+        frame.body = new byte[length];
+        in.readFully(frame.body);
+        return frame;
+    }
+
+    private static void checkString(String value) throws ProtocolException {
+        // a char takes at most three bytes in UTF-8
+        if (value.length() * 3L > MAX_STRING_SIZE
+            && value.getBytes(StandardCharsets.UTF_8).length > MAX_STRING_SIZE) {
+            throw new ProtocolException("Frame string of " + value.length() + " chars exceeds "
+                                        + MAX_STRING_SIZE + " bytes");
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_SIZE) {
+            throw new IOException("Invalid frame string size " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Address of an endpoint of a frame based transport like {@code unix:/var/run/dosgi.sock#/service}.
+ * The path names the socket or buffer, the fragment is the path of the service. Several services
+ * can share one socket.
+ */
+final class FrameAddress {
+    private final String location;
+    private final String rawLocation;
+    private final String service;
+
+    private FrameAddress(String location, String rawLocation, String service) {
+        this.location = location;
+        this.rawLocation = rawLocation;
+        this.service = service;
+    }
+
+    static FrameAddress parse(String address) {
+        try {
+            URI uri = new URI(address);
+            if (uri.getPath() == null || uri.getPath().isEmpty()) {
+                throw new IllegalArgumentException("Address " + address + " does not contain a path");
+            }
+            String fragment = uri.getFragment();
+            String service = fragment == null || fragment.isEmpty() ? "/"
+                : fragment.startsWith("/") ? fragment : "/" + fragment;
+            return new FrameAddress(uri.getPath(), uri.getRawPath(), service);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid address " + address, e);
+        }
+    }
+
+    /**
+     * @return the file system path of the socket or buffer
+     */
+    String getLocation() {
+        return location;
+    }
+
+    String getService() {
+        return service;
+    }
+
+    /**
+     * Returns the path and query of a request URI relative to the service. Clients append the
+     * resource path to the path of the address, so {@code unix:/dosgi.sock/tasks/1?q=a#/service}
+     * results in {@code /tasks/1?q=a}.
+     */
+    String getRelativePath(String requestUri) {
+        if (requestUri == null) {
+            return "";
+        }
+        URI uri = URI.create(requestUri);
+        String path = uri.getRawPath();
+        String relative = path != null && path.startsWith(rawLocation) ? path.substring(rawLocation.length()) : "";
+        return uri.getRawQuery() == null ? relative : relative + "?" + uri.getRawQuery();
+    }
+}
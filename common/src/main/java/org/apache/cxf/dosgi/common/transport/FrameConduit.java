@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.AbstractConduit;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+
+/**
+ * Client side of the frame based transports. The request is buffered and sent as one frame
+ * when the message is closed, the response frame is then dispatched like an HTTP response.
+ * Request bodies are limited to {@link Frame#MAX_BODY_SIZE}.
+ */
+class FrameConduit extends AbstractConduit {
+    static final long DEFAULT_RECEIVE_TIMEOUT = 60000;
+    private static final Logger LOG = Logger.getLogger(FrameConduit.class.getName());
+
+    private final FrameChannel channel;
+    private final FrameAddress address;
+
+    FrameConduit(EndpointReferenceType target, FrameChannel channel, FrameAddress address) {
+        super(target);
+        this.channel = channel;
+        this.address = address;
+    }
+
+    @Override
+    public void prepare(Message message) throws IOException {
+        message.setContent(OutputStream.class, new RequestStream(message));
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    /**
+     * Sets the service and the path of the request from the absolute URI of the message.
+     */
+    void setTarget(Frame request, String requestUri) {
+        request.setService(address.getService());
+        request.setPath(address.getRelativePath(requestUri));
+    }
+
+    /**
+     * Returns the content type of the message including the charset like HTTP does.
+     */
+    static String getContentType(Message message) {
+        String contentType = (String)message.get(Message.CONTENT_TYPE);
+        String encoding = (String)message.get(Message.ENCODING);
+        if (contentType != null && encoding != null && !contentType.toLowerCase().contains("charset=")) {
+            return contentType + "; charset=" + encoding;
+        }
+        return contentType;
+    }
+
+    static void copyHeaders(Message message, Frame frame) {
+        Map<String, List<?>> headers = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers != null) {
+            for (Map.Entry<String, List<?>> header : headers.entrySet()) {
+                List<String> values = new ArrayList<>();
+                for (Object value : header.getValue()) {
+                    values.add(String.valueOf(value));
+                }
+                frame.getHeaders().put(header.getKey(), values);
+            }
+        }
+        String contentType = getContentType(message);
+        if (contentType != null) {
+            frame.setHeader(Frame.CONTENT_TYPE, contentType);
+        }
+    }
+
+    private static long getReceiveTimeout(Message message) {
+        Object timeout = message.get(Message.RECEIVE_TIMEOUT);
+        return timeout instanceof Number ? ((Number)timeout).longValue() : DEFAULT_RECEIVE_TIMEOUT;
+    }
+
+    private final class RequestStream extends OutputStream {
+        private final Message message;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private boolean closed;
+
+        RequestStream(Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkSize(1);
+            body.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkSize(len);
+            body.write(b, off, len);
+        }
+
+        private void checkSize(int len) throws ProtocolException {
+            if (body.size() + (long)len > Frame.MAX_BODY_SIZE) {
+                throw new ProtocolException("Request body exceeds " + Frame.MAX_BODY_SIZE + " bytes");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Frame request = new Frame();
+            String method = (String)message.get(Message.HTTP_REQUEST_METHOD);
+            request.setMethod(method == null ? "POST" : method);
+            String requestUri = (String)message.get(Message.REQUEST_URI);
+            setTarget(request, requestUri != null && requestUri.contains(":")
+                ? requestUri : (String)message.get(Message.ENDPOINT_ADDRESS));
+            copyHeaders(message, request);
+            request.setBody(body.toByteArray());
+            Frame response = channel.call(request, getReceiveTimeout(message));
+            Exchange exchange = message.getExchange();
+            if (exchange.isOneWay()) {
+                return;
+            }
+            Message inMessage = new MessageImpl();
+            inMessage.setExchange(exchange);
+            inMessage.put(Message.RESPONSE_CODE, response.getStatus());
+            inMessage.put(Message.PROTOCOL_HEADERS, response.getHeaders());
+            String contentType = response.getHeader(Frame.CONTENT_TYPE);
+            if (contentType != null) {
+                inMessage.put(Message.CONTENT_TYPE, contentType);
+                String charset = HttpHeaderHelper.findCharset(contentType);
+                if (charset != null) {
+                    inMessage.put(Message.ENCODING, HttpHeaderHelper.mapCharset(charset));
+                }
+            }
+            inMessage.setContent(InputStream.class, new ByteArrayInputStream(response.getBody()));
+            incomingObserver.onMessage(inMessage);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.helpers.HttpHeaderHelper;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.AbstractDestination;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.ws.addressing.EndpointReferenceUtils;
+
+/**
+ * Server side of the frame based transports. Turns request frames into messages like an HTTP
+ * destination does and collects the response in a frame. Requests are processed synchronously
+ * on the thread of the connection, so asynchronous services are not supported.
+ */
+class FrameDestination extends AbstractDestination {
+    static final int ACCEPTED = 202;
+    private static final Logger LOG = Logger.getLogger(FrameDestination.class.getName());
+    private static final String RESPONSE_KEY = FrameDestination.class.getName() + ".response";
+
+    private final FrameAddress address;
+    private final FrameTransportFactory factory;
+
+    FrameDestination(Bus bus, EndpointInfo endpointInfo, FrameAddress address, FrameTransportFactory factory) {
+        super(bus, EndpointReferenceUtils.getEndpointReference(endpointInfo.getAddress()), endpointInfo);
+        this.address = address;
+        this.factory = factory;
+    }
+
+    FrameAddress getFrameAddress() {
+        return address;
+    }
+
+    Frame invoke(Frame request) {
+        MessageImpl inMessage = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(inMessage);
+        String path = request.getPath();
+        int query = path.indexOf('?');
+        String requestUri = address.getService() + (query < 0 ? path : path.substring(0, query));
+        inMessage.put(Message.HTTP_REQUEST_METHOD, request.getMethod());
+        inMessage.put(Message.REQUEST_URI, requestUri);
+        inMessage.put(Message.PATH_INFO, requestUri);
+        inMessage.put(Message.BASE_PATH, address.getService());
+        if (query >= 0) {
+            inMessage.put(Message.QUERY_STRING, path.substring(query + 1));
+        }
+        inMessage.put(Message.PROTOCOL_HEADERS, request.getHeaders());
+        String contentType = request.getHeader(Frame.CONTENT_TYPE);
+        if (contentType != null) {
+            inMessage.put(Message.CONTENT_TYPE, contentType);
+            String charset = HttpHeaderHelper.findCharset(contentType);
+            if (charset != null) {
+                inMessage.put(Message.ENCODING, HttpHeaderHelper.mapCharset(charset));
+            }
+        }
+        inMessage.put(Message.ACCEPT_CONTENT_TYPE, request.getHeader("Accept"));
+        inMessage.setContent(InputStream.class, new ByteArrayInputStream(request.getBody()));
+        inMessage.setDestination(this);
+
+        incomingObserver.onMessage(inMessage);
+
+        Frame response = (Frame)exchange.get(RESPONSE_KEY);
+        if (response == null) {
+            response = new Frame();
+            response.setStatus(ACCEPTED);
+        }
+        return response;
+    }
+
+    @Override
+    protected void activate() {
+        factory.register(this);
+    }
+
+    @Override
+    protected void deactivate() {
+        factory.unregister(this);
+    }
+
+    @Override
+    protected Conduit getInbuiltBackChannel(Message inMessage) {
+        return new BackChannelConduit();
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    private final class BackChannelConduit extends AbstractBackChannelConduit {
+
+        @Override
+        public void prepare(Message message) throws IOException {
+            message.setContent(OutputStream.class, new ResponseStream(message));
+        }
+    }
+
+    private static final class ResponseStream extends ByteArrayOutputStream {
+        private static final int OK = 200;
+        private static final int SERVER_ERROR = 500;
+        private final Message message;
+        private boolean closed;
+
+        ResponseStream(Message message) {
+            this.message = message;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Exchange exchange = message.getExchange();
+            Frame response = new Frame();
+            Integer status = (Integer)message.get(Message.RESPONSE_CODE);
+            if (status == null) {
+                status = message == exchange.getOutFaultMessage() ? SERVER_ERROR : OK;
+            }
+            response.setStatus(status);
+            FrameConduit.copyHeaders(message, response);
+            response.setBody(toByteArray());
+            exchange.put(RESPONSE_KEY, response);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Receives request frames at one location and dispatches them to the destinations by service path.
+ */
+abstract class FrameServer {
+    static final int NOT_FOUND = 404;
+    static final int SERVER_ERROR = 500;
+    private static final Logger LOG = LoggerFactory.getLogger(FrameServer.class);
+
+    private final Map<String, FrameDestination> destinations = new ConcurrentHashMap<>();
+
+    abstract void start() throws IOException;
+
+    abstract void stop();
+
+    void add(FrameDestination destination) {
+        String service = destination.getFrameAddress().getService();
+        if (destinations.putIfAbsent(service, destination) != null) {
+            throw new IllegalStateException("An endpoint with service path " + service + " already exists");
+        }
+    }
+
+    /**
+     * @return true if no destinations are left
+     */
+    boolean remove(FrameDestination destination) {
+        destinations.remove(destination.getFrameAddress().getService(), destination);
+        return destinations.isEmpty();
+    }
+
+    Frame dispatch(Frame request) {
+        FrameDestination destination = destinations.get(request.getService());
+        if (destination == null) {
+            return error(NOT_FOUND, "No endpoint with service path " + request.getService());
+        }
+        try {
+            return destination.invoke(request);
+        } catch (RuntimeException e) {
+            LOG.warn("Error processing request for service path {}", request.getService(), e);
+            return error(SERVER_ERROR, e.toString());
+        }
+    }
+
+    static Frame error(int status, String message) {
+        Frame response = new Frame();
+        response.setStatus(status);
+        response.setHeader(Frame.CONTENT_TYPE, "text/plain; charset=UTF-8");
+        response.setBody(message.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.AbstractTransportFactory;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.ConduitInitiator;
+import org.apache.cxf.transport.ConduitInitiatorManager;
+import org.apache.cxf.transport.Destination;
+import org.apache.cxf.transport.DestinationFactory;
+import org.apache.cxf.transport.DestinationFactoryManager;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.apache.cxf.ws.addressing.EndpointReferenceUtils;
+
+/**
+ * Base of the transports that exchange {@link Frame}s. Destinations at the same location share one
+ * {@link FrameServer}, conduits to the same location share one {@link FrameChannel}.
+ */
+abstract class FrameTransportFactory extends AbstractTransportFactory implements DestinationFactory, ConduitInitiator {
+    private final String transportId;
+    private final String prefix;
+    private final Map<String, FrameServer> servers = new HashMap<>();
+    private final Map<String, FrameChannel> channels = new ConcurrentHashMap<>();
+
+    FrameTransportFactory(String transportId, String prefix) {
+        super(Collections.singletonList(transportId));
+        this.transportId = transportId;
+        this.prefix = prefix;
+    }
+
+    abstract FrameServer createServer(String location);
+
+    abstract FrameChannel createChannel(String location);
+
+    boolean isAddress(String address) {
+        return address != null && address.startsWith(prefix);
+    }
+
+    /**
+     * Makes the transport available on the bus. Registering it again has no effect.
+     */
+    void registerWith(Bus bus) {
+        bus.getExtension(DestinationFactoryManager.class).registerDestinationFactory(transportId, this);
+        bus.getExtension(ConduitInitiatorManager.class).registerConduitInitiator(transportId, this);
+    }
+
+    @Override
+    public Set<String> getUriPrefixes() {
+        return Collections.singleton(prefix);
+    }
+
+    @Override
+    public Destination getDestination(EndpointInfo endpointInfo, Bus bus) throws IOException {
+        return new FrameDestination(bus, endpointInfo, FrameAddress.parse(endpointInfo.getAddress()), this);
+    }
+
+    @Override
+    public Conduit getConduit(EndpointInfo endpointInfo, Bus bus) throws IOException {
+        return getConduit(endpointInfo, null, bus);
+    }
+
+    @Override
+    public Conduit getConduit(EndpointInfo endpointInfo, EndpointReferenceType target, Bus bus)
+        throws IOException {
+        EndpointReferenceType ref = target == null
+            ? EndpointReferenceUtils.getEndpointReference(endpointInfo.getAddress()) : target;
+        FrameAddress address = FrameAddress.parse(ref.getAddress().getValue());
+        FrameChannel channel = channels.get(address.getLocation());
+        if (channel == null) {
+            channel = createChannel(address.getLocation());
+            FrameChannel existing = channels.putIfAbsent(address.getLocation(), channel);
+            channel = existing == null ? channel : existing;
+        }
+        return new FrameConduit(ref, channel, address);
+    }
+
+    synchronized void register(FrameDestination destination) {
+        String location = destination.getFrameAddress().getLocation();
+        FrameServer server = servers.get(location);
+        if (server == null) {
+            try {
+                server = createServer(location);
+                server.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to listen at " + location, e);
+            }
+            servers.put(location, server);
+        }
+        server.add(destination);
+    }
+
+    synchronized void unregister(FrameDestination destination) {
+        String location = destination.getFrameAddress().getLocation();
+        FrameServer server = servers.get(location);
+        if (server != null && server.remove(destination)) {
+            servers.remove(location);
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends request frames with the HTTP client of Java 11 or later, which multiplexes concurrent calls
+ * to the same host over one HTTP/2 connection. Plain http connections are upgraded to h2c, https
+ * connections negotiate HTTP/2 with ALPN. Servers that do not support HTTP/2 are called with HTTP/1.1.
+ * The client API is called by reflection as DOSGi is compiled for Java 8.
+ */
+final class Http2Channel implements FrameChannel {
+    /**
+     * Headers the Java HTTP client sets itself and refuses to take from the caller.
+     */
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private static final Class<?> CLIENT = getClass("java.net.http.HttpClient");
+    private static final Class<?> CLIENT_BUILDER = getClass("java.net.http.HttpClient$Builder");
+    private static final Class<?> VERSION = getClass("java.net.http.HttpClient$Version");
+    private static final Class<?> REQUEST = getClass("java.net.http.HttpRequest");
+    private static final Class<?> REQUEST_BUILDER = getClass("java.net.http.HttpRequest$Builder");
+    private static final Class<?> BODY_PUBLISHER = getClass("java.net.http.HttpRequest$BodyPublisher");
+    private static final Class<?> BODY_PUBLISHERS = getClass("java.net.http.HttpRequest$BodyPublishers");
+    private static final Class<?> RESPONSE = getClass("java.net.http.HttpResponse");
+    private static final Class<?> BODY_HANDLER = getClass("java.net.http.HttpResponse$BodyHandler");
+    private static final Class<?> BODY_HANDLERS = getClass("java.net.http.HttpResponse$BodyHandlers");
+    private static final Class<?> HEADERS = getClass("java.net.http.HttpHeaders");
+
+    static {
+        RESTRICTED_HEADERS.addAll(Arrays.asList("Connection", "Content-Length", "Expect", "Host", "Upgrade",
+                                                "Keep-Alive", "Transfer-Encoding", "HTTP2-Settings"));
+    }
+
+    private final Object client;
+    private final Object bodyHandler;
+    private final AtomicLong http2Responses = new AtomicLong();
+    private final AtomicLong http1Responses = new AtomicLong();
+
+    Http2Channel(long connectTimeoutMillis) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("HTTP/2 clients need Java 11 or later");
+        }
+        Object builder = invoke(CLIENT, "newBuilder", null);
+        builder = invoke(CLIENT_BUILDER, "version", builder, VERSION, getEnum(VERSION, "HTTP_2"));
+        if (connectTimeoutMillis > 0) {
+            builder = invoke(CLIENT_BUILDER, "connectTimeout", builder, Duration.class,
+                             Duration.ofMillis(connectTimeoutMillis));
+        }
+        client = invoke(CLIENT_BUILDER, "build", builder);
+        bodyHandler = invoke(BODY_HANDLERS, "ofByteArray", null);
+    }
+
+    static boolean isSupported() {
+        return CLIENT != null && HEADERS != null;
+    }
+
+    @Override
+    public Frame call(Frame request, long timeoutMillis) throws IOException {
+        Object builder = invoke(REQUEST, "newBuilder", null, URI.class, URI.create(request.getPath()));
+        Object body = request.getBody().length == 0
+            ? invoke(BODY_PUBLISHERS, "noBody", null)
+            : invoke(BODY_PUBLISHERS, "ofByteArray", null, byte[].class, request.getBody());
+        builder = invoke(REQUEST_BUILDER, "method", builder, String.class, request.getMethod(),
+                         BODY_PUBLISHER, body);
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            if (RESTRICTED_HEADERS.contains(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder = invoke(REQUEST_BUILDER, "header", builder, String.class, header.getKey(),
+                                 String.class, value);
+            }
+        }
+        if (timeoutMillis > 0) {
+            builder = invoke(REQUEST_BUILDER, "timeout", builder, Duration.class, Duration.ofMillis(timeoutMillis));
+        }
+        Object httpRequest = invoke(REQUEST_BUILDER, "build", builder);
+        Object httpResponse = send(httpRequest);
+
+        Frame response = new Frame();
+        response.setStatus((Integer)invoke(RESPONSE, "statusCode", httpResponse));
+        Object headers = invoke(RESPONSE, "headers", httpResponse);
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> headerMap = (Map<String, List<String>>)invoke(HEADERS, "map", headers);
+        response.getHeaders().putAll(headerMap);
+        response.setBody((byte[])invoke(RESPONSE, "body", httpResponse));
+        if ("HTTP_2".equals(((Enum<?>)invoke(RESPONSE, "version", httpResponse)).name())) {
+            http2Responses.incrementAndGet();
+        } else {
+            http1Responses.incrementAndGet();
+        }
+        return response;
+    }
+
+    private Object send(Object httpRequest) throws IOException {
+        try {
+            return CLIENT.getMethod("send", REQUEST, BODY_HANDLER).invoke(client, httpRequest, bodyHandler);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response");
+            }
+            throw new IOException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    long getHttp2Responses() {
+        return http2Responses.get();
+    }
+
+    long getHttp1Responses() {
+        return http1Responses.get();
+    }
+
+    /**
+     * Calls a method of the client API.
+     *
+     * @param typesAndArgs the parameter types of the method, each followed by its argument
+     */
+    private static Object invoke(Class<?> type, String name, Object target, Object... typesAndArgs) {
+        Class<?>[] types = new Class<?>[typesAndArgs.length / 2];
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = (Class<?>)typesAndArgs[2 * i];
+            args[i] = typesAndArgs[2 * i + 1];
+        }
+        try {
+            return type.getMethod(name, types).invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object getEnum(Class<?> type, String name) {
+        return Enum.valueOf((Class<Enum>)type, name);
+    }
+
+    private static Class<?> getClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
+import org.apache.cxf.endpoint.AbstractEndpointFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Intent object of the built in {@code http2} intent.
+ * <p>
+ * Exported endpoints on the embedded undertow engine serve h2c in addition to HTTP/1.1, see
+ * {@link HttpEngines#HTTP2}. Imported endpoints with an http or https address use a conduit that multiplexes all calls
+ * to a host over one HTTP/2 connection. It needs Java 11 or later, on older runtimes the imported
+ * endpoints keep using HTTP/1.1.
+ */
+public class Http2Transport implements TransportIntent {
+    static final String TRANSPORT_ID = "http://cxf.apache.org/dosgi/transports/http2";
+    private static final Logger LOG = LoggerFactory.getLogger(Http2Transport.class);
+
+    private final long connectTimeoutMillis;
+    private Http2Channel channel;
+    private HttpFrameConduitInitiator conduitInitiator;
+
+    public Http2Transport(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    /**
+     * Enables HTTP/2 on the HTTP engine created on the bus of an exported endpoint.
+     */
+    @Override
+    public void configureServer(Bus bus) {
+        bus.setProperty(HttpEngines.HTTP2, Boolean.TRUE);
+    }
+
+    /**
+     * Makes the client factory of an imported endpoint use the HTTP/2 conduit if its address is an
+     * HTTP address.
+     */
+    @Override
+    public void configureClient(AbstractEndpointFactory factory, Class<?> serviceClass) {
+        String address = factory.getAddress();
+        if (address == null || !address.startsWith("http")) {
+            return;
+        }
+        HttpFrameConduitInitiator initiator = getConduitInitiator();
+        if (initiator == null) {
+            LOG.warn("HTTP/2 clients need Java 11 or later. Calling {} with HTTP/1.1", address);
+            return;
+        }
+        initiator.configure(factory);
+    }
+
+    /**
+     * @return the number of responses imported endpoints received with HTTP/2
+     */
+    public synchronized long getHttp2Responses() {
+        return channel == null ? 0 : channel.getHttp2Responses();
+    }
+
+    /**
+     * The client is created on first use, so exporting frameworks do not start client threads.
+     */
+    private synchronized HttpFrameConduitInitiator getConduitInitiator() {
+        if (conduitInitiator == null && Http2Channel.isSupported()) {
+            channel = new Http2Channel(connectTimeoutMillis);
+            conduitInitiator = new HttpFrameConduitInitiator(TRANSPORT_ID, channel);
+        }
+        return conduitInitiator;
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.net.URI;
+
+/**
+ * Connection pool statistics of the async HTTP client for one remote host.
+ */
+public class HttpConnectionPool implements HttpConnectionPoolMXBean {
+    private final AsyncHttpChannel channel;
+    private final URI address;
+
+    HttpConnectionPool(AsyncHttpChannel channel, URI address) {
+        this.channel = channel;
+        this.address = address;
+    }
+
+    @Override
+    public int getLeased() {
+        return channel.getStats(address).getLeased();
+    }
+
+    @Override
+    public int getPending() {
+        return channel.getStats(address).getPending();
+    }
+
+    @Override
+    public int getAvailable() {
+        return channel.getStats(address).getAvailable();
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return channel.getStats(address).getMax();
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.AbstractEndpointFactory;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.transport.AbstractTransportFactory;
+import org.apache.cxf.transport.Conduit;
+import org.apache.cxf.transport.ConduitInitiator;
+import org.apache.cxf.transport.ConduitInitiatorManager;
+import org.apache.cxf.ws.addressing.EndpointReferenceType;
+import org.apache.cxf.ws.addressing.EndpointReferenceUtils;
+
+/**
+ * Creates the conduits of a transport that sends frames to HTTP servers. The transport is selected by
+ * its transport id only, so it does not replace the HTTP transport of CXF for other clients. All conduits
+ * share one {@link FrameChannel}.
+ */
+class HttpFrameConduitInitiator extends AbstractTransportFactory implements ConduitInitiator {
+    private final String transportId;
+    private final FrameChannel channel;
+
+    HttpFrameConduitInitiator(String transportId, FrameChannel channel) {
+        super(Collections.singletonList(transportId));
+        this.transportId = transportId;
+        this.channel = channel;
+    }
+
+    /**
+     * Makes the client factory use this transport. Call after the address of the factory is set.
+     */
+    void configure(AbstractEndpointFactory factory) {
+        factory.getBus().getExtension(ConduitInitiatorManager.class).registerConduitInitiator(transportId, this);
+        factory.setTransportId(transportId);
+    }
+
+    @Override
+    public Set<String> getUriPrefixes() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Conduit getConduit(EndpointInfo endpointInfo, Bus bus) throws IOException {
+        return getConduit(endpointInfo, null, bus);
+    }
+
+    @Override
+    public Conduit getConduit(EndpointInfo endpointInfo, EndpointReferenceType target, Bus bus)
+        throws IOException {
+        EndpointReferenceType ref = target == null
+            ? EndpointReferenceUtils.getEndpointReference(endpointInfo.getAddress()) : target;
+        return new HttpFrameConduit(ref, channel);
+    }
+}
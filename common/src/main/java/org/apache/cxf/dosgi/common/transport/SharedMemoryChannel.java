@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client side of the shared memory transport. The channel creates its own ring file in the
+ * directory of the server. Each call uses one slot of the ring and waits for the response by
+ * spinning, so calls return within microseconds once the server has answered.
+ */
+class SharedMemoryChannel implements FrameChannel {
+    private final File directory;
+    private final Semaphore permits = new Semaphore(SharedMemoryRing.SLOT_COUNT);
+    private final Queue<Integer> freeSlots = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> abandonedSlots = new ConcurrentLinkedQueue<>();
+    private volatile SharedMemoryRing ring;
+
+    SharedMemoryChannel(String location) {
+        this.directory = new File(location);
+        for (int i = 0; i < SharedMemoryRing.SLOT_COUNT; i++) {
+            freeSlots.add(i);
+        }
+    }
+
+    @Override
+    public Frame call(Frame request, long timeoutMillis) throws IOException {
+        long deadline = timeoutMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis)
+            : Long.MAX_VALUE;
+        SharedMemoryRing currentRing = getRing();
+        int slot = acquireSlot(currentRing, timeoutMillis);
+        try {
+            currentRing.write(slot, request);
+        } catch (IOException e) {
+            releaseSlot(slot);
+            throw e;
+        }
+        currentRing.setSlotState(slot, SharedMemoryRing.REQUEST);
+        int iteration = 0;
+        while (currentRing.getSlotState(slot) != SharedMemoryRing.RESPONSE) {
+            if (System.nanoTime() - deadline > 0) {
+                abandon(currentRing, slot);
+                throw new SocketTimeoutException("No response from " + directory + " within "
+                                                 + timeoutMillis + " ms");
+            }
+            SharedMemoryRing.idle(iteration++);
+        }
+        try {
+            return currentRing.read(slot);
+        } finally {
+            currentRing.setSlotState(slot, SharedMemoryRing.FREE);
+            releaseSlot(slot);
+        }
+    }
+
+    private SharedMemoryRing getRing() throws IOException {
+        SharedMemoryRing current = ring;
+        if (current == null) {
+            synchronized (this) {
+                current = ring;
+                if (current == null) {
+                    if (!directory.isDirectory()) {
+                        throw new IOException("No shared memory server at " + directory);
+                    }
+                    current = SharedMemoryRing.create(directory);
+                    ring = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private int acquireSlot(SharedMemoryRing currentRing, long timeoutMillis) throws IOException {
+        reclaimAbandonedSlots(currentRing);
+        try {
+            if (!permits.tryAcquire(timeoutMillis > 0 ? timeoutMillis : Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                throw new SocketTimeoutException("No free shared memory slot for " + directory);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared memory slot", e);
+        }
+        return freeSlots.poll();
+    }
+
+    private void releaseSlot(int slot) {
+        freeSlots.add(slot);
+        permits.release();
+    }
+
+    /**
+     * Takes back a request the server has not picked up yet. A request the server is processing
+     * keeps its slot until the response arrives.
+     */
+    private void abandon(SharedMemoryRing currentRing, int slot) {
+        if (currentRing.compareAndSetSlotState(slot, SharedMemoryRing.REQUEST, SharedMemoryRing.FREE)) {
+            releaseSlot(slot);
+        } else {
+            abandonedSlots.add(slot);
+        }
+    }
+
+    private void reclaimAbandonedSlots(SharedMemoryRing currentRing) {
+        for (Integer slot : abandonedSlots) {
+            if (currentRing.getSlotState(slot) == SharedMemoryRing.RESPONSE && abandonedSlots.remove(slot)) {
+                currentRing.setSlotState(slot, SharedMemoryRing.FREE);
+                releaseSlot(slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A memory mapped file divided into slots that carry one request and its response each.
+ * <p>
+ * The file is created by a client and polled by the server. A slot moves through the states
+ * FREE, REQUEST (written by the client), PROCESSING (claimed by the server) and RESPONSE
+ * (written by the server) back to FREE. State changes use acquire and release semantics and
+ * compare and set on the mapped memory, which needs the VarHandle API of Java 9 or later. It is
+ * called through method handles so the bundle still runs on Java 8.
+ */
+final class SharedMemoryRing {
+    static final int FREE = 0;
+    static final int REQUEST = 1;
+    static final int PROCESSING = 2;
+    static final int RESPONSE = 3;
+
+    static final int SLOT_COUNT = 32;
+    static final int SLOT_SIZE = 1024 * 1024;
+    static final String FILE_SUFFIX = ".ring";
+
+    private static final int MAGIC = 0x444f5347;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_HEADER_SIZE = 8;
+    private static final int SPINS = 1000;
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = 50000;
+
+    private static final MethodHandle GET_ACQUIRE = getAccessor("GET_ACQUIRE");
+    private static final MethodHandle SET_RELEASE = getAccessor("SET_RELEASE");
+    private static final MethodHandle COMPARE_AND_SET = getAccessor("COMPARE_AND_SET");
+
+    private final File file;
+    private final ByteBuffer buffer;
+
+    private SharedMemoryRing(File file, ByteBuffer buffer) {
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    static boolean isSupported() {
+        return GET_ACQUIRE != null && SET_RELEASE != null && COMPARE_AND_SET != null;
+    }
+
+    /**
+     * Creates a new ring file in the given directory.
+     */
+    static SharedMemoryRing create(File directory) throws IOException {
+        checkSupported();
+        File file = File.createTempFile("client-", FILE_SUFFIX, directory);
+        file.deleteOnExit();
+        SharedMemoryRing ring = new SharedMemoryRing(file, map(file, HEADER_SIZE + (long)SLOT_COUNT * SLOT_SIZE));
+        ring.buffer.putInt(4, SLOT_COUNT);
+        ring.buffer.putInt(8, SLOT_SIZE);
+        ring.setState(0, MAGIC);
+        return ring;
+    }
+
+    /**
+     * Opens a ring file created by a client.
+     *
+     * @return the ring or null if the file is not initialized yet
+     */
+    static SharedMemoryRing open(File file) throws IOException {
+        checkSupported();
+        long expectedSize = HEADER_SIZE + (long)SLOT_COUNT * SLOT_SIZE;
+        if (file.length() != expectedSize) {
+            return null;
+        }
+        SharedMemoryRing ring = new SharedMemoryRing(file, map(file, expectedSize));
+        if (ring.getState(0) != MAGIC || ring.buffer.getInt(4) != SLOT_COUNT || ring.buffer.getInt(8) != SLOT_SIZE) {
+            return null;
+        }
+        return ring;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getSlotState(int slot) {
+        return getState(offset(slot));
+    }
+
+    void setSlotState(int slot, int state) {
+        setState(offset(slot), state);
+    }
+
+    boolean compareAndSetSlotState(int slot, int expected, int state) {
+        try {
+            return (boolean)COMPARE_AND_SET.invokeExact(buffer, offset(slot), expected, state);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the frame into the slot. The state has to be set afterwards to publish it.
+     */
+    void write(int slot, Frame frame) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        frame.write(new DataOutputStream(bytes));
+        if (bytes.size() > SLOT_SIZE - SLOT_HEADER_SIZE) {
+            throw new IOException("Message of " + bytes.size() + " bytes exceeds the shared memory slot size of "
+                                  + (SLOT_SIZE - SLOT_HEADER_SIZE) + " bytes");
+        }
+        ByteBuffer slotBuffer = buffer.duplicate();
+        slotBuffer.position(offset(slot) + SLOT_HEADER_SIZE);
+        slotBuffer.put(bytes.toByteArray());
+        buffer.putInt(offset(slot) + 4, bytes.size());
+    }
+
+    Frame read(int slot) throws IOException {
+        int length = buffer.getInt(offset(slot) + 4);
+        if (length < 0 || length > SLOT_SIZE - SLOT_HEADER_SIZE) {
+            throw new IOException("Invalid message size " + length + " in slot " + slot + " of " + file);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer slotBuffer = buffer.duplicate();
+        slotBuffer.position(offset(slot) + SLOT_HEADER_SIZE);
+        slotBuffer.get(bytes);
+        return Frame.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Waits without blocking the thread for a short time first, as the other side usually
+     * answers within microseconds, then yields and finally parks for short intervals.
+     *
+     * @param iteration number of the consecutive waits without progress
+     */
+    static void idle(int iteration) {
+        if (iteration < SPINS) {
+            return;
+        }
+        if (iteration < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private int getState(int offset) {
+        try {
+            return (int)GET_ACQUIRE.invokeExact(buffer, offset);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void setState(int offset, int state) {
+        try {
+            SET_RELEASE.invokeExact(buffer, offset, state);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ByteBuffer map(File file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    private static void checkSupported() throws IOException {
+        if (!isSupported()) {
+            throw new IOException("The shared memory transport requires Java 9 or later");
+        }
+    }
+
+    private static MethodHandle getAccessor(String accessMode) {
+        try {
+            Method viewFactory = MethodHandles.class.getMethod("byteBufferViewVarHandle", Class.class,
+                                                               ByteOrder.class);
+            Object varHandle = viewFactory.invoke(null, int[].class, ByteOrder.nativeOrder());
+            Class<?> varHandleClass = Class.forName("java.lang.invoke.VarHandle");
+            Class<?> accessModeClass = Class.forName("java.lang.invoke.VarHandle$AccessMode");
+            Object mode = accessModeClass.getField(accessMode).get(null);
+            return (MethodHandle)varHandleClass.getMethod("toMethodHandle", accessModeClass).invoke(varHandle, mode);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server side of the shared memory transport. One thread polls the slots of all ring files in
+ * the directory and hands requests to worker threads. New ring files are picked up by a periodic
+ * scan of the directory. While idle the poller parks for short intervals, so it costs some CPU
+ * even without traffic.
+ */
+class SharedMemoryServer extends FrameServer {
+    static final long SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final Logger LOG = LoggerFactory.getLogger(SharedMemoryServer.class);
+
+    private final File directory;
+    private final Map<File, SharedMemoryRing> rings = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    SharedMemoryServer(String location) {
+        this.directory = new File(location);
+    }
+
+    @Override
+    synchronized void start() throws IOException {
+        if (!SharedMemoryRing.isSupported()) {
+            throw new IOException("The shared memory transport requires Java 9 or later");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create directory " + directory);
+        }
+        executor = Executors.newCachedThreadPool(new NamedThreadFactory("dosgi-shm"));
+        running = true;
+        executor.execute(new Poller());
+        LOG.info("Polling shared memory rings in {}", directory);
+    }
+
+    @Override
+    synchronized void stop() {
+        running = false;
+        executor.shutdownNow();
+        rings.clear();
+    }
+
+    private void scan() {
+        for (File file : rings.keySet()) {
+            if (!file.exists()) {
+                rings.remove(file);
+            }
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().endsWith(SharedMemoryRing.FILE_SUFFIX) && !rings.containsKey(file)) {
+                try {
+                    SharedMemoryRing ring = SharedMemoryRing.open(file);
+                    if (ring != null) {
+                        rings.put(file, ring);
+                    }
+                } catch (IOException e) {
+                    LOG.debug("Unable to open ring file {}", file, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the pending requests of all rings.
+     *
+     * @return true if a request was found
+     */
+    private boolean poll() {
+        boolean found = false;
+        for (SharedMemoryRing ring : rings.values()) {
+            for (int slot = 0; slot < SharedMemoryRing.SLOT_COUNT; slot++) {
+                if (ring.getSlotState(slot) == SharedMemoryRing.REQUEST
+                    && ring.compareAndSetSlotState(slot, SharedMemoryRing.REQUEST, SharedMemoryRing.PROCESSING)) {
+                    found = true;
+                    executor.execute(new Request(ring, slot));
+                }
+            }
+        }
+        return found;
+    }
+
+    private final class Poller implements Runnable {
+        @Override
+        public void run() {
+            long lastScan = System.nanoTime() - SCAN_INTERVAL_NANOS;
+            int idle = 0;
+            while (running) {
+                if (System.nanoTime() - lastScan >= SCAN_INTERVAL_NANOS) {
+                    scan();
+                    lastScan = System.nanoTime();
+                }
+                if (poll()) {
+                    idle = 0;
+                } else {
+                    SharedMemoryRing.idle(idle++);
+                }
+            }
+        }
+    }
+
+    private final class Request implements Runnable {
+        private final SharedMemoryRing ring;
+        private final int slot;
+
+        Request(SharedMemoryRing ring, int slot) {
+            this.ring = ring;
+            this.slot = slot;
+        }
+
+        @Override
+        public void run() {
+            Frame response;
+            try {
+                response = dispatch(ring.read(slot));
+            } catch (IOException e) {
+                LOG.warn("Invalid request in {}", ring.getFile(), e);
+                response = new Frame();
+                response.setStatus(SERVER_ERROR);
+            }
+            try {
+                ring.write(slot, response);
+            } catch (IOException e) {
+                LOG.warn("Unable to write response to {}", ring.getFile(), e);
+                Frame error = new Frame();
+                error.setStatus(SERVER_ERROR);
+                try {
+                    ring.write(slot, error);
+                } catch (IOException e2) {
+                    // an empty frame always fits
+                }
+            }
+            ring.setSlotState(slot, SharedMemoryRing.RESPONSE);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+/**
+ * Experimental transport over memory mapped files for the lowest latency between processes on
+ * the same host. Addresses have the form {@code shm:<directory>#<service path>}, the directory
+ * should be on a memory file system like {@code /dev/shm}.
+ */
+class SharedMemoryTransportFactory extends FrameTransportFactory {
+    static final String TRANSPORT_ID = "http://cxf.apache.org/dosgi/transports/shm";
+    static final String PREFIX = "shm:";
+
+    SharedMemoryTransportFactory() {
+        super(TRANSPORT_ID, PREFIX);
+    }
+
+    @Override
+    FrameServer createServer(String location) {
+        return new SharedMemoryServer(location);
+    }
+
+    @Override
+    FrameChannel createChannel(String location) {
+        return new SharedMemoryChannel(location);
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.AbstractEndpointFactory;
+
+/**
+ * Intent object that changes how the HTTP traffic of endpoints is carried.
+ */
+public interface TransportIntent {
+
+    /**
+     * Called with the bus of an exported endpoint before its HTTP engine and server are created.
+     */
+    void configureServer(Bus bus);
+
+    /**
+     * Called with the client factory and the interface of an imported endpoint after its address is set.
+     */
+    void configureClient(AbstractEndpointFactory factory, Class<?> serviceClass);
+}
@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.endpoint.AbstractEndpointFactory;
+
+/**
+ * Entry point to the transports DOSGi provides in addition to HTTP. They are chosen by the
+ * prefix of the endpoint address, like {@code unix:/var/run/dosgi.sock#/service} or
+ * {@code shm:/dev/shm/dosgi#/service}.
+ */
+public final class Transports {
+    private static final List<FrameTransportFactory> FACTORIES =
+        Arrays.asList(new UnixSocketTransportFactory(), new SharedMemoryTransportFactory());
+
+    private Transports() {
+    }
+
+    /**
+     * @return true if the address belongs to one of the DOSGi transports
+     */
+    public static boolean isTransportAddress(String address) {
+        for (FrameTransportFactory factory : FACTORIES) {
+            if (factory.isAddress(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Registers the transport of the address on the bus of the factory, if the address belongs
+     * to one of the DOSGi transports.
+     */
+    public static void configure(AbstractEndpointFactory factory, String address) {
+        for (FrameTransportFactory transportFactory : FACTORIES) {
+            if (transportFactory.isAddress(address)) {
+                transportFactory.registerWith(factory.getBus());
+            }
+        }
+    }
+}
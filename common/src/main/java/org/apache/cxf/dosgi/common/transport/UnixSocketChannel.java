@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+
+/**
+ * Client side connections to one Unix domain socket. Each connection carries one call at a time,
+ * idle connections are kept for reuse. Channels of Unix domain sockets have no read timeout, so a
+ * call that takes too long is aborted by closing its connection. Idle connections the server has
+ * closed are dropped before they are reused. If the server closes a reused connection before any
+ * byte of the response arrived, the call is sent once more on a new connection, but only if the
+ * server provably did not read it, as the write failed, or if its HTTP method is idempotent.
+ */
+class UnixSocketChannel implements FrameChannel {
+    static final int MAX_IDLE_CONNECTIONS = 16;
+    private static final ScheduledExecutorService TIMER =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("dosgi-unix-timeout"));
+
+    private final Path path;
+    private final Queue<Connection> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    UnixSocketChannel(String location) {
+        this.path = Paths.get(location);
+    }
+
+    @Override
+    public Frame call(Frame request, long timeoutMillis) throws IOException {
+        Connection connection = pollIdle();
+        if (connection != null) {
+            Frame response = call(connection, request, timeoutMillis, request.isIdempotent());
+            if (response != null) {
+                return response;
+            }
+        }
+        Frame response = call(new Connection(UnixSockets.connect(path)), request, timeoutMillis, false);
+        if (response == null) {
+            throw new EOFException("Connection closed by " + path + " before the request was sent");
+        }
+        return response;
+    }
+
+    private Connection pollIdle() {
+        Connection connection = idle.poll();
+        while (connection != null) {
+            idleCount.decrementAndGet();
+            if (connection.isOpen()) {
+                return connection;
+            }
+            connection.close();
+            connection = idle.poll();
+        }
+        return null;
+    }
+
+    /**
+     * Sends the request on the connection.
+     *
+     * @param resend true if the request may be sent again after the server read it
+     * @return the response or null if the request may be sent again, as the server closed the connection
+     *         before reading it or before answering a request that may be resent
+     */
+    private Frame call(Connection connection, Frame request, long timeoutMillis, boolean resend)
+        throws IOException {
+        ScheduledFuture<?> timeout = timeoutMillis > 0
+            ? TIMER.schedule(connection, timeoutMillis, TimeUnit.MILLISECONDS) : null;
+        Frame response;
+        try {
+            response = connection.call(request, resend);
+        } catch (IOException e) {
+            boolean timedOut = connection.isAborted();
+            connection.close();
+            if (timedOut) {
+                throw new SocketTimeoutException("No response from " + path + " within " + timeoutMillis + " ms");
+            }
+            throw e;
+        }
+        if (response == null) {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            connection.close();
+        } else if (timeout == null || timeout.cancel(false)) {
+            release(connection);
+        } else {
+            connection.close();
+        }
+        return response;
+    }
+
+    private void release(Connection connection) {
+        if (idleCount.incrementAndGet() <= MAX_IDLE_CONNECTIONS) {
+            idle.add(connection);
+        } else {
+            idleCount.decrementAndGet();
+            connection.close();
+        }
+    }
+
+    /**
+     * A connection. Running it aborts the current call by closing the connection.
+     */
+    private static final class Connection implements Runnable {
+        private final SocketChannel channel;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private volatile boolean aborted;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+        }
+
+        /**
+         * @return the response or null if the server closed the connection before reading the request or,
+         *         if resend is true, before answering it
+         */
+        Frame call(Frame request, boolean resend) throws IOException {
+            try {
+                request.write(out);
+                out.flush();
+            } catch (ProtocolException e) {
+                throw e;
+            } catch (IOException e) {
+                // the server closed the connection before the request, so it did not read it
+                if (aborted) {
+                    throw e;
+                }
+                return null;
+            }
+            try {
+                in.mark(1);
+                if (in.read() < 0) {
+                    throw new EOFException("Connection closed by the server before the response");
+                }
+            } catch (IOException e) {
+                // the server may have read the request before it closed the connection
+                if (aborted || !resend) {
+                    throw e;
+                }
+                return null;
+            }
+            in.reset();
+            return Frame.read(in);
+        }
+
+        /**
+         * @return false if the server closed the idle connection, which a read without blocking shows
+         */
+        boolean isOpen() {
+            try {
+                if (in.available() > 0) {
+                    return false;
+                }
+                channel.configureBlocking(false);
+                try {
+                    return channel.read(ByteBuffer.allocate(1)) == 0;
+                } finally {
+                    channel.configureBlocking(true);
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            aborted = true;
+            close();
+        }
+
+        boolean isAborted() {
+            return aborted;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
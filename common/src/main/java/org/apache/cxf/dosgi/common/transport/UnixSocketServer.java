@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Listens on a Unix domain socket. Each connection is served by its own thread that processes
+ * the requests of the connection one after the other.
+ */
+class UnixSocketServer extends FrameServer {
+    static final long MIN_BACKOFF_MILLIS = 10;
+    static final long MAX_BACKOFF_MILLIS = 1000;
+    private static final Logger LOG = LoggerFactory.getLogger(UnixSocketServer.class);
+
+    private final Path path;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    UnixSocketServer(String location) {
+        this.path = Paths.get(location);
+    }
+
+    @Override
+    synchronized void start() throws IOException {
+        removeStaleSocket();
+        serverChannel = UnixSockets.bind(path);
+        executor = Executors.newCachedThreadPool(new NamedThreadFactory("dosgi-unix"));
+        running = true;
+        executor.execute(new Acceptor());
+        LOG.info("Listening on Unix domain socket {}", path);
+    }
+
+    @Override
+    synchronized void stop() {
+        running = false;
+        close(serverChannel);
+        for (SocketChannel connection : connections) {
+            close(connection);
+        }
+        executor.shutdownNow();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOG.warn("Unable to delete socket file {}", path, e);
+        }
+    }
+
+    /**
+     * Deletes a socket file left behind by a process that ended without closing it. A socket
+     * that still accepts connections is in use and is kept.
+     */
+    private void removeStaleSocket() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        if (isListening()) {
+            throw new IOException("Unix domain socket " + path + " is in use");
+        }
+        Files.delete(path);
+    }
+
+    private boolean isListening() {
+        try (SocketChannel channel = UnixSockets.connect(path)) {
+            return channel.isConnected();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            while (running) {
+                Frame request;
+                try {
+                    request = Frame.read(in);
+                } catch (EOFException e) {
+                    return;
+                }
+                Frame response = dispatch(request);
+                try {
+                    response.write(out);
+                } catch (ProtocolException e) {
+                    error(SERVER_ERROR, e.toString()).write(out);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            if (running) {
+                LOG.debug("Closing connection on {}", path, e);
+            }
+        } finally {
+            connections.remove(channel);
+            close(channel);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        try {
+            if (closeable != null) {
+                closeable.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private final class Acceptor implements Runnable {
+        @Override
+        public void run() {
+            long backoffMillis = 0;
+            while (running) {
+                try {
+                    SocketChannel channel = serverChannel.accept();
+                    connections.add(channel);
+                    executor.execute(new Connection(channel));
+                    backoffMillis = 0;
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException e) {
+                    // a persistent error, like too many open files, is retried with growing pauses
+                    backoffMillis = Math.min(Math.max(2 * backoffMillis, MIN_BACKOFF_MILLIS), MAX_BACKOFF_MILLIS);
+                    LOG.warn("Error accepting connection on {}, retrying in {} ms", path, backoffMillis, e);
+                    try {
+                        Thread.sleep(backoffMillis);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private final class Connection implements Runnable {
+        private final SocketChannel channel;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            serve(channel);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+/**
+ * Transport over Unix domain sockets for frameworks on the same host. Addresses have the form
+ * {@code unix:<socket path>#<service path>}.
+ */
+class UnixSocketTransportFactory extends FrameTransportFactory {
+    static final String TRANSPORT_ID = "http://cxf.apache.org/dosgi/transports/unix";
+    static final String PREFIX = "unix:";
+
+    UnixSocketTransportFactory() {
+        super(TRANSPORT_ID, PREFIX);
+    }
+
+    @Override
+    FrameServer createServer(String location) {
+        return new UnixSocketServer(location);
+    }
+
+    @Override
+    FrameChannel createChannel(String location) {
+        return new UnixSocketChannel(location);
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Opens Unix domain socket channels. The API exists since Java 16, so it is called reflectively
+ * to keep the bundle usable on older runtimes where the transport is just unavailable.
+ */
+final class UnixSockets {
+    private static final ProtocolFamily UNIX = getUnixFamily();
+    private static final Method ADDRESS_OF = getMethod("java.net.UnixDomainSocketAddress", "of", Path.class);
+    private static final Method OPEN_SERVER = getMethod(ServerSocketChannel.class.getName(), "open",
+                                                        ProtocolFamily.class);
+    private static final Method OPEN_CLIENT = getMethod(SocketChannel.class.getName(), "open", ProtocolFamily.class);
+
+    private UnixSockets() {
+    }
+
+    static boolean isSupported() {
+        return UNIX != null && ADDRESS_OF != null && OPEN_SERVER != null && OPEN_CLIENT != null;
+    }
+
+    static ServerSocketChannel bind(Path path) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel)invoke(OPEN_SERVER, null, UNIX);
+        try {
+            channel.bind(toAddress(path));
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static SocketChannel connect(Path path) throws IOException {
+        SocketChannel channel = (SocketChannel)invoke(OPEN_CLIENT, null, UNIX);
+        try {
+            channel.connect(toAddress(path));
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static SocketAddress toAddress(Path path) throws IOException {
+        return (SocketAddress)invoke(ADDRESS_OF, null, path);
+    }
+
+    private static Object invoke(Method method, Object target, Object arg) throws IOException {
+        if (!isSupported()) {
+            throw new IOException("Unix domain sockets require Java 16 or later");
+        }
+        try {
+            return method.invoke(target, arg);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            }
+            throw new IOException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static ProtocolFamily getUnixFamily() {
+        for (StandardProtocolFamily family : StandardProtocolFamily.values()) {
+            if ("UNIX".equals(family.name())) {
+                return family;
+            }
+        }
+        return null;
+    }
+
+    private static Method getMethod(String className, String name, Class<?> paramType) {
+        try {
+            return Class.forName(className).getMethod(name, paramType);
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -61,4 +61,42 @@ public final class PropertyHelper {
         return null;
     }
 
+    public static long getLongProperty(Map<String, Object> dict, String name, long defaultValue) {
+        Object value = dict.get(name);
+        if (value instanceof Number) {
+            return ((Number)value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Property {} has invalid value {}. Using default {}", name, value, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    public static double getDoubleProperty(Map<String, Object> dict, String name, double defaultValue) {
+        Object value = dict.get(name);
+        if (value instanceof Number) {
+            return ((Number)value).doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Property {} has invalid value {}. Using default {}", name, value, defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    public static boolean getBooleanProperty(Map<String, Object> dict, String name, boolean defaultValue) {
+        Object value = dict.get(name);
+        if (value instanceof Boolean) {
+            return (Boolean)value;
+        }
+        return value == null ? defaultValue : Boolean.parseBoolean(value.toString().trim());
+    }
+
 }
@@ -0,0 +1,38 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.util;
+
+import org.apache.cxf.dosgi.common.metrics.ImportMetrics;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicies;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+
+/**
+ * Owns the threads that the classes of this bundle share between all endpoints. They are stopped when the
+ * bundle stops, so they do not keep its class loader after a refresh, and are started again on first use.
+ */
+@Component(immediate = true)
+public class SharedThreads {
+
+    @Deactivate
+    public void deactivate() {
+        InvocationPolicies.shutdown();
+        ImportMetrics.shutdown();
+    }
+}
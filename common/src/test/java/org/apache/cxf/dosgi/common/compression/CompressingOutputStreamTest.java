@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+public class CompressingOutputStreamTest {
+
+    @Test
+    public void testSmallBodyIsNotCompressed() throws IOException {
+        ContentCoding gzip = ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TestStream stream = new TestStream(out, gzip, 100);
+        stream.write(new byte[50]);
+        stream.write(new byte[49]);
+        stream.close();
+
+        assertFalse(stream.isCompressing());
+        assertEquals(0, stream.onCompressCalls);
+        assertArrayEquals(new byte[99], out.toByteArray());
+        assertEquals(0, gzip.getStats().getCompressedMessages());
+    }
+
+    @Test
+    public void testLargeBodyIsCompressed() throws IOException {
+        ContentCoding gzip = ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 2);
+        byte[] data = ContentCodingTest.createData();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TestStream stream = new TestStream(out, gzip, 1024);
+        stream.write(data, 0, 1000);
+        assertEquals(0, out.size());
+        stream.write(data, 1000, data.length - 1000);
+        stream.close();
+
+        assertTrue(stream.isCompressing());
+        assertEquals(1, stream.onCompressCalls);
+        byte[] compressed = out.toByteArray();
+        assertArrayEquals(data, ContentCodingTest.decompress(gzip, compressed));
+        CompressionStats stats = gzip.getStats();
+        assertEquals(1, stats.getCompressedMessages());
+        assertEquals(data.length, stats.getUncompressedBytes());
+        assertEquals(compressed.length, stats.getCompressedBytes());
+        assertTrue(stats.getCompressionRatio() > 10);
+    }
+
+    @Test
+    public void testDecompressionStats() throws IOException {
+        ContentCoding deflate = ContentCoding.create(ContentCoding.DEFLATE, Deflater.DEFAULT_COMPRESSION, 2);
+        byte[] data = ContentCodingTest.createData();
+        byte[] compressed = ContentCodingTest.compress(deflate, data);
+        DecompressingInputStream in = new DecompressingInputStream(new ByteArrayInputStream(compressed), deflate);
+        assertArrayEquals(data, ContentCodingTest.readAll(in));
+        in.close();
+
+        CompressionStats stats = deflate.getStats();
+        assertEquals(1, stats.getDecompressedMessages());
+        assertEquals(data.length, stats.getUncompressedBytes());
+        assertEquals(compressed.length, stats.getCompressedBytes());
+        assertTrue(stats.getDecompressionCpuMillis() >= 0);
+    }
+
+    private static final class TestStream extends CompressingOutputStream {
+        private int onCompressCalls;
+
+        TestStream(ByteArrayOutputStream out, ContentCoding coding, int threshold) {
+            super(out, coding, threshold);
+        }
+
+        @Override
+        protected void onCompress() {
+            onCompressCalls++;
+        }
+    }
+}
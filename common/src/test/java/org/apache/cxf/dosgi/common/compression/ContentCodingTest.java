@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class ContentCodingTest {
+    private static final byte[] DATA = createData();
+
+    @Test
+    public void testGzipIsReadableByJdk() throws IOException {
+        ContentCoding gzip = ContentCoding.create("GZip", Deflater.DEFAULT_COMPRESSION, 2);
+        byte[] compressed = compress(gzip, DATA);
+        assertArrayEquals(DATA, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testGzipReadsJdkData() throws IOException {
+        ContentCoding gzip = ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 2);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(DATA);
+        }
+        assertArrayEquals(DATA, decompress(gzip, compressed.toByteArray()));
+    }
+
+    @Test
+    public void testGzipDetectsCorruptData() throws IOException {
+        ContentCoding gzip = ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 2);
+        byte[] compressed = compress(gzip, DATA);
+        // last byte of the CRC in the trailer
+        compressed[compressed.length - 5]++;
+        try {
+            decompress(gzip, compressed);
+            fail("Expected ZipException");
+        } catch (ZipException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDeflateIsZlibFormat() throws IOException {
+        ContentCoding deflate = ContentCoding.create(ContentCoding.DEFLATE, Deflater.BEST_SPEED, 2);
+        byte[] compressed = compress(deflate, DATA);
+        assertArrayEquals(DATA, readAll(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+
+        ByteArrayOutputStream jdkCompressed = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(jdkCompressed)) {
+            out.write(DATA);
+        }
+        assertArrayEquals(DATA, decompress(deflate, jdkCompressed.toByteArray()));
+    }
+
+    @Test
+    public void testDeflatersAreReused() throws IOException {
+        DeflateCoding gzip = (DeflateCoding)ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 1);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(DATA, decompress(gzip, compress(gzip, DATA)));
+        }
+        assertEquals(1, gzip.getPool().getIdleDeflaters());
+        assertEquals(1, gzip.getPool().getIdleInflaters());
+        gzip.close();
+        assertEquals(0, gzip.getPool().getIdleDeflaters());
+    }
+
+    @Test
+    public void testOptionalCodings() throws IOException {
+        for (String name : new String[] {ContentCoding.ZSTD, ContentCoding.LZ4}) {
+            ContentCoding coding = ContentCoding.create(name, Deflater.DEFAULT_COMPRESSION, 2);
+            Assume.assumeNotNull(coding);
+            byte[] compressed = compress(coding, DATA);
+            assertEquals(name, coding.getName());
+            assertArrayEquals(DATA, decompress(coding, compressed));
+        }
+    }
+
+    @Test
+    public void testUnknownCoding() {
+        assertNull(ContentCoding.create("br2", Deflater.DEFAULT_COMPRESSION, 2));
+        assertNotNull(ContentCoding.create(" deflate ", Deflater.DEFAULT_COMPRESSION, 2));
+    }
+
+    static byte[] compress(ContentCoding coding, byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = coding.compress(compressed)) {
+            out.write(data, 0, 100);
+            out.write(data[100]);
+            out.write(data, 101, data.length - 101);
+        }
+        return compressed.toByteArray();
+    }
+
+    static byte[] decompress(ContentCoding coding, byte[] data) throws IOException {
+        try (InputStream in = coding.decompress(new ByteArrayInputStream(data))) {
+            return readAll(in);
+        }
+    }
+
+    static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1000];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] createData() {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            data.append("<task><id>").append(i).append("</id><name>Task ").append(i % 7).append("</name></task>");
+        }
+        return data.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.net.HttpURLConnection;
+
+import org.apache.cxf.dosgi.common.resilience.Cancellation;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.transport.http.HTTPConduit;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class CancellationFeatureTest {
+
+    @Test
+    public void testCancelDisconnects() {
+        HttpURLConnection connection = EasyMock.createMock(HttpURLConnection.class);
+        connection.disconnect();
+        EasyMock.expectLastCall();
+        EasyMock.replay(connection);
+        Message message = createRequest(connection);
+
+        Cancellation cancellation = new Cancellation();
+        Cancellation previous = Cancellation.set(cancellation);
+        try {
+            new CancellationFeature.AbortConnectionInterceptor().handleMessage(message);
+        } finally {
+            Cancellation.set(previous);
+        }
+        cancellation.cancel();
+        EasyMock.verify(connection);
+    }
+
+    @Test
+    public void testNoCancellation() {
+        HttpURLConnection connection = EasyMock.createMock(HttpURLConnection.class);
+        EasyMock.replay(connection);
+
+        new CancellationFeature.AbortConnectionInterceptor().handleMessage(createRequest(connection));
+        EasyMock.verify(connection);
+    }
+
+    private static Message createRequest(HttpURLConnection connection) {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.setOutMessage(message);
+        message.setExchange(exchange);
+        message.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        message.put(HTTPConduit.KEY_HTTP_CONNECTION, connection);
+        return message;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.cxf.dosgi.common.compression.ContentCoding;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CompressionFeatureTest {
+    private static final byte[] DATA = createData();
+
+    private final CompressionFeature feature = new CompressionFeature(Arrays.asList(
+        ContentCoding.create(ContentCoding.GZIP, Deflater.DEFAULT_COMPRESSION, 2),
+        ContentCoding.create(ContentCoding.DEFLATE, Deflater.DEFAULT_COMPRESSION, 2)), 1024, 2 * DATA.length);
+
+    @Test
+    public void testSelectCoding() {
+        Assert.assertEquals("gzip", feature.selectCoding("deflate, gzip;q=0.5").getName());
+        Assert.assertEquals("deflate", feature.selectCoding("GZIP;q=0, deflate").getName());
+        Assert.assertEquals("gzip", feature.selectCoding("*").getName());
+        Assert.assertEquals("deflate", feature.selectCoding("*, gzip; q=0").getName());
+        Assert.assertNull(feature.selectCoding("identity"));
+        Assert.assertNull(feature.selectCoding(""));
+        Assert.assertNull(feature.selectCoding(null));
+    }
+
+    @Test
+    public void testServerCompressesLargeResponse() throws IOException {
+        Message request = createMessage(false);
+        setHeader(request, CompressionFeature.ACCEPT_ENCODING, "gzip");
+        Message response = createResponse(request);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.setContent(OutputStream.class, body);
+
+        feature.new CompressInterceptor().handleMessage(response);
+        try (OutputStream out = response.getContent(OutputStream.class)) {
+            out.write(DATA);
+        }
+
+        Assert.assertEquals("gzip", Rejection.getHeader(response, CompressionFeature.CONTENT_ENCODING));
+        Assert.assertEquals("gzip, deflate", Rejection.getHeader(response, CompressionFeature.ACCEPT_ENCODING));
+        Assert.assertEquals(CompressionFeature.ACCEPT_ENCODING, Rejection.getHeader(response, CompressionFeature.VARY));
+        byte[] compressed = body.toByteArray();
+        Assert.assertTrue(compressed.length < DATA.length / 4);
+        Assert.assertArrayEquals(DATA, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testSmallResponseIsNotCompressed() throws IOException {
+        Message request = createMessage(false);
+        setHeader(request, CompressionFeature.ACCEPT_ENCODING, "gzip");
+        Message response = createResponse(request);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.setContent(OutputStream.class, body);
+
+        feature.new CompressInterceptor().handleMessage(response);
+        try (OutputStream out = response.getContent(OutputStream.class)) {
+            out.write(DATA, 0, 1000);
+        }
+
+        Assert.assertNull(Rejection.getHeader(response, CompressionFeature.CONTENT_ENCODING));
+        Assert.assertEquals(1000, body.size());
+    }
+
+    @Test
+    public void testResponseWithoutAcceptEncodingIsNotCompressed() throws IOException {
+        Message response = createResponse(createMessage(false));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.setContent(OutputStream.class, body);
+
+        feature.new CompressInterceptor().handleMessage(response);
+
+        Assert.assertSame(body, response.getContent(OutputStream.class));
+    }
+
+    @Test
+    public void testServerDecompressesRequest() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(DATA);
+        }
+        Message request = createMessage(false);
+        setHeader(request, CompressionFeature.CONTENT_ENCODING, "gzip");
+        setHeader(request, CompressionFeature.CONTENT_LENGTH, String.valueOf(compressed.size()));
+        request.setContent(InputStream.class, new ByteArrayInputStream(compressed.toByteArray()));
+
+        feature.new DecompressInterceptor().handleMessage(request);
+
+        Assert.assertArrayEquals(DATA, readAll(request.getContent(InputStream.class)));
+        Assert.assertNull(Rejection.getHeader(request, CompressionFeature.CONTENT_ENCODING));
+        Assert.assertNull(Rejection.getHeader(request, CompressionFeature.CONTENT_LENGTH));
+    }
+
+    @Test
+    public void testTooLargeRequestIsRejected() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(compressed)) {
+            for (int i = 0; i < 3; i++) {
+                out.write(DATA);
+            }
+        }
+        Message request = createMessage(false);
+        setHeader(request, CompressionFeature.CONTENT_ENCODING, "gzip");
+        request.setContent(InputStream.class, new ByteArrayInputStream(compressed.toByteArray()));
+
+        feature.new DecompressInterceptor().handleMessage(request);
+        try {
+            readAll(request.getContent(InputStream.class));
+            Assert.fail("Expected Fault");
+        } catch (Fault e) {
+            Assert.assertEquals(CompressionFeature.PAYLOAD_TOO_LARGE, e.getStatusCode());
+            Assert.assertEquals(CompressionFeature.PAYLOAD_TOO_LARGE,
+                                request.getExchange().get(Rejection.class).getStatus());
+        }
+    }
+
+    @Test
+    public void testUnsupportedCodingIsRejected() {
+        Message request = createMessage(false);
+        setHeader(request, CompressionFeature.CONTENT_ENCODING, "br");
+        request.setContent(InputStream.class, new ByteArrayInputStream(new byte[10]));
+        try {
+            feature.new DecompressInterceptor().handleMessage(request);
+            Assert.fail("Expected Fault");
+        } catch (Fault e) {
+            Assert.assertEquals(CompressionFeature.UNSUPPORTED_MEDIA_TYPE, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testClientLearnsRequestCoding() {
+        Message request = createMessage(true);
+        Assert.assertEquals("gzip", feature.getRequestCoding(request).getName());
+
+        Message response = createResponse(request);
+        setHeader(response, CompressionFeature.ACCEPT_ENCODING, "zstd, deflate");
+        response.setContent(InputStream.class, new ByteArrayInputStream(new byte[0]));
+        feature.new DecompressInterceptor().handleMessage(response);
+
+        Assert.assertEquals("deflate", feature.getRequestCoding(createMessage(true)).getName());
+    }
+
+    private static Message createMessage(boolean requestor) {
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        message.setExchange(exchange);
+        message.put(Message.REQUESTOR_ROLE, requestor);
+        if (requestor) {
+            exchange.setOutMessage(message);
+        } else {
+            exchange.setInMessage(message);
+        }
+        return message;
+    }
+
+    private static Message createResponse(Message request) {
+        Message response = new MessageImpl();
+        Exchange exchange = request.getExchange();
+        response.setExchange(exchange);
+        response.put(Message.REQUESTOR_ROLE, request.get(Message.REQUESTOR_ROLE));
+        if (exchange.getInMessage() == request) {
+            exchange.setOutMessage(response);
+        } else {
+            exchange.setInMessage(response);
+        }
+        return response;
+    }
+
+    private static void setHeader(Message message, String name, String value) {
+        @SuppressWarnings("unchecked")
+        Map<String, List<String>> headers = (Map<String, List<String>>)message.get(Message.PROTOCOL_HEADERS);
+        if (headers == null) {
+            headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            message.put(Message.PROTOCOL_HEADERS, headers);
+        }
+        headers.put(name, Arrays.asList(value));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] createData() {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            data.append("{\"id\":").append(i).append(",\"name\":\"Task ").append(i % 7).append("\"},");
+        }
+        return data.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class DocumentCacheFeatureTest {
+
+    @Test
+    public void testTotalSizeIsBounded() {
+        DocumentCacheFeature feature = new DocumentCacheFeature();
+        int size = DocumentCacheFeature.MAX_DOCUMENT_SIZE;
+        int fitting = DocumentCacheFeature.MAX_TOTAL_SIZE / size;
+        for (int i = 0; i <= fitting; i++) {
+            feature.putDocument("doc" + i, new DocumentCacheFeature.Document(new byte[size], "text/xml"));
+        }
+        assertEquals((long)fitting * size, feature.getTotalSize());
+        assertNull(feature.getDocument("doc0"));
+        assertNotNull(feature.getDocument("doc" + fitting));
+    }
+
+    @Test
+    public void testDocumentCountIsBounded() {
+        DocumentCacheFeature feature = new DocumentCacheFeature();
+        for (int i = 0; i < DocumentCacheFeature.MAX_DOCUMENTS + 10; i++) {
+            feature.putDocument("doc" + i, new DocumentCacheFeature.Document(new byte[10], "text/xml"));
+        }
+        assertNull(feature.getDocument("doc9"));
+        // the eldest document is kept as it was used recently
+        assertNotNull(feature.getDocument("doc10"));
+        feature.putDocument("last", new DocumentCacheFeature.Document(new byte[10], "text/xml"));
+        assertEquals(DocumentCacheFeature.MAX_DOCUMENTS * 10L, feature.getTotalSize());
+        assertNotNull(feature.getDocument("doc10"));
+        assertNull(feature.getDocument("doc11"));
+        assertNotNull(feature.getDocument("last"));
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.feature;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.cxf.continuations.Continuation;
+import org.apache.cxf.continuations.ContinuationProvider;
+import org.apache.cxf.continuations.SuspendedInvocationException;
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.invoker.Invoker;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VirtualThreadDispatcherTest {
+    private ExecutorService executor;
+    private CountDownLatch resumed;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        resumed = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        Deadline.set(null);
+    }
+
+    @Test
+    public void testServiceRunsOnExecutor() throws InterruptedException {
+        final AtomicReference<Thread> serviceThread = new AtomicReference<>();
+        final AtomicReference<Long> serviceDeadline = new AtomicReference<>();
+        Invoker delegate = new Invoker() {
+            @Override
+            public Object invoke(Exchange exchange, Object o) {
+                serviceThread.set(Thread.currentThread());
+                serviceDeadline.set(Deadline.get());
+                return "result";
+            }
+        };
+        VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(delegate, "test", executor);
+        Continuation continuation = createContinuation();
+        Exchange exchange = createExchange(continuation);
+
+        Deadline.set(1000L);
+        suspend(dispatcher, exchange);
+        Assert.assertNull(Deadline.get());
+        Assert.assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("result", dispatcher.invoke(exchange, null));
+
+        Assert.assertNotSame(Thread.currentThread(), serviceThread.get());
+        Assert.assertEquals(Long.valueOf(1000L), serviceDeadline.get());
+        Assert.assertEquals(1, dispatcher.getDispatchedCalls());
+        Assert.assertEquals(0, dispatcher.getActiveCalls());
+        EasyMock.verify(continuation);
+    }
+
+    @Test
+    public void testServiceFailure() throws InterruptedException {
+        final Fault fault = new Fault(new IllegalStateException("test"));
+        Invoker delegate = new Invoker() {
+            @Override
+            public Object invoke(Exchange exchange, Object o) {
+                throw fault;
+            }
+        };
+        VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(delegate, "test", executor);
+        Exchange exchange = createExchange(createContinuation());
+
+        suspend(dispatcher, exchange);
+        Assert.assertTrue(resumed.await(5, TimeUnit.SECONDS));
+        try {
+            dispatcher.invoke(exchange, null);
+            Assert.fail("Expected fault");
+        } catch (Fault e) {
+            Assert.assertSame(fault, e);
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testExecutorShutdown() throws InterruptedException {
+        Invoker delegate = EasyMock.createMock(Invoker.class);
+        EasyMock.replay(delegate);
+        VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(delegate, "test", executor);
+        dispatcher.close();
+        Exchange exchange = createExchange(createContinuation());
+
+        suspend(dispatcher, exchange);
+        Assert.assertTrue(resumed.await(0, TimeUnit.SECONDS));
+        dispatcher.invoke(exchange, null);
+    }
+
+    @Test
+    public void testDirectCallWithoutContinuation() {
+        Exchange exchange = createExchange(null);
+        Invoker delegate = EasyMock.createMock(Invoker.class);
+        EasyMock.expect(delegate.invoke(exchange, null)).andReturn("result");
+        EasyMock.replay(delegate);
+        VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(delegate, "test", executor);
+
+        Assert.assertEquals("result", dispatcher.invoke(exchange, null));
+        Assert.assertEquals(1, dispatcher.getDirectCalls());
+        Assert.assertEquals(0, dispatcher.getDispatchedCalls());
+        EasyMock.verify(delegate);
+    }
+
+    @Test
+    public void testPinnedEventsOfEndpoint() {
+        Invoker delegate = EasyMock.createMock(Invoker.class);
+        VirtualThreadDispatcher dispatcher = new VirtualThreadDispatcher(delegate, "test", executor);
+        PinningMonitor.register(dispatcher);
+        try {
+            PinningMonitor.onPinned(VirtualThreadDispatcher.getThreadPrefix("test") + "1", 30000000, "");
+            PinningMonitor.onPinned(VirtualThreadDispatcher.getThreadPrefix("test") + "2", 10000000, "");
+            PinningMonitor.onPinned(VirtualThreadDispatcher.getThreadPrefix("other") + "1", 50000000, "");
+            PinningMonitor.onPinned("other", 50000000, "");
+        } finally {
+            PinningMonitor.unregister(dispatcher);
+        }
+        Assert.assertEquals(2, dispatcher.getPinnedEvents());
+        Assert.assertEquals(30.0, dispatcher.getMaxPinnedMillis(), 0.001);
+    }
+
+    private void suspend(VirtualThreadDispatcher dispatcher, Exchange exchange) {
+        try {
+            dispatcher.invoke(exchange, null);
+            Assert.fail("Expected the invocation to be suspended");
+        } catch (SuspendedInvocationException e) {
+            // expected
+        }
+    }
+
+    private Continuation createContinuation() {
+        Continuation continuation = EasyMock.createMock(Continuation.class);
+        EasyMock.expect(continuation.isNew()).andReturn(true);
+        EasyMock.expect(continuation.suspend(0)).andReturn(true);
+        continuation.resume();
+        EasyMock.expectLastCall().andAnswer(new IAnswer<Object>() {
+            @Override
+            public Object answer() {
+                resumed.countDown();
+                return null;
+            }
+        });
+        EasyMock.replay(continuation);
+        return continuation;
+    }
+
+    private static Exchange createExchange(Continuation continuation) {
+        Exchange exchange = new ExchangeImpl();
+        Message in = new MessageImpl();
+        exchange.setInMessage(in);
+        if (continuation != null) {
+            ContinuationProvider provider = EasyMock.createMock(ContinuationProvider.class);
+            EasyMock.expect(provider.getContinuation()).andReturn(continuation).anyTimes();
+            EasyMock.replay(provider);
+            in.put(ContinuationProvider.class.getName(), provider);
+        }
+        return exchange;
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.httpservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.transport.http.HttpDestinationFactory;
+import org.apache.cxf.transport.http.netty.server.NettyHttpDestinationFactory;
+import org.apache.cxf.transport.http_jetty.JettyDestinationFactory;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngine;
+import org.apache.cxf.transport.http_jetty.JettyHTTPServerEngineFactory;
+import org.apache.cxf.transport.http_undertow.UndertowDestinationFactory;
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+public class HttpEnginesTest {
+
+    @Test
+    public void testNoEngine() {
+        Bus bus = EasyMock.createStrictMock(Bus.class);
+        EasyMock.expect(bus.getProperty(HttpEngines.HTTP2)).andReturn(null);
+        EasyMock.replay(bus);
+        HttpEngines.configure(bus, "http://localhost:9191/test", new HashMap<String, Object>());
+        Map<String, Object> props = new HashMap<>();
+        props.put(HttpEngines.ENGINE, "netty");
+        HttpEngines.configure(bus, "/test", props);
+        EasyMock.verify(bus);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEngine() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(HttpEngines.ENGINE, "tomcat");
+        HttpEngines.configure(EasyMock.createMock(Bus.class), "http://localhost:9191/test", props);
+    }
+
+    @Test
+    public void testSelectEngine() {
+        assertEngine("jetty", 9192, JettyDestinationFactory.class);
+        assertEngine("netty", 9193, NettyHttpDestinationFactory.class);
+        assertEngine("undertow", 9194, UndertowDestinationFactory.class);
+    }
+
+    @Test
+    public void testCheckSetting() {
+        URI address = URI.create("http://localhost:9223/test");
+        assertTrue(HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS, null, 8));
+        assertTrue(HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS, 16, 16));
+        assertFalse(HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS, 16, null));
+        assertFalse(HttpEngines.checkSetting(address, HttpEngines.MAX_THREADS, 16, 8));
+    }
+
+    @Test
+    public void testFirstEndpointConfiguresEngine() throws Exception {
+        Bus bus1 = BusFactory.newInstance().createBus();
+        Bus bus2 = BusFactory.newInstance().createBus();
+        try {
+            Map<String, Object> props = new HashMap<>();
+            props.put(HttpEngines.ENGINE, "jetty");
+            props.put(HttpEngines.MAX_THREADS, 16);
+            HttpEngines.configure(bus1, "http://localhost:9224/first", props);
+            // the second endpoint only gets a warning
+            props.put(HttpEngines.MAX_THREADS, 32);
+            HttpEngines.configure(bus2, "http://localhost:9224/second", props);
+            JettyHTTPServerEngine engine = new JettyHTTPServerEngineFactory(bus2).retrieveJettyHTTPServerEngine(9224);
+            assertEquals(16, engine.getThreadingParameters().getMaxThreads());
+        } finally {
+            JettyHTTPServerEngineFactory.destroyForPort(9224);
+            bus1.shutdown(false);
+            bus2.shutdown(false);
+        }
+    }
+
+    private void assertEngine(String engine, int port, Class<?> destinationFactory) {
+        Bus bus = BusFactory.newInstance().createBus();
+        try {
+            Map<String, Object> props = new HashMap<>();
+            props.put(HttpEngines.ENGINE, engine);
+            props.put(HttpEngines.MAX_THREADS, 16);
+            props.put(HttpEngines.IDLE_TIMEOUT, 30000);
+            HttpEngines.configure(bus, "http://localhost:" + port + "/test", props);
+            assertTrue(destinationFactory.isInstance(bus.getExtension(HttpDestinationFactory.class)));
+        } finally {
+            bus.shutdown(false);
+        }
+    }
+}
@@ -55,6 +55,9 @@ public class HttpServiceManagerTest {
 
         String address2 = manager.getAbsoluteAddress("/mycontext", "/myservice");
         assertEquals("http://localhost:8181/mycontext/myservice", address2);
+
+        String address3 = manager.getAbsoluteAddress(null, "unix:/var/run/dosgi.sock#/myservice");
+        assertEquals("unix:/var/run/dosgi.sock#/myservice", address3);
     }
 
     @Test
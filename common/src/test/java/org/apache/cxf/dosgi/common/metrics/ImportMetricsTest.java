@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.cxf.dosgi.common.resilience.Bulkhead;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ImportMetricsTest {
+    private static final long GC_TIMEOUT = 10000;
+
+    @Test
+    public void testImportsOfOneEndpoint() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object proxy1 = new Object();
+        Object proxy2 = new Object();
+        List<ObjectName> names1 = ImportMetrics.register(proxy1, "ep1", Collections.singletonList(newBulkhead()));
+        List<ObjectName> names2 = ImportMetrics.register(proxy2, "ep1", Collections.singletonList(newBulkhead()));
+
+        Assert.assertEquals(1, names1.size());
+        Assert.assertNotEquals(names1, names2);
+        Assert.assertTrue(server.isRegistered(names1.get(0)));
+        Assert.assertTrue(server.isRegistered(names2.get(0)));
+        Assert.assertEquals("Bulkhead", names1.get(0).getKeyProperty("type"));
+        Assert.assertNotNull(proxy1);
+        Assert.assertNotNull(proxy2);
+    }
+
+    @Test
+    public void testUnregisterWhenProxyIsCollected() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object proxy = new Object();
+        ObjectName name = ImportMetrics.register(proxy, "ep2", Collections.singletonList(newBulkhead())).get(0);
+        Assert.assertTrue(server.isRegistered(name));
+
+        proxy = null;
+        long end = System.currentTimeMillis() + GC_TIMEOUT;
+        while (server.isRegistered(name) && System.currentTimeMillis() < end) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    @Test
+    public void testShutdown() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object proxy = new Object();
+        ObjectName name = ImportMetrics.register(proxy, "ep4", Collections.singletonList(newBulkhead())).get(0);
+        Assert.assertTrue(hasCleaner());
+
+        ImportMetrics.shutdown();
+        Assert.assertFalse(server.isRegistered(name));
+        long end = System.currentTimeMillis() + GC_TIMEOUT;
+        while (hasCleaner() && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        Assert.assertFalse(hasCleaner());
+
+        // registering after a shutdown starts a new cleaner
+        name = ImportMetrics.register(proxy, "ep4", Collections.singletonList(newBulkhead())).get(0);
+        Assert.assertTrue(server.isRegistered(name));
+        Assert.assertTrue(hasCleaner());
+        ImportMetrics.shutdown();
+    }
+
+    @Test
+    public void testNoMXBean() {
+        Assert.assertTrue(ImportMetrics.register(new Object(), "ep3", Collections.singletonList("text")).isEmpty());
+    }
+
+    private static boolean hasCleaner() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("dosgi-metrics-cleaner")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Bulkhead newBulkhead() {
+        return new Bulkhead(1, 0);
+    }
+}
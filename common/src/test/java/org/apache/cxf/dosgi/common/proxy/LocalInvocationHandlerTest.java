@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.junit.Test;
+import org.osgi.framework.ServiceException;
+
+public class LocalInvocationHandlerTest {
+
+    @Test
+    public void testPassByReference() {
+        ListService service = new ListServiceImpl();
+        ListService local = LocalInvocationHandler.create(service, ListService.class, false);
+        List<String> values = new ArrayList<>(Arrays.asList("a"));
+        List<String> result = local.append(values, "b");
+        assertSame(values, result);
+        assertEquals(Arrays.asList("a", "b"), values);
+    }
+
+    @Test
+    public void testPassByValue() {
+        ListService service = new ListServiceImpl();
+        ListService local = LocalInvocationHandler.create(service, ListService.class, true);
+        List<String> values = new ArrayList<>(Arrays.asList("a"));
+        List<String> result = local.append(values, "b");
+        assertNotSame(values, result);
+        assertEquals(Arrays.asList("a"), values);
+        assertEquals(Arrays.asList("a", "b"), result);
+    }
+
+    @Test
+    public void testExceptionIsUnwrapped() {
+        ListService local = LocalInvocationHandler.create(new ListServiceImpl(), ListService.class, true);
+        try {
+            local.fail();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEndpointIsLookedUpOnEachCall() {
+        LocalEndpoints.register("local1", new ListServiceImpl());
+        ListService local = (ListService)LocalInvocationHandler.createForEndpoint(
+            "local1", new Class<?>[] {ListService.class}, false);
+        assertEquals(Arrays.asList("a"), local.append(new ArrayList<String>(), "a"));
+
+        LocalEndpoints.unregister("local1");
+        try {
+            local.append(new ArrayList<String>(), "a");
+            fail("Expected ServiceException");
+        } catch (ServiceException e) {
+            assertEquals(ServiceException.REMOTE, e.getType());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCopyRequiresSerializable() throws Exception {
+        LocalInvocationHandler.copy(new Object(), getClass().getClassLoader());
+    }
+
+    @Test
+    public void testCanCopy() {
+        assertTrue(LocalInvocationHandler.canCopy(new Class<?>[] {ListService.class}));
+        assertFalse(LocalInvocationHandler.canCopy(new Class<?>[] {ThreadService.class}));
+    }
+
+    public interface ThreadService {
+        Thread[] getThreads();
+    }
+
+    public interface ListService {
+        List<String> append(List<String> values, String value);
+
+        void fail() throws IOException;
+    }
+
+    public static class ListServiceImpl implements ListService {
+        @Override
+        public List<String> append(List<String> values, String value) {
+            values.add(value);
+            return values;
+        }
+
+        @Override
+        public void fail() throws IOException {
+            throw new IOException("failed");
+        }
+    }
+}
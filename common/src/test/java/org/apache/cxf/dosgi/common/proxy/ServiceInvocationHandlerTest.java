@@ -25,10 +25,13 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
 import org.junit.Test;
 
 public class ServiceInvocationHandlerTest {
@@ -83,6 +86,52 @@ public class ServiceInvocationHandlerTest {
         assertEquals(Arrays.asList("equals", "hashCode", "toString"), called);
     }
 
+    @Test
+    public void testMultipleInterfaces() throws Exception {
+        final List<String> called = new ArrayList<>();
+        Runnable runnable = new Runnable() {
+            @Override
+            public void run() {
+                called.add("run");
+            }
+        };
+        Callable<String> callable = new Callable<String>() {
+            @Override
+            public String call() {
+                return "called";
+            }
+        };
+        Class<?>[] iTypes = new Class<?>[] {Runnable.class, Callable.class};
+        Object client = ProxyFactory.combine(Arrays.asList(runnable, callable), iTypes);
+        Object proxy = ProxyFactory.create(Collections.singletonList(client), iTypes,
+                                           Collections.<InvocationPolicy>emptyList());
+
+        ((Runnable)proxy).run();
+        assertEquals(Arrays.asList("run"), called);
+        assertEquals("called", ((Callable<?>)proxy).call());
+    }
+
+    @Test
+    public void testFirstAddressWithoutHedging() throws Exception {
+        Callable<String> first = new Callable<String>() {
+            @Override
+            public String call() {
+                return "first";
+            }
+        };
+        Callable<String> second = new Callable<String>() {
+            @Override
+            public String call() {
+                return "second";
+            }
+        };
+        Callable<?> proxy = (Callable<?>)ProxyFactory.create(Arrays.asList(first, second),
+            new Class<?>[] {Callable.class}, Collections.<InvocationPolicy>emptyList());
+        for (int c = 0; c < 4; c++) {
+            assertEquals("first", proxy.call());
+        }
+    }
+
     @Test(expected = IOException.class)
     public void testException() throws IOException {
         MySubService proxy = ProxyFactory.create(new MyServiceImpl(), MySubService.class);
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discrete event simulation of an {@link AdaptiveLimiter} in front of a server that processes
+ * {@code capacity} requests in parallel at its base latency. Above that the latency grows with
+ * the number of requests in flight, as requests start to queue for threads or CPU.
+ * Run {@link #main(String[])} to print how the limit converges.
+ */
+public class AdaptiveLimiterSimulation {
+    private static final long REPORT_INTERVAL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AdaptiveLimiter limiter;
+    private final int capacity;
+    private final long baseLatencyNanos;
+    private final Random random = new Random(42);
+    private final PriorityQueue<long[]> running = new PriorityQueue<>(11, (a, b) -> Long.compare(a[0], b[0]));
+    private long now;
+    private long accepted;
+    private long rejected;
+    private long latencySum;
+    private long completed;
+
+    public AdaptiveLimiterSimulation(AdaptiveLimiter limiter, int capacity, long baseLatencyMillis) {
+        this.limiter = limiter;
+        this.capacity = capacity;
+        this.baseLatencyNanos = TimeUnit.MILLISECONDS.toNanos(baseLatencyMillis);
+    }
+
+    /**
+     * Sends requests at the given rate for the given time.
+     *
+     * @param load arrival rate relative to the capacity of the server, e.g. 3 for three times overload
+     * @param print true to print the limit and latency every 500ms of simulated time
+     */
+    public void run(double load, long durationMillis, boolean print) throws InterruptedException {
+        long interval = (long)(baseLatencyNanos / (capacity * load));
+        long end = now + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        long nextReport = now + REPORT_INTERVAL;
+        resetCounters();
+        while (now < end) {
+            completeUntil(now);
+            if (limiter.acquire(0)) {
+                accepted++;
+                double queueing = Math.max(1.0, (double)limiter.getInFlight() / capacity);
+                long latency = (long)(baseLatencyNanos * queueing * (0.9 + 0.2 * random.nextDouble()));
+                running.add(new long[] {now + latency, now});
+            } else {
+                rejected++;
+            }
+            if (print && now >= nextReport) {
+                System.out.printf("load %.1f limit %3d in flight %3d latency %6.2fms accepted %5d rejected %5d%n",
+                                  load, limiter.getLimit(), limiter.getInFlight(), getAverageLatencyMillis(),
+                                  accepted, rejected);
+                nextReport += REPORT_INTERVAL;
+                resetCounters();
+            }
+            now += interval;
+        }
+    }
+
+    private void completeUntil(long time) {
+        while (!running.isEmpty() && running.peek()[0] <= time) {
+            long[] request = running.poll();
+            long latency = request[0] - request[1];
+            latencySum += latency;
+            completed++;
+            limiter.release(latency, true);
+        }
+    }
+
+    private void resetCounters() {
+        accepted = 0;
+        rejected = 0;
+        latencySum = 0;
+        completed = 0;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getAverageLatencyMillis() {
+        return completed == 0 ? 0 : latencySum / (completed * 1000000.0);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        AdaptiveLimiterSimulation sim = new AdaptiveLimiterSimulation(new AdaptiveLimiter(10, 1, 1000, 1.5), 20, 10);
+        sim.run(0.5, 3000, true);
+        sim.run(3, 10000, true);
+        sim.run(0.5, 3000, true);
+    }
+}
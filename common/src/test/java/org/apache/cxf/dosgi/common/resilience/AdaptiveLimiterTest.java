@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void testRejectsAboveLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, 1.5);
+        Assert.assertTrue(limiter.acquire(0));
+        Assert.assertTrue(limiter.acquire(0));
+        Assert.assertFalse(limiter.acquire(10));
+        Assert.assertEquals(1, limiter.getRejectedCalls());
+        limiter.release(1000, true);
+        Assert.assertTrue(limiter.acquire(0));
+    }
+
+    @Test
+    public void testConvergesUnderOverload() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 1000, 1.5);
+        AdaptiveLimiterSimulation sim = new AdaptiveLimiterSimulation(limiter, 20, 10);
+        sim.run(0.5, 2000, false);
+        sim.run(3, 10000, false);
+        Assert.assertTrue("Limit " + limiter.getLimit(), limiter.getLimit() >= 20 && limiter.getLimit() <= 60);
+        Assert.assertTrue(sim.getRejected() > 0);
+        Assert.assertTrue("Latency " + sim.getAverageLatencyMillis(), sim.getAverageLatencyMillis() < 30);
+    }
+
+    @Test
+    public void testLimitDoesNotGrowWithoutLoad() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 1000, 1.5);
+        AdaptiveLimiterSimulation sim = new AdaptiveLimiterSimulation(limiter, 20, 10);
+        sim.run(0.2, 10000, false);
+        Assert.assertTrue("Limit " + limiter.getLimit(), limiter.getLimit() <= 20);
+        Assert.assertEquals(0, sim.getRejected());
+    }
+
+    @Test
+    public void testFailuresReduceLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(100, 1, 1000, 1.5);
+        for (int c = 0; c < AdaptiveLimiter.WINDOW_SIZE; c++) {
+            limiter.release(1000, false);
+        }
+        Assert.assertEquals(90, limiter.getLimit());
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensOnFailureRate() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 10, 4, 60000, 1);
+        invoke(breaker, new Result("ok"));
+        invoke(breaker, new Result("ok"));
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Assert.assertEquals("CLOSED", breaker.getState());
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Assert.assertEquals("OPEN", breaker.getState());
+
+        Result target = new Result("ok");
+        try {
+            invoke(breaker, target);
+            Assert.fail("Expected call to be rejected");
+        } catch (RejectedCallException e) {
+            // expected
+        }
+        Assert.assertEquals(0, target.calls);
+        Assert.assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    public void testDeclaredExceptionsAreNoFailures() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 10, 1, 60000, 1);
+        for (int c = 0; c < 5; c++) {
+            invokeFailing(breaker, new Result(new IOException()));
+        }
+        Assert.assertEquals("CLOSED", breaker.getState());
+        Assert.assertEquals(0, breaker.getFailedCalls());
+    }
+
+    @Test
+    public void testHalfOpenCloses() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 10, 1, 50, 2);
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Assert.assertEquals("OPEN", breaker.getState());
+        Thread.sleep(100);
+
+        invoke(breaker, new Result("ok"));
+        Assert.assertEquals("HALF_OPEN", breaker.getState());
+        invoke(breaker, new Result("ok"));
+        Assert.assertEquals("CLOSED", breaker.getState());
+        Assert.assertEquals(0, breaker.getBufferedCalls());
+    }
+
+    @Test
+    public void testHalfOpenFailureReopens() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 10, 1, 50, 2);
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Thread.sleep(100);
+
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Assert.assertEquals("OPEN", breaker.getState());
+        Assert.assertEquals(2, breaker.getOpenCount());
+    }
+
+    @Test
+    public void testSlidingWindow() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 4, 4, 60000, 1);
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        for (int c = 0; c < 4; c++) {
+            invoke(breaker, new Result("ok"));
+        }
+        Assert.assertEquals(0, breaker.getFailedCalls());
+        Assert.assertEquals(4, breaker.getBufferedCalls());
+    }
+
+    @Test
+    public void testLocalRejectionsAreNoFailures() throws Throwable {
+        CircuitBreaker breaker = new CircuitBreaker(50, 10, 1, 50, 1);
+        for (int c = 0; c < 5; c++) {
+            invokeFailing(breaker, new Result(new RejectedCallException("Bulkhead is full")));
+            invokeFailing(breaker, new Result(new IllegalStateException(new RejectedCallException("Deadline"))));
+        }
+        Assert.assertEquals("CLOSED", breaker.getState());
+        Assert.assertEquals(0, breaker.getBufferedCalls());
+
+        invokeFailing(breaker, new Result(new IllegalStateException()));
+        Thread.sleep(100);
+        // the rejected trial call gives its permit back
+        invokeFailing(breaker, new Result(new RejectedCallException("Bulkhead is full")));
+        invoke(breaker, new Result("ok"));
+        Assert.assertEquals("CLOSED", breaker.getState());
+    }
+
+    @Test
+    public void testBulkheadRejectsWhenFull() throws Throwable {
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        final List<Object> nested = new ArrayList<>();
+        Result inner = new Result("inner");
+        Remote outer = new Remote() {
+            @Override
+            public Object call() throws IOException {
+                try {
+                    nested.add(invoke(bulkhead, inner));
+                } catch (RejectedCallException e) {
+                    nested.add(e);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+                return "outer";
+            }
+        };
+        Assert.assertEquals("outer", invoke(bulkhead, outer));
+        Assert.assertTrue(nested.get(0) instanceof RejectedCallException);
+        Assert.assertEquals(1, bulkhead.getRejectedCalls());
+        Assert.assertEquals(0, bulkhead.getActiveCalls());
+    }
+
+    private static Object invoke(InvocationPolicy policy, Remote target) throws Exception {
+        Method call = Remote.class.getMethod("call");
+        List<InvocationPolicy> chain = Arrays.asList(policy, new CallTarget());
+        try {
+            return new RemoteInvocation(call, new Object[] {}, Collections.singletonList(target), chain, 0)
+                .proceed();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void invokeFailing(InvocationPolicy policy, Remote target) throws Exception {
+        try {
+            invoke(policy, target);
+            Assert.fail("Expected exception");
+        } catch (IllegalStateException | RejectedCallException | IOException e) {
+            // expected
+        }
+    }
+
+    private static final class Result implements Remote {
+        private final Object result;
+        private int calls;
+
+        Result(Object result) {
+            this.result = result;
+        }
+
+        @Override
+        public Object call() throws IOException {
+            calls++;
+            if (result instanceof IOException) {
+                throw (IOException)result;
+            }
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException)result;
+            }
+            return result;
+        }
+    }
+
+    public interface Remote {
+        Object call() throws IOException;
+    }
+
+    private static final class CallTarget implements InvocationPolicy {
+        @Override
+        public Object invoke(RemoteInvocation invocation) throws Throwable {
+            return ((Remote)invocation.getTarget()).call();
+        }
+    }
+}
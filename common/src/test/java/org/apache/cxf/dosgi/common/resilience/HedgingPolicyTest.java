@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HedgingPolicyTest {
+
+    private static final Method CALL;
+
+    static {
+        try {
+            CALL = Callable.class.getMethod("call");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ExecutorService executor = Executors.newCachedThreadPool();
+    private CountDownLatch slowCancelled = new CountDownLatch(1);
+    private CountDownLatch slowAborted = new CountDownLatch(1);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowCallIsHedged() throws Throwable {
+        HedgingPolicy policy = createPolicy(Collections.<String, Object>singletonMap(
+            IdempotentMethods.IDEMPOTENT_METHODS, "call"));
+        List<Callable<String>> targets = Arrays.asList(slowTarget(), fastTarget());
+        warmUp(policy, targets);
+
+        long start = System.currentTimeMillis();
+        Assert.assertEquals("fast", invoke(policy, targets, 0));
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertEquals(1, policy.getHedgesSent());
+        Assert.assertEquals(1, policy.getHedgesWon());
+        Assert.assertTrue("Slow attempt was not cancelled", slowCancelled.await(1, TimeUnit.SECONDS));
+        Assert.assertTrue("Slow attempt was not aborted", slowAborted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedAttemptRunsWithoutHedge() throws Throwable {
+        HedgingPolicy policy = createPolicy(Collections.<String, Object>singletonMap(
+            IdempotentMethods.IDEMPOTENT_METHODS, "call"));
+        List<Callable<String>> targets = Arrays.asList(fastTarget(), slowTarget());
+        warmUp(policy, targets);
+        executor.shutdown();
+
+        Assert.assertEquals("fast", invoke(policy, targets, 0));
+        Assert.assertEquals(0, policy.getHedgesSent());
+    }
+
+    @Test
+    public void testFastCallIsNotHedged() throws Throwable {
+        HedgingPolicy policy = createPolicy(Collections.<String, Object>singletonMap(
+            IdempotentMethods.IDEMPOTENT_METHODS, "call"));
+        List<Callable<String>> targets = Arrays.asList(fastTarget(), slowTarget());
+        warmUp(policy, targets);
+
+        Assert.assertEquals("fast", invoke(policy, targets, 0));
+        Assert.assertEquals(0, policy.getHedgesSent());
+    }
+
+    @Test
+    public void testNonIdempotentCallIsNotHedged() throws Throwable {
+        HedgingPolicy policy = createPolicy(new HashMap<String, Object>());
+        List<Callable<String>> targets = Arrays.asList(slowFailingTarget(), fastTarget());
+        warmUp(policy, targets);
+
+        try {
+            invoke(policy, targets, 0);
+            Assert.fail("Expected the exception of the slow target");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("slow", e.getMessage());
+        }
+        Assert.assertEquals(0, policy.getHedgeableCalls());
+    }
+
+    @Test
+    public void testFailedHedgeFallsBackToPrimary() throws Throwable {
+        HedgingPolicy policy = createPolicy(Collections.<String, Object>singletonMap(
+            IdempotentMethods.IDEMPOTENT_METHODS, "call"));
+        Callable<String> primary = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(200);
+                return "primary";
+            }
+        };
+        Callable<String> failing = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new IllegalStateException("hedge failed");
+            }
+        };
+        List<Callable<String>> targets = Arrays.asList(primary, failing);
+        for (int c = 0; c < HedgingPolicy.MIN_SAMPLES; c++) {
+            invoke(policy, Arrays.asList(fastTarget(), fastTarget()), 0);
+        }
+
+        Assert.assertEquals("primary", invoke(policy, targets, 0));
+        Assert.assertEquals(1, policy.getHedgesSent());
+        Assert.assertEquals(0, policy.getHedgesWon());
+    }
+
+    private HedgingPolicy createPolicy(Map<String, Object> props) {
+        return new HedgingPolicy(new IdempotentMethods(props), executor, 95, 10, 0.1);
+    }
+
+    private void warmUp(HedgingPolicy policy, List<Callable<String>> targets) throws Throwable {
+        for (int c = 0; c < HedgingPolicy.MIN_SAMPLES; c++) {
+            invoke(policy, targets, targets.get(0) instanceof FastTarget ? 0 : 1);
+        }
+    }
+
+    private Object invoke(HedgingPolicy policy, List<Callable<String>> targets, int target) throws Throwable {
+        List<InvocationPolicy> chain = Arrays.asList(policy, new CallTarget());
+        return new RemoteInvocation(CALL, new Object[] {}, targets, chain, target).proceed();
+    }
+
+    private Callable<String> fastTarget() {
+        return new FastTarget();
+    }
+
+    private Callable<String> slowTarget() {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Cancellation.get().onCancel(new Runnable() {
+                    @Override
+                    public void run() {
+                        slowAborted.countDown();
+                    }
+                });
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    slowCancelled.countDown();
+                    throw e;
+                }
+                return "slow";
+            }
+        };
+    }
+
+    private Callable<String> slowFailingTarget() {
+        return new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                Thread.sleep(100);
+                throw new IllegalStateException("slow");
+            }
+        };
+    }
+
+    private static final class FastTarget implements Callable<String> {
+        @Override
+        public String call() {
+            return "fast";
+        }
+    }
+
+    private static final class CallTarget implements InvocationPolicy {
+        @Override
+        public Object invoke(RemoteInvocation invocation) throws Throwable {
+            return ((Callable<?>)invocation.getTarget()).call();
+        }
+    }
+}
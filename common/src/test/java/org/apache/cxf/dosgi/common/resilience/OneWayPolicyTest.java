@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.dosgi.common.api.OneWay;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OneWayPolicyTest {
+
+    private static final Method RUN;
+    private static final Method CALL;
+
+    static {
+        try {
+            RUN = Runnable.class.getMethod("run");
+            CALL = Callable.class.getMethod("call");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @After
+    public void release() {
+        release.countDown();
+    }
+
+    @Test
+    public void testOneWayMethods() throws Exception {
+        OneWayMethods methods = new OneWayMethods(Collections.<String, Object>singletonMap(
+            OneWayMethods.ONEWAY_METHODS, "run, call"));
+        Assert.assertTrue(methods.isOneWay(RUN));
+        // a method with a result is never one-way
+        Assert.assertFalse(methods.isOneWay(CALL));
+        Assert.assertFalse(new OneWayMethods(new HashMap<String, Object>()).isOneWay(RUN));
+
+        OneWayMethods annotated = new OneWayMethods(new HashMap<String, Object>());
+        Assert.assertTrue(annotated.isOneWay(Notifications.class.getMethod("sent")));
+        Assert.assertFalse(annotated.isOneWay(Notifications.class.getMethod("count")));
+        Assert.assertTrue(annotated.hasOneWayMethods(Notifications.class));
+        Assert.assertFalse(annotated.hasOneWayMethods(Runnable.class));
+    }
+
+    @Test
+    public void testCallerDoesNotWait() throws Throwable {
+        OneWayPolicy policy = createPolicy(10, OneWayPolicy.Overflow.BLOCK);
+
+        long start = System.currentTimeMillis();
+        Assert.assertNull(invoke(policy, RUN));
+        Assert.assertTrue(System.currentTimeMillis() - start < 1000);
+        Assert.assertEquals(0, calls.get());
+
+        release.countDown();
+        awaitSent(policy, 1);
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testOtherMethodsAreCalledDirectly() throws Throwable {
+        OneWayPolicy policy = createPolicy(10, OneWayPolicy.Overflow.BLOCK);
+        release.countDown();
+
+        Assert.assertEquals("called", invoke(policy, CALL));
+        Assert.assertEquals(0, policy.getSentCalls());
+    }
+
+    @Test
+    public void testDropWhenQueueIsFull() throws Throwable {
+        OneWayPolicy policy = createPolicy(1, OneWayPolicy.Overflow.DROP);
+
+        // the first call is taken by the sender, the second waits in the queue
+        invoke(policy, RUN);
+        invoke(policy, RUN);
+        invoke(policy, RUN);
+        Assert.assertEquals(1, policy.getDroppedCalls());
+        Assert.assertEquals(1, policy.getQueuedCalls());
+
+        release.countDown();
+        awaitSent(policy, 2);
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testBlockWhenQueueIsFull() throws Throwable {
+        final OneWayPolicy policy = createPolicy(1, OneWayPolicy.Overflow.BLOCK);
+        invoke(policy, RUN);
+        invoke(policy, RUN);
+
+        Thread caller = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    invoke(policy, RUN);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        caller.start();
+        caller.join(200);
+        Assert.assertTrue("Caller should wait for space in the queue", caller.isAlive());
+
+        release.countDown();
+        caller.join(5000);
+        Assert.assertFalse(caller.isAlive());
+        awaitSent(policy, 3);
+        Assert.assertEquals(0, policy.getDroppedCalls());
+    }
+
+    @Test
+    public void testFailuresAreCounted() throws Throwable {
+        OneWayPolicy policy = createPolicy(10, OneWayPolicy.Overflow.BLOCK);
+        release.countDown();
+        List<InvocationPolicy> chain = Arrays.asList(policy, new InvocationPolicy() {
+            @Override
+            public Object invoke(RemoteInvocation invocation) {
+                throw new IllegalStateException("unavailable");
+            }
+        });
+        new RemoteInvocation(RUN, new Object[] {}, Collections.singletonList(this), chain, 0).proceed();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (policy.getFailedCalls() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, policy.getFailedCalls());
+        Assert.assertEquals(0, policy.getSentCalls());
+    }
+
+    private OneWayPolicy createPolicy(int queueSize, OneWayPolicy.Overflow overflow) {
+        OneWayMethods methods = new OneWayMethods(Collections.<String, Object>singletonMap(
+            OneWayMethods.ONEWAY_METHODS, "run"));
+        return new OneWayPolicy(methods, queueSize, overflow, 1);
+    }
+
+    private Object invoke(OneWayPolicy policy, Method method) throws Throwable {
+        List<InvocationPolicy> chain = Arrays.asList(policy, new BlockingTarget());
+        return new RemoteInvocation(method, new Object[] {}, Collections.singletonList(this), chain, 0).proceed();
+    }
+
+    private static void awaitSent(OneWayPolicy policy, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (policy.getSentCalls() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, policy.getSentCalls());
+    }
+
+    @OneWay
+    interface Notifications {
+        void sent();
+
+        int count();
+    }
+
+    private final class BlockingTarget implements InvocationPolicy {
+        @Override
+        public Object invoke(RemoteInvocation invocation) throws InterruptedException {
+            if (invocation.getMethod().getReturnType() != void.class) {
+                return "called";
+            }
+            release.await(10, TimeUnit.SECONDS);
+            calls.incrementAndGet();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RateLimiterTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenRate() {
+        RateLimiter limiter = new RateLimiter(10, 3, 0, 0, RateLimiter.KEY_IP, 60000, 100);
+        long now = System.nanoTime();
+        Assert.assertEquals(0, limiter.tryAcquire(null, now));
+        Assert.assertEquals(0, limiter.tryAcquire(null, now));
+        Assert.assertEquals(0, limiter.tryAcquire(null, now));
+        long wait = limiter.tryAcquire(null, now);
+        Assert.assertEquals(100 * MS, wait);
+        Assert.assertEquals(0, limiter.tryAcquire(null, now + wait));
+        Assert.assertEquals(1, limiter.getThrottledRequests());
+        Assert.assertEquals(4, limiter.getPermittedRequests());
+    }
+
+    @Test
+    public void testClientsHaveOwnBuckets() {
+        RateLimiter limiter = new RateLimiter(0, 0, 1, 1, RateLimiter.KEY_IP, 60000, 100);
+        long now = System.nanoTime();
+        Assert.assertEquals(0, limiter.tryAcquire("a", now));
+        Assert.assertTrue(limiter.tryAcquire("a", now) > 0);
+        Assert.assertEquals(0, limiter.tryAcquire("b", now));
+        Assert.assertEquals(0, limiter.tryAcquire(null, now));
+        Assert.assertEquals(1, limiter.getThrottledClientRequests());
+        Assert.assertEquals(2, limiter.getTrackedClients());
+    }
+
+    @Test
+    public void testEndpointRejectionKeepsClientToken() {
+        RateLimiter limiter = new RateLimiter(1, 1, 0.1, 1, RateLimiter.KEY_IP, 60000, 100);
+        long now = System.nanoTime();
+        Assert.assertEquals(0, limiter.tryAcquire("a", now));
+        // the endpoint bucket is empty, so the first call of b is rejected by the endpoint
+        Assert.assertTrue(limiter.tryAcquire("b", now) > 0);
+        Assert.assertEquals(1, limiter.getThrottledRequests());
+        // b still has its token once the endpoint bucket is refilled, long before its own is
+        Assert.assertEquals(0, limiter.tryAcquire("b", now + 1000 * MS));
+        Assert.assertEquals(0, limiter.getThrottledClientRequests());
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() {
+        RateLimiter limiter = new RateLimiter(0, 0, 1, 1, RateLimiter.KEY_IP, 1000, 100);
+        long now = System.nanoTime();
+        for (int c = 0; c < 1000; c++) {
+            limiter.tryAcquire("client" + c, now);
+        }
+        Assert.assertEquals(100, limiter.getTrackedClients());
+        limiter.sweep(now + 5000 * MS);
+        Assert.assertEquals(0, limiter.getTrackedClients());
+        Assert.assertEquals(100, limiter.getEvictedClients());
+    }
+
+    @Test
+    public void testNewClientsShareOverflowBucket() {
+        RateLimiter limiter = new RateLimiter(0, 0, 1, 1, RateLimiter.KEY_IP, 60000, 1);
+        long now = System.nanoTime();
+        Assert.assertEquals(0, limiter.tryAcquire("a", now));
+        Assert.assertEquals(0, limiter.tryAcquire("b", now));
+        Assert.assertTrue(limiter.tryAcquire("c", now) > 0);
+    }
+}
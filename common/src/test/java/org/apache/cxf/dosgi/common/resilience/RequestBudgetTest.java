@@ -0,0 +1,54 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RequestBudgetTest {
+
+    @Test
+    public void testReserve() {
+        RequestBudget budget = new RequestBudget(0, 2);
+        Assert.assertTrue(budget.tryWithdraw());
+        Assert.assertTrue(budget.tryWithdraw());
+        Assert.assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void testRatio() {
+        RequestBudget budget = new RequestBudget(0.1, 0);
+        for (int c = 0; c < 9; c++) {
+            budget.deposit();
+        }
+        Assert.assertFalse(budget.tryWithdraw());
+        budget.deposit();
+        Assert.assertTrue(budget.tryWithdraw());
+        Assert.assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    public void testBalanceIsCapped() {
+        RequestBudget budget = new RequestBudget(0.5, 1);
+        for (int c = 0; c < 100; c++) {
+            budget.deposit();
+        }
+        Assert.assertEquals(1.0, budget.getBalance(), 0.0);
+    }
+}
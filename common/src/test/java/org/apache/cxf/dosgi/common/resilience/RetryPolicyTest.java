@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testRetriesIdempotentMethod() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent("call"), new RequestBudget(1, 10), 3, 0, 0);
+        Script target = new Script(new IllegalStateException(), new IllegalStateException(), "ok");
+        Assert.assertEquals("ok", invoke(retry, target));
+        Assert.assertEquals(3, target.calls);
+        Assert.assertEquals(2, retry.getRetries());
+    }
+
+    @Test
+    public void testStopsAfterMaxAttempts() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent("call"), new RequestBudget(1, 10), 2, 0, 0);
+        Script target = new Script(new IllegalStateException(), new IllegalStateException(), "ok");
+        invokeFailing(retry, target);
+        Assert.assertEquals(2, target.calls);
+    }
+
+    @Test
+    public void testNonIdempotentOnlyRetriesConnectFailures() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent(), new RequestBudget(1, 10), 3, 0, 0);
+        Script target = new Script(new IllegalStateException());
+        invokeFailing(retry, target);
+        Assert.assertEquals(1, target.calls);
+
+        target = new Script(new IllegalStateException(new ConnectException()), "ok");
+        Assert.assertEquals("ok", invoke(retry, target));
+        Assert.assertEquals(2, target.calls);
+    }
+
+    @Test
+    public void testNoRetryOfDeclaredOrRejected() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent("call"), new RequestBudget(1, 10), 3, 0, 0);
+        Script target = new Script(new IOException());
+        invokeFailing(retry, target);
+        Assert.assertEquals(1, target.calls);
+
+        target = new Script(new RejectedCallException("open"));
+        invokeFailing(retry, target);
+        Assert.assertEquals(1, target.calls);
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent("call"), new RequestBudget(0, 1), 5, 0, 0);
+        Script target = new Script(new IllegalStateException(), new IllegalStateException(), "ok");
+        invokeFailing(retry, target);
+        Assert.assertEquals(2, target.calls);
+        Assert.assertEquals(1, retry.getRetriesDeniedByBudget());
+    }
+
+    @Test
+    public void testDeadlineStopsRetries() throws Throwable {
+        RetryPolicy retry = new RetryPolicy(idempotent("call"), new RequestBudget(1, 10), 3, 10000, 10000);
+        List<InvocationPolicy> chain = Arrays.asList(new TimeoutPolicy(1000), retry, new CallTarget());
+        Script target = new Script(new IllegalStateException(), "ok");
+        try {
+            invoke(chain, target);
+            Assert.fail("Expected exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(1, target.calls);
+        Assert.assertEquals(1, retry.getRetriesDeniedByDeadline());
+        Assert.assertNull(Deadline.get());
+    }
+
+    @Test
+    public void testTimeoutKeepsEarlierDeadline() throws Throwable {
+        long inherited = System.currentTimeMillis() + 500;
+        Deadline.set(inherited);
+        try {
+            final Long[] seen = new Long[1];
+            Remote target = new Remote() {
+                @Override
+                public Object call() {
+                    seen[0] = Deadline.get();
+                    return "ok";
+                }
+            };
+            invoke(Arrays.asList(new TimeoutPolicy(60000), new CallTarget()), target);
+            Assert.assertEquals(Long.valueOf(inherited), seen[0]);
+            Assert.assertEquals(Long.valueOf(inherited), Deadline.get());
+        } finally {
+            Deadline.set(null);
+        }
+    }
+
+    @Test
+    public void testBackoffIsBounded() {
+        RetryPolicy retry = new RetryPolicy(idempotent(), new RequestBudget(1, 10), 10, 50, 200);
+        for (int attempt = 1; attempt < 40; attempt++) {
+            long backoff = retry.getBackoffMillis(attempt);
+            Assert.assertTrue(backoff >= 0 && backoff <= 200);
+        }
+    }
+
+    private static IdempotentMethods idempotent(String... names) {
+        Map<String, Object> props = Collections.<String, Object>singletonMap(
+            IdempotentMethods.IDEMPOTENT_METHODS, names);
+        return new IdempotentMethods(props);
+    }
+
+    private static Object invoke(InvocationPolicy policy, Remote target) throws Exception {
+        return invoke(Arrays.asList(policy, new CallTarget()), target);
+    }
+
+    private static Object invoke(List<InvocationPolicy> chain, Remote target) throws Exception {
+        Method call = Remote.class.getMethod("call");
+        try {
+            return new RemoteInvocation(call, new Object[] {}, Collections.singletonList(target), chain, 0)
+                .proceed();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void invokeFailing(InvocationPolicy policy, Remote target) throws Exception {
+        try {
+            invoke(policy, target);
+            Assert.fail("Expected exception");
+        } catch (RuntimeException | IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Returns or throws the given results one after the other.
+     */
+    private static final class Script implements Remote {
+        private final List<Object> results;
+        private int calls;
+
+        Script(Object... results) {
+            this.results = new LinkedList<>(Arrays.asList(results));
+        }
+
+        @Override
+        public Object call() throws IOException {
+            calls++;
+            Object result = results.remove(0);
+            if (result instanceof IOException) {
+                throw (IOException)result;
+            }
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException)result;
+            }
+            return result;
+        }
+    }
+
+    public interface Remote {
+        Object call() throws IOException;
+    }
+
+    private static final class CallTarget implements InvocationPolicy {
+        @Override
+        public Object invoke(RemoteInvocation invocation) throws Throwable {
+            return ((Remote)invocation.getTarget()).call();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.resilience;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ServerBulkheadTest {
+
+    @Test
+    public void testRejectsWhenQueueFull() throws InterruptedException {
+        ServerBulkhead bulkhead = new ServerBulkhead(1, 0);
+        Assert.assertTrue(bulkhead.acquire(1000));
+        Assert.assertFalse(bulkhead.acquire(1000));
+        Assert.assertEquals(1, bulkhead.getRejectedCalls());
+        bulkhead.release(0, true);
+        Assert.assertTrue(bulkhead.acquire(0));
+        Assert.assertEquals(2, bulkhead.getAcceptedCalls());
+    }
+
+    @Test
+    public void testQueuedRequestTimesOut() throws InterruptedException {
+        ServerBulkhead bulkhead = new ServerBulkhead(1, 1);
+        Assert.assertTrue(bulkhead.acquire(0));
+        Assert.assertFalse(bulkhead.acquire(20));
+        Assert.assertEquals(1, bulkhead.getTimedOutCalls());
+        Assert.assertEquals(0, bulkhead.getQueueDepth());
+    }
+
+    @Test
+    public void testQueuedRequestGetsPermit() throws InterruptedException {
+        final ServerBulkhead bulkhead = new ServerBulkhead(1, 1);
+        Assert.assertTrue(bulkhead.acquire(0));
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    acquired.set(bulkhead.acquire(5000));
+                } catch (InterruptedException e) {
+                    // fails below
+                }
+                done.countDown();
+            }
+        };
+        waiter.start();
+        while (bulkhead.getQueueDepth() == 0) {
+            Thread.sleep(5);
+        }
+        Assert.assertFalse("Queue is full", bulkhead.acquire(5000));
+        bulkhead.release(0, true);
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(acquired.get());
+        Assert.assertEquals(1, bulkhead.getActiveCalls());
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.ContentTooLongException;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AsyncHttpChannelTest {
+    private HttpServer server;
+    private String baseUri;
+    private AsyncHttpChannel channel;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readAll(exchange.getRequestBody());
+                exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+                exchange.getResponseHeaders().add("X-Uri", exchange.getRequestURI().toString());
+                String accept = exchange.getRequestHeaders().getFirst("Accept");
+                if (accept != null) {
+                    exchange.getResponseHeaders().add("X-Accept", accept);
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(201, body.length == 0 ? -1 : body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.createContext("/large", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(200, Frame.MAX_BODY_SIZE + 1L);
+                exchange.close();
+            }
+        });
+        server.start();
+        baseUri = "http://localhost:" + server.getAddress().getPort();
+        channel = new AsyncHttpChannel(10, 4, 60000, 5000, 5000, 1);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    public void testCall() throws IOException {
+        Frame request = new Frame();
+        request.setMethod("POST");
+        request.setPath(baseUri + "/echo/task?id=1");
+        request.setHeader("Accept", "text/plain");
+        request.setHeader("Content-Length", "5");
+        request.setBody("hello".getBytes(StandardCharsets.UTF_8));
+
+        Frame response = channel.call(request, 5000);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("POST", response.getHeader("x-method"));
+        assertEquals("/echo/task?id=1", response.getHeader("X-Uri"));
+        assertEquals("text/plain", response.getHeader("X-Accept"));
+        assertEquals("text/plain", response.getHeader(Frame.CONTENT_TYPE));
+        assertArrayEquals(request.getBody(), response.getBody());
+    }
+
+    @Test
+    public void testCallWithoutBody() throws IOException {
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/echo");
+        Frame response = channel.call(request, 0);
+        assertEquals(201, response.getStatus());
+        assertEquals("GET", response.getHeader("X-Method"));
+        assertEquals(0, response.getBody().length);
+    }
+
+    @Test
+    public void testConnectionIsReused() throws IOException {
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/echo");
+        channel.call(request, 5000);
+        channel.call(request, 5000);
+
+        PoolStats stats = channel.getStats(URI.create(baseUri + "/echo"));
+        assertEquals(0, stats.getLeased());
+        assertEquals(0, stats.getPending());
+        assertEquals(1, stats.getAvailable());
+        assertEquals(4, stats.getMax());
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/slow");
+        try {
+            channel.call(request, 100);
+            fail("Expected timeout");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTooLargeResponse() throws IOException {
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/large");
+        try {
+            channel.call(request, 5000);
+            fail("Expected ContentTooLongException");
+        } catch (ContentTooLongException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRequestReadByServerIsOnlyResentIfIdempotent() throws Exception {
+        final AtomicInteger received = new AtomicInteger();
+        try (final ServerSocket dropping = new ServerSocket(0, 50, InetAddress.getByName("localhost"))) {
+            Thread acceptor = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // reads the request headers and closes the connection without an answer
+                    while (!dropping.isClosed()) {
+                        try (Socket socket = dropping.accept()) {
+                            InputStream in = socket.getInputStream();
+                            int last = 0;
+                            int read = 0;
+                            while (read != -1 && last != 0x0d0a0d0a) {
+                                read = in.read();
+                                last = last << 8 | read;
+                            }
+                            received.incrementAndGet();
+                        } catch (IOException e) {
+                            // closed by the test
+                        }
+                    }
+                }
+            });
+            acceptor.start();
+            Frame request = new Frame();
+            request.setMethod("POST");
+            request.setPath("http://localhost:" + dropping.getLocalPort() + "/echo");
+            request.setBody("hello".getBytes(StandardCharsets.UTF_8));
+            try {
+                channel.call(request, 5000);
+                fail("Expected ConnectionClosedException");
+            } catch (ConnectionClosedException e) {
+                assertEquals(1, received.get());
+            }
+
+            request.setMethod("PUT");
+            try {
+                channel.call(request, 5000);
+                fail("Expected ConnectionClosedException");
+            } catch (ConnectionClosedException e) {
+                assertEquals(3, received.get());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamedTypes() {
+        assertFalse(AsyncHttpTransport.hasStreamedTypes(Runnable.class));
+        assertTrue(AsyncHttpTransport.hasStreamedTypes(Iterable.class));
+        assertTrue(AsyncHttpTransport.hasStreamedTypes(UploadService.class));
+    }
+
+    interface UploadService {
+        void upload(String name, InputStream content);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
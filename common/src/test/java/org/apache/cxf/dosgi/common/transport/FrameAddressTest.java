@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FrameAddressTest {
+
+    @Test
+    public void testParse() {
+        FrameAddress address = FrameAddress.parse("unix:/var/run/dosgi.sock#/tasks");
+        assertEquals("/var/run/dosgi.sock", address.getLocation());
+        assertEquals("/tasks", address.getService());
+    }
+
+    @Test
+    public void testDefaultService() {
+        assertEquals("/", FrameAddress.parse("unix:/var/run/dosgi.sock").getService());
+        assertEquals("/tasks", FrameAddress.parse("unix:/var/run/dosgi.sock#tasks").getService());
+    }
+
+    @Test
+    public void testRelativePath() {
+        FrameAddress address = FrameAddress.parse("unix:/var/run/dosgi.sock#/tasks");
+        assertEquals("", address.getRelativePath("unix:/var/run/dosgi.sock#/tasks"));
+        assertEquals("/1", address.getRelativePath("unix:/var/run/dosgi.sock/1#/tasks"));
+        assertEquals("/1?q=a%20b", address.getRelativePath("unix:///var/run/dosgi.sock/1?q=a%20b#/tasks"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingPath() {
+        FrameAddress.parse("unix:#/tasks");
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class Http2ChannelTest {
+    private HttpServer server;
+    private String baseUri;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Http2Channel.isSupported());
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readAll(exchange.getRequestBody());
+                exchange.getResponseHeaders().add("X-Method", exchange.getRequestMethod());
+                exchange.getResponseHeaders().add("X-Uri", exchange.getRequestURI().toString());
+                String accept = exchange.getRequestHeaders().getFirst("Accept");
+                if (accept != null) {
+                    exchange.getResponseHeaders().add("X-Accept", accept);
+                }
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(201, body.length == 0 ? -1 : body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        baseUri = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testCall() throws IOException {
+        Http2Channel channel = new Http2Channel(5000);
+        Frame request = new Frame();
+        request.setMethod("POST");
+        request.setPath(baseUri + "/echo/task?id=1");
+        request.setHeader("Accept", "text/plain");
+        request.setHeader("Content-Length", "5");
+        request.setHeader("Connection", "keep-alive");
+        request.setBody("hello".getBytes(StandardCharsets.UTF_8));
+
+        Frame response = channel.call(request, 5000);
+
+        assertEquals(201, response.getStatus());
+        assertEquals("POST", response.getHeader("x-method"));
+        assertEquals("/echo/task?id=1", response.getHeader("X-Uri"));
+        assertEquals("text/plain", response.getHeader("X-Accept"));
+        assertEquals("text/plain", response.getHeader(Frame.CONTENT_TYPE));
+        assertArrayEquals(request.getBody(), response.getBody());
+        // the JDK server only speaks HTTP/1.1, so the upgrade to h2c is declined
+        assertEquals(1, channel.getHttp1Responses());
+        assertEquals(0, channel.getHttp2Responses());
+    }
+
+    @Test
+    public void testCallWithoutBody() throws IOException {
+        Http2Channel channel = new Http2Channel(5000);
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/echo");
+        Frame response = channel.call(request, 5000);
+        assertEquals(201, response.getStatus());
+        assertEquals("GET", response.getHeader("X-Method"));
+        assertEquals(0, response.getBody().length);
+    }
+
+    @Test
+    public void testTimeout() {
+        Http2Channel channel = new Http2Channel(5000);
+        Frame request = new Frame();
+        request.setMethod("GET");
+        request.setPath(baseUri + "/slow");
+        try {
+            channel.call(request, 100);
+            fail("Expected timeout");
+        } catch (IOException e) {
+            // HttpTimeoutException or its subclass HttpConnectTimeoutException
+            assertTrue(e.getClass().getName(), e.getClass().getSimpleName().contains("TimeoutException"));
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
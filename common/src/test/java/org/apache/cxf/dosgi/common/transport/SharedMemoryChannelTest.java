@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SharedMemoryChannelTest {
+    private File directory;
+    private volatile boolean running = true;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(SharedMemoryRing.isSupported());
+        directory = Files.createTempDirectory("dosgi-shm").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        running = false;
+        if (directory != null) {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    @Test
+    public void testCall() throws Exception {
+        serve();
+        SharedMemoryChannel channel = new SharedMemoryChannel(directory.getPath());
+        for (int i = 0; i < 100; i++) {
+            Frame request = new Frame();
+            request.setService("/tasks");
+            request.setPath("/" + i);
+            request.setBody("hello".getBytes(StandardCharsets.UTF_8));
+            Frame response = channel.call(request, 5000);
+            assertEquals(200, response.getStatus());
+            assertEquals("/tasks/" + i, response.getHeader("X-Path"));
+            assertArrayEquals(request.getBody(), response.getBody());
+        }
+    }
+
+    @Test
+    public void testTimeoutFreesSlot() throws Exception {
+        SharedMemoryChannel channel = new SharedMemoryChannel(directory.getPath());
+        for (int i = 0; i <= SharedMemoryRing.SLOT_COUNT; i++) {
+            try {
+                channel.call(new Frame(), 10);
+                fail("Expected SocketTimeoutException");
+            } catch (SocketTimeoutException e) {
+                // the request was taken back as nobody picked it up
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testTooLarge() throws Exception {
+        Frame request = new Frame();
+        request.setBody(new byte[SharedMemoryRing.SLOT_SIZE]);
+        new SharedMemoryChannel(directory.getPath()).call(request, 1000);
+    }
+
+    /**
+     * Answers each request with a copy of it.
+     */
+    private void serve() {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                SharedMemoryRing ring = null;
+                int idle = 0;
+                while (running) {
+                    try {
+                        if (ring == null) {
+                            File[] files = directory.listFiles();
+                            ring = files.length == 1 ? SharedMemoryRing.open(files[0]) : null;
+                        } else if (!answer(ring)) {
+                            SharedMemoryRing.idle(idle++);
+                            continue;
+                        }
+                        idle = 0;
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static boolean answer(SharedMemoryRing ring) throws IOException {
+        boolean found = false;
+        for (int slot = 0; slot < SharedMemoryRing.SLOT_COUNT; slot++) {
+            if (ring.compareAndSetSlotState(slot, SharedMemoryRing.REQUEST, SharedMemoryRing.PROCESSING)) {
+                Frame request = ring.read(slot);
+                Frame response = new Frame();
+                response.setStatus(200);
+                response.setHeader("X-Path", request.getService() + request.getPath());
+                response.setBody(request.getBody());
+                ring.write(slot, response);
+                ring.setSlotState(slot, SharedMemoryRing.RESPONSE);
+                found = true;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.common.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class UnixSocketChannelTest {
+    private Path socket;
+    private ServerSocketChannel server;
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(UnixSockets.isSupported());
+        socket = new File(Files.createTempDirectory("dosgi").toFile(), "test.sock").toPath();
+        server = UnixSockets.bind(socket);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(socket.getParent());
+        }
+    }
+
+    @Test
+    public void testCall() throws Exception {
+        Thread echo = serve(false, 1, 2);
+        UnixSocketChannel channel = new UnixSocketChannel(socket.toString());
+        for (int i = 0; i < 2; i++) {
+            Frame request = new Frame();
+            request.setService("/tasks");
+            request.setMethod("GET");
+            request.setPath("/" + i);
+            request.setHeader("Accept", "text/plain");
+            request.setBody("hello".getBytes(StandardCharsets.UTF_8));
+            Frame response = channel.call(request, 5000);
+            assertEquals(200, response.getStatus());
+            assertEquals("/tasks/" + i, response.getHeader("X-Path"));
+            assertEquals("text/plain", response.getHeader("accept"));
+            assertArrayEquals(request.getBody(), response.getBody());
+        }
+        echo.join(5000);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        serve(true, 1, 2);
+        UnixSocketChannel channel = new UnixSocketChannel(socket.toString());
+        long start = System.currentTimeMillis();
+        try {
+            channel.call(new Frame(), 200);
+            fail("Expected SocketTimeoutException");
+        } catch (SocketTimeoutException e) {
+            assertEquals(true, System.currentTimeMillis() - start < 5000);
+        }
+    }
+
+    @Test
+    public void testLongHeader() throws Exception {
+        Thread echo = serve(false, 1, 1);
+        UnixSocketChannel channel = new UnixSocketChannel(socket.toString());
+        char[] chars = new char[100000];
+        Arrays.fill(chars, '\u00e9');
+        Frame request = new Frame();
+        request.setPath("/" + new String(chars));
+        request.setHeader("X-Long", new String(chars));
+        Frame response = channel.call(request, 5000);
+        assertEquals(new String(chars), response.getHeader("X-Long"));
+        assertEquals("/" + new String(chars), response.getHeader("X-Path"));
+        echo.join(5000);
+    }
+
+    @Test
+    public void testIdleConnectionClosedByServer() throws Exception {
+        Thread echo = serve(false, 2, 1);
+        UnixSocketChannel channel = new UnixSocketChannel(socket.toString());
+        for (int i = 0; i < 2; i++) {
+            Frame request = new Frame();
+            request.setPath("/" + i);
+            assertEquals("/" + i, channel.call(request, 5000).getHeader("X-Path"));
+            // the connection is idle when the server closes it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (closed.get() <= i && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        }
+        echo.join(5000);
+    }
+
+    @Test
+    public void testRequestReadByServerIsOnlyResentIfIdempotent() throws Exception {
+        // each connection reads two requests, answers the first and closes without answering the second
+        Thread echo = serve(false, 3, 2, 1);
+        UnixSocketChannel channel = new UnixSocketChannel(socket.toString());
+        assertEquals(200, channel.call(createRequest("POST"), 5000).getStatus());
+        try {
+            channel.call(createRequest("POST"), 5000);
+            fail("Expected EOFException");
+        } catch (EOFException e) {
+            // the server read the request, so it is not sent again
+        }
+        assertEquals(2, received.get());
+
+        assertEquals(200, channel.call(createRequest("GET"), 5000).getStatus());
+        // sent again on a new connection after the reused one was closed
+        assertEquals(200, channel.call(createRequest("GET"), 5000).getStatus());
+        assertEquals(5, received.get());
+        echo.interrupt();
+    }
+
+    private static Frame createRequest(String method) {
+        Frame request = new Frame();
+        request.setMethod(method);
+        request.setPath("/");
+        return request;
+    }
+
+    /**
+     * Accepts connections one after the other and answers each request with a copy of it, or
+     * never answers. Each connection is closed after the given number of requests.
+     */
+    private Thread serve(boolean silent, int connections, int requests) {
+        return serve(silent, connections, requests, requests);
+    }
+
+    /**
+     * Like {@link #serve(boolean, int, int)}, but only the given number of requests of each connection
+     * are answered before it is closed.
+     */
+    private Thread serve(final boolean silent, final int connections, final int requests, final int answered) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (int c = 0; c < connections; c++) {
+                    serveConnection(silent, requests, answered);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void serveConnection(boolean silent, int requests, int answered) {
+        try (SocketChannel channel = server.accept()) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            for (int i = 0; i < requests; i++) {
+                Frame request = Frame.read(in);
+                received.incrementAndGet();
+                if (i >= answered) {
+                    break;
+                }
+                if (silent) {
+                    Thread.sleep(10000);
+                }
+                Frame response = new Frame();
+                response.setStatus(200);
+                response.getHeaders().putAll(request.getHeaders());
+                response.setHeader("X-Path", request.getService() + request.getPath());
+                response.setBody(request.getBody());
+                response.write(out);
+            }
+        } catch (IOException | InterruptedException e) {
+            // connection closed by the client
+        }
+        closed.incrementAndGet();
+    }
+}
@@ -76,4 +76,23 @@ public class PropertyHelperTest {
                      PropertyHelper.getProperty(endpoint.getProperties(), RemoteConstants.ENDPOINT_ID));
         assertNull(PropertyHelper.getProperty(endpoint.getProperties(), "notAString"));
     }
+
+    @Test
+    public void testGetNumberProperties() {
+        Map<String, Object> p = new HashMap<>();
+        p.put("long", 5L);
+        p.put("longString", " 7 ");
+        p.put("double", "0.25");
+        p.put("invalid", "abc");
+        p.put("bool", "true");
+
+        assertEquals(5L, PropertyHelper.getLongProperty(p, "long", 1));
+        assertEquals(7L, PropertyHelper.getLongProperty(p, "longString", 1));
+        assertEquals(1L, PropertyHelper.getLongProperty(p, "invalid", 1));
+        assertEquals(1L, PropertyHelper.getLongProperty(p, "missing", 1));
+        assertEquals(0.25, PropertyHelper.getDoubleProperty(p, "double", 1.0), 0.0);
+        assertEquals(1.0, PropertyHelper.getDoubleProperty(p, "invalid", 1.0), 0.0);
+        assertTrue(PropertyHelper.getBooleanProperty(p, "bool", false));
+        assertTrue(PropertyHelper.getBooleanProperty(p, "missing", true));
+    }
 }
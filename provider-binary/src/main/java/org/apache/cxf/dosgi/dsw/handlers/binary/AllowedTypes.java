@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The classes a {@link ValueReader} may create beans and enums of. These are the classes reachable from the
+ * method signatures of the service interfaces, through type arguments, array components and the fields of
+ * beans, and the configured additional classes. Other class names in a message are rejected before the class
+ * is initialized, so a caller can not make the reader run constructors, field setters or {@code hashCode} of
+ * arbitrary classes.
+ */
+final class AllowedTypes {
+    private final Set<Class<?>> types = new HashSet<>();
+    private final Set<String> names = new HashSet<>();
+    private final List<String> packages = new ArrayList<>();
+
+    /**
+     * @param configured names of further classes, e.g. subclasses of declared types. A name ending in
+     *            {@code .*} allows the classes of the package and its subpackages
+     */
+    AllowedTypes(Collection<String> configured, Class<?>... interfaces) {
+        for (String name : configured) {
+            String trimmed = name.trim();
+            if (trimmed.endsWith(".*")) {
+                packages.add(trimmed.substring(0, trimmed.length() - 1));
+            } else if (!trimmed.isEmpty()) {
+                names.add(trimmed);
+            }
+        }
+        for (Class<?> iClass : interfaces) {
+            for (Method method : iClass.getMethods()) {
+                add(method.getGenericReturnType());
+                for (Type type : method.getGenericParameterTypes()) {
+                    add(type);
+                }
+            }
+        }
+    }
+
+    AllowedTypes(Class<?>... interfaces) {
+        this(Collections.<String>emptyList(), interfaces);
+    }
+
+    private void add(Type type) {
+        if (type instanceof Class) {
+            Class<?> cls = (Class<?>)type;
+            if (cls.isArray()) {
+                add(cls.getComponentType());
+            } else if (types.add(cls) && !isJdkClass(cls)) {
+                addFields(cls);
+            }
+        } else if (type instanceof ParameterizedType) {
+            add(((ParameterizedType)type).getRawType());
+            for (Type argument : ((ParameterizedType)type).getActualTypeArguments()) {
+                add(argument);
+            }
+        } else if (type instanceof GenericArrayType) {
+            add(((GenericArrayType)type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType)type).getUpperBounds()) {
+                add(bound);
+            }
+        } else if (type instanceof TypeVariable) {
+            for (Type bound : ((TypeVariable<?>)type).getBounds()) {
+                add(bound);
+            }
+        }
+    }
+
+    private void addFields(Class<?> cls) {
+        for (Class<?> current = cls; current != null && current != Object.class; current = current.getSuperclass()) {
+            types.add(current);
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    add(field.getGenericType());
+                }
+            }
+        }
+    }
+
+    private static boolean isJdkClass(Class<?> cls) {
+        String name = cls.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    /**
+     * @return true if values of the class may be read. Array classes are checked by their component type
+     */
+    boolean isAllowed(Class<?> type) {
+        Class<?> component = type;
+        while (component.isArray()) {
+            component = component.getComponentType();
+        }
+        if (component.isPrimitive() || types.contains(component) || names.contains(component.getName())) {
+            return true;
+        }
+        for (String prefix : packages) {
+            if (component.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reflection data of a bean class, computed once per class.
+ */
+final class BeanType {
+    private static final ClassValue<BeanType> TYPES = new ClassValue<BeanType>() {
+        @Override
+        protected BeanType computeValue(Class<?> type) {
+            return new BeanType(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Constructor<?> constructor;
+    private final Field[] fields;
+    private final Map<String, Field> fieldsByName = new HashMap<>();
+    private final String error;
+
+    private BeanType(Class<?> type) {
+        this.type = type;
+        this.error = check(type);
+        this.constructor = error == null ? getConstructor(type) : null;
+        List<Field> found = new ArrayList<>();
+        if (error == null) {
+            for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)
+                        && !fieldsByName.containsKey(field.getName())) {
+                        field.setAccessible(true);
+                        fieldsByName.put(field.getName(), field);
+                        found.add(field);
+                    }
+                }
+            }
+        }
+        this.fields = found.toArray(new Field[0]);
+    }
+
+    static BeanType of(Class<?> type) throws IOException {
+        BeanType beanType = TYPES.get(type);
+        if (beanType.error != null) {
+            throw new IOException("Unable to serialize " + type.getName() + ": " + beanType.error);
+        }
+        return beanType;
+    }
+
+    private static String check(Class<?> type) {
+        String name = type.getName();
+        if (name.startsWith("java.") || name.startsWith("javax.")) {
+            return "only beans outside of the java packages are supported";
+        }
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return "the class is abstract";
+        }
+        if (type.isMemberClass() && !Modifier.isStatic(type.getModifiers())) {
+            return "the class is a non static inner class";
+        }
+        return getConstructor(type) == null ? "the class has no constructor without arguments" : null;
+    }
+
+    private static Constructor<?> getConstructor(Class<?> type) {
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return null;
+        }
+    }
+
+    Object newInstance() throws IOException {
+        try {
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to create an instance of " + type.getName(), e);
+        }
+    }
+
+    Field[] getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the field or null if the class has no such field, e.g. because the remote side has a newer version
+     */
+    Field getField(String name) {
+        return fieldsByName.get(name);
+    }
+}
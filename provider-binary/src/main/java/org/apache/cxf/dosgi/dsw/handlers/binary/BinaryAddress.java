@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * An endpoint address of the form {@code tcp://host:port/path}. Endpoints with the same port share
+ * one server socket and are told apart by their path.
+ */
+final class BinaryAddress {
+    static final String SCHEME = "tcp";
+
+    private final String host;
+    private final int port;
+    private final String path;
+
+    private BinaryAddress(String host, int port, String path) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+    }
+
+    static BinaryAddress parse(String address) {
+        URI uri;
+        try {
+            uri = new URI(address);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid address " + address, e);
+        }
+        if (!SCHEME.equals(uri.getScheme()) || uri.getHost() == null) {
+            throw new IllegalArgumentException("Address " + address + " does not have the form tcp://host:port/path");
+        }
+        int port = uri.getPort() == -1 ? BinaryConstants.DEFAULT_PORT : uri.getPort();
+        String path = uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath();
+        return new BinaryAddress(uri.getHost(), port, path);
+    }
+
+    static String toString(String host, int port, String path) {
+        return SCHEME + "://" + host + ":" + port + (path.startsWith("/") ? "" : "/") + path;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    /**
+     * @return host and port, the key of the connection to the server
+     */
+    String getAuthority() {
+        return host + ":" + port;
+    }
+
+    @Override
+    public String toString() {
+        return toString(host, port, path);
+    }
+}
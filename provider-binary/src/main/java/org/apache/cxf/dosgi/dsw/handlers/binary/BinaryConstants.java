@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+public final class BinaryConstants {
+    public static final String BINARY_CONFIG_TYPE = "org.apache.cxf.binary";
+    /**
+     * Address of the endpoint in the form {@code tcp://host:port/path}.
+     */
+    public static final String BINARY_ADDRESS_PROPERTY = BINARY_CONFIG_TYPE + ".address";
+    public static final String BINARY_ALTERNATE_ADDRESSES = BINARY_CONFIG_TYPE + ".alternate.addresses";
+    /**
+     * Signatures of the methods the exported service provides. Set by the provider.
+     */
+    public static final String BINARY_METHODS = BINARY_CONFIG_TYPE + ".methods";
+    /**
+     * Time in milliseconds a client waits for a response, defaults to 60000.
+     */
+    public static final String BINARY_TIMEOUT = BINARY_CONFIG_TYPE + ".timeout";
+    /**
+     * Names of classes, or packages ending in {@code .*}, whose beans and enums may be read in addition to the
+     * classes reachable from the service interface, e.g. subclasses of declared types.
+     */
+    public static final String BINARY_ALLOWED_TYPES = BINARY_CONFIG_TYPE + ".allowed.types";
+    /**
+     * Maximum number of calls the server of the port runs at the same time, defaults to 200.
+     */
+    public static final String BINARY_MAX_THREADS = BINARY_CONFIG_TYPE + ".max.threads";
+    /**
+     * Number of calls the server of the port queues while all its threads are busy, defaults to 1000. Further
+     * calls are answered with an error.
+     */
+    public static final String BINARY_QUEUE_SIZE = BINARY_CONFIG_TYPE + ".queue.size";
+    public static final String DEFAULT_HOST = "localhost";
+    public static final int DEFAULT_PORT = 9190;
+
+    private BinaryConstants() {
+        // never constructed
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+
+public class BinaryEndpoint implements Endpoint {
+    private final EndpointDescription desc;
+    private final BinaryProvider provider;
+    private final BinaryAddress address;
+
+    BinaryEndpoint(EndpointDescription desc, BinaryProvider provider, BinaryAddress address) {
+        this.desc = desc;
+        this.provider = provider;
+        this.address = address;
+    }
+
+    @Override
+    public void close() {
+        LocalEndpoints.unregister(desc.getId());
+        provider.removeService(address);
+    }
+
+    @Override
+    public EndpointDescription description() {
+        return desc;
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+
+/**
+ * Client of one address of an imported endpoint. Sends each call as a request on the shared
+ * {@link ClientConnection} of the server and waits for the response.
+ */
+final class BinaryInvocationHandler implements InvocationHandler {
+    private final ClientConnection connection;
+    private final BinaryAddress address;
+    private final Class<?> iClass;
+    private final Set<Long> remoteMethods;
+    private final AllowedTypes allowedTypes;
+    private final long timeoutMillis;
+
+    /**
+     * @param remoteMethods hashes of the methods the server provides or null if unknown
+     */
+    BinaryInvocationHandler(ClientConnection connection, BinaryAddress address, Class<?> iClass,
+                            Set<Long> remoteMethods, AllowedTypes allowedTypes, long timeoutMillis) {
+        this.connection = connection;
+        this.address = address;
+        this.iClass = iClass;
+        this.remoteMethods = remoteMethods;
+        this.allowedTypes = allowedTypes;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    static Object create(ClientConnection connection, BinaryAddress address, Class<?> iClass,
+                         Set<Long> remoteMethods, AllowedTypes allowedTypes, long timeoutMillis) {
+        return Proxy.newProxyInstance(iClass.getClassLoader(), new Class<?>[] {iClass},
+            new BinaryInvocationHandler(connection, address, iClass, remoteMethods, allowedTypes, timeoutMillis));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+        }
+        long hash = MethodSignatures.hash(method);
+        if (remoteMethods != null && !remoteMethods.contains(hash)) {
+            throw new UnsupportedOperationException("Endpoint " + address + " does not provide method "
+                                                    + method.toGenericString());
+        }
+        long timeout = getTimeout();
+        ValueWriter request = new ValueWriter();
+        request.writeString(address.getPath());
+        request.writeFixedLong(hash);
+        request.writeVarLong(timeout);
+        Object[] params = args == null ? new Object[0] : args;
+        request.writeVarInt(params.length);
+        for (Object param : params) {
+            request.writeValue(param);
+        }
+        BinaryMessage response = connection.call(request.toByteArray(), timeout);
+        ValueReader reader = new ValueReader(response.getPayload(), iClass.getClassLoader(), allowedTypes);
+        switch (response.getKind()) {
+        case BinaryMessage.RESULT:
+            return reader.readValue(method.getGenericReturnType());
+        case BinaryMessage.EXCEPTION:
+            throw createException(reader.readString(), (String)reader.readValue(String.class));
+        default:
+            throw new IOException("Endpoint " + address + " failed to process the call: " + reader.readString());
+        }
+    }
+
+    /**
+     * @return the time to wait for the response, the configured timeout shortened to the deadline of the call
+     */
+    private long getTimeout() throws SocketTimeoutException {
+        Long deadline = Deadline.get();
+        if (deadline == null) {
+            return timeoutMillis;
+        }
+        long remaining = Deadline.remainingMillis(deadline);
+        if (remaining <= 0) {
+            throw new SocketTimeoutException("Deadline of the call to " + address + " has expired");
+        }
+        return timeoutMillis > 0 ? Math.min(timeoutMillis, remaining) : remaining;
+    }
+
+    /**
+     * Recreates the exception thrown by the service if its class is visible to the interface and has a
+     * constructor with a message or without arguments. The stack trace of the service is not transferred.
+     */
+    private Throwable createException(String className, String message) {
+        try {
+            Class<?> type = Class.forName(className, false, iClass.getClassLoader());
+            if (Throwable.class.isAssignableFrom(type)) {
+                try {
+                    Constructor<?> constructor = type.getConstructor(String.class);
+                    return (Throwable)constructor.newInstance(message);
+                } catch (NoSuchMethodException e) {
+                    return (Throwable)type.getConstructor().newInstance();
+                }
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // fall through to the generic exception
+        }
+        return new IOException("Endpoint " + address + " threw " + className + ": " + message);
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        default:
+            return "Binary client of " + address;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A message exchanged on a connection. The call id relates responses to their requests, so
+ * many calls can be in progress on one connection at the same time.
+ */
+final class BinaryMessage {
+    static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    static final int REQUEST = 1;
+    /**
+     * The call returned, the payload is the result.
+     */
+    static final int RESULT = 2;
+    /**
+     * The service threw an exception, the payload is its class name and message.
+     */
+    static final int EXCEPTION = 3;
+    /**
+     * The call could not be processed, the payload is the reason.
+     */
+    static final int ERROR = 4;
+
+    private final int callId;
+    private final int kind;
+    private final byte[] payload;
+
+    BinaryMessage(int callId, int kind, byte[] payload) {
+        this.callId = callId;
+        this.kind = kind;
+        this.payload = payload;
+    }
+
+    int getCallId() {
+        return callId;
+    }
+
+    int getKind() {
+        return kind;
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(payload.length);
+        out.writeInt(callId);
+        out.writeByte(kind);
+        out.write(payload);
+    }
+
+    static BinaryMessage read(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_PAYLOAD_SIZE) {
+            throw new IOException("Invalid message size " + length);
+        }
+        int callId = in.readInt();
+        int kind = in.readUnsignedByte();
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return new BinaryMessage(callId, kind, payload);
+    }
+}
@@ -0,0 +1,266 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import static org.osgi.service.remoteserviceadmin.RemoteConstants.REMOTE_CONFIGS_SUPPORTED;
+import static org.osgi.service.remoteserviceadmin.RemoteConstants.REMOTE_INTENTS_SUPPORTED;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.aries.rsa.spi.DistributionProvider;
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.aries.rsa.spi.IntentUnsatisfiedException;
+import org.apache.cxf.dosgi.common.handlers.BaseDistributionProvider;
+import org.apache.cxf.dosgi.common.intent.IntentManager;
+import org.apache.cxf.dosgi.common.proxy.ProxyFactory;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicies;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Distribution provider that calls services over plain TCP with a compact binary encoding instead of
+ * HTTP. All imports of endpoints on the same server share one connection, on which calls are multiplexed.
+ */
+@Component(property = //
+{//
+ REMOTE_CONFIGS_SUPPORTED + "=" + BinaryConstants.BINARY_CONFIG_TYPE,
+ REMOTE_INTENTS_SUPPORTED + "="
+})
+public class BinaryProvider extends BaseDistributionProvider implements DistributionProvider {
+    static final long DEFAULT_TIMEOUT = 60000;
+    static final int DEFAULT_MAX_THREADS = 200;
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryProvider.class);
+
+    private final Map<Integer, BinaryServer> servers = new HashMap<>();
+    private final Map<String, ClientConnection> connections = new HashMap<>();
+
+    @Reference
+    public void setIntentManager(IntentManager intentManager) {
+        this.intentManager = intentManager;
+    }
+
+    @Deactivate
+    public synchronized void deactivate() {
+        for (BinaryServer server : servers.values()) {
+            server.stop();
+        }
+        servers.clear();
+        for (ClientConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
+    }
+
+    @Override
+    public String[] getSupportedTypes() {
+        return new String[] {BinaryConstants.BINARY_CONFIG_TYPE};
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Object importEndpoint(ClassLoader consumerLoader,
+                                 BundleContext consumerContext,
+                                 Class[] interfaces,
+                                 EndpointDescription endpoint) throws IntentUnsatisfiedException {
+        Map<String, Object> sd = endpoint.getProperties();
+        String address = PropertyHelper.getFirstNonEmptyStringProperty(sd, BinaryConstants.BINARY_ADDRESS_PROPERTY,
+                                                                       RemoteConstants.ENDPOINT_ID);
+        LOG.info("Creating a client for {}, endpoint address is {}", endpoint.getInterfaces(), address);
+        Set<String> intentNames = intentManager.getImported(sd);
+        List<Object> intents = intentManager.getRequiredIntents(intentNames);
+        List<Object> clients = new ArrayList<>();
+        Object localService = getLocalService(consumerContext, interfaces, endpoint);
+        if (localService != null) {
+            clients.add(localService);
+        } else {
+            Set<Long> remoteMethods = getRemoteMethods(sd, interfaces, address);
+            long timeout = PropertyHelper.getLongProperty(sd, BinaryConstants.BINARY_TIMEOUT, DEFAULT_TIMEOUT);
+            Collection<String> allowed = PropertyHelper.getMultiValueProperty(
+                sd.get(BinaryConstants.BINARY_ALLOWED_TYPES));
+            for (String curAddress : getAddresses(address, sd, BinaryConstants.BINARY_ALTERNATE_ADDRESSES)) {
+                BinaryAddress binaryAddress = BinaryAddress.parse(curAddress);
+                // all interfaces of the endpoint share its path
+                List<Object> interfaceClients = new ArrayList<>();
+                for (Class<?> iClass : interfaces) {
+                    interfaceClients.add(BinaryInvocationHandler.create(getConnection(binaryAddress), binaryAddress,
+                        iClass, remoteMethods, new AllowedTypes(allowed, iClass), timeout));
+                }
+                clients.add(ProxyFactory.combine(interfaceClients, interfaces));
+            }
+        }
+        List<InvocationPolicy> policies = InvocationPolicies.create(interfaces, sd,
+            intentManager.getIntents(InvocationPolicy.class, intents));
+        Object proxy = ProxyFactory.create(clients, interfaces, policies);
+        InvocationPolicies.registerMetrics(proxy, sd, policies);
+        return proxy;
+    }
+
+    /**
+     * Compares the methods of the local interface with the methods the server published.
+     *
+     * @return the hashes of the remote methods or null if the endpoint does not publish them
+     */
+    private static Set<Long> getRemoteMethods(Map<String, Object> sd, Class<?>[] interfaces, String address) {
+        Collection<String> published = PropertyHelper.getMultiValueProperty(sd.get(BinaryConstants.BINARY_METHODS));
+        if (published.isEmpty()) {
+            return null;
+        }
+        Set<Long> remoteMethods = new HashSet<>();
+        for (String hash : published) {
+            remoteMethods.add(Long.parseUnsignedLong(hash, 16));
+        }
+        for (Map.Entry<Long, Method> method : MethodSignatures.getMethods(interfaces).entrySet()) {
+            if (!remoteMethods.contains(method.getKey())) {
+                LOG.warn("Endpoint {} does not provide method {}. The interface versions of client and server differ",
+                         address, method.getValue().toGenericString());
+            }
+        }
+        return remoteMethods;
+    }
+
+    private synchronized ClientConnection getConnection(BinaryAddress address) {
+        ClientConnection connection = connections.get(address.getAuthority());
+        if (connection == null) {
+            connection = new ClientConnection(address.getHost(), address.getPort());
+            connections.put(address.getAuthority(), connection);
+        }
+        return connection;
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Endpoint exportService(Object serviceO,
+                                  BundleContext serviceContext,
+                                  Map<String, Object> endpointProps,
+                                  Class[] exportedInterfaces) throws IntentUnsatisfiedException {
+        if (!configTypeSupported(endpointProps, BinaryConstants.BINARY_CONFIG_TYPE)) {
+            return null;
+        }
+        String address = getServerAddress(endpointProps, exportedInterfaces[0]);
+        Set<String> intentNames = intentManager.getExported(endpointProps);
+        List<Object> intents = intentManager.getRequiredIntents(intentNames);
+        checkIntents(intentNames, address);
+        endpointProps.put(BinaryConstants.BINARY_METHODS, getMethodHashes(exportedInterfaces));
+        BinaryAddress binaryAddress = BinaryAddress.parse(address);
+        try {
+            AllowedTypes allowedTypes = new AllowedTypes(
+                PropertyHelper.getMultiValueProperty(endpointProps.get(BinaryConstants.BINARY_ALLOWED_TYPES)),
+                exportedInterfaces);
+            addService(binaryAddress, serviceO, allowedTypes, exportedInterfaces, endpointProps);
+        } catch (IOException e) {
+            throw new RuntimeException("Error exporting service with address " + address, e);
+        }
+        EndpointDescription epd = createEndpointDesc(endpointProps,
+                                                     new String[] {BinaryConstants.BINARY_CONFIG_TYPE},
+                                                     BinaryConstants.BINARY_ADDRESS_PROPERTY, address, intentNames);
+        registerLocalService(epd, serviceO, intents);
+        return new BinaryEndpoint(epd, this, binaryAddress);
+    }
+
+    /**
+     * Only invocation policies apply to binary endpoints, their importers run them. Intents that configure CXF,
+     * like features and transports, would be published without taking effect.
+     *
+     * @throws IntentUnsatisfiedException for the first intent that contains anything else
+     */
+    private void checkIntents(Set<String> intentNames, String address) {
+        for (String intentName : intentNames) {
+            for (Object intent : intentManager.getRequiredIntents(Collections.singleton(intentName))) {
+                if (!(intent instanceof InvocationPolicy)) {
+                    LOG.warn("Intent {} does not apply to the binary endpoint {}", intentName, address);
+                    throw new IntentUnsatisfiedException(intentName);
+                }
+            }
+        }
+    }
+
+    private static String getServerAddress(Map<String, Object> sd, Class<?> iClass) {
+        String address = PropertyHelper.getProperty(sd, BinaryConstants.BINARY_ADDRESS_PROPERTY);
+        if (address != null && !address.isEmpty()) {
+            return address;
+        }
+        address = BinaryAddress.toString(BinaryConstants.DEFAULT_HOST, BinaryConstants.DEFAULT_PORT, iClass.getName());
+        LOG.info("Using a default address: " + address);
+        return address;
+    }
+
+    private static String[] getMethodHashes(Class<?>[] interfaces) {
+        List<String> hashes = new ArrayList<>();
+        for (Long hash : MethodSignatures.getMethods(interfaces).keySet()) {
+            hashes.add(MethodSignatures.toString(hash));
+        }
+        return hashes.toArray(new String[0]);
+    }
+
+    /**
+     * Endpoints on the same port share the server, its threads are configured by the first endpoint.
+     */
+    private synchronized void addService(BinaryAddress address, Object service, AllowedTypes allowedTypes,
+                                         Class<?>[] interfaces, Map<String, Object> sd) throws IOException {
+        int maxThreads = (int)PropertyHelper.getLongProperty(sd, BinaryConstants.BINARY_MAX_THREADS,
+                                                             DEFAULT_MAX_THREADS);
+        int queueSize = (int)PropertyHelper.getLongProperty(sd, BinaryConstants.BINARY_QUEUE_SIZE,
+                                                            DEFAULT_QUEUE_SIZE);
+        boolean configured = sd.get(BinaryConstants.BINARY_MAX_THREADS) != null
+            || sd.get(BinaryConstants.BINARY_QUEUE_SIZE) != null;
+        BinaryServer server = servers.get(address.getPort());
+        if (server == null) {
+            server = new BinaryServer(address.getHost(), address.getPort(), maxThreads, queueSize);
+            server.start();
+            servers.put(address.getPort(), server);
+        } else if (!server.getHost().equals(address.getHost())) {
+            throw new IOException("Port " + address.getPort() + " is already bound to host " + server.getHost());
+        } else if (configured && (server.getMaxThreads() != maxThreads || server.getQueueSize() != queueSize)) {
+            LOG.warn("Endpoint {} asks for {} threads and a queue of {} calls. The server on port {} was created "
+                     + "by an earlier endpoint with {} and {}", address, maxThreads, queueSize, address.getPort(),
+                     server.getMaxThreads(), server.getQueueSize());
+        }
+        try {
+            server.add(address.getPath(), service, allowedTypes, interfaces);
+        } catch (IllegalStateException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    synchronized void removeService(BinaryAddress address) {
+        BinaryServer server = servers.get(address.getPort());
+        if (server != null && server.remove(address.getPath())) {
+            server.stop();
+            servers.remove(address.getPort());
+        }
+    }
+}
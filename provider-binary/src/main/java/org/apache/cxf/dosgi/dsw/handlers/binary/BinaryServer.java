@@ -0,0 +1,294 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cxf.dosgi.common.resilience.Deadline;
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accepts connections on one host and port and dispatches the requests to the services by path. Each
+ * connection has a reader thread, the calls run on a shared pool so a slow call does not hold
+ * up the other calls of the connection. The pool and its queue are bounded, calls that find both full
+ * are answered with an error. The server neither encrypts nor authenticates.
+ */
+class BinaryServer {
+    static final long STOP_TIMEOUT = 5000;
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryServer.class);
+    private static final ThreadFactory READERS = new NamedThreadFactory("dosgi-binary-reader");
+
+    private final String host;
+    private final int port;
+    private final int maxThreads;
+    private final int queueSize;
+    private final Map<String, ServiceTarget> services = new ConcurrentHashMap<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    BinaryServer(String host, int port, int maxThreads, int queueSize) {
+        this.host = host;
+        this.port = port;
+        this.maxThreads = maxThreads;
+        this.queueSize = queueSize;
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                                               new LinkedBlockingQueue<Runnable>(queueSize),
+                                               new NamedThreadFactory("dosgi-binary"));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(host, port));
+        acceptor = READERS.newThread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+        acceptor.start();
+        LOG.info("Binary server listening on {}:{}", host, port);
+    }
+
+    void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing server socket on port {}", port, e);
+        }
+        for (Socket connection : connections) {
+            close(connection);
+        }
+        executor.shutdown();
+        try {
+            // the port is only released once the accepting thread has left accept
+            acceptor.join(STOP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    int getMaxThreads() {
+        return maxThreads;
+    }
+
+    int getQueueSize() {
+        return queueSize;
+    }
+
+    void add(String path, Object service, AllowedTypes allowedTypes, Class<?>... interfaces) {
+        if (services.putIfAbsent(path, new ServiceTarget(service, allowedTypes, interfaces)) != null) {
+            throw new IllegalStateException("An endpoint with path " + path + " already exists on port " + port);
+        }
+    }
+
+    /**
+     * @return true if no services are left
+     */
+    boolean remove(String path) {
+        services.remove(path);
+        return services.isEmpty();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                READERS.newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                }).start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Error accepting connection on port {}", port, e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                final BinaryMessage request = BinaryMessage.read(in);
+                try {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            send(out, process(request));
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    if (executor.isShutdown()) {
+                        throw e;
+                    }
+                    LOG.debug("Rejected call {} on port {}, all threads and the queue are busy",
+                              request.getCallId(), port);
+                    send(out, error(request.getCallId(), "Server on port " + port + " is busy, its "
+                        + maxThreads + " threads and its queue of " + queueSize + " calls are full"));
+                }
+            }
+        } catch (SocketException | RejectedExecutionException e) {
+            LOG.debug("Connection {} closed", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            LOG.debug("Connection {} ended", socket.getRemoteSocketAddress(), e);
+        } finally {
+            connections.remove(socket);
+            close(socket);
+        }
+    }
+
+    private static void send(DataOutputStream out, BinaryMessage response) {
+        try {
+            synchronized (out) {
+                response.write(out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            LOG.debug("Unable to send response of call {}", response.getCallId(), e);
+        }
+    }
+
+    BinaryMessage process(BinaryMessage request) {
+        int callId = request.getCallId();
+        if (request.getKind() != BinaryMessage.REQUEST) {
+            return error(callId, "Unexpected message kind " + request.getKind());
+        }
+        String path = null;
+        try {
+            ValueReader reader = new ValueReader(request.getPayload(), null, null);
+            path = reader.readString();
+            long hash = reader.readFixedLong();
+            long timeout = reader.readVarLong();
+            ServiceTarget target = services.get(path);
+            if (target == null) {
+                return error(callId, "No endpoint with path " + path);
+            }
+            Method method = target.methods.get(hash);
+            if (method == null) {
+                return error(callId, "Endpoint " + path + " has no method with signature "
+                                     + MethodSignatures.toString(hash));
+            }
+            reader.setTypes(method.getDeclaringClass().getClassLoader(), target.allowedTypes);
+            Object[] args = readArguments(reader, method);
+            return invoke(callId, target, method, args, timeout);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Error processing call for path {}", path, e);
+            return error(callId, e.toString());
+        }
+    }
+
+    private static Object[] readArguments(ValueReader reader, Method method) throws IOException {
+        Type[] types = method.getGenericParameterTypes();
+        int count = reader.readVarInt();
+        if (count != types.length) {
+            throw new IOException("Method " + method.getName() + " expects " + types.length
+                                  + " arguments, the request has " + count);
+        }
+        Object[] args = new Object[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = reader.readValue(types[i]);
+        }
+        return args;
+    }
+
+    private BinaryMessage invoke(int callId, ServiceTarget target, Method method, Object[] args, long timeout)
+        throws IOException {
+        Long deadline = timeout > 0 ? System.currentTimeMillis() + timeout : null;
+        Long previous = Deadline.set(deadline);
+        ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(target.service.getClass().getClassLoader());
+            Object result = method.invoke(target.service, args);
+            ValueWriter writer = new ValueWriter();
+            writer.writeValue(result);
+            return new BinaryMessage(callId, BinaryMessage.RESULT, writer.toByteArray());
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            ValueWriter writer = new ValueWriter();
+            writer.writeString(cause.getClass().getName());
+            writer.writeValue(cause.getMessage());
+            return new BinaryMessage(callId, BinaryMessage.EXCEPTION, writer.toByteArray());
+        } catch (IllegalAccessException e) {
+            throw new IOException(e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(oldLoader);
+            Deadline.set(previous);
+        }
+    }
+
+    private static BinaryMessage error(int callId, String message) {
+        ValueWriter writer = new ValueWriter();
+        writer.writeString(message);
+        return new BinaryMessage(callId, BinaryMessage.ERROR, writer.toByteArray());
+    }
+
+    private void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOG.debug("Error closing connection", e);
+        }
+    }
+
+    private static final class ServiceTarget {
+        private final Object service;
+        private final Map<Long, Method> methods;
+        private final AllowedTypes allowedTypes;
+
+        ServiceTarget(Object service, AllowedTypes allowedTypes, Class<?>[] interfaces) {
+            this.service = service;
+            this.methods = MethodSignatures.getMethods(interfaces);
+            this.allowedTypes = allowedTypes;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connection of all clients of one server. Calls are multiplexed on a single socket: requests
+ * are written as they come and a reader thread hands each response to the call with the same id.
+ * If the connection fails all calls in progress fail and the next call opens a new connection.
+ */
+class ClientConnection implements Closeable {
+    static final int CONNECT_TIMEOUT = 10000;
+    private static final Logger LOG = LoggerFactory.getLogger(ClientConnection.class);
+    private static final ThreadFactory READERS = new NamedThreadFactory("dosgi-binary-client");
+
+    private final String host;
+    private final int port;
+    private final AtomicInteger nextCallId = new AtomicInteger();
+    private Link link;
+    private boolean closed;
+
+    ClientConnection(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * @param timeoutMillis maximum time to wait for the response, 0 for no limit
+     */
+    BinaryMessage call(byte[] request, long timeoutMillis) throws IOException, InterruptedException {
+        Link current = getLink();
+        int callId = nextCallId.incrementAndGet();
+        CompletableFuture<BinaryMessage> response = current.register(callId);
+        try {
+            current.send(new BinaryMessage(callId, BinaryMessage.REQUEST, request));
+            return timeoutMillis > 0 ? response.get(timeoutMillis, TimeUnit.MILLISECONDS) : response.get();
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("No response from " + host + ":" + port
+                                             + " within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                ? (IOException)e.getCause() : new IOException(e.getCause());
+        } catch (IOException e) {
+            current.fail(e);
+            throw e;
+        } finally {
+            current.pending.remove(callId);
+        }
+    }
+
+    private synchronized Link getLink() throws IOException {
+        if (closed) {
+            throw new IOException("Connection to " + host + ":" + port + " is closed");
+        }
+        if (link == null || link.failed) {
+            Socket socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+            link = new Link(socket);
+            READERS.newThread(link).start();
+        }
+        return link;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (link != null) {
+            link.fail(new IOException("Connection to " + host + ":" + port + " is closed"));
+        }
+    }
+
+    /**
+     * One socket connection. Running it reads the responses until the connection fails.
+     */
+    private final class Link implements Runnable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Integer, CompletableFuture<BinaryMessage>> pending = new ConcurrentHashMap<>();
+        private volatile boolean failed;
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        CompletableFuture<BinaryMessage> register(int callId) throws IOException {
+            CompletableFuture<BinaryMessage> response = new CompletableFuture<>();
+            pending.put(callId, response);
+            // checked after registering, so a concurrent failure either sees the call or the call sees the failure
+            if (failed) {
+                pending.remove(callId);
+                throw new IOException("Connection to " + host + ":" + port + " failed");
+            }
+            return response;
+        }
+
+        void send(BinaryMessage request) throws IOException {
+            synchronized (out) {
+                request.write(out);
+                out.flush();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!failed) {
+                    BinaryMessage response = BinaryMessage.read(in);
+                    CompletableFuture<BinaryMessage> call = pending.remove(response.getCallId());
+                    if (call != null) {
+                        call.complete(response);
+                    }
+                }
+            } catch (IOException e) {
+                if (!failed) {
+                    LOG.debug("Connection to {}:{} failed", host, port, e);
+                }
+                fail(e);
+            }
+        }
+
+        void fail(IOException cause) {
+            failed = true;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                LOG.debug("Error closing connection to {}:{}", host, port, e);
+            }
+            for (CompletableFuture<BinaryMessage> call : pending.values()) {
+                call.completeExceptionally(cause);
+            }
+            pending.clear();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identifies methods on the wire by a 64 bit FNV-1a hash of their name, generic parameter types and
+ * generic return type. Client and server only agree on a method if both see the same signature, so
+ * incompatible interface versions are detected instead of causing wrong calls.
+ */
+final class MethodSignatures {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MethodSignatures() {
+    }
+
+    static long hash(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Type[] parameterTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getTypeName());
+        }
+        signature.append(')').append(method.getGenericReturnType().getTypeName());
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : signature.toString().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the public methods of the interfaces by their hash
+     */
+    static Map<Long, Method> getMethods(Class<?>... interfaces) {
+        Map<Long, Method> methods = new HashMap<>();
+        for (Class<?> iClass : interfaces) {
+            for (Method method : iClass.getMethods()) {
+                if (method.getDeclaringClass() != Object.class && !methods.containsKey(hash(method))) {
+                    methods.put(hash(method), method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    static String toString(long hash) {
+        return Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,438 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Reads values written by {@link ValueWriter}. Classes are resolved with the class loader of the
+ * service interface. Lists, sets and maps are converted to the declared type of the parameter,
+ * return value or field they are read for. Beans and enums must be of an {@link AllowedTypes allowed}
+ * class, and beans, enums and arrays must match the declared type.
+ */
+final class ValueReader {
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<>();
+    static {
+        Class<?>[] primitives = {boolean.class, byte.class, short.class, int.class, long.class,
+                                 float.class, double.class, char.class};
+        Class<?>[] wrappers = {Boolean.class, Byte.class, Short.class, Integer.class, Long.class,
+                               Float.class, Double.class, Character.class};
+        for (int i = 0; i < primitives.length; i++) {
+            PRIMITIVES.put(primitives[i].getName(), primitives[i]);
+            WRAPPERS.put(primitives[i], wrappers[i]);
+        }
+        WRAPPERS.put(void.class, Void.class);
+    }
+
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+    private ClassLoader loader;
+    private AllowedTypes allowedTypes;
+    private final List<String> names = new ArrayList<>();
+    private int depth;
+
+    /**
+     * @param allowedTypes the classes beans and enums may have or null to reject all beans and enums
+     */
+    ValueReader(byte[] buffer, ClassLoader loader, AllowedTypes allowedTypes) {
+        this(buffer, 0, buffer.length, loader, allowedTypes);
+    }
+
+    ValueReader(byte[] buffer, int offset, int length, ClassLoader loader, AllowedTypes allowedTypes) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+        this.loader = loader;
+        this.allowedTypes = allowedTypes;
+    }
+
+    /**
+     * Sets the class loader and the allowed classes for the rest of the message, e.g. once the service of
+     * a request is known.
+     */
+    void setTypes(ClassLoader classLoader, AllowedTypes types) {
+        this.loader = classLoader;
+        this.allowedTypes = types;
+    }
+
+    /**
+     * @param expected the declared type of the value, used to convert collections. Object if unknown
+     */
+    Object readValue(Type expected) throws IOException {
+        if (++depth > ValueWriter.MAX_DEPTH) {
+            throw new IOException("Object graph is deeper than " + ValueWriter.MAX_DEPTH + " levels");
+        }
+        try {
+            return readTaggedValue(readByte(), expected);
+        } finally {
+            depth--;
+        }
+    }
+
+    private Object readTaggedValue(int tag, Type expected) throws IOException {
+        switch (tag) {
+        case ValueWriter.NULL:
+            return null;
+        case ValueWriter.TRUE:
+            return Boolean.TRUE;
+        case ValueWriter.FALSE:
+            return Boolean.FALSE;
+        case ValueWriter.BYTE:
+            return (byte)readByte();
+        case ValueWriter.SHORT:
+            return (short)readVarLong();
+        case ValueWriter.INT:
+            return (int)readVarLong();
+        case ValueWriter.LONG:
+            return readVarLong();
+        case ValueWriter.FLOAT:
+            return Float.intBitsToFloat((int)readFixedLong());
+        case ValueWriter.DOUBLE:
+            return Double.longBitsToDouble(readFixedLong());
+        case ValueWriter.CHAR:
+            return (char)readVarLong();
+        case ValueWriter.STRING:
+            return readString();
+        case ValueWriter.BYTES:
+            return readBytes();
+        case ValueWriter.BIG_INTEGER:
+            return new BigInteger(readBytes());
+        case ValueWriter.BIG_DECIMAL:
+            return new BigDecimal(new BigInteger(readBytes()), (int)readVarLong());
+        case ValueWriter.DATE:
+            return new Date(readVarLong());
+        default:
+            return readObject(tag, expected);
+        }
+    }
+
+    private Object readObject(int tag, Type expected) throws IOException {
+        switch (tag) {
+        case ValueWriter.ENUM:
+            return readEnum(expected);
+        case ValueWriter.ARRAY:
+            return readArray(expected);
+        case ValueWriter.LIST:
+        case ValueWriter.SET:
+            return readCollection(tag, expected);
+        case ValueWriter.MAP:
+            return readMap(expected);
+        case ValueWriter.BEAN:
+            return readBean(expected);
+        default:
+            throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum(Type expected) throws IOException {
+        Class<?> type = loadAllowedClass(readName(), expected);
+        String name = readName();
+        if (!type.isEnum()) {
+            throw new IOException(type.getName() + " is no enum");
+        }
+        try {
+            return Enum.valueOf((Class<Enum>)type, name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Enum " + type.getName() + " has no constant " + name, e);
+        }
+    }
+
+    private Object readArray(Type expected) throws IOException {
+        Class<?> componentType = loadClass(readName());
+        // creating an array runs no code of the component class, its elements are checked one by one
+        checkAssignable(Array.newInstance(componentType, 0).getClass(), expected);
+        int length = readLength();
+        Object array = Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, readValue(componentType));
+        }
+        return array;
+    }
+
+    private Object readCollection(int tag, Type expected) throws IOException {
+        int size = readLength();
+        Type elementType = getTypeArgument(expected, 0);
+        Collection<Object> collection = tag == ValueWriter.LIST
+            ? new ArrayList<Object>(size) : new LinkedHashSet<Object>(size * 2);
+        for (int i = 0; i < size; i++) {
+            collection.add(readValue(elementType));
+        }
+        return adapt(collection, expected);
+    }
+
+    private Object readMap(Type expected) throws IOException {
+        int size = readLength();
+        Type keyType = getTypeArgument(expected, 0);
+        Type valueType = getTypeArgument(expected, 1);
+        Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Object key = readValue(keyType);
+            map.put(key, readValue(valueType));
+        }
+        return adapt(map, expected);
+    }
+
+    private Object readBean(Type expected) throws IOException {
+        BeanType type = BeanType.of(loadAllowedClass(readName(), expected));
+        Object bean = type.newInstance();
+        int fieldCount = readLength();
+        for (int i = 0; i < fieldCount; i++) {
+            Field field = type.getField(readName());
+            Object value = readValue(field == null ? Object.class : field.getGenericType());
+            if (field != null && (value != null || !field.getType().isPrimitive())) {
+                try {
+                    field.set(bean, value);
+                } catch (IllegalArgumentException | IllegalAccessException e) {
+                    throw new IOException("Unable to set field " + field, e);
+                }
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Converts a list, set or map to the declared type, e.g. a list to a set or a map to a sorted map.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object adapt(Object value, Type expected) throws IOException {
+        Class<?> rawType = getRawType(expected);
+        if (rawType.isInstance(value)) {
+            return value;
+        }
+        if (rawType.isArray() && value instanceof List) {
+            List<?> list = (List<?>)value;
+            Object array = Array.newInstance(rawType.getComponentType(), list.size());
+            for (int i = 0; i < list.size(); i++) {
+                Array.set(array, i, list.get(i));
+            }
+            return array;
+        }
+        Object target = newContainer(rawType);
+        if (target instanceof Collection && value instanceof Collection) {
+            ((Collection<Object>)target).addAll((Collection<Object>)value);
+            return target;
+        }
+        if (target instanceof Map && value instanceof Map) {
+            ((Map<Object, Object>)target).putAll((Map<Object, Object>)value);
+            return target;
+        }
+        throw new IOException("Unable to convert " + value.getClass().getName() + " to " + rawType.getName());
+    }
+
+    private static Object newContainer(Class<?> type) throws IOException {
+        if (type.isAssignableFrom(ArrayList.class)) {
+            return new ArrayList<Object>();
+        }
+        if (type.isAssignableFrom(LinkedHashSet.class)) {
+            return new LinkedHashSet<Object>();
+        }
+        if (type.isAssignableFrom(LinkedHashMap.class)) {
+            return new LinkedHashMap<Object, Object>();
+        }
+        if (type.isAssignableFrom(TreeMap.class)) {
+            return new TreeMap<Object, Object>();
+        }
+        if (type.isAssignableFrom(TreeSet.class)) {
+            return new TreeSet<Object>();
+        }
+        if (type.isAssignableFrom(ArrayDeque.class)) {
+            return new ArrayDeque<Object>();
+        }
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            throw new IOException("Unsupported collection type " + type.getName());
+        }
+        try {
+            return type.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Unable to create an instance of " + type.getName(), e);
+        }
+    }
+
+    private static Type getTypeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType)type).getActualTypeArguments();
+            if (index < arguments.length) {
+                return arguments[index];
+            }
+        }
+        return Object.class;
+    }
+
+    static Class<?> getRawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>)type;
+        }
+        if (type instanceof ParameterizedType) {
+            return getRawType(((ParameterizedType)type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            Class<?> component = getRawType(((GenericArrayType)type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        }
+        return Object.class;
+    }
+
+    /**
+     * Loads the class of a bean or enum without initializing it and checks that it is allowed and matches
+     * the declared type.
+     */
+    private Class<?> loadAllowedClass(String name, Type expected) throws IOException {
+        Class<?> type = loadClass(name);
+        if (allowedTypes == null || !allowedTypes.isAllowed(type)) {
+            throw new IOException("Class " + name + " is not used by the service interface and not allowed by "
+                                  + BinaryConstants.BINARY_ALLOWED_TYPES);
+        }
+        checkAssignable(type, expected);
+        return type;
+    }
+
+    private static void checkAssignable(Class<?> type, Type expected) throws IOException {
+        Class<?> declared = getRawType(expected);
+        if (declared.isPrimitive()) {
+            declared = WRAPPERS.get(declared);
+        }
+        if (!declared.isAssignableFrom(type)) {
+            throw new IOException(type.getName() + " does not match the declared type " + declared.getName());
+        }
+    }
+
+    private Class<?> loadClass(String name) throws IOException {
+        Class<?> primitive = PRIMITIVES.get(name);
+        if (primitive != null) {
+            return primitive;
+        }
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to load class " + name, e);
+        }
+    }
+
+    String readName() throws IOException {
+        int header = readVarInt();
+        if ((header & 1) == 1) {
+            int index = header >>> 1;
+            if (index >= names.size()) {
+                throw new IOException("Unknown name reference " + index);
+            }
+            return names.get(index);
+        }
+        int length = header >>> 1;
+        checkAvailable(length);
+        String name = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        names.add(name);
+        return name;
+    }
+
+    String readString() throws IOException {
+        int length = readLength();
+        checkAvailable(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    byte[] readBytes() throws IOException {
+        int length = readLength();
+        checkAvailable(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+        return bytes;
+    }
+
+    int readByte() throws IOException {
+        checkAvailable(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IOException("Malformed varlong");
+    }
+
+    long readFixedLong() throws IOException {
+        checkAvailable(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Reads a length and checks it against the remaining bytes, so a corrupt message cannot cause huge allocations.
+     */
+    private int readLength() throws IOException {
+        int length = readVarInt();
+        if (length < 0 || length > limit - position) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    private void checkAvailable(int length) throws IOException {
+        if (length < 0 || position + length > limit) {
+            throw new IOException("Unexpected end of message");
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes values in the compact binary format of the provider. Each value starts with a tag byte.
+ * Integers are written as zigzag varints and class and field names are written once per message
+ * and then referenced by their index.
+ * <p>
+ * Supported are primitives and their wrappers, strings, byte arrays, arrays, lists, sets, maps, enums,
+ * {@link BigInteger}, {@link BigDecimal}, {@link Date} and beans. Beans are classes outside the {@code java}
+ * packages with a no argument constructor, their non transient fields are written by name.
+ */
+final class ValueWriter {
+    static final int NULL = 0;
+    static final int TRUE = 1;
+    static final int FALSE = 2;
+    static final int BYTE = 3;
+    static final int SHORT = 4;
+    static final int INT = 5;
+    static final int LONG = 6;
+    static final int FLOAT = 7;
+    static final int DOUBLE = 8;
+    static final int CHAR = 9;
+    static final int STRING = 10;
+    static final int BYTES = 11;
+    static final int ARRAY = 12;
+    static final int LIST = 13;
+    static final int SET = 14;
+    static final int MAP = 15;
+    static final int ENUM = 16;
+    static final int BEAN = 17;
+    static final int BIG_INTEGER = 18;
+    static final int BIG_DECIMAL = 19;
+    static final int DATE = 20;
+
+    /**
+     * Protects against cyclic object graphs, which are not supported.
+     */
+    static final int MAX_DEPTH = 100;
+
+    private byte[] buffer;
+    private int size;
+    private final Map<String, Integer> names = new HashMap<>();
+    private int depth;
+
+    ValueWriter() {
+        this(256);
+    }
+
+    ValueWriter(int initialSize) {
+        buffer = new byte[initialSize];
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeValue(Object value) throws IOException {
+        if (++depth > MAX_DEPTH) {
+            throw new IOException("Object graph is deeper than " + MAX_DEPTH + " levels or cyclic");
+        }
+        try {
+            writeTaggedValue(value);
+        } finally {
+            depth--;
+        }
+    }
+
+    private void writeTaggedValue(Object value) throws IOException {
+        if (value == null) {
+            writeByte(NULL);
+        } else if (value instanceof String) {
+            writeByte(STRING);
+            writeString((String)value);
+        } else if (value instanceof Integer) {
+            writeByte(INT);
+            writeVarLong((Integer)value);
+        } else if (value instanceof Long) {
+            writeByte(LONG);
+            writeVarLong((Long)value);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean)value ? TRUE : FALSE);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[])value;
+            writeByte(BYTES);
+            writeBytes(bytes);
+        } else if (!writeNumber(value)) {
+            writeObject(value);
+        }
+    }
+
+    private boolean writeNumber(Object value) {
+        if (value instanceof Double) {
+            writeByte(DOUBLE);
+            writeFixedLong(Double.doubleToLongBits((Double)value));
+        } else if (value instanceof Float) {
+            writeByte(FLOAT);
+            writeFixedLong(Float.floatToIntBits((Float)value));
+        } else if (value instanceof Short) {
+            writeByte(SHORT);
+            writeVarLong((Short)value);
+        } else if (value instanceof Byte) {
+            writeByte(BYTE);
+            writeByte((Byte)value);
+        } else if (value instanceof Character) {
+            writeByte(CHAR);
+            writeVarLong((Character)value);
+        } else if (value instanceof BigInteger) {
+            writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger)value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal)value;
+            writeByte(BIG_DECIMAL);
+            writeBytes(decimal.unscaledValue().toByteArray());
+            writeVarLong(decimal.scale());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void writeObject(Object value) throws IOException {
+        if (value instanceof Date) {
+            writeByte(DATE);
+            writeVarLong(((Date)value).getTime());
+        } else if (value instanceof Enum) {
+            writeByte(ENUM);
+            writeName(((Enum<?>)value).getDeclaringClass().getName());
+            writeName(((Enum<?>)value).name());
+        } else if (value.getClass().isArray()) {
+            writeByte(ARRAY);
+            writeName(value.getClass().getComponentType().getName());
+            int length = Array.getLength(value);
+            writeVarInt(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i));
+            }
+        } else if (value instanceof List || value instanceof Set) {
+            Collection<?> collection = (Collection<?>)value;
+            writeByte(value instanceof List ? LIST : SET);
+            writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)value;
+            writeByte(MAP);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        } else {
+            writeBean(value);
+        }
+    }
+
+    private void writeBean(Object bean) throws IOException {
+        BeanType type = BeanType.of(bean.getClass());
+        writeByte(BEAN);
+        writeName(bean.getClass().getName());
+        Field[] fields = type.getFields();
+        writeVarInt(fields.length);
+        for (Field field : fields) {
+            writeName(field.getName());
+            try {
+                writeValue(field.get(bean));
+            } catch (IllegalAccessException e) {
+                throw new IOException("Unable to read field " + field, e);
+            }
+        }
+    }
+
+    /**
+     * Writes a class, field or service name. Names that were already written are replaced by their index.
+     */
+    void writeName(String name) {
+        Integer index = names.get(name);
+        if (index != null) {
+            writeVarInt(index << 1 | 1);
+            return;
+        }
+        names.put(name, names.size());
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length << 1);
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    void writeString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeBytes(bytes);
+    }
+
+    void writeBytes(byte[] bytes) {
+        writeVarInt(bytes.length);
+        writeRaw(bytes, 0, bytes.length);
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte)value;
+    }
+
+    /**
+     * Writes an unsigned int in 1 to 5 bytes.
+     */
+    void writeVarInt(int value) {
+        ensureCapacity(5);
+        int rest = value;
+        while ((rest & ~0x7F) != 0) {
+            buffer[size++] = (byte)((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        buffer[size++] = (byte)rest;
+    }
+
+    /**
+     * Writes a signed long in zigzag encoding, so small negative numbers are short too.
+     */
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        long rest = (value << 1) ^ (value >> 63);
+        while ((rest & ~0x7FL) != 0) {
+            buffer[size++] = (byte)((rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        buffer[size++] = (byte)rest;
+    }
+
+    void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[size++] = (byte)(value >>> shift);
+        }
+    }
+
+    private void writeRaw(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+}
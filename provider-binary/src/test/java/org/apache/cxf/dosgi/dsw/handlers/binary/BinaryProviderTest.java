@@ -0,0 +1,273 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.aries.rsa.spi.IntentUnsatisfiedException;
+import org.apache.cxf.dosgi.common.intent.impl.CompressionIntent;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.common.resilience.TimeoutPolicy;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceException;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+public class BinaryProviderTest {
+    private static final Class<?>[] IFACES = new Class[] {OrderService.class};
+    private BinaryProvider provider;
+    private BundleContext callingContext;
+
+    @Before
+    public void setUp() {
+        provider = new BinaryProvider();
+        provider.setIntentManager(new IntentManagerImpl());
+        callingContext = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(callingContext);
+    }
+
+    @After
+    public void tearDown() {
+        provider.deactivate();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        try (Endpoint endpoint = export("tcp://localhost:9201/orders")) {
+            Assert.assertEquals("tcp://localhost:9201/orders", endpoint.description().getId());
+            OrderService proxy = importEndpoint(endpoint.description());
+
+            Order order = proxy.getOrder(1);
+            Assert.assertEquals("alice", order.getCustomer());
+            Assert.assertEquals(Order.Status.OPEN, order.getStatus());
+            Assert.assertEquals(new BigDecimal("19.99"), order.getAmount());
+            Assert.assertEquals(1000L, order.getCreated().getTime());
+            Assert.assertEquals(Arrays.asList("book", "pen"), order.getItems());
+
+            List<Order> orders = proxy.findOrders(EnumSet.of(Order.Status.SHIPPED, Order.Status.CANCELLED));
+            Assert.assertEquals(2, orders.size());
+            Assert.assertEquals(3, orders.get(1).getId());
+
+            Map<String, Integer> counts = proxy.countByCustomer();
+            Assert.assertEquals(Integer.valueOf(2), counts.get("alice"));
+            Assert.assertEquals(Integer.valueOf(1), counts.get("bob"));
+        }
+    }
+
+    @Test
+    public void testExceptions() throws Exception {
+        try (Endpoint endpoint = export("tcp://localhost:9201/orders")) {
+            OrderService proxy = importEndpoint(endpoint.description());
+            try {
+                proxy.getOrder(42);
+                Assert.fail("Expected OrderNotFoundException");
+            } catch (OrderNotFoundException e) {
+                Assert.assertEquals("No order 42", e.getMessage());
+            }
+            try {
+                proxy.getOrder(-1);
+                Assert.fail("Expected ServiceException");
+            } catch (ServiceException e) {
+                Assert.assertTrue(e.getCause() instanceof IllegalArgumentException);
+                Assert.assertEquals("Negative id -1", e.getCause().getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentCallsShareOneConnection() throws Exception {
+        try (Endpoint endpoint = export("tcp://localhost:9202/orders")) {
+            final OrderService proxy = importEndpoint(endpoint.description());
+            ExecutorService executor = Executors.newFixedThreadPool(10);
+            try {
+                long start = System.nanoTime();
+                Future<?>[] results = new Future<?>[10];
+                for (int i = 0; i < results.length; i++) {
+                    final String text = "call" + i;
+                    results[i] = executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return proxy.echo(text, 300);
+                        }
+                    });
+                }
+                for (int i = 0; i < results.length; i++) {
+                    Assert.assertEquals("call" + i, results[i].get(10, TimeUnit.SECONDS));
+                }
+                // the calls overlap on the connection, one after the other they would take 3 seconds
+                Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2000));
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testCallsBeyondThreadsAndQueueAreRejected() throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {OrderService.class.getName()});
+        props.put(BinaryConstants.BINARY_ADDRESS_PROPERTY, "tcp://localhost:9226/orders");
+        props.put(BinaryConstants.BINARY_MAX_THREADS, 1);
+        props.put(BinaryConstants.BINARY_QUEUE_SIZE, 1);
+        try (Endpoint endpoint = provider.exportService(new OrderServiceImpl(), callingContext, props, IFACES)) {
+            final OrderService proxy = importEndpoint(endpoint.description());
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<?>[] results = new Future<?>[2];
+                for (int i = 0; i < results.length; i++) {
+                    final String text = "call" + i;
+                    results[i] = executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            return proxy.echo(text, 1000);
+                        }
+                    });
+                    // the first call runs, the second waits in the queue
+                    Thread.sleep(200);
+                }
+                try {
+                    proxy.echo("call2", 0);
+                    Assert.fail("Expected ServiceException");
+                } catch (ServiceException e) {
+                    Throwable cause = e;
+                    while (cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    Assert.assertTrue(cause.getMessage().contains("Server on port 9226 is busy"));
+                }
+                for (int i = 0; i < results.length; i++) {
+                    Assert.assertEquals("call" + i, results[i].get(10, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownMethodFailsLocally() throws Exception {
+        try (Endpoint endpoint = export("tcp://localhost:9203/orders")) {
+            // an older server that only knows getOrder
+            Map<String, Object> props = new HashMap<>(endpoint.description().getProperties());
+            long getOrder = MethodSignatures.hash(OrderService.class.getMethod("getOrder", long.class));
+            props.put(BinaryConstants.BINARY_METHODS, new String[] {MethodSignatures.toString(getOrder)});
+            OrderService proxy = importEndpoint(new EndpointDescription(props));
+
+            Assert.assertEquals(1, proxy.getOrder(1).getId());
+            try {
+                proxy.countByCustomer();
+                Assert.fail("Expected ServiceException");
+            } catch (ServiceException e) {
+                Assert.assertTrue(e.getCause() instanceof UnsupportedOperationException);
+            }
+        }
+    }
+
+    @Test
+    public void testUnexportRemovesServer() throws Exception {
+        Endpoint endpoint = export("tcp://localhost:9203/orders");
+        endpoint.close();
+        // the port is free again
+        new ServerSocket(9203).close();
+    }
+
+    @Test
+    public void testMultipleInterfaces() throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {OrderService.class.getName(), Runnable.class.getName()});
+        props.put(BinaryConstants.BINARY_ADDRESS_PROPERTY, "tcp://localhost:9219/orders");
+        Class<?>[] ifaces = new Class[] {OrderService.class, Runnable.class};
+        RunnableOrderService service = new RunnableOrderService();
+        try (Endpoint endpoint = provider.exportService(service, callingContext, props, ifaces)) {
+            Object proxy = provider.importEndpoint(OrderService.class.getClassLoader(), callingContext, ifaces,
+                                                   endpoint.description());
+            ((Runnable)proxy).run();
+            Assert.assertEquals(1, service.runs);
+            try {
+                ((OrderService)proxy).getOrder(42);
+                Assert.fail("Expected OrderNotFoundException");
+            } catch (OrderNotFoundException e) {
+                Assert.assertEquals("No order 42", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testIntents() throws Exception {
+        IntentManagerImpl intentManager = new IntentManagerImpl();
+        intentManager.addIntent(new TimeoutPolicy(5000), "timeout");
+        intentManager.addIntent(new CompressionIntent(), "compression");
+        provider.setIntentManager(intentManager);
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {OrderService.class.getName()});
+        props.put(BinaryConstants.BINARY_ADDRESS_PROPERTY, "tcp://localhost:9225/orders");
+        props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, "timeout");
+        try (Endpoint endpoint = provider.exportService(new OrderServiceImpl(), callingContext, props, IFACES)) {
+            Assert.assertTrue(endpoint.description().getIntents().contains("timeout"));
+            Assert.assertEquals("alice", importEndpoint(endpoint.description()).getOrder(1).getCustomer());
+        }
+
+        props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, new String[] {"timeout", "compression"});
+        try {
+            provider.exportService(new OrderServiceImpl(), callingContext, props, IFACES);
+            Assert.fail("Expected IntentUnsatisfiedException");
+        } catch (IntentUnsatisfiedException e) {
+            Assert.assertEquals("compression", e.getIntent());
+        }
+    }
+
+    private Endpoint export(String address) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {OrderService.class.getName()});
+        props.put(BinaryConstants.BINARY_ADDRESS_PROPERTY, address);
+        return provider.exportService(new OrderServiceImpl(), callingContext, props, IFACES);
+    }
+
+    private OrderService importEndpoint(EndpointDescription description) {
+        return (OrderService)provider.importEndpoint(OrderService.class.getClassLoader(), callingContext,
+                                                     IFACES, description);
+    }
+
+    private static final class RunnableOrderService extends OrderServiceImpl implements Runnable {
+        private volatile int runs;
+
+        @Override
+        public void run() {
+            runs++;
+        }
+    }
+}
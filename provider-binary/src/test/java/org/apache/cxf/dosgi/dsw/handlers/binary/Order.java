@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class Order {
+    public enum Status {
+        OPEN, SHIPPED, CANCELLED
+    }
+
+    private long id;
+    private String customer;
+    private Status status;
+    private BigDecimal amount;
+    private Date created;
+    private List<String> items = new ArrayList<>();
+
+    public Order() {
+    }
+
+    public Order(long id, String customer, Status status, BigDecimal amount) {
+        this.id = id;
+        this.customer = customer;
+        this.status = status;
+        this.amount = amount;
+        this.created = new Date(1000L * id);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+}
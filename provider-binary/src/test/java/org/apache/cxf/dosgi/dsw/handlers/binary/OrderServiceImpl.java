@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class OrderServiceImpl implements OrderService {
+    private final List<Order> orders = new ArrayList<>();
+
+    public OrderServiceImpl() {
+        Order order = new Order(1, "alice", Order.Status.OPEN, new BigDecimal("19.99"));
+        order.getItems().add("book");
+        order.getItems().add("pen");
+        orders.add(order);
+        orders.add(new Order(2, "bob", Order.Status.SHIPPED, new BigDecimal("5.00")));
+        orders.add(new Order(3, "alice", Order.Status.CANCELLED, BigDecimal.ONE));
+    }
+
+    @Override
+    public Order getOrder(long id) throws OrderNotFoundException {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id " + id);
+        }
+        for (Order order : orders) {
+            if (order.getId() == id) {
+                return order;
+            }
+        }
+        throw new OrderNotFoundException("No order " + id);
+    }
+
+    @Override
+    public List<Order> findOrders(Set<Order.Status> statuses) {
+        List<Order> found = new ArrayList<>();
+        for (Order order : orders) {
+            if (statuses.contains(order.getStatus())) {
+                found.add(order);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Map<String, Integer> countByCustomer() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Order order : orders) {
+            Integer count = counts.get(order.getCustomer());
+            counts.put(order.getCustomer(), count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    @Override
+    public String echo(String text, long delayMillis) throws InterruptedException {
+        Thread.sleep(delayMillis);
+        return text;
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.binary;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ValueCodecTest {
+    private static final AllowedTypes TYPES = new AllowedTypes(OrderService.class);
+
+    @Test
+    public void testSimpleValues() throws IOException {
+        Object[] values = {null, true, false, (byte)-3, (short)1000, 0, -1, Integer.MIN_VALUE, Long.MAX_VALUE,
+                           1.5f, -2.25, 'x', "text \u00e4\u20ac", new byte[] {1, 2, 3},
+                           new BigInteger("123456789012345678901234567890"), new BigDecimal("-12.345"),
+                           new Date(123456789L), Order.Status.SHIPPED};
+        for (Object value : values) {
+            Object copy = roundTrip(value, Object.class);
+            if (value instanceof byte[]) {
+                Assert.assertArrayEquals((byte[])value, (byte[])copy);
+            } else {
+                Assert.assertEquals(value, copy);
+            }
+        }
+    }
+
+    @Test
+    public void testSmallNumbersAreShort() {
+        ValueWriter writer = new ValueWriter();
+        writer.writeVarLong(-1);
+        writer.writeVarLong(63);
+        Assert.assertEquals(2, writer.size());
+    }
+
+    @Test
+    public void testArraysAndCollections() throws IOException {
+        int[] numbers = (int[])roundTrip(new int[] {1, -2, 3}, Object.class);
+        Assert.assertArrayEquals(new int[] {1, -2, 3}, numbers);
+        String[] names = (String[])roundTrip(new String[] {"a", null}, Object.class);
+        Assert.assertArrayEquals(new String[] {"a", null}, names);
+
+        Map<String, List<Integer>> map = new LinkedHashMap<>();
+        map.put("b", Arrays.asList(2, 3));
+        map.put("a", new ArrayList<Integer>());
+        Assert.assertEquals(map, roundTrip(map, Object.class));
+    }
+
+    @Test
+    public void testCollectionsAreConvertedToDeclaredType() throws Exception {
+        Type setType = Holder.class.getDeclaredField("set").getGenericType();
+        Object set = roundTrip(Arrays.asList("b", "a", "b"), setType);
+        Assert.assertEquals(new TreeSet<>(Arrays.asList("a", "b")), set);
+
+        Map<String, Integer> map = new LinkedHashMap<>();
+        map.put("z", 1);
+        map.put("a", 2);
+        Object sorted = roundTrip(map, Holder.class.getDeclaredField("sorted").getGenericType());
+        Assert.assertTrue(sorted instanceof SortedMap);
+        Assert.assertEquals("a", ((SortedMap<?, ?>)sorted).firstKey());
+    }
+
+    @Test
+    public void testBeanNamesAreWrittenOnce() throws IOException {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(new Order(i, "customer", Order.Status.OPEN, BigDecimal.TEN));
+        }
+        ValueWriter one = new ValueWriter();
+        one.writeValue(orders.subList(0, 1));
+        ValueWriter ten = new ValueWriter();
+        ten.writeValue(orders);
+        // the class, field and enum names make up most of the first bean and are not repeated
+        Assert.assertTrue(ten.size() < one.size() * 3);
+
+        @SuppressWarnings("unchecked")
+        List<Order> copy = (List<Order>)roundTrip(orders, Object.class);
+        Assert.assertEquals(9, copy.get(9).getId());
+        Assert.assertEquals("customer", copy.get(9).getCustomer());
+    }
+
+    @Test(expected = IOException.class)
+    public void testCyclesAreRejected() throws IOException {
+        List<Object> list = new ArrayList<>();
+        list.add(list);
+        new ValueWriter().writeValue(list);
+    }
+
+    @Test(expected = IOException.class)
+    public void testJdkClassesAreNoBeans() throws IOException {
+        new ValueWriter().writeValue(new StringBuilder("x"));
+    }
+
+    @Test
+    public void testCorruptLengthIsRejected() {
+        ValueWriter writer = new ValueWriter();
+        writer.writeByte(ValueWriter.LIST);
+        writer.writeVarInt(Integer.MAX_VALUE);
+        try {
+            new ValueReader(writer.toByteArray(), getClass().getClassLoader(), TYPES).readValue(Object.class);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Invalid length"));
+        }
+    }
+
+    @Test
+    public void testClassesOutsideTheInterfaceAreRejected() throws IOException {
+        ValueWriter writer = new ValueWriter();
+        writer.writeValue(new Holder());
+        try {
+            new ValueReader(writer.toByteArray(), getClass().getClassLoader(), TYPES).readValue(Object.class);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("not allowed"));
+        }
+        AllowedTypes allowed = new AllowedTypes(Arrays.asList(Holder.class.getName()), OrderService.class);
+        Object holder = new ValueReader(writer.toByteArray(), getClass().getClassLoader(), allowed)
+            .readValue(Object.class);
+        Assert.assertTrue(holder instanceof Holder);
+        allowed = new AllowedTypes(Arrays.asList(getClass().getPackage().getName() + ".*"));
+        Assert.assertTrue(allowed.isAllowed(Holder.class));
+    }
+
+    @Test
+    public void testBeansMustMatchTheDeclaredType() throws IOException {
+        Order order = new Order(1, "customer", Order.Status.OPEN, BigDecimal.ONE);
+        Assert.assertEquals(1, ((Order)roundTrip(order, Order.class)).getId());
+        try {
+            roundTrip(order, String.class);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("declared type"));
+        }
+        try {
+            roundTrip(Order.Status.OPEN, int.class);
+            Assert.fail("Expected IOException");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("declared type"));
+        }
+    }
+
+    private static Object roundTrip(Object value, Type type) throws IOException {
+        ValueWriter writer = new ValueWriter(4);
+        writer.writeValue(value);
+        return new ValueReader(writer.toByteArray(), ValueCodecTest.class.getClassLoader(), TYPES).readValue(type);
+    }
+
+    static class Holder {
+        Set<String> set;
+        SortedMap<String, Integer> sorted;
+    }
+}
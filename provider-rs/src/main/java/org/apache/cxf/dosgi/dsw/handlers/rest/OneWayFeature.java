@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.feature.AbstractFeature;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.InterceptorProvider;
+import org.apache.cxf.interceptor.OneWayProcessorInterceptor;
+import org.apache.cxf.jaxrs.interceptor.JAXRSInInterceptor;
+import org.apache.cxf.jaxrs.model.OperationResourceInfo;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+
+/**
+ * Answers requests of {@link OneWayMethods} with status 202 once their parameters are read. The service is
+ * invoked afterwards on the work queue of the bus, so the client does not wait for it.
+ */
+class OneWayFeature extends AbstractFeature {
+    private final OneWayMethods oneWayMethods;
+
+    OneWayFeature(OneWayMethods oneWayMethods) {
+        this.oneWayMethods = oneWayMethods;
+    }
+
+    @Override
+    protected void initializeProvider(InterceptorProvider provider, Bus bus) {
+        provider.getInInterceptors().add(new SelectOneWayInterceptor(oneWayMethods));
+        provider.getInInterceptors().add(new OneWayProcessorInterceptor());
+    }
+
+    /**
+     * Marks the exchange as one-way once the resource method is known.
+     */
+    static class SelectOneWayInterceptor extends AbstractPhaseInterceptor<Message> {
+        private final OneWayMethods oneWayMethods;
+
+        SelectOneWayInterceptor(OneWayMethods oneWayMethods) {
+            super(Phase.UNMARSHAL);
+            addAfter(JAXRSInInterceptor.class.getName());
+            this.oneWayMethods = oneWayMethods;
+        }
+
+        @Override
+        public void handleMessage(Message message) throws Fault {
+            if (MessageUtils.isRequestor(message)) {
+                return;
+            }
+            OperationResourceInfo ori = message.getExchange().get(OperationResourceInfo.class);
+            if (ori != null && oneWayMethods.isOneWay(ori.getAnnotatedMethod())) {
+                message.getExchange().setOneWay(true);
+            }
+        }
+    }
+}
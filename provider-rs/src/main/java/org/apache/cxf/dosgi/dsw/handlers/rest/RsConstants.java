@@ -22,9 +22,18 @@ public final class RsConstants {
 
     public static final String RS_CONFIG_TYPE           = "org.apache.cxf.rs";
     public static final String RS_ADDRESS_PROPERTY      = RS_CONFIG_TYPE + ".address";
+    public static final String RS_ALTERNATE_ADDRESSES   = RS_CONFIG_TYPE + ".alternate.addresses";
     public static final String RS_HTTP_SERVICE_CONTEXT  = RS_CONFIG_TYPE + ".httpservice.context";
     public static final String RS_CONTEXT_PROPS_PROP_KEY = RS_CONFIG_TYPE + ".context.properties";
     public static final String RS_WADL_LOCATION         = RS_CONFIG_TYPE + ".wadl.location";
+    /**
+     * Maximum number of events the server buffers for each subscriber of an event stream, defaults to 256.
+     */
+    public static final String RS_EVENT_BUFFER          = RS_CONFIG_TYPE + ".event.buffer";
+    /**
+     * Maximum number of event streams an endpoint serves at the same time, defaults to 64.
+     */
+    public static final String RS_EVENT_MAX_STREAMS     = RS_CONFIG_TYPE + ".event.max.streams";
 
     private RsConstants() {
         // never constructed
@@ -23,10 +23,13 @@ import static org.osgi.service.remoteserviceadmin.RemoteConstants.REMOTE_INTENTS
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.ws.rs.ext.ContextResolver;
 import javax.ws.rs.ext.ExceptionMapper;
@@ -42,12 +45,18 @@ import org.apache.cxf.binding.BindingConfiguration;
 import org.apache.cxf.databinding.DataBinding;
 import org.apache.cxf.dosgi.common.endpoint.ServerEndpoint;
 import org.apache.cxf.dosgi.common.handlers.BaseDistributionProvider;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
 import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
 import org.apache.cxf.dosgi.common.intent.IntentManager;
 import org.apache.cxf.dosgi.common.proxy.ProxyFactory;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicies;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.dosgi.common.transport.Transports;
+import org.apache.cxf.dosgi.common.util.NamedThreadFactory;
 import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.apache.cxf.dosgi.dsw.handlers.rest.stream.StreamingSupport;
 import org.apache.cxf.endpoint.Server;
-import org.apache.cxf.feature.Feature;
 import org.apache.cxf.jaxrs.AbstractJAXRSFactoryBean;
 import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
 import org.apache.cxf.jaxrs.client.JAXRSClientFactoryBean;
@@ -55,6 +64,7 @@ import org.apache.cxf.jaxrs.ext.ContextProvider;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.remoteserviceadmin.EndpointDescription;
 import org.osgi.service.remoteserviceadmin.RemoteConstants;
@@ -69,6 +79,11 @@ import org.slf4j.LoggerFactory;
 public class RsProvider extends BaseDistributionProvider implements DistributionProvider {
 
     private static final Logger LOG = LoggerFactory.getLogger(RsProvider.class);
+    private static final int DEFAULT_EVENT_BUFFER = 256;
+    private static final int DEFAULT_EVENT_MAX_STREAMS = 64;
+
+    private final ExecutorService eventReaders = Executors.newCachedThreadPool(
+        new NamedThreadFactory("dosgi-events"));
 
     @Reference
     public void setHttpServiceManager(HttpServiceManager httpServiceManager) {
@@ -80,6 +95,11 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
         this.intentManager = intentManager;
     }
 
+    @Deactivate
+    public void deactivate() {
+        eventReaders.shutdownNow();
+    }
+
     @Override
     public String[] getSupportedTypes() {
         return new String[] {RsConstants.RS_CONFIG_TYPE};
@@ -91,18 +111,33 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
                                  BundleContext consumerContext,
                                  Class[] interfaces,
                                  EndpointDescription endpoint) {
-        if (interfaces.length > 1) {
-            throw new IllegalArgumentException("Multiple interfaces are not supported by this provider");
-        }
         Set<String> intentNames = intentManager.getImported(endpoint.getProperties());
         List<Object> intents = intentManager.getRequiredIntents(intentNames);
-        Class<?> iClass = interfaces[0];
         String address = PropertyHelper.getProperty(endpoint.getProperties(), RsConstants.RS_ADDRESS_PROPERTY);
         if (address == null) {
             LOG.warn("Remote address is unavailable");
             return null;
         }
-        return createJaxrsProxy(address, iClass, null, endpoint, intents);
+        List<Object> clients = new ArrayList<>();
+        Object localService = getLocalService(consumerContext, interfaces, endpoint);
+        if (localService != null) {
+            clients.add(localService);
+        } else {
+            for (String curAddress : getAddresses(address, endpoint.getProperties(),
+                                                  RsConstants.RS_ALTERNATE_ADDRESSES)) {
+                // the root resources of all interfaces share the address
+                List<Object> interfaceClients = new ArrayList<>();
+                for (Class<?> iClass : interfaces) {
+                    interfaceClients.add(createJaxrsProxy(curAddress, iClass, null, endpoint, intents));
+                }
+                clients.add(ProxyFactory.combine(interfaceClients, interfaces));
+            }
+        }
+        List<InvocationPolicy> policies = InvocationPolicies.create(interfaces, endpoint.getProperties(),
+            intentManager.getIntents(InvocationPolicy.class, intents));
+        Object proxy = ProxyFactory.create(clients, interfaces, policies);
+        InvocationPolicies.registerMetrics(proxy, endpoint.getProperties(), policies);
+        return proxy;
     }
 
     private Object createJaxrsProxy(String address,
@@ -112,13 +147,15 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
                                       List<Object> intents) {
         JAXRSClientFactoryBean factory = new JAXRSClientFactoryBean();
         factory.setAddress(address);
+        Transports.configure(factory, address);
         if (loader != null) {
             factory.setClassLoader(loader);
         }
         addContextProperties(factory, endpoint.getProperties(), RsConstants.RS_CONTEXT_PROPS_PROP_KEY);
         factory.setServiceClass(iClass);
-        applyIntents(intents, factory);
-        return ProxyFactory.create(factory.create(), iClass);
+        applyIntents(intents, factory, endpoint.getProperties());
+        configureClientTransport(factory, iClass, intents);
+        return factory.create();
     }
 
     @Override
@@ -131,10 +168,9 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
             return null;
         }
         String contextRoot = PropertyHelper.getProperty(endpointProps, RsConstants.RS_HTTP_SERVICE_CONTEXT);
-        Class<?> iClass = exportedInterfaces[0];
         String address = PropertyHelper.getProperty(endpointProps, RsConstants.RS_ADDRESS_PROPERTY);
         if (address == null) {
-            address = httpServiceManager.getDefaultAddress(iClass);
+            address = httpServiceManager.getDefaultAddress(exportedInterfaces[0]);
         }
         final Long sid = (Long) endpointProps.get(RemoteConstants.ENDPOINT_SERVICE_ID);
         Set<String> intentNames = intentManager.getExported(endpointProps);
@@ -142,22 +178,31 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
         intents.addAll(intentManager.getIntentsFromService(serviceBean));
 
         Bus bus = createBus(sid, callingContext, contextRoot, endpointProps);
-        LOG.info("Creating JAXRS endpoint for " + iClass.getName() + " with address " + address);
+        // transport intents configure the bus before the engine of the endpoint is created
+        configureServerTransport(bus, intents);
+        HttpEngines.configure(bus, address, endpointProps);
+        LOG.info("Creating JAXRS endpoint for {} with address {}", Arrays.toString(exportedInterfaces), address);
 
         JAXRSServerFactoryBean factory = createServerFactory(callingContext, endpointProps,
-                                                             iClass, serviceBean, address, bus);
-        applyIntents(intents, factory);
+                                                             exportedInterfaces, serviceBean, address, bus);
+        applyIntents(intents, factory, endpointProps);
         String completeEndpointAddress = httpServiceManager.getAbsoluteAddress(contextRoot, address);
         EndpointDescription epd = createEndpointDesc(endpointProps, //
                                                      new String[] {RsConstants.RS_CONFIG_TYPE},
                                                      completeEndpointAddress,
                                                      intentNames);
-        return createServerFromFactory(factory, epd);
+        addServerFeatures(factory, epd, intents);
+        OneWayMethods oneWayMethods = new OneWayMethods(endpointProps);
+        if (oneWayMethods.hasOneWayMethods(exportedInterfaces)) {
+            factory.getFeatures().add(new OneWayFeature(oneWayMethods));
+        }
+        Endpoint endpoint = createServerFromFactory(factory, epd);
+        registerLocalService(epd, serviceBean, intents);
+        return endpoint;
     }
 
-    private void applyIntents(List<Object> intents, AbstractJAXRSFactoryBean factory) {
-        List<Feature> features = intentManager.getIntents(Feature.class, intents);
-        factory.setFeatures(features);
+    private void applyIntents(List<Object> intents, AbstractJAXRSFactoryBean factory, Map<String, Object> props) {
+        factory.setFeatures(getFeatures(intents));
         DataBinding dataBinding = intentManager.getIntent(DataBinding.class, intents);
         if (dataBinding != null) {
             factory.setDataBinding(dataBinding);
@@ -173,6 +218,10 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
                 providers.add(intent);
             }
         }
+        providers.addAll(StreamingSupport.createProviders(
+            (int)PropertyHelper.getLongProperty(props, RsConstants.RS_EVENT_BUFFER, DEFAULT_EVENT_BUFFER),
+            (int)PropertyHelper.getLongProperty(props, RsConstants.RS_EVENT_MAX_STREAMS, DEFAULT_EVENT_MAX_STREAMS),
+            eventReaders));
         factory.setProviders(providers);
     }
 
@@ -191,23 +240,30 @@ public class RsProvider extends BaseDistributionProvider implements Distribution
         try {
             Thread.currentThread().setContextClassLoader(JAXRSServerFactoryBean.class.getClassLoader());
             Server server = factory.create();
-            return new ServerEndpoint(epd, server);
+            return new ServerEndpoint(epd, server, factory.getFeatures());
         } finally {
             Thread.currentThread().setContextClassLoader(oldClassLoader);
         }
     }
 
+    /**
+     * Each interface is a root resource of the same server. Their paths have to differ.
+     */
     private JAXRSServerFactoryBean createServerFactory(BundleContext callingContext,
                                                        Map<String, Object> sd,
-                                                       Class<?> iClass,
+                                                       Class<?>[] interfaces,
                                                        Object serviceBean,
                                                        String address,
                                                        Bus bus) {
         JAXRSServerFactoryBean factory = new JAXRSServerFactoryBean();
         factory.setBus(bus);
-        factory.setServiceClass(iClass);
-        factory.setResourceProvider(iClass, new SingletonResourceProvider(serviceBean));
+        factory.setResourceClasses(interfaces);
+        SingletonResourceProvider resourceProvider = new SingletonResourceProvider(serviceBean);
+        for (Class<?> iClass : interfaces) {
+            factory.setResourceProvider(iClass, resourceProvider);
+        }
         factory.setAddress(address);
+        Transports.configure(factory, address);
         addContextProperties(factory, sd, RsConstants.RS_CONTEXT_PROPS_PROP_KEY);
         String location = PropertyHelper.getProperty(sd, RsConstants.RS_WADL_LOCATION);
         setWadlLocation(callingContext, factory, location);
@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes entities in the available {@link BinaryFormat}s with Jackson.
+ * Streams, readers, byte arrays and files are left to the default providers.
+ */
+@Provider
+@Consumes({BinaryFormat.CBOR_TYPE, BinaryFormat.SMILE_TYPE})
+@Produces({BinaryFormat.CBOR_TYPE, BinaryFormat.SMILE_TYPE})
+public class BinaryBodyProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private final Map<BinaryFormat, ObjectMapper> mappers = new EnumMap<>(BinaryFormat.class);
+
+    public BinaryBodyProvider() {
+        for (BinaryFormat format : BinaryFormat.values()) {
+            if (format.isAvailable()) {
+                mappers.put(format, createMapper(format));
+            }
+        }
+    }
+
+    private static ObjectMapper createMapper(BinaryFormat format) {
+        JsonFactory factory;
+        try {
+            factory = (JsonFactory)Class.forName(format.getFactoryClass(), true, BinaryFormat.class.getClassLoader())
+                .getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create " + format.getFactoryClass(), e);
+        }
+        // the JAX-RS runtime owns the entity streams
+        factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        ObjectMapper mapper = new ObjectMapper(factory);
+        // older versions of the interface on the other side can send properties this side does not know
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        return mapper;
+    }
+
+    public boolean isSupported(BinaryFormat format) {
+        return mappers.containsKey(format);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return getMapper(mediaType) != null && isSupportedType(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+        throws IOException {
+        ObjectMapper mapper = getMapper(mediaType);
+        return mapper.readerFor(mapper.constructType(genericType == null ? type : genericType))
+            .readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return getMapper(mediaType) != null && isSupportedType(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException {
+        ObjectMapper mapper = getMapper(mediaType);
+        mapper.writerFor(mapper.constructType(genericType == null ? type : genericType))
+            .writeValue(entityStream, t);
+    }
+
+    private ObjectMapper getMapper(MediaType mediaType) {
+        BinaryFormat format = BinaryFormat.fromMediaType(mediaType);
+        return format == null ? null : mappers.get(format);
+    }
+
+    private static boolean isSupportedType(Class<?> type) {
+        return !(InputStream.class.isAssignableFrom(type)
+            || Reader.class.isAssignableFrom(type)
+            || StreamingOutput.class.isAssignableFrom(type)
+            || File.class.isAssignableFrom(type)
+            || type == byte[].class);
+    }
+}
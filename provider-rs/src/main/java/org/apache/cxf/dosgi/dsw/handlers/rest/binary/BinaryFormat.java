@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.binary;
+
+import java.util.Locale;
+
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Binary formats of the Jackson data model. The Jackson classes are only loaded if the format is available,
+ * so the rs provider works without them.
+ */
+public enum BinaryFormat {
+    CBOR(BinaryFormat.CBOR_TYPE, "com.fasterxml.jackson.dataformat.cbor.CBORFactory"),
+    SMILE(BinaryFormat.SMILE_TYPE, "com.fasterxml.jackson.dataformat.smile.SmileFactory");
+
+    public static final String CBOR_TYPE = "application/cbor";
+    public static final String SMILE_TYPE = "application/x-jackson-smile";
+    private static final String MAPPER_CLASS = "com.fasterxml.jackson.databind.ObjectMapper";
+
+    private final MediaType mediaType;
+    private final String factoryClass;
+
+    BinaryFormat(String mediaType, String factoryClass) {
+        this.mediaType = MediaType.valueOf(mediaType);
+        this.factoryClass = factoryClass;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    String getFactoryClass() {
+        return factoryClass;
+    }
+
+    /**
+     * @return true if jackson-databind and the data format module of this format can be loaded
+     */
+    public boolean isAvailable() {
+        try {
+            ClassLoader loader = BinaryFormat.class.getClassLoader();
+            Class.forName(MAPPER_CLASS, false, loader);
+            Class.forName(factoryClass, false, loader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the format with the given name like {@code cbor} or null if there is none
+     */
+    public static BinaryFormat fromName(String name) {
+        for (BinaryFormat format : values()) {
+            if (format.name().equals(name.trim().toUpperCase(Locale.ENGLISH))) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the format of the given media type or null if it is no binary format. Parameters are ignored
+     */
+    public static BinaryFormat fromMediaType(MediaType type) {
+        if (type == null) {
+            return null;
+        }
+        for (BinaryFormat format : values()) {
+            if (format.mediaType.getType().equalsIgnoreCase(type.getType())
+                && format.mediaType.getSubtype().equalsIgnoreCase(type.getSubtype())) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
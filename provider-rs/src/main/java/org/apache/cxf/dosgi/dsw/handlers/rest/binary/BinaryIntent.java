@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.binary;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Built in intent {@code binary} of the rs provider that transfers entities in a binary {@link BinaryFormat}
+ * instead of JSON or XML if both sides support it. Without Jackson the intent adds nothing, so endpoints
+ * keep the default formats.
+ */
+@Component //
+(//
+    name = "org.apache.cxf.dosgi.binary", //
+    property = "org.apache.cxf.dosgi.IntentName=binary" //
+)
+public class BinaryIntent implements Callable<List<Object>> {
+    public static final String KEY_FORMAT = "format";
+    private static final Logger LOG = LoggerFactory.getLogger(BinaryIntent.class);
+
+    private BinaryFormat format = BinaryFormat.CBOR;
+    private List<Object> providers;
+
+    @Activate
+    public void activate(Map<String, Object> config) {
+        String name = PropertyHelper.getProperty(config, KEY_FORMAT);
+        BinaryFormat configured = name == null ? BinaryFormat.CBOR : BinaryFormat.fromName(name);
+        if (configured == null) {
+            LOG.warn("Unknown binary format {}, using {}", name, BinaryFormat.CBOR);
+            configured = BinaryFormat.CBOR;
+        }
+        synchronized (this) {
+            format = configured;
+            providers = null;
+        }
+    }
+
+    @Override
+    public synchronized List<Object> call() {
+        if (providers == null) {
+            providers = createProviders(format);
+        }
+        return providers;
+    }
+
+    private static List<Object> createProviders(BinaryFormat format) {
+        if (!format.isAvailable()) {
+            LOG.warn("Binary format {} needs jackson-databind and the jackson data format module, "
+                + "endpoints use the default formats", format);
+            return Collections.emptyList();
+        }
+        BinaryBodyProvider provider = new BinaryBodyProvider();
+        return Arrays.<Object>asList(provider, new BinaryNegotiation(format, provider));
+    }
+}
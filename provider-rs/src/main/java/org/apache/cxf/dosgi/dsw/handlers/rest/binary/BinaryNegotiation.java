@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.binary;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Provider;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+
+/**
+ * Negotiates a {@link BinaryFormat} between clients and servers with the binary intent.
+ * <p>
+ * Clients prefer the binary format in the {@code Accept} header and keep the types of the method with a lower
+ * quality. Servers answer in the binary format if the client prefers it over the type the method produces, so
+ * servers without the intent answer in the type of the method. Once a server has answered in a binary format,
+ * the client also sends request bodies in this format if the method consumes it.
+ */
+@Provider
+public class BinaryNegotiation implements ClientRequestFilter, ClientResponseFilter, ContainerResponseFilter {
+    static final String FALLBACK_QUALITY = "0.9";
+    private static final String QUALITY = "q";
+
+    private final BinaryFormat format;
+    private final BinaryBodyProvider provider;
+    private final Map<String, BinaryFormat> serverFormats = new ConcurrentHashMap<>();
+
+    public BinaryNegotiation(BinaryFormat format, BinaryBodyProvider provider) {
+        this.format = format;
+        this.provider = provider;
+    }
+
+    @Override
+    public void filter(ClientRequestContext request) {
+        List<MediaType> accepted = new ArrayList<>(request.getAcceptableMediaTypes());
+        if (getBinaryFormat(accepted) != null) {
+            return;
+        }
+        StringBuilder accept = new StringBuilder(format.getMediaType().toString());
+        if (accepted.isEmpty()) {
+            accepted.add(MediaType.WILDCARD_TYPE);
+        }
+        for (MediaType type : accepted) {
+            accept.append(", ").append(withFallbackQuality(type));
+        }
+        request.getHeaders().putSingle(HttpHeaders.ACCEPT, accept.toString());
+
+        Message message = PhaseInterceptorChain.getCurrentMessage();
+        BinaryFormat serverFormat = serverFormats.get(getAddress(message));
+        if (serverFormat != null && request.hasEntity()
+            && BinaryFormat.fromMediaType(getContentType(request)) == null
+            && consumes(getMethod(message), serverFormat)) {
+            request.setEntity(request.getEntity(), request.getEntityAnnotations(), serverFormat.getMediaType());
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext request, ClientResponseContext response) {
+        BinaryFormat responseFormat = BinaryFormat.fromMediaType(response.getMediaType());
+        if (responseFormat != null) {
+            serverFormats.put(getAddress(PhaseInterceptorChain.getCurrentMessage()), responseFormat);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        MediaType produced = response.getMediaType();
+        if (!response.hasEntity() || !isDataFormat(produced)) {
+            return;
+        }
+        BinaryFormat requested = getPreferredFormat(request.getAcceptableMediaTypes(), produced);
+        if (requested != null && provider.isWriteable(response.getEntityClass(), response.getEntityType(),
+                                                      response.getEntityAnnotations(), requested.getMediaType())) {
+            response.setEntity(response.getEntity(), response.getEntityAnnotations(), requested.getMediaType());
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
+
+    /**
+     * @param accepted the accepted types ordered by preference
+     * @return the supported binary format the client prefers over the produced type or null
+     */
+    private BinaryFormat getPreferredFormat(List<MediaType> accepted, MediaType produced) {
+        for (MediaType type : accepted) {
+            BinaryFormat binary = BinaryFormat.fromMediaType(type);
+            if (binary != null && provider.isSupported(binary) && !"0".equals(type.getParameters().get(QUALITY))) {
+                return binary;
+            }
+            if (produced == null || type.isCompatible(produced)) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static BinaryFormat getBinaryFormat(List<MediaType> types) {
+        for (MediaType type : types) {
+            BinaryFormat binary = BinaryFormat.fromMediaType(type);
+            if (binary != null) {
+                return binary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Only entities of structured data formats are converted. Text, binary and multipart entities keep their
+     * media type.
+     */
+    private static boolean isDataFormat(MediaType type) {
+        if (type == null || type.isWildcardType()) {
+            return true;
+        }
+        String subtype = type.getSubtype().toLowerCase(Locale.ENGLISH);
+        return "application".equalsIgnoreCase(type.getType())
+            && ("json".equals(subtype) || "xml".equals(subtype)
+                || subtype.endsWith("+json") || subtype.endsWith("+xml"));
+    }
+
+    private static MediaType withFallbackQuality(MediaType type) {
+        if (type.getParameters().containsKey(QUALITY)) {
+            return type;
+        }
+        Map<String, String> parameters = new HashMap<>(type.getParameters());
+        parameters.put(QUALITY, FALLBACK_QUALITY);
+        return new MediaType(type.getType(), type.getSubtype(), parameters);
+    }
+
+    static boolean consumes(Method method, BinaryFormat binary) {
+        if (method == null) {
+            return false;
+        }
+        Consumes consumes = method.getAnnotation(Consumes.class);
+        if (consumes == null) {
+            consumes = method.getDeclaringClass().getAnnotation(Consumes.class);
+        }
+        if (consumes == null) {
+            return true;
+        }
+        for (String value : consumes.value()) {
+            for (String type : value.split(",")) {
+                if (MediaType.valueOf(type.trim()).isCompatible(binary.getMediaType())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The content type is only set before the filters if the method declares it.
+     */
+    private static MediaType getContentType(ClientRequestContext request) {
+        Object type = request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        return type == null ? null : MediaType.valueOf(type.toString());
+    }
+
+    private static Method getMethod(Message message) {
+        Exchange exchange = message == null ? null : message.getExchange();
+        return exchange == null ? null : exchange.get(Method.class);
+    }
+
+    private static String getAddress(Message message) {
+        Exchange exchange = message == null ? null : message.getExchange();
+        Endpoint endpoint = exchange == null ? null : exchange.getEndpoint();
+        String address = endpoint == null ? null : endpoint.getEndpointInfo().getAddress();
+        return address == null ? "" : address;
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Transfers {@link ByteBuffer} and {@link ReadableByteChannel} entities as {@code application/octet-stream}.
+ * Buffers are written without copying and read into a buffer of the announced content length. Channels are
+ * copied to the connection while they are read and on the receiving side read directly from the connection,
+ * so their content is never held in memory.
+ */
+@Provider
+public class ByteChannelProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private static final int BUFFER_SIZE = 65536;
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return ByteBuffer.class.isAssignableFrom(type) || ReadableByteChannel.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return t instanceof ByteBuffer ? ((ByteBuffer)t).remaining() : -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException {
+        if (mediaType == null || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+            httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM);
+        }
+        if (t instanceof ByteBuffer) {
+            write((ByteBuffer)t, entityStream);
+            return;
+        }
+        try (ReadableByteChannel channel = (ReadableByteChannel)t) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (channel.read(buffer) != -1) {
+                entityStream.write(bytes, 0, buffer.position());
+                buffer.clear();
+            }
+        }
+    }
+
+    private static void write(ByteBuffer buffer, OutputStream entityStream) throws IOException {
+        // the caller keeps the position of its buffer
+        ByteBuffer content = buffer.duplicate();
+        if (content.hasArray()) {
+            entityStream.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            return;
+        }
+        WritableByteChannel channel = Channels.newChannel(entityStream);
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return ByteBuffer.class.equals(type) || ReadableByteChannel.class.equals(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+        throws IOException {
+        if (ReadableByteChannel.class.equals(type)) {
+            return new StreamChannel(entityStream);
+        }
+        String length = httpHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+        return length == null ? readChunked(entityStream) : readFully(entityStream, Long.parseLong(length));
+    }
+
+    private static ByteBuffer readFully(InputStream in, long contentLength) throws IOException {
+        if (contentLength > Integer.MAX_VALUE) {
+            throw new IOException("Entity of " + contentLength + " bytes is too large for a ByteBuffer");
+        }
+        int length = (int)contentLength;
+        byte[] content = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(content, offset, length - offset);
+            if (read == -1) {
+                throw new EOFException("Entity ended after " + offset + " of " + length + " bytes");
+            }
+            offset += read;
+        }
+        return ByteBuffer.wrap(content);
+    }
+
+    /**
+     * Without a content length the buffer grows by doubling, which copies the content a few times.
+     */
+    private static ByteBuffer readChunked(InputStream in) throws IOException {
+        byte[] content = new byte[BUFFER_SIZE];
+        int length = 0;
+        int read;
+        while ((read = in.read(content, length, content.length - length)) != -1) {
+            length += read;
+            if (length == content.length) {
+                content = Arrays.copyOf(content, 2 * content.length);
+            }
+        }
+        return ByteBuffer.wrap(content, 0, length);
+    }
+
+    /**
+     * Reads once per call. The channel of {@link Channels#newChannel(InputStream)} reads while
+     * {@link InputStream#available()} is positive, which makes the chunked stream of the JDK HTTP client read
+     * ahead without bounds.
+     */
+    private static final class StreamChannel implements ReadableByteChannel {
+        private final InputStream in;
+        private final byte[] bytes = new byte[BUFFER_SIZE];
+        private boolean open = true;
+
+        StreamChannel(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            int read = in.read(bytes, 0, Math.min(bytes.length, dst.remaining()));
+            if (read > 0) {
+                dst.put(bytes, 0, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            open = false;
+            in.close();
+        }
+    }
+}
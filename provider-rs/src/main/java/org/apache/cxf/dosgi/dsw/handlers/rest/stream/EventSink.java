@@ -0,0 +1,153 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.apache.cxf.dosgi.common.api.EventSubscriber;
+import org.apache.cxf.dosgi.common.api.EventSubscription;
+
+/**
+ * Subscriber on the server side that writes the events of a publisher to the connection of one client.
+ * <p>
+ * It requests as many events as its buffer holds and one more for each event written, so a publisher that
+ * respects the demand never fills the buffer. A publisher that sends more events than requested while the client
+ * is slow overflows the buffer. The subscription is then cancelled and the client receives an error, so a slow
+ * client never makes the server buffer without bounds.
+ */
+final class EventSink implements EventSubscriber<Object> {
+    static final String COMPLETE_EVENT = "complete";
+    static final String ERROR_EVENT = "error";
+    private static final long HEARTBEAT_SECONDS = 15;
+    private static final Object END = new Object();
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectWriter writer;
+    private final int bufferSize;
+    private final BlockingQueue<Object> events;
+    private volatile EventSubscription subscription;
+    private volatile Throwable error;
+    private volatile boolean overflow;
+
+    EventSink(ObjectWriter writer, int bufferSize) {
+        this.writer = writer;
+        this.bufferSize = bufferSize;
+        // one more slot for the end of the stream
+        this.events = new ArrayBlockingQueue<>(bufferSize + 1);
+    }
+
+    @Override
+    public void onSubscribe(EventSubscription newSubscription) {
+        subscription = newSubscription;
+        newSubscription.request(bufferSize);
+    }
+
+    @Override
+    public void onEvent(Object event) {
+        if (overflow) {
+            return;
+        }
+        if (events.size() >= bufferSize) {
+            overflow = true;
+            cancel();
+            events.offer(END);
+            return;
+        }
+        events.offer(event);
+    }
+
+    @Override
+    public void onError(Throwable newError) {
+        error = newError;
+        events.offer(END);
+    }
+
+    @Override
+    public void onComplete() {
+        events.offer(END);
+    }
+
+    /**
+     * Writes the events until the publisher completes. A comment is sent while no events arrive, so the
+     * connection does not time out and a closed connection is noticed.
+     */
+    void drain(OutputStream out) throws IOException {
+        try {
+            while (true) {
+                Object event = events.poll(HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+                if (event == null) {
+                    out.write(HEARTBEAT);
+                    out.flush();
+                } else if (event == END) {
+                    writeEnd(out);
+                    return;
+                } else {
+                    out.write(DATA);
+                    writer.writeValue(out, event);
+                    out.write('\n');
+                    out.write('\n');
+                    if (events.isEmpty()) {
+                        out.flush();
+                    }
+                    subscription.request(1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel();
+            throw new InterruptedIOException();
+        } catch (IOException | RuntimeException e) {
+            cancel();
+            throw e;
+        }
+    }
+
+    private void writeEnd(OutputStream out) throws IOException {
+        if (overflow) {
+            writeEvent(out, ERROR_EVENT, "More than " + bufferSize + " events were not yet sent to the client");
+        } else if (error != null) {
+            writeEvent(out, ERROR_EVENT, String.valueOf(error));
+        } else {
+            writeEvent(out, COMPLETE_EVENT, "");
+        }
+        out.flush();
+    }
+
+    static void writeEvent(OutputStream out, String name, String data) throws IOException {
+        // a line break would end the data field
+        String event = "event: " + name + "\ndata: " + data.replace('\r', ' ').replace('\n', ' ') + "\n\n";
+        out.write(event.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void cancel() {
+        EventSubscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
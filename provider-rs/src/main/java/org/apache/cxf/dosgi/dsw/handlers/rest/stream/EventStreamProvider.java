@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.apache.cxf.dosgi.common.api.EventPublisher;
+
+/**
+ * Transfers the events of {@link EventPublisher} results as server-sent events. The server subscribes to the
+ * publisher of the service and writes its events as JSON while they arrive. The client returns a publisher that
+ * reads the events from the open connection as far as its subscriber requested them, so a slow subscriber slows
+ * down the server by TCP flow control.
+ * <p>
+ * Each stream holds a thread of the HTTP server while it is open, so the number of streams written at the same time
+ * is limited. Further calls get an error event instead of the events of the publisher.
+ */
+@Provider
+public class EventStreamProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private final ObjectMapper mapper;
+    private final int bufferSize;
+    private final int maxStreams;
+    private final Semaphore streams;
+    private final Executor readers;
+
+    /**
+     * @param bufferSize maximum number of events the server buffers for a subscriber
+     * @param maxStreams maximum number of streams written at the same time
+     * @param readers runs the readers of the streams received by clients
+     */
+    public EventStreamProvider(int bufferSize, int maxStreams, Executor readers) {
+        this.bufferSize = bufferSize;
+        this.readers = readers;
+        this.maxStreams = maxStreams;
+        this.streams = new Semaphore(maxStreams);
+        mapper = new ObjectMapper();
+        // the JAX-RS runtime owns the entity streams
+        mapper.getFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return EventPublisher.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException {
+        httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE, StreamingSupport.EVENT_STREAM_TYPE);
+        httpHeaders.putSingle(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (!streams.tryAcquire()) {
+            EventSink.writeEvent(entityStream, EventSink.ERROR_EVENT,
+                                 "The endpoint already serves " + maxStreams + " event streams");
+            entityStream.flush();
+            return;
+        }
+        try {
+            // the sink flushes once no further events are buffered
+            EventSink sink = new EventSink(mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE),
+                                           bufferSize);
+            ((EventPublisher<Object>)t).subscribe(sink);
+            sink.drain(entityStream);
+        } finally {
+            streams.release();
+        }
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return EventPublisher.class.equals(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) {
+        return new RemotePublisher(mapper.readerFor(mapper.constructType(
+            StreamingSupport.getElementType(genericType))), entityStream, readers);
+    }
+}
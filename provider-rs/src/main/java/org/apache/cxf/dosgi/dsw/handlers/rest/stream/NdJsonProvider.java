@@ -0,0 +1,176 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Writes {@link Stream} and {@link Iterator} results as newline delimited JSON and reads them back
+ * lazily. The returned stream or iterator holds the connection until it is exhausted or closed.
+ */
+@Provider
+public class NdJsonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+    private final ObjectMapper mapper;
+
+    public NdJsonProvider() {
+        mapper = new ObjectMapper();
+        // the JAX-RS runtime owns the entity streams
+        mapper.getFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return StreamingSupport.isStreamType(type);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException {
+        httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE, StreamingSupport.NDJSON_TYPE);
+        Iterator<?> elements = t instanceof Stream ? ((Stream<?>)t).iterator() : (Iterator<?>)t;
+        ObjectWriter writer = mapper.writer();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(entityStream)) {
+            // each element ends with a newline instead of being separated by a space
+            generator.setRootValueSeparator(null);
+            while (elements.hasNext()) {
+                writer.writeValue(generator, elements.next());
+                generator.writeRaw('\n');
+            }
+        } finally {
+            if (t instanceof AutoCloseable) {
+                close((AutoCloseable)t);
+            }
+        }
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Stream.class || type == Iterator.class;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+        throws IOException {
+        MappingIterator<Object> values = mapper.readerFor(mapper.constructType(
+            StreamingSupport.getElementType(genericType))).readValues(entityStream);
+        final ElementIterator elements = new ElementIterator(values, entityStream);
+        if (Iterator.class.equals(type)) {
+            return elements;
+        }
+        Stream<Object> stream = StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements,
+                                                                                         Spliterator.ORDERED),
+                                                     false);
+        return stream.onClose(new Runnable() {
+            @Override
+            public void run() {
+                elements.close();
+            }
+        });
+    }
+
+    private static void close(AutoCloseable closeable) throws IOException {
+        try {
+            closeable.close();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Parses the next element when it is requested and releases the connection after the last one.
+     */
+    static final class ElementIterator implements Iterator<Object>, AutoCloseable {
+        private final MappingIterator<Object> values;
+        private final InputStream entityStream;
+        private boolean closed;
+
+        ElementIterator(MappingIterator<Object> values, InputStream entityStream) {
+            this.values = values;
+            this.entityStream = entityStream;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            if (values.hasNext()) {
+                return true;
+            }
+            close();
+            return false;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return values.next();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    values.close();
+                    entityStream.close();
+                } catch (IOException e) {
+                    // the elements have been read
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.apache.cxf.dosgi.common.api.EventPublisher;
+import org.apache.cxf.dosgi.common.api.EventSubscriber;
+import org.apache.cxf.dosgi.common.api.EventSubscription;
+import org.osgi.framework.ServiceException;
+
+/**
+ * Publisher on the client side that reads server-sent events from an open connection. A reader thread parses
+ * the next event only while the subscriber has outstanding demand. Cancelling the subscription closes the
+ * connection.
+ */
+final class RemotePublisher implements EventPublisher<Object> {
+    private final ObjectReader reader;
+    private final InputStream entityStream;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    RemotePublisher(ObjectReader reader, InputStream entityStream, Executor executor) {
+        this.reader = reader;
+        this.entityStream = entityStream;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(EventSubscriber<? super Object> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription(null));
+            subscriber.onError(new IllegalStateException("The events of a remote call have only one subscriber"));
+            return;
+        }
+        final Subscription subscription = new Subscription(entityStream);
+        subscriber.onSubscribe(subscription);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                subscription.deliver(subscriber, reader);
+            }
+        });
+    }
+
+    private static final class Subscription implements EventSubscription {
+        private final InputStream entityStream;
+        private long demand;
+        private boolean cancelled;
+
+        Subscription(InputStream entityStream) {
+            this.entityStream = entityStream;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                return;
+            }
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            notifyAll();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                notifyAll();
+            }
+            close();
+        }
+
+        /**
+         * @return false once the subscription is cancelled
+         */
+        private synchronized boolean awaitDemand() throws InterruptedException {
+            while (demand == 0 && !cancelled) {
+                wait();
+            }
+            if (!cancelled && demand != Long.MAX_VALUE) {
+                demand--;
+            }
+            return !cancelled;
+        }
+
+        private synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        void deliver(EventSubscriber<? super Object> subscriber, ObjectReader reader) {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(entityStream,
+                                                                                 StandardCharsets.UTF_8))) {
+                while (awaitDemand()) {
+                    Event event = Event.read(lines);
+                    if (event == null) {
+                        throw new ServiceException("The event stream ended unexpectedly", ServiceException.REMOTE);
+                    }
+                    if (EventSink.COMPLETE_EVENT.equals(event.name)) {
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (EventSink.ERROR_EVENT.equals(event.name)) {
+                        subscriber.onError(new ServiceException(event.data, ServiceException.REMOTE));
+                        return;
+                    }
+                    subscriber.onEvent(reader.readValue(event.data));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                if (!isCancelled()) {
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void close() {
+            if (entityStream == null) {
+                return;
+            }
+            try {
+                entityStream.close();
+            } catch (IOException e) {
+                // the connection is discarded anyway
+            }
+        }
+    }
+
+    private static final class Event {
+        private String name;
+        private String data;
+
+        /**
+         * @return the next event or null at the end of the stream. Comments and unknown fields are skipped
+         */
+        static Event read(BufferedReader lines) throws IOException {
+            Event event = new Event();
+            StringBuilder data = null;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data != null) {
+                        event.data = data.toString();
+                        return event;
+                    }
+                    event.name = null;
+                } else if (line.startsWith("data:")) {
+                    data = data == null ? new StringBuilder() : data.append('\n');
+                    data.append(value(line, 5));
+                } else if (line.startsWith("event:")) {
+                    event.name = value(line, 6);
+                }
+            }
+            return null;
+        }
+
+        private static String value(String line, int start) {
+            return line.startsWith(" ", start) ? line.substring(start + 1) : line.substring(start);
+        }
+    }
+}
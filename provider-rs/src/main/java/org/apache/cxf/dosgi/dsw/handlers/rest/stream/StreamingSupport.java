@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.stream;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Results of type {@link Stream} or {@link Iterator} are transferred as newline delimited JSON
+ * ({@value #NDJSON_TYPE}). The server writes the elements while the service produces them and
+ * the client parses them while the caller consumes them, so large results need constant memory
+ * on both sides. Needs Jackson; without it streams can not be transferred.
+ * <p>
+ * {@link java.nio.ByteBuffer} and {@link java.nio.channels.ReadableByteChannel} entities are transferred as
+ * {@code application/octet-stream} like the {@link java.io.InputStream} entities JAX-RS supports itself.
+ * <p>
+ * Results of type {@link org.apache.cxf.dosgi.common.api.EventPublisher} are pushed to the client as server-sent
+ * events ({@value #EVENT_STREAM_TYPE}) over the connection of the call. They also need Jackson.
+ */
+public final class StreamingSupport {
+    public static final String NDJSON_TYPE = "application/x-ndjson";
+    public static final String EVENT_STREAM_TYPE = "text/event-stream";
+    private static final String MAPPER_CLASS = "com.fasterxml.jackson.databind.ObjectMapper";
+    private static final Logger LOG = LoggerFactory.getLogger(StreamingSupport.class);
+
+    private StreamingSupport() {
+    }
+
+    public static boolean isAvailable() {
+        try {
+            Class.forName(MAPPER_CLASS, false, StreamingSupport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param eventBufferSize maximum number of events the server buffers for a subscriber
+     * @param maxEventStreams maximum number of event streams the server writes at the same time
+     * @param eventReaders runs the readers of the event streams received by clients
+     * @return the providers that transfer streamed entities. Streamed results and events are left out if Jackson
+     *         is not available
+     */
+    public static List<Object> createProviders(int eventBufferSize, int maxEventStreams, Executor eventReaders) {
+        List<Object> providers = new ArrayList<>();
+        providers.add(new ByteChannelProvider());
+        if (isAvailable()) {
+            providers.add(new NdJsonProvider());
+            providers.add(new EventStreamProvider(eventBufferSize, maxEventStreams, eventReaders));
+        } else {
+            LOG.debug("Streamed results and events need jackson-databind");
+        }
+        return providers;
+    }
+
+    /**
+     * @return the type argument of a stream, iterator or publisher type or Object if it has none
+     */
+    static Type getElementType(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType)genericType).getActualTypeArguments();
+            if (arguments.length == 1 && !(arguments[0] instanceof WildcardType)) {
+                return arguments[0];
+            }
+        }
+        return Object.class;
+    }
+
+    static boolean isStreamType(Class<?> type) {
+        return Stream.class.isAssignableFrom(type) || Iterator.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Locale;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.cxf.dosgi.dsw.handlers.rest.binary.BinaryBodyProvider;
+import org.apache.cxf.dosgi.dsw.handlers.rest.binary.BinaryFormat;
+import org.apache.cxf.jaxrs.provider.JAXBElementProvider;
+
+/**
+ * Compares the serialization throughput and message size of the default JAXB provider, Jackson JSON and the
+ * formats of the binary intent. Run with {@code main}, the optional argument is the number of measured
+ * round trips per format.
+ */
+public final class BinaryFormatBenchmark {
+    private static final int WARMUP_ROUNDS = 20000;
+    private static final int TASKS = 50;
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private BinaryFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        Task[] tasks = new Task[TASKS];
+        for (int i = 0; i < TASKS; i++) {
+            tasks[i] = new Task("Task " + i + " of the benchmark");
+        }
+        BinaryBodyProvider binary = new BinaryBodyProvider();
+        System.out.printf("%-6s %12s %12s %8s%n", "", "writes/s", "reads/s", "bytes");
+        run("xml", new ProviderCodec(new JAXBElementProvider<Object>(), MediaType.APPLICATION_XML_TYPE),
+            tasks, rounds);
+        run("json", new JsonCodec(), tasks, rounds);
+        for (BinaryFormat format : BinaryFormat.values()) {
+            if (binary.isSupported(format)) {
+                String name = format.name().toLowerCase(Locale.ENGLISH);
+                run(name, new ProviderCodec(binary, format.getMediaType()), tasks, rounds);
+            }
+        }
+    }
+
+    private static void run(String name, Codec codec, Task[] tasks, int rounds) throws IOException {
+        byte[] message = codec.write(tasks);
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            codec.read(codec.write(tasks));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            codec.write(tasks);
+        }
+        double writeSeconds = (System.nanoTime() - start) / 1e9;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            codec.read(message);
+        }
+        double readSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-6s %12.0f %12.0f %8d%n", name, rounds / writeSeconds, rounds / readSeconds,
+                          message.length);
+    }
+
+    private abstract static class Codec {
+        abstract byte[] write(Task[] tasks) throws IOException;
+
+        abstract Task[] read(byte[] message) throws IOException;
+    }
+
+    private static final class ProviderCodec extends Codec {
+        private final MessageBodyWriter<Object> writer;
+        private final MessageBodyReader<Object> reader;
+        private final MediaType mediaType;
+
+        <T extends MessageBodyReader<Object> & MessageBodyWriter<Object>> ProviderCodec(T provider,
+                                                                                         MediaType mediaType) {
+            this.writer = provider;
+            this.reader = provider;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        byte[] write(Task[] tasks) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.writeTo(tasks, Task[].class, Task[].class, NO_ANNOTATIONS, mediaType,
+                           new MultivaluedHashMap<String, Object>(), out);
+            return out.toByteArray();
+        }
+
+        @Override
+        Task[] read(byte[] message) throws IOException {
+            InputStream in = new ByteArrayInputStream(message);
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            Class<Object> type = (Class)Task[].class;
+            return (Task[])reader.readFrom(type, Task[].class, NO_ANNOTATIONS, mediaType,
+                                           new MultivaluedHashMap<String, String>(), in);
+        }
+    }
+
+    private static final class JsonCodec extends Codec {
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        @Override
+        byte[] write(Task[] tasks) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            mapper.writeValue((OutputStream)out, tasks);
+            return out.toByteArray();
+        }
+
+        @Override
+        Task[] read(byte[] message) throws IOException {
+            return mapper.readValue(message, Task[].class);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.QueryParam;
+
+@Path("/files")
+public interface FileService {
+    @GET
+    @Path("/stream")
+    InputStream download(@QueryParam("size") long size);
+
+    @POST
+    @Path("/stream")
+    long upload(InputStream content);
+
+    @GET
+    @Path("/channel")
+    ReadableByteChannel open(@QueryParam("size") long size);
+
+    @POST
+    @Path("/channel")
+    long write(ReadableByteChannel content);
+
+    @POST
+    @Path("/buffer")
+    ByteBuffer reverse(ByteBuffer content);
+}
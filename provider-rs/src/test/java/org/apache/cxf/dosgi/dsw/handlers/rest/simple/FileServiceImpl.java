@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Generates and checks content while it is transferred, so any size can be sent without holding it in memory.
+ */
+public class FileServiceImpl implements FileService {
+
+    @Override
+    public InputStream download(long size) {
+        return generate(size);
+    }
+
+    @Override
+    public long upload(InputStream content) {
+        try {
+            return verify(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ReadableByteChannel open(long size) {
+        return Channels.newChannel(generate(size));
+    }
+
+    @Override
+    public long write(ReadableByteChannel content) {
+        return upload(Channels.newInputStream(content));
+    }
+
+    @Override
+    public ByteBuffer reverse(ByteBuffer content) {
+        ByteBuffer reversed = ByteBuffer.allocate(content.remaining());
+        for (int i = content.limit() - 1; i >= content.position(); i--) {
+            reversed.put(content.get(i));
+        }
+        reversed.flip();
+        return reversed;
+    }
+
+    public static InputStream generate(final long size) {
+        return new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                return position < size ? (int)(position++ & 0xff) : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (position >= size) {
+                    return -1;
+                }
+                int count = (int)Math.min(len, size - position);
+                for (int i = 0; i < count; i++) {
+                    b[off + i] = (byte)position++;
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * @return the number of bytes read or -1 if the content is not the generated one
+     */
+    public static long verify(InputStream in) throws IOException {
+        byte[] buffer = new byte[65536];
+        long count = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] != (byte)(count + i)) {
+                    return -1;
+                }
+            }
+            count += read;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.Http2Intent;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * Compares the throughput and the number of TCP connections of concurrent calls over HTTP/1.1 and
+ * with the {@code http2} intent. Run with {@code main}, the optional arguments are the number of
+ * concurrent callers and the duration of each run in seconds. Connections are counted on Linux only.
+ * Both runs use the undertow engine, the only one that serves HTTP/2 without TLS.
+ */
+public final class Http2Benchmark {
+    private static final Path[] TCP_TABLES = {Paths.get("/proc/net/tcp"), Paths.get("/proc/net/tcp6")};
+    private static final String ESTABLISHED = "01";
+
+    private Http2Benchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int callers = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        IntentManagerImpl intentManager = new IntentManagerImpl();
+        intentManager.addIntent(new Http2Intent(), "http2");
+        rsProvider.setIntentManager(intentManager);
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+
+        System.out.printf("%d concurrent callers%n", callers);
+        System.out.printf("%-9s %10s %12s%n", "", "calls/s", "connections");
+        run(rsProvider, context, "http/1.1", 9197, null, callers, seconds);
+        run(rsProvider, context, "http2", 9198, "http2", callers, seconds);
+    }
+
+    private static void run(RsProvider rsProvider, BundleContext context, String name, int port, String intent,
+                            int callers, int seconds) throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, "http://localhost:" + port + "/");
+        props.put(LocalEndpoints.LOCAL, false);
+        props.put(HttpEngines.ENGINE, "undertow");
+        if (intent != null) {
+            props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, intent);
+        }
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), context, props, ifaces)) {
+            final TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                             context, ifaces,
+                                                                             endpoint.description());
+            proxy.getTask();
+            final AtomicLong calls = new AtomicLong();
+            final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            ExecutorService executor = Executors.newFixedThreadPool(callers);
+            for (int i = 0; i < callers; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        while (System.nanoTime() < end) {
+                            proxy.getTask();
+                            calls.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            int maxConnections = -1;
+            while (System.nanoTime() < end) {
+                Thread.sleep(200);
+                maxConnections = Math.max(maxConnections, countConnections(port));
+            }
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            System.out.printf("%-9s %10d %12s%n", name, calls.get() / seconds,
+                              maxConnections < 0 ? "n/a" : String.valueOf(maxConnections));
+        }
+    }
+
+    /**
+     * Counts the established client connections to the port, or returns -1 if the TCP tables are not available.
+     */
+    private static int countConnections(int port) {
+        String remotePort = String.format(":%04X", port);
+        int count = 0;
+        for (Path table : TCP_TABLES) {
+            if (!Files.isReadable(table)) {
+                return -1;
+            }
+            try {
+                for (String line : Files.readAllLines(table, StandardCharsets.US_ASCII)) {
+                    String[] fields = line.trim().split("\\s+");
+                    if (fields.length > 3 && fields[2].endsWith(remotePort) && ESTABLISHED.equals(fields[3])) {
+                        count++;
+                    }
+                }
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+/**
+ * Transfers payloads much larger than the heap through an exported endpoint, e.g. with {@code -Xmx64m}.
+ * Run with {@code main}, the optional argument is the payload size in MB, defaults to 4096.
+ */
+public final class LargePayloadBenchmark {
+    private static final long MB = 1024 * 1024;
+
+    private LargePayloadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 4096) * MB;
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{FileService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, "http://localhost:9212/");
+        Class<?>[] ifaces = new Class[]{FileService.class};
+        System.out.printf("max heap %d MB, payload %d MB%n", Runtime.getRuntime().maxMemory() / MB, size / MB);
+        try (Endpoint endpoint = rsProvider.exportService(new FileServiceImpl(), context, props, ifaces)) {
+            FileService proxy = (FileService)rsProvider.importEndpoint(FileService.class.getClassLoader(),
+                                                                       context, ifaces, endpoint.description());
+            long start = System.nanoTime();
+            try (InputStream content = proxy.download(size)) {
+                report("download", FileServiceImpl.verify(content), size, start);
+            }
+            start = System.nanoTime();
+            report("upload", proxy.upload(FileServiceImpl.generate(size)), size, start);
+            start = System.nanoTime();
+            try (ReadableByteChannel channel = proxy.open(size)) {
+                report("open", FileServiceImpl.verify(Channels.newInputStream(channel)), size, start);
+            }
+            start = System.nanoTime();
+            report("write", proxy.write(Channels.newChannel(FileServiceImpl.generate(size))), size, start);
+        }
+    }
+
+    private static void report(String method, long transferred, long size, long start) {
+        if (transferred != size) {
+            throw new IllegalStateException(method + " transferred " + transferred + " of " + size + " bytes");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-8s %10.1f MB/s%n", method, size / MB / seconds);
+    }
+}
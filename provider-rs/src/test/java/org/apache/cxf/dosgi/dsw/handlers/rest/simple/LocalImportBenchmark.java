@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * Compares the latency of an endpoint imported in the framework that exports it with and without
+ * direct calls. Run with {@code main}, the optional argument is the number of measured calls.
+ */
+public final class LocalImportBenchmark {
+    private static final int WARMUP_CALLS = 2000;
+
+    private LocalImportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(context.getProperty(Constants.FRAMEWORK_UUID)).andReturn("uuid").anyTimes();
+        EasyMock.replay(context);
+
+        run(rsProvider, context, "http://localhost:9183/", false, calls);
+        run(rsProvider, context, "http://localhost:9184/", true, calls);
+    }
+
+    private static void run(RsProvider rsProvider, BundleContext context, String address,
+                            boolean local, int calls) throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, "uuid");
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, address);
+        props.put(LocalEndpoints.LOCAL, local);
+        // Task is not Serializable
+        props.put(LocalEndpoints.LOCAL_COPY, false);
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), context, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       context, ifaces, endpoint.description());
+            for (int i = 0; i < WARMUP_CALLS; i++) {
+                proxy.getTask();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                proxy.getTask();
+            }
+            double micros = (System.nanoTime() - start) / 1000.0 / calls;
+            System.out.printf("%-6s %10.2f us/call%n", local ? "local" : "http", micros);
+        }
+    }
+}
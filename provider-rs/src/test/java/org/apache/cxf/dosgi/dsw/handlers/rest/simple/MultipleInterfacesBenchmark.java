@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
+
+/**
+ * Compares the export time and the heap used by services with two interfaces exported as one endpoint
+ * per interface and as one endpoint with both interfaces. Run with {@code main}, the optional argument
+ * is the number of services.
+ */
+public final class MultipleInterfacesBenchmark {
+    private static final Class<?>[] TASK = new Class[] {TaskService.class};
+    private static final Class<?>[] NOTIFICATION = new Class[] {TaskNotificationService.class};
+    private static final Class<?>[] BOTH = new Class[] {TaskService.class, TaskNotificationService.class};
+
+    private MultipleInterfacesBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int services = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(context.getProperty(Constants.FRAMEWORK_UUID)).andReturn("uuid").anyTimes();
+        EasyMock.replay(context);
+
+        // warm up class loading and JIT
+        run(rsProvider, context, "warmup", false, services);
+        run(rsProvider, context, "separate", false, services);
+        run(rsProvider, context, "combined", true, services);
+    }
+
+    private static void run(RsProvider rsProvider, BundleContext context, String name,
+                            boolean combined, int services) throws Exception {
+        List<Endpoint> endpoints = new ArrayList<>();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < services; i++) {
+                String address = "http://localhost:9220/" + name + "/" + i;
+                Object service = new TaskAndNotificationService();
+                if (combined) {
+                    endpoints.add(export(rsProvider, context, service, address, BOTH));
+                } else {
+                    endpoints.add(export(rsProvider, context, service, address + "/task", TASK));
+                    endpoints.add(export(rsProvider, context, service, address + "/notification", NOTIFICATION));
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1000000.0 / services;
+            long heap = usedHeap() - heapBefore;
+            System.out.printf("%-8s %3d endpoints %8.2f ms/service %8d KB/service%n",
+                              name, endpoints.size(), millis, heap / 1024 / services);
+        } finally {
+            for (Endpoint endpoint : endpoints) {
+                endpoint.close();
+            }
+        }
+    }
+
+    private static Endpoint export(RsProvider rsProvider, BundleContext context, Object service,
+                                   String address, Class<?>[] ifaces) {
+        Map<String, Object> props = new HashMap<>();
+        String[] names = new String[ifaces.length];
+        for (int i = 0; i < ifaces.length; i++) {
+            names[i] = ifaces[i].getName();
+        }
+        props.put(Constants.OBJECTCLASS, names);
+        props.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, "uuid");
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, address);
+        return rsProvider.exportService(service, context, props, ifaces);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static final class TaskAndNotificationService implements TaskService, TaskNotificationService {
+        @Override
+        public Task getTask() {
+            return new Task("task");
+        }
+
+        @Override
+        public void publish(Task task) {
+        }
+
+        @Override
+        public int received() {
+            return 0;
+        }
+    }
+}
@@ -19,22 +19,58 @@
 package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.api.EventPublisher;
+import org.apache.cxf.dosgi.common.api.EventSubscriber;
+import org.apache.cxf.dosgi.common.api.EventSubscription;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
 import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.AsyncHttpIntent;
+import org.apache.cxf.dosgi.common.intent.impl.Http2Intent;
 import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.dosgi.common.transport.Http2Transport;
 import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
 import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.apache.cxf.dosgi.dsw.handlers.rest.binary.BinaryFormat;
+import org.apache.cxf.dosgi.dsw.handlers.rest.binary.BinaryIntent;
+import org.apache.cxf.dosgi.dsw.handlers.rest.stream.StreamingSupport;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.easymock.EasyMock;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceException;
+import org.osgi.service.remoteserviceadmin.RemoteConstants;
 
 public class RsProviderTest {
 
@@ -72,4 +108,465 @@ public class RsProviderTest {
         }
     }
 
+    @Test
+    public void testLocalImport() throws IOException {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        TaskService taskService = new TaskService() {
+            private final Task task = new Task("local");
+
+            @Override
+            public Task getTask() {
+                return task;
+            }
+        };
+        BundleContext callingContext = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.expect(callingContext.getProperty(Constants.FRAMEWORK_UUID)).andReturn("uuid").anyTimes();
+        EasyMock.replay(callingContext);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RemoteConstants.ENDPOINT_FRAMEWORK_UUID, "uuid");
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, "http://localhost:9182/");
+        props.put(LocalEndpoints.LOCAL, true);
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(taskService, callingContext, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       callingContext, ifaces, endpoint.description());
+            // Task is not Serializable, so it can not be copied and the call goes through HTTP
+            Assert.assertNotSame(taskService.getTask(), proxy.getTask());
+            Assert.assertEquals("local", proxy.getTask().getName());
+        }
+
+        props.put(LocalEndpoints.LOCAL_COPY, false);
+        try (Endpoint endpoint = rsProvider.exportService(taskService, callingContext, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       callingContext, ifaces, endpoint.description());
+            // the same instance shows the call did not go through HTTP
+            Assert.assertSame(taskService.getTask(), proxy.getTask());
+        }
+    }
+
+    @Test
+    public void testHttp2Intent() throws Exception {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        IntentManagerImpl intentManager = new IntentManagerImpl();
+        Http2Intent http2Intent = new Http2Intent();
+        intentManager.addIntent(http2Intent, "http2");
+        rsProvider.setIntentManager(intentManager);
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, "http://localhost:9186/");
+        props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, "http2");
+        props.put(HttpEngines.ENGINE, "undertow");
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+
+        Http2Transport transport = (Http2Transport)http2Intent.call().get(0);
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), callingContext, props, ifaces)) {
+            Assert.assertTrue(endpoint.description().getIntents().contains("http2"));
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       callingContext, ifaces, endpoint.description());
+            Assert.assertEquals("test", proxy.getTask().getName());
+            Assert.assertEquals("test", proxy.getTask().getName());
+            Assume.assumeFalse("HTTP/2 clients need Java 11", System.getProperty("java.version").startsWith("1."));
+            Assert.assertTrue(transport.getHttp2Responses() > 0);
+        }
+    }
+
+    @Test
+    public void testAsyncHttpIntent() throws Exception {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        IntentManagerImpl intentManager = new IntentManagerImpl();
+        AsyncHttpIntent asyncHttpIntent = new AsyncHttpIntent();
+        intentManager.addIntent(asyncHttpIntent, "asynchttp");
+        rsProvider.setIntentManager(intentManager);
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, "http://localhost:9187/");
+        props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, "asynchttp");
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pool = MetricsRegistry.createName("HttpConnectionPool", "localhost:9187");
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), callingContext, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       callingContext, ifaces, endpoint.description());
+            Assert.assertEquals("test", proxy.getTask().getName());
+            Assert.assertEquals("test", proxy.getTask().getName());
+            Assert.assertEquals(0, mbeanServer.getAttribute(pool, "Leased"));
+            Assert.assertEquals(1, mbeanServer.getAttribute(pool, "Available"));
+        } finally {
+            asyncHttpIntent.deactivate();
+        }
+        Assert.assertFalse(mbeanServer.isRegistered(pool));
+    }
+
+    @Test
+    public void testBinaryIntent() throws IOException {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        IntentManagerImpl intentManager = new IntentManagerImpl();
+        intentManager.addIntent(new BinaryIntent(), "binary");
+        rsProvider.setIntentManager(intentManager);
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        String serviceAddress = "http://localhost:9188/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        props.put(RemoteConstants.SERVICE_EXPORTED_INTENTS, "binary");
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), callingContext, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       callingContext, ifaces, endpoint.description());
+            Assert.assertEquals("test", proxy.getTask().getName());
+
+            Response binary = WebClient.create(serviceAddress).path("/task")
+                .accept(BinaryFormat.CBOR_TYPE, MediaType.APPLICATION_XML + ";q=0.9").get();
+            Assert.assertEquals(BinaryFormat.CBOR_TYPE, binary.getMediaType().toString());
+            // clients without the intent get the default format
+            Response xml = WebClient.create(serviceAddress).path("/task").accept(MediaType.APPLICATION_XML).get();
+            Assert.assertEquals(MediaType.APPLICATION_XML, xml.getMediaType().toString());
+            Assert.assertEquals("test", xml.readEntity(Task.class).getName());
+        }
+    }
+
+    @Test
+    public void testStreamedResults() throws IOException {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+        final AtomicInteger produced = new AtomicInteger();
+        TaskStreamService service = new TaskStreamService() {
+            @Override
+            public Stream<Task> stream(int count) {
+                return IntStream.range(0, count).mapToObj(i -> {
+                    produced.incrementAndGet();
+                    return new Task("task" + i);
+                });
+            }
+
+            @Override
+            public Iterator<Task> iterator(int count) {
+                return stream(count).iterator();
+            }
+        };
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskStreamService.class.getName()});
+        String serviceAddress = "http://localhost:9209/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        Class<?>[] ifaces = new Class[]{TaskStreamService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(service, callingContext, props, ifaces)) {
+            TaskStreamService proxy = (TaskStreamService)rsProvider.importEndpoint(
+                TaskStreamService.class.getClassLoader(), callingContext, ifaces, endpoint.description());
+            int count = 1000000;
+            try (Stream<Task> tasks = proxy.stream(count)) {
+                Iterator<Task> iterator = tasks.iterator();
+                Assert.assertEquals("task0", iterator.next().getName());
+                // the first element arrives while the server still produces the others
+                Assert.assertTrue(produced.get() < count);
+                int received = 1;
+                while (iterator.hasNext()) {
+                    Assert.assertEquals("task" + received++, iterator.next().getName());
+                }
+                Assert.assertEquals(count, received);
+            }
+
+            Iterator<Task> iterator = proxy.iterator(2);
+            Assert.assertEquals("task0", iterator.next().getName());
+            Assert.assertEquals("task1", iterator.next().getName());
+            Assert.assertFalse(iterator.hasNext());
+
+            Response response = WebClient.create(serviceAddress).path("/tasks/stream").query("count", 2).get();
+            Assert.assertEquals(StreamingSupport.NDJSON_TYPE, response.getMediaType().toString());
+            Assert.assertEquals("{\"name\":\"task0\"}\n{\"name\":\"task1\"}\n", response.readEntity(String.class));
+        }
+    }
+
+    @Test
+    public void testBinaryContent() throws IOException {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{FileService.class.getName()});
+        String serviceAddress = "http://localhost:9211/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        Class<?>[] ifaces = new Class[]{FileService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(new FileServiceImpl(), callingContext, props, ifaces)) {
+            FileService proxy = (FileService)rsProvider.importEndpoint(
+                FileService.class.getClassLoader(), callingContext, ifaces, endpoint.description());
+            long size = 64L * 1024 * 1024 + 1;
+            try (InputStream content = proxy.download(size)) {
+                Assert.assertEquals(size, FileServiceImpl.verify(content));
+            }
+            Assert.assertEquals(size, proxy.upload(FileServiceImpl.generate(size)));
+            try (ReadableByteChannel channel = proxy.open(size)) {
+                Assert.assertEquals(size, FileServiceImpl.verify(Channels.newInputStream(channel)));
+            }
+            Assert.assertEquals(size, proxy.write(Channels.newChannel(FileServiceImpl.generate(size))));
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(3);
+            buffer.put(new byte[] {1, 2, 3}).flip();
+            ByteBuffer reversed = proxy.reverse(buffer);
+            Assert.assertEquals(ByteBuffer.wrap(new byte[] {3, 2, 1}), reversed);
+            // the buffer of the caller is not consumed
+            Assert.assertEquals(3, buffer.remaining());
+
+            Response response = WebClient.create(serviceAddress).path("/files/channel").query("size", 3).get();
+            Assert.assertEquals(MediaType.APPLICATION_OCTET_STREAM_TYPE, response.getMediaType());
+            Assert.assertArrayEquals(new byte[] {0, 1, 2}, response.readEntity(byte[].class));
+        }
+    }
+
+    @Test
+    public void testEventStream() throws Exception {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<TaskPublisher> publishers = new CopyOnWriteArrayList<>();
+        TaskEventService service = new TaskEventService() {
+            @Override
+            public EventPublisher<Task> events(int count) {
+                TaskPublisher publisher = new TaskPublisher(count, release);
+                publishers.add(publisher);
+                return publisher;
+            }
+
+            @Override
+            public EventPublisher<Task> burst(int count) {
+                // ignores the demand of the subscriber
+                return subscriber -> {
+                    subscriber.onSubscribe(new EventSubscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                        }
+                    });
+                    for (int i = 0; i < count; i++) {
+                        subscriber.onEvent(new Task("task" + i));
+                    }
+                    subscriber.onComplete();
+                };
+            }
+        };
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskEventService.class.getName()});
+        String serviceAddress = "http://localhost:9214/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        props.put(RsConstants.RS_EVENT_BUFFER, 16);
+        props.put(RsConstants.RS_EVENT_MAX_STREAMS, 1);
+        Class<?>[] ifaces = new Class[]{TaskEventService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(service, callingContext, props, ifaces)) {
+            TaskEventService proxy = (TaskEventService)rsProvider.importEndpoint(
+                TaskEventService.class.getClassLoader(), callingContext, ifaces, endpoint.description());
+            int count = 2000;
+            BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+            proxy.events(count).subscribe(new QueueSubscriber(received));
+            // the first event arrives while the publisher is still open
+            Assert.assertEquals("task0", ((Task)received.poll(10, TimeUnit.SECONDS)).getName());
+            // a second stream while the first is open exceeds the limit of the endpoint
+            Response rejected = WebClient.create(serviceAddress).path("/tasks/events").query("count", 1).get();
+            Assert.assertEquals("event: error\ndata: The endpoint already serves 1 event streams\n\n",
+                                rejected.readEntity(String.class));
+            release.countDown();
+            for (int i = 1; i < count; i++) {
+                Assert.assertEquals("task" + i, ((Task)received.poll(10, TimeUnit.SECONDS)).getName());
+            }
+            Assert.assertEquals(QueueSubscriber.COMPLETE, received.poll(10, TimeUnit.SECONDS));
+            // the server never requested more events than it can buffer
+            Assert.assertTrue(publishers.get(0).getMaxDemand() <= 16);
+
+            received.clear();
+            proxy.burst(1000).subscribe(new QueueSubscriber(received));
+            Object last;
+            do {
+                last = received.poll(10, TimeUnit.SECONDS);
+            } while (last instanceof Task);
+            Assert.assertTrue(String.valueOf(last), last instanceof ServiceException);
+
+            Response response = WebClient.create(serviceAddress).path("/tasks/burst").query("count", 1).get();
+            Assert.assertEquals(StreamingSupport.EVENT_STREAM_TYPE, response.getMediaType().toString());
+            Assert.assertEquals("data: {\"name\":\"task0\"}\n\nevent: complete\ndata: \n\n",
+                                response.readEntity(String.class));
+        }
+    }
+
+    @Test
+    public void testOneWay() throws Exception {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger received = new AtomicInteger();
+        TaskNotificationService service = new TaskNotificationService() {
+            @Override
+            public void publish(Task task) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.incrementAndGet();
+            }
+
+            @Override
+            public int received() {
+                return received.get();
+            }
+        };
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskNotificationService.class.getName()});
+        String serviceAddress = "http://localhost:9216/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        props.put(OneWayMethods.ONEWAY_METHODS, "publish");
+        Class<?>[] ifaces = new Class[]{TaskNotificationService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(service, callingContext, props, ifaces)) {
+            TaskNotificationService proxy = (TaskNotificationService)rsProvider.importEndpoint(
+                TaskNotificationService.class.getClassLoader(), callingContext, ifaces, endpoint.description());
+            long start = System.nanoTime();
+            proxy.publish(new Task("proxy"));
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+
+            // the service still blocks, yet the request is accepted
+            WebClient client = WebClient.create(serviceAddress).path("/notifications");
+            WebClient.getConfig(client).getHttpConduit().getClient().setReceiveTimeout(5000);
+            Response response = client.type(MediaType.APPLICATION_XML_TYPE).post(new Task("raw"));
+            Assert.assertEquals(202, response.getStatus());
+            Assert.assertEquals(0, received.get());
+
+            release.countDown();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (proxy.received() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(2, proxy.received());
+        }
+    }
+
+    @Test
+    public void testMultipleInterfaces() throws IOException {
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext callingContext = EasyMock.createMock(BundleContext.class);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS,
+                  new String[]{TaskService.class.getName(), TaskNotificationService.class.getName()});
+        String serviceAddress = "http://localhost:9217/";
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, serviceAddress);
+        Class<?>[] ifaces = new Class[]{TaskService.class, TaskNotificationService.class};
+
+        try (Endpoint endpoint = rsProvider.exportService(new MultiInterfaceService(), callingContext, props,
+                                                          ifaces)) {
+            Object proxy = rsProvider.importEndpoint(TaskService.class.getClassLoader(), callingContext, ifaces,
+                                                     endpoint.description());
+            Assert.assertEquals("multi", ((TaskService)proxy).getTask().getName());
+            ((TaskNotificationService)proxy).publish(new Task("published"));
+            Assert.assertEquals(1, ((TaskNotificationService)proxy).received());
+
+            // both interfaces are root resources of one server
+            Assert.assertEquals(200, WebClient.create(serviceAddress).path("/task").get().getStatus());
+            Assert.assertEquals(200, WebClient.create(serviceAddress).path("/notifications/received").get()
+                .getStatus());
+        }
+    }
+
+    /**
+     * Requests one event at a time and puts the events, the error or {@link #COMPLETE} into a queue.
+     */
+    private static final class QueueSubscriber implements EventSubscriber<Task> {
+        static final Object COMPLETE = new Object();
+        private final BlockingQueue<Object> received;
+        private EventSubscription subscription;
+
+        QueueSubscriber(BlockingQueue<Object> received) {
+            this.received = received;
+        }
+
+        @Override
+        public void onSubscribe(EventSubscription newSubscription) {
+            subscription = newSubscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onEvent(Task event) {
+            received.add(event);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            received.add(error);
+        }
+
+        @Override
+        public void onComplete() {
+            received.add(COMPLETE);
+        }
+    }
+
+    private static final class MultiInterfaceService implements TaskService, TaskNotificationService {
+        private final AtomicInteger received = new AtomicInteger();
+
+        @Override
+        public Task getTask() {
+            return new Task("multi");
+        }
+
+        @Override
+        public void publish(Task task) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public int received() {
+            return received.get();
+        }
+    }
 }
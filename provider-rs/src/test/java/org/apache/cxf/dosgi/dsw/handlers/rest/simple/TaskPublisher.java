@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.cxf.dosgi.common.api.EventPublisher;
+import org.apache.cxf.dosgi.common.api.EventSubscriber;
+import org.apache.cxf.dosgi.common.api.EventSubscription;
+
+/**
+ * Publishes tasks from its own thread as far as they are requested. After the first task it waits for the
+ * release latch.
+ */
+public class TaskPublisher implements EventPublisher<Task> {
+    private final int count;
+    private final CountDownLatch release;
+    private final AtomicLong maxDemand = new AtomicLong();
+
+    public TaskPublisher(int count, CountDownLatch release) {
+        this.count = count;
+        this.release = release;
+    }
+
+    /**
+     * @return the highest number of requested tasks that were not yet published
+     */
+    public long getMaxDemand() {
+        return maxDemand.get();
+    }
+
+    @Override
+    public void subscribe(final EventSubscriber<? super Task> subscriber) {
+        final Demand demand = new Demand();
+        subscriber.onSubscribe(demand);
+        Thread thread = new Thread(() -> {
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (!demand.take()) {
+                        return;
+                    }
+                    subscriber.onEvent(new Task("task" + i));
+                    if (i == 0) {
+                        release.await();
+                    }
+                }
+                subscriber.onComplete();
+            } catch (InterruptedException e) {
+                subscriber.onError(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private final class Demand implements EventSubscription {
+        private long requested;
+        private boolean cancelled;
+
+        @Override
+        public synchronized void request(long n) {
+            requested += n;
+            maxDemand.accumulateAndGet(requested, Math::max);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        synchronized boolean take() throws InterruptedException {
+            while (requested == 0 && !cancelled) {
+                wait();
+            }
+            requested--;
+            return !cancelled;
+        }
+    }
+}
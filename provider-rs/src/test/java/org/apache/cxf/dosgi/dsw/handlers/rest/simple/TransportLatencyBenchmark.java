@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+/**
+ * Compares the latency of calls over HTTP, Unix domain sockets and shared memory. Run with
+ * {@code main}, the optional argument is the number of measured calls per transport.
+ * Unix domain sockets need Java 16 and shared memory Java 9 or later.
+ */
+public final class TransportLatencyBenchmark {
+    private static final int WARMUP_CALLS = 5000;
+
+    private TransportLatencyBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+
+        File dir = Files.createTempDirectory("dosgi-bench").toFile();
+        System.out.printf("%-6s %10s %10s %10s%n", "", "mean us", "p50 us", "p99 us");
+        run(rsProvider, context, "http", "http://localhost:9185/", calls);
+        run(rsProvider, context, "unix", "unix:" + new File(dir, "bench.sock").getPath() + "#/tasks", calls);
+        run(rsProvider, context, "shm", "shm:" + new File(dir, "shm").getPath() + "#/tasks", calls);
+    }
+
+    private static void run(RsProvider rsProvider, BundleContext context, String name, String address,
+                            int calls) throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, address);
+        props.put(LocalEndpoints.LOCAL, false);
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+        try (Endpoint endpoint = rsProvider.exportService(new TaskServiceImpl(), context, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       context, ifaces, endpoint.description());
+            for (int i = 0; i < WARMUP_CALLS; i++) {
+                proxy.getTask();
+            }
+            long[] latencies = new long[calls];
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                long callStart = System.nanoTime();
+                proxy.getTask();
+                latencies[i] = System.nanoTime() - callStart;
+            }
+            double mean = (System.nanoTime() - start) / 1000.0 / calls;
+            Arrays.sort(latencies);
+            System.out.printf("%-6s %10.2f %10.2f %10.2f%n", name, mean,
+                              latencies[calls / 2] / 1000.0, latencies[(int)(calls * 0.99)] / 1000.0);
+        } catch (RuntimeException e) {
+            System.out.printf("%-6s unavailable: %s%n", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.rest.simple;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.LocalEndpoints;
+import org.apache.cxf.dosgi.common.feature.VirtualThreadFeature;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.common.util.VirtualThreads;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsConstants;
+import org.apache.cxf.dosgi.dsw.handlers.rest.RsProvider;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+/**
+ * Compares a blocking service running on the thread pool of Jetty with the same service running on
+ * virtual threads. The service sleeps for each call and Jetty has a small pool, so with platform
+ * threads the throughput is bounded by the pool size. Run with {@code main} on Java 21 or later,
+ * the optional arguments are the number of concurrent clients, the service time in ms and the duration
+ * of each run in seconds. Start with {@code -Djdk.tracePinnedThreads=full} to see pinned threads
+ * in addition to the JFR based warnings.
+ */
+public final class VirtualThreadLoadBenchmark {
+    private static final int JETTY_THREADS = 32;
+
+    private VirtualThreadLoadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        final long serviceMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        if (!VirtualThreads.isSupported()) {
+            System.out.println("Virtual threads need Java 21 or later");
+            return;
+        }
+        RsProvider rsProvider = new RsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        rsProvider.setHttpServiceManager(httpServiceManager);
+        rsProvider.setIntentManager(new IntentManagerImpl());
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        TaskService service = new TaskService() {
+            @Override
+            public Task getTask() {
+                try {
+                    Thread.sleep(serviceMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new Task("test");
+            }
+        };
+
+        System.out.printf("%d clients, service time %d ms, %d jetty threads%n", clients, serviceMillis, JETTY_THREADS);
+        System.out.printf("%-9s %10s %10s %10s %16s %12s%n",
+                          "", "calls/s", "mean ms", "failures", "platform threads", "heap MB");
+        run(rsProvider, context, service, "http://localhost:9195/", false, clients, seconds);
+        run(rsProvider, context, service, "http://localhost:9196/", true, clients, seconds);
+    }
+
+    private static void run(RsProvider rsProvider, BundleContext context, TaskService service,
+                            String address, boolean virtualThreads, int clients, int seconds) throws Exception {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[]{TaskService.class.getName()});
+        props.put(RsConstants.RS_ADDRESS_PROPERTY, address);
+        props.put(LocalEndpoints.LOCAL, false);
+        props.put(HttpEngines.ENGINE, "jetty");
+        props.put(HttpEngines.MAX_THREADS, JETTY_THREADS);
+        props.put(VirtualThreadFeature.VIRTUAL_THREADS, virtualThreads);
+        Class<?>[] ifaces = new Class[]{TaskService.class};
+        try (Endpoint endpoint = rsProvider.exportService(service, context, props, ifaces)) {
+            TaskService proxy = (TaskService)rsProvider.importEndpoint(TaskService.class.getClassLoader(),
+                                                                       context, ifaces, endpoint.description());
+            proxy.getTask();
+            Load load = new Load(proxy);
+            ExecutorService executor = Executors.newFixedThreadPool(clients);
+            long start = System.nanoTime();
+            for (int i = 0; i < clients; i++) {
+                executor.execute(load);
+            }
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long maxHeap = 0;
+            int maxThreads = 0;
+            while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(seconds)) {
+                Thread.sleep(100);
+                maxHeap = Math.max(maxHeap, memory.getHeapMemoryUsage().getUsed());
+                maxThreads = Math.max(maxThreads, threads.getThreadCount());
+            }
+            load.stop();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long calls = load.calls.get();
+            String name = virtualThreads ? "virtual" : "platform";
+            System.out.printf("%-9s %10.0f %10.2f %10d %16d %12d%n", name, calls / elapsed,
+                              calls == 0 ? 0 : load.nanos.get() / 1e6 / calls, load.failures.get(),
+                              maxThreads, maxHeap / (1024 * 1024));
+        }
+    }
+
+    private static final class Load implements Runnable {
+        private final TaskService proxy;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+        private volatile boolean stopped;
+
+        Load(TaskService proxy) {
+            this.proxy = proxy;
+        }
+
+        void stop() {
+            stopped = true;
+        }
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                long callStart = System.nanoTime();
+                try {
+                    proxy.getTask();
+                    nanos.addAndGet(System.nanoTime() - callStart);
+                    calls.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.lang.ref.WeakReference;
+
+import org.apache.cxf.aegis.AegisContext;
+import org.apache.cxf.aegis.databinding.AegisDatabinding;
+
+/**
+ * Shares the Aegis type mapping between the endpoints of an interface, so the types of the interface are
+ * introspected only for the first endpoint. The mapping is kept per interface class, whose identity includes
+ * its class loader, and is only referenced weakly. It lives as long as an endpoint uses it and does not keep
+ * the classes of an updated bundle alive.
+ * <p>
+ * JAXB contexts need no such cache as CXF already shares them between data bindings with the same classes.
+ */
+final class DataBindings {
+    private static final ClassValue<SharedContext> AEGIS_CONTEXTS = new ClassValue<SharedContext>() {
+        @Override
+        protected SharedContext computeValue(Class<?> type) {
+            return new SharedContext();
+        }
+    };
+
+    private DataBindings() {
+    }
+
+    /**
+     * @return a data binding that uses the type mapping of earlier endpoints of the interface if there is one
+     */
+    static AegisDatabinding createAegis(Class<?> iClass) {
+        AegisContext context = AEGIS_CONTEXTS.get(iClass).get();
+        return context == null ? new AegisDatabinding() : new AegisDatabinding(context);
+    }
+
+    /**
+     * Offers the type mapping of a data binding to later endpoints of the interface. Must only be called once
+     * the endpoint is created and only for data bindings without a custom configuration.
+     */
+    static void share(Class<?> iClass, AegisDatabinding dataBinding) {
+        AegisContext context = dataBinding.getAegisContext();
+        if (context != null) {
+            AEGIS_CONTEXTS.get(iClass).offer(context);
+        }
+    }
+
+    private static final class SharedContext {
+        private WeakReference<AegisContext> context = new WeakReference<>(null);
+
+        synchronized AegisContext get() {
+            return context.get();
+        }
+
+        synchronized void offer(AegisContext newContext) {
+            if (context.get() == null) {
+                context = new WeakReference<>(newContext);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+
+import org.apache.cxf.dosgi.common.util.PropertyHelper;
+import org.apache.cxf.message.Message;
+
+/**
+ * Decides which endpoints send binary content as MTOM attachments. Attachments are not encoded as Base64 in the
+ * SOAP body and CXF buffers large attachments in temporary files instead of the heap. {@link DataHandler}
+ * parameters and return values are streamed from and to the connection.
+ */
+final class MtomSupport {
+
+    private MtomSupport() {
+    }
+
+    static boolean isEnabled(Map<String, Object> sd, Class<?> iClass) {
+        return PropertyHelper.getBooleanProperty(sd, WsConstants.WS_MTOM, hasBinaryContent(iClass));
+    }
+
+    /**
+     * @return the given endpoint properties with MTOM enabled unless they already configure it
+     */
+    static Map<String, Object> enable(Map<String, Object> properties) {
+        Map<String, Object> enabled = properties == null ? new HashMap<String, Object>() : properties;
+        if (!enabled.containsKey(Message.MTOM_ENABLED)) {
+            enabled.put(Message.MTOM_ENABLED, Boolean.TRUE);
+        }
+        return enabled;
+    }
+
+    static boolean hasBinaryContent(Class<?> iClass) {
+        for (Method method : iClass.getMethods()) {
+            if (isBinary(method.getReturnType())) {
+                return true;
+            }
+            for (Class<?> type : method.getParameterTypes()) {
+                if (isBinary(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBinary(Class<?> type) {
+        return byte[].class.equals(type) || DataHandler.class.isAssignableFrom(type)
+            || DataSource.class.isAssignableFrom(type);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.lang.reflect.Method;
+
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.frontend.AbstractWSDLBasedEndpointFactory;
+import org.apache.cxf.wsdl.service.factory.AbstractServiceConfiguration;
+import org.apache.cxf.wsdl.service.factory.ReflectionServiceFactoryBean;
+
+/**
+ * Models the {@link OneWayMethods} of an interface as operations without output message. The SOAP binding
+ * answers requests of these operations with status 202 before the service is invoked and clients do not wait
+ * for a response body.
+ */
+class OneWayServiceConfiguration extends AbstractServiceConfiguration {
+    private final OneWayMethods oneWayMethods;
+
+    OneWayServiceConfiguration(OneWayMethods oneWayMethods) {
+        this.oneWayMethods = oneWayMethods;
+    }
+
+    /**
+     * Adds the configuration in front of the others of the factory if the interface has one-way methods.
+     */
+    static void install(AbstractWSDLBasedEndpointFactory factory, OneWayMethods oneWayMethods, Class<?> iClass) {
+        if (oneWayMethods.hasOneWayMethods(iClass)) {
+            ReflectionServiceFactoryBean serviceFactory = factory.getServiceFactory();
+            OneWayServiceConfiguration config = new OneWayServiceConfiguration(oneWayMethods);
+            config.setServiceFactory(serviceFactory);
+            serviceFactory.getServiceConfigurations().add(0, config);
+        }
+    }
+
+    @Override
+    public Boolean hasOutMessage(Method m) {
+        return oneWayMethods.isOneWay(m) ? Boolean.FALSE : null;
+    }
+}
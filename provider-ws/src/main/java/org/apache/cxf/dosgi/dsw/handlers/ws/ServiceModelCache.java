@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.wsdl.Definition;
+import javax.wsdl.WSDLException;
+import javax.wsdl.xml.WSDLWriter;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.version.Version;
+import org.apache.cxf.wsdl.WSDLManager;
+import org.apache.cxf.wsdl11.ServiceWSDLBuilder;
+import org.osgi.framework.BundleContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the WSDL generated for the service model of an interface in the bundle data area. After a restart
+ * endpoints of the interface build their service model from the stored WSDL, which is faster than deriving
+ * the operations and schemas from the classes by reflection.
+ * <p>
+ * Entries are keyed by a hash of the provider and CXF versions, the intent classes and the bytes of the interface
+ * and of the classes its methods use. Changing any of them leads to a new entry. Entries are written atomically
+ * and checked when they are loaded. An entry that can not be read is deleted and the model is derived again.
+ */
+class ServiceModelCache {
+    private static final Logger LOG = LoggerFactory.getLogger(ServiceModelCache.class);
+    private static final String DIRECTORY = "service-models";
+    private static final int MAX_CLASSES = 1000;
+
+    private final File directory;
+    private final String providerVersion;
+
+    ServiceModelCache(File directory, String providerVersion) {
+        this.directory = directory;
+        this.providerVersion = providerVersion;
+    }
+
+    /**
+     * @return the cache or null if it is not enabled or the framework has no file system support
+     */
+    static ServiceModelCache create(BundleContext context) {
+        if (!Boolean.parseBoolean(context.getProperty(WsConstants.WS_MODEL_CACHE))) {
+            return null;
+        }
+        File directory = context.getDataFile(DIRECTORY);
+        if (directory == null || !directory.isDirectory() && !directory.mkdirs()) {
+            LOG.warn("Service model cache is enabled but the bundle has no data area");
+            return null;
+        }
+        return new ServiceModelCache(directory, String.valueOf(context.getBundle().getVersion()));
+    }
+
+    /**
+     * @return the URL of the stored WSDL for the interface or null if there is no valid entry
+     */
+    String getWsdlLocation(Class<?> iClass, List<Object> intents, Bus bus) {
+        File file = getFile(iClass, intents);
+        if (!file.isFile()) {
+            return null;
+        }
+        String location = file.toURI().toString();
+        try {
+            // parsed into the WSDLManager of the bus, so the service factory does not parse it again
+            Definition definition = bus.getExtension(WSDLManager.class).getDefinition(location);
+            if (!definition.getAllServices().isEmpty()) {
+                LOG.debug("Using stored service model {} for {}", file, iClass.getName());
+                return location;
+            }
+            LOG.warn("Stored service model {} for {} has no service", file, iClass.getName());
+        } catch (WSDLException | RuntimeException e) {
+            LOG.warn("Stored service model {} for {} is invalid", file, iClass.getName(), e);
+        }
+        delete(file);
+        return null;
+    }
+
+    /**
+     * Stores the service model of a newly created endpoint.
+     */
+    void store(Class<?> iClass, List<Object> intents, Service service, Bus bus) {
+        File file = getFile(iClass, intents);
+        if (file.isFile()) {
+            return;
+        }
+        File temp = null;
+        try {
+            Definition definition = new ServiceWSDLBuilder(bus, service.getServiceInfos()).build();
+            WSDLWriter writer = bus.getExtension(WSDLManager.class).getWSDLFactory().newWSDLWriter();
+            temp = File.createTempFile("model", ".tmp", directory);
+            try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+                writer.writeWSDL(definition, out);
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+            LOG.debug("Stored service model of {} in {}", iClass.getName(), file);
+        } catch (WSDLException | IOException | RuntimeException e) {
+            LOG.warn("Unable to store the service model of {}", iClass.getName(), e);
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    File getFile(Class<?> iClass, List<Object> intents) {
+        return new File(directory, getKey(iClass, intents) + ".wsdl");
+    }
+
+    String getKey(Class<?> iClass, List<Object> intents) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<String> sortedIntents = new ArrayList<>();
+        for (Object intent : intents) {
+            sortedIntents.add(intent.getClass().getName());
+        }
+        Collections.sort(sortedIntents);
+        update(digest, providerVersion + "/" + Version.getCurrentVersion() + "/" + sortedIntents);
+        for (Class<?> type : getUsedClasses(iClass)) {
+            update(digest, type.getName());
+            digest.update(getClassBytes(type));
+        }
+        StringBuilder key = new StringBuilder(iClass.getSimpleName()).append('-');
+        for (byte b : digest.digest()) {
+            key.append(String.format("%02x", b & 0xFF));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the interface and the application classes used by its methods, their fields and super classes.
+     */
+    static Set<Class<?>> getUsedClasses(Class<?> iClass) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        List<Type> pending = new ArrayList<>();
+        pending.add(iClass);
+        while (!pending.isEmpty() && classes.size() < MAX_CLASSES) {
+            Type type = pending.remove(pending.size() - 1);
+            if (type instanceof ParameterizedType) {
+                pending.add(((ParameterizedType)type).getRawType());
+                Collections.addAll(pending, ((ParameterizedType)type).getActualTypeArguments());
+            } else if (type instanceof GenericArrayType) {
+                pending.add(((GenericArrayType)type).getGenericComponentType());
+            } else if (type instanceof Class) {
+                Class<?> cls = (Class<?>)type;
+                while (cls.isArray()) {
+                    cls = cls.getComponentType();
+                }
+                if (!cls.isPrimitive() && !isJdkClass(cls) && classes.add(cls)) {
+                    addReferencedTypes(cls, pending);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static void addReferencedTypes(Class<?> cls, List<Type> pending) {
+        if (cls.getGenericSuperclass() != null) {
+            pending.add(cls.getGenericSuperclass());
+        }
+        Collections.addAll(pending, cls.getGenericInterfaces());
+        for (Field field : cls.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                pending.add(field.getGenericType());
+            }
+        }
+        if (cls.isInterface()) {
+            for (Method method : cls.getMethods()) {
+                Collections.addAll(pending, method.getGenericParameterTypes());
+                pending.add(method.getGenericReturnType());
+                Collections.addAll(pending, method.getGenericExceptionTypes());
+            }
+        }
+    }
+
+    private static boolean isJdkClass(Class<?> cls) {
+        String name = cls.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+    private static byte[] getClassBytes(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        String resource = type.getName().replace('.', '/') + ".class";
+        try (InputStream in = loader == null ? null : loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                return new byte[0];
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            return new byte[0];
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+    }
+
+    private static void delete(File file) {
+        if (!file.delete() && file.exists()) {
+            LOG.warn("Unable to delete {}", file);
+        }
+    }
+}
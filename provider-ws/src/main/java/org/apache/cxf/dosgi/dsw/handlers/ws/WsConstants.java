@@ -21,6 +21,7 @@ package org.apache.cxf.dosgi.dsw.handlers.ws;
 public final class WsConstants {
     public static final String WS_CONFIG_TYPE = "org.apache.cxf.ws";
     public static final String WS_ADDRESS_PROPERTY = WS_CONFIG_TYPE + ".address";
+    public static final String WS_ALTERNATE_ADDRESSES = WS_CONFIG_TYPE + ".alternate.addresses";
     public static final String WS_PORT_PROPERTY = WS_CONFIG_TYPE + ".port";
     public static final String WS_HTTP_SERVICE_CONTEXT = WS_CONFIG_TYPE + ".httpservice.context";
     public static final String WS_CONTEXT_PROPS_PROP_KEY = WS_CONFIG_TYPE + ".context.properties";
@@ -30,6 +31,17 @@ public final class WsConstants {
     public static final String WS_WSDL_PORT_NAME = WS_CONFIG_TYPE + ".port.name";
     public static final String WS_WSDL_LOCATION = WS_CONFIG_TYPE + ".wsdl.location";
 
+    /**
+     * Sends binary content as MTOM attachments. Defaults to true for interfaces with binary parameters or
+     * return values.
+     */
+    public static final String WS_MTOM = WS_CONFIG_TYPE + ".mtom";
+
+    /**
+     * Framework property that enables the service model cache in the bundle data area, defaults to false.
+     */
+    public static final String WS_MODEL_CACHE = WS_CONFIG_TYPE + ".model.cache";
+
     private WsConstants() {
         // never constructed
     }
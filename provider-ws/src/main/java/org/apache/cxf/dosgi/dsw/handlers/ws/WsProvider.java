@@ -21,6 +21,7 @@ package org.apache.cxf.dosgi.dsw.handlers.ws;
 import static org.osgi.service.remoteserviceadmin.RemoteConstants.REMOTE_CONFIGS_SUPPORTED;
 import static org.osgi.service.remoteserviceadmin.RemoteConstants.REMOTE_INTENTS_SUPPORTED;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ import org.apache.aries.rsa.spi.DistributionProvider;
 import org.apache.aries.rsa.spi.Endpoint;
 import org.apache.aries.rsa.spi.IntentUnsatisfiedException;
 import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
 import org.apache.cxf.aegis.databinding.AegisDatabinding;
 import org.apache.cxf.binding.BindingConfiguration;
 import org.apache.cxf.binding.soap.SoapBindingConfiguration;
@@ -39,21 +41,31 @@ import org.apache.cxf.databinding.DataBinding;
 import org.apache.cxf.dosgi.common.api.IntentsProvider;
 import org.apache.cxf.dosgi.common.endpoint.ServerEndpoint;
 import org.apache.cxf.dosgi.common.handlers.BaseDistributionProvider;
+import org.apache.cxf.dosgi.common.httpservice.HttpEngines;
 import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
 import org.apache.cxf.dosgi.common.intent.IntentManager;
 import org.apache.cxf.dosgi.common.proxy.ProxyFactory;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicies;
+import org.apache.cxf.dosgi.common.resilience.InvocationPolicy;
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.dosgi.common.transport.Transports;
 import org.apache.cxf.dosgi.common.util.PropertyHelper;
 import org.apache.cxf.endpoint.AbstractEndpointFactory;
+import org.apache.cxf.endpoint.Client;
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.feature.Feature;
+import org.apache.cxf.frontend.ClientFactoryBean;
+import org.apache.cxf.frontend.ClientProxy;
 import org.apache.cxf.frontend.ClientProxyFactoryBean;
 import org.apache.cxf.frontend.ServerFactoryBean;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.jaxws.JaxWsProxyFactoryBean;
 import org.apache.cxf.jaxws.JaxWsServerFactoryBean;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.remoteserviceadmin.EndpointDescription;
 import org.osgi.service.remoteserviceadmin.RemoteConstants;
@@ -69,6 +81,9 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
 
     private static final Logger LOG = LoggerFactory.getLogger(WsProvider.class);
     protected BundleContext bundleContext;
+    private ServiceModelCache modelCache;
+    private boolean modelCacheCreated;
+    private WsdlCache wsdlCache;
 
     @Reference
     public void setHttpServiceManager(HttpServiceManager httpServiceManager) {
@@ -83,6 +98,12 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
     @Activate
     public void activate(BundleContext context) {
         this.bundleContext = context;
+        this.wsdlCache = new WsdlCache(context);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        wsdlCache.close();
     }
 
     @Override
@@ -96,35 +117,73 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
                                  BundleContext consumerContext,
                                  Class[] interfaces,
                                  EndpointDescription endpoint) throws IntentUnsatisfiedException {
-        if (interfaces.length > 1) {
-            throw new IllegalArgumentException("Multiple interfaces are not supported by this provider");
-        }
-        Class<?> iClass = interfaces[0];
         Map<String, Object> sd = endpoint.getProperties();
         String address = getClientAddress(sd);
-        LOG.info("Creating a " + iClass.getName() + " client, endpoint address is " + address);
+        LOG.info("Creating a client for {}, endpoint address is {}", endpoint.getInterfaces(), address);
+        int interfaceCount = endpoint.getInterfaces().size();
 
         try {
-            ClientProxyFactoryBean factory = createClientProxyFactoryBean(sd, iClass);
-            factory.setDataBinding(getDataBinding(sd, iClass));
-            factory.setBindingConfig(new SoapBindingConfiguration());
-            factory.setServiceClass(iClass);
-            factory.setAddress(address);
-            addContextProperties(factory.getClientFactoryBean(), sd, WsConstants.WS_CONTEXT_PROPS_PROP_KEY);
-            WsdlSupport.setWsdlProperties(factory.getClientFactoryBean(), bundleContext, sd);
-            applyIntents(sd, factory);
-            return ProxyFactory.create(factory.create(), iClass);
+            Set<String> intentNames = intentManager.getImported(sd);
+            List<Object> intents = intentManager.getRequiredIntents(intentNames);
+            List<Object> clients = new ArrayList<>();
+            Object localService = getLocalService(consumerContext, interfaces, endpoint);
+            if (localService != null) {
+                clients.add(localService);
+            } else {
+                for (String curAddress : getAddresses(address, sd, WsConstants.WS_ALTERNATE_ADDRESSES)) {
+                    List<Object> interfaceClients = new ArrayList<>();
+                    for (Class<?> iClass : interfaces) {
+                        String interfaceAddress = getInterfaceAddress(curAddress, iClass, interfaceCount);
+                        interfaceClients.add(createClient(sd, iClass, interfaceAddress, intents));
+                    }
+                    clients.add(ProxyFactory.combine(interfaceClients, interfaces));
+                }
+            }
+            List<InvocationPolicy> policies = InvocationPolicies.create(interfaces, sd,
+                intentManager.getIntents(InvocationPolicy.class, intents));
+            Object proxy = ProxyFactory.create(clients, interfaces, policies);
+            InvocationPolicies.registerMetrics(proxy, sd, policies);
+            return proxy;
         } catch (Exception e) {
             throw new RuntimeException("proxy creation failed", e);
         }
     }
 
-    private void applyIntents(Map<String, Object> sd, ClientProxyFactoryBean factory) {
-        Set<String> intentNames = intentManager.getImported(sd);
-        List<Object> intents = intentManager.getRequiredIntents(intentNames);
+    private Object createClient(Map<String, Object> sd, Class<?> iClass, String address, List<Object> intents) {
+        ClientProxyFactoryBean factory = createClientProxyFactoryBean(sd, iClass);
+        DataBinding dataBinding = getDataBinding(sd, iClass, intents);
+        factory.setDataBinding(dataBinding);
+        factory.setBindingConfig(new SoapBindingConfiguration());
+        factory.setServiceClass(iClass);
+        factory.setAddress(address);
+        OneWayServiceConfiguration.install(factory.getClientFactoryBean(), new OneWayMethods(sd), iClass);
+        Transports.configure(factory.getClientFactoryBean(), address);
+        addContextProperties(factory.getClientFactoryBean(), sd, WsConstants.WS_CONTEXT_PROPS_PROP_KEY);
+        WsdlSupport.setWsdlProperties(factory.getClientFactoryBean(), bundleContext, sd);
+        applyIntents(intents, factory);
+        if (MtomSupport.isEnabled(sd, iClass)) {
+            // the properties of the proxy factory replace those of the client factory
+            factory.setProperties(MtomSupport.enable(factory.getProperties()));
+        }
+        configureClientTransport(factory.getClientFactoryBean(), iClass, intents);
+        String cachedWsdl = getCachedWsdl(sd, iClass, intents, BusFactory.getThreadDefaultBus());
+        if (cachedWsdl != null) {
+            factory.getClientFactoryBean().setWsdlURL(cachedWsdl);
+        }
+        ClientFactoryBean clientFactory = factory.getClientFactoryBean();
+        wsdlCache.prepare(getBundle(bundleContext), clientFactory.getWsdlURL(), clientFactory.getBus());
+        Object client = factory.create();
+        wsdlCache.store(getBundle(bundleContext), clientFactory.getWsdlURL(), clientFactory.getBus());
+        shareTypes(sd, iClass, dataBinding, intents);
+        if (cachedWsdl == null && client != null && usesModelCache(sd, intents)) {
+            Client cxfClient = ClientProxy.getClient(client);
+            getModelCache().store(iClass, intents, cxfClient.getEndpoint().getService(), cxfClient.getBus());
+        }
+        return client;
+    }
 
-        List<Feature> features = intentManager.getIntents(Feature.class, intents);
-        factory.setFeatures(features);
+    private void applyIntents(List<Object> intents, ClientProxyFactoryBean factory) {
+        factory.setFeatures(getFeatures(intents));
         DataBinding dataBinding = intentManager.getIntent(DataBinding.class, intents);
         if (dataBinding != null) {
             factory.setDataBinding(dataBinding);
@@ -164,43 +223,120 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
         if (!configTypeSupported(endpointProps, WsConstants.WS_CONFIG_TYPE)) {
             return null;
         }
-        Class<?> iClass = exportedInterfaces[0];
-        String address = getPojoAddress(endpointProps, iClass);
-        ServerFactoryBean factory = createServerFactoryBean(endpointProps, iClass);
+        String address = getPojoAddress(endpointProps, exportedInterfaces[0]);
         String contextRoot = PropertyHelper.getProperty(endpointProps, WsConstants.WS_HTTP_SERVICE_CONTEXT);
 
         final Long sid = (Long) endpointProps.get(RemoteConstants.ENDPOINT_SERVICE_ID);
         Set<String> intentNames = intentManager.getExported(endpointProps);
         List<Object> intents = intentManager.getRequiredIntents(intentNames);
         intents.addAll(intentManager.getIntentsFromService(serviceO));
-        Bus bus = createBus(sid, serviceContext, contextRoot, endpointProps);
-        factory.setDataBinding(getDataBinding(endpointProps, iClass));
-        factory.setBindingConfig(new SoapBindingConfiguration());
-        factory.setBus(bus);
-        factory.setServiceClass(iClass);
-        factory.setServiceBean(serviceO);
-        factory.setAddress(address);
-        addContextProperties(factory, endpointProps, WsConstants.WS_CONTEXT_PROPS_PROP_KEY);
-        WsdlSupport.setWsdlProperties(factory, serviceContext, endpointProps);
         if (serviceO instanceof IntentsProvider) {
             intents.addAll(((IntentsProvider)serviceO).getIntents());
         }
-        applyIntents(intents, factory);
+        Bus bus = createBus(sid, serviceContext, contextRoot, endpointProps);
+        // transport intents configure the bus before the engine of the endpoint is created
+        configureServerTransport(bus, intents);
+        HttpEngines.configure(bus, address, endpointProps);
+        // one server per interface, all on the bus of the endpoint
+        List<ServerFactoryBean> factories = new ArrayList<>();
+        for (Class<?> iClass : exportedInterfaces) {
+            String interfaceAddress = getInterfaceAddress(address, iClass, exportedInterfaces.length);
+            factories.add(createServerFactory(serviceO, serviceContext, endpointProps, iClass, interfaceAddress,
+                                              bus, intents));
+        }
 
         String completeEndpointAddress = httpServiceManager.getAbsoluteAddress(contextRoot, address);
         try {
             EndpointDescription epd = createEndpointDesc(endpointProps,
                                                          new String[]{WsConstants.WS_CONFIG_TYPE},
                                                          completeEndpointAddress, intentNames);
-            return createServerFromFactory(factory, epd);
+            ServerFactoryBean first = factories.get(0);
+            addServerFeatures(first, epd, intents);
+            Endpoint endpoint;
+            if (factories.size() == 1) {
+                endpoint = createServer(first, exportedInterfaces[0], serviceContext, endpointProps, intents, epd);
+            } else {
+                endpoint = createServers(factories, exportedInterfaces, serviceContext, endpointProps, intents, epd);
+            }
+            registerLocalService(epd, serviceO, intents);
+            return endpoint;
         } catch (Exception e) {
             throw new RuntimeException("Error exporting service with address " + completeEndpointAddress, e);
         }
     }
 
+    private ServerFactoryBean createServerFactory(Object serviceO, BundleContext serviceContext,
+                                                  Map<String, Object> endpointProps, Class<?> iClass,
+                                                  String address, Bus bus, List<Object> intents) {
+        ServerFactoryBean factory = createServerFactoryBean(endpointProps, iClass);
+        factory.setBindingConfig(new SoapBindingConfiguration());
+        factory.setBus(bus);
+        factory.setServiceClass(iClass);
+        factory.setServiceBean(serviceO);
+        factory.setAddress(address);
+        OneWayServiceConfiguration.install(factory, new OneWayMethods(endpointProps), iClass);
+        Transports.configure(factory, address);
+        addContextProperties(factory, endpointProps, WsConstants.WS_CONTEXT_PROPS_PROP_KEY);
+        WsdlSupport.setWsdlProperties(factory, serviceContext, endpointProps);
+        factory.setDataBinding(getDataBinding(endpointProps, iClass, intents));
+        applyIntents(intents, factory);
+        if (MtomSupport.isEnabled(endpointProps, iClass)) {
+            factory.setProperties(MtomSupport.enable(factory.getProperties()));
+        }
+        String cachedWsdl = getCachedWsdl(endpointProps, iClass, intents, bus);
+        if (cachedWsdl != null) {
+            factory.setWsdlURL(cachedWsdl);
+        }
+        return factory;
+    }
+
+    /**
+     * Creates the server of one interface. Its service model is stored in the model cache unless it was
+     * created from the cache.
+     */
+    private Endpoint createServer(ServerFactoryBean factory, Class<?> iClass, BundleContext serviceContext,
+                                  Map<String, Object> endpointProps, List<Object> intents,
+                                  EndpointDescription epd) {
+        Bus bus = factory.getBus();
+        boolean storeModel = factory.getWsdlURL() == null && usesModelCache(endpointProps, intents);
+        wsdlCache.prepare(getBundle(serviceContext), factory.getWsdlURL(), bus);
+        Endpoint endpoint = createServerFromFactory(factory, epd);
+        wsdlCache.store(getBundle(serviceContext), factory.getWsdlURL(), bus);
+        shareTypes(endpointProps, iClass, factory.getDataBinding(), intents);
+        if (storeModel && endpoint instanceof ServerEndpoint) {
+            Server server = ((ServerEndpoint)endpoint).getServer();
+            getModelCache().store(iClass, intents, server.getEndpoint().getService(), bus);
+        }
+        return endpoint;
+    }
+
+    /**
+     * Creates the servers of an endpoint with several interfaces. They share the features of the first
+     * server, so limits and metrics apply to the endpoint as a whole.
+     */
+    private Endpoint createServers(List<ServerFactoryBean> factories, Class<?>[] interfaces,
+                                   BundleContext serviceContext, Map<String, Object> endpointProps,
+                                   List<Object> intents, EndpointDescription epd) {
+        List<Feature> features = factories.get(0).getFeatures();
+        List<Server> servers = new ArrayList<>();
+        try {
+            for (int i = 0; i < factories.size(); i++) {
+                ServerFactoryBean factory = factories.get(i);
+                factory.setFeatures(new ArrayList<>(features));
+                Endpoint endpoint = createServer(factory, interfaces[i], serviceContext, endpointProps, intents, epd);
+                servers.add(((ServerEndpoint)endpoint).getServer());
+            }
+        } catch (RuntimeException e) {
+            for (Server server : servers) {
+                server.destroy();
+            }
+            throw e;
+        }
+        return new ServerEndpoint(epd, servers, features);
+    }
+
     private void applyIntents(List<Object> intents, AbstractEndpointFactory factory) {
-        List<Feature> features = intentManager.getIntents(Feature.class, intents);
-        factory.setFeatures(features);
+        factory.setFeatures(getFeatures(intents));
         DataBinding dataBinding = intentManager.getIntent(DataBinding.class, intents);
         if (dataBinding != null) {
             factory.setDataBinding(dataBinding);
@@ -234,6 +370,17 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
         return address;
     }
 
+    /**
+     * Endpoints with more than one interface serve each interface at the endpoint address followed by the
+     * name of the interface.
+     */
+    static String getInterfaceAddress(String address, Class<?> iClass, int interfaceCount) {
+        if (interfaceCount < 2) {
+            return address;
+        }
+        return (address.endsWith("/") ? address : address + "/") + iClass.getName();
+    }
+
     protected String getClientAddress(Map<String, Object> sd) {
         return PropertyHelper.getFirstNonEmptyStringProperty(sd, WsConstants.WS_ADDRESS_PROPERTY,
                                                         RemoteConstants.ENDPOINT_ID);
@@ -246,11 +393,62 @@ public class WsProvider extends BaseDistributionProvider implements Distribution
 
     protected Endpoint createServerFromFactory(ServerFactoryBean factory, EndpointDescription epd) {
         Server server = factory.create();
-        return new ServerEndpoint(epd, server);
+        return new ServerEndpoint(epd, server, factory.getFeatures());
     }
 
-    private DataBinding getDataBinding(Map<String, Object> sd, Class<?> iClass) {
-        return isJAXWS(sd, iClass) ? new JAXBDataBinding() : new AegisDatabinding();
+    private DataBinding getDataBinding(Map<String, Object> sd, Class<?> iClass, List<Object> intents) {
+        if (isJAXWS(sd, iClass)) {
+            return new JAXBDataBinding();
+        }
+        AegisDatabinding dataBinding = sharesTypes(sd, intents)
+            ? DataBindings.createAegis(iClass) : new AegisDatabinding();
+        dataBinding.setMtomEnabled(MtomSupport.isEnabled(sd, iClass));
+        return dataBinding;
+    }
+
+    /**
+     * Endpoints whose intents or properties configure the data binding or MTOM get their own type mapping.
+     * Without them MTOM only depends on the interface.
+     */
+    private boolean sharesTypes(Map<String, Object> sd, List<Object> intents) {
+        return sd.get(WsConstants.WS_CONTEXT_PROPS_PROP_KEY) == null
+            && sd.get(WsConstants.WS_MTOM) == null
+            && intentManager.getIntent(DataBinding.class, intents) == null
+            && intentManager.getIntent(BindingConfiguration.class, intents) == null;
+    }
+
+    private void shareTypes(Map<String, Object> sd, Class<?> iClass, DataBinding dataBinding, List<Object> intents) {
+        if (dataBinding instanceof AegisDatabinding && sharesTypes(sd, intents)) {
+            DataBindings.share(iClass, (AegisDatabinding)dataBinding);
+        }
+    }
+
+    /**
+     * The service model cache is used for endpoints that are not configured by a WSDL, context properties,
+     * one-way method names or intents that change the data binding.
+     */
+    private boolean usesModelCache(Map<String, Object> sd, List<Object> intents) {
+        return getModelCache() != null && sd.get(WsConstants.WS_WSDL_LOCATION) == null
+            && sd.get(OneWayMethods.ONEWAY_METHODS) == null && sharesTypes(sd, intents);
+    }
+
+    private String getCachedWsdl(Map<String, Object> sd, Class<?> iClass, List<Object> intents, Bus bus) {
+        return usesModelCache(sd, intents) ? getModelCache().getWsdlLocation(iClass, intents, bus) : null;
+    }
+
+    private static Bundle getBundle(BundleContext context) {
+        return context == null ? null : context.getBundle();
+    }
+
+    /**
+     * Created on first use so activation does not touch the bundle data area.
+     */
+    private synchronized ServiceModelCache getModelCache() {
+        if (!modelCacheCreated) {
+            modelCache = ServiceModelCache.create(bundleContext);
+            modelCacheCreated = true;
+        }
+        return modelCache;
     }
 
     // Isolated so that it can be substituted for testing
@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.wsdl.Definition;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.service.model.ServiceSchemaInfo;
+import org.apache.cxf.wsdl.WSDLManager;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the WSDL definitions and schemas parsed for {@link WsConstants#WS_WSDL_LOCATION}.
+ * <p>
+ * CXF caches parsed documents per bus, but every exported endpoint has its own bus, so each export
+ * parsed the document and its schemas again. The parsed definition of a location is now put into the
+ * {@link WSDLManager} of the bus before an endpoint is created. The entries of a bundle are evicted
+ * when the bundle is stopped, updated or uninstalled.
+ */
+class WsdlCache implements SynchronousBundleListener {
+    private static final Logger LOG = LoggerFactory.getLogger(WsdlCache.class);
+
+    private final BundleContext context;
+    private final Map<Long, Map<String, Entry>> bundles = new HashMap<>();
+    private boolean listening;
+
+    WsdlCache(BundleContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Adds the cached definition of the location to the bus, so creating an endpoint does not parse it.
+     */
+    void prepare(Bundle bundle, String location, Bus bus) {
+        if (bundle == null || location == null) {
+            return;
+        }
+        Entry entry = get(bundle, location);
+        WSDLManager manager = bus.getExtension(WSDLManager.class);
+        if (entry == null || manager == null || manager.getDefinitions().containsKey(location)) {
+            return;
+        }
+        manager.addDefinition(location, entry.definition);
+        if (entry.schemas != null) {
+            manager.putSchemasForDefinition(entry.definition, entry.schemas);
+        }
+        LOG.debug("Using parsed WSDL {}", location);
+    }
+
+    /**
+     * Remembers the definition and schemas of the location that the bus parsed while an endpoint was created.
+     */
+    void store(Bundle bundle, String location, Bus bus) {
+        if (bundle == null || location == null) {
+            return;
+        }
+        WSDLManager manager = bus.getExtension(WSDLManager.class);
+        Definition definition = manager == null ? null : manager.getDefinitions().get(location);
+        if (definition == null) {
+            return;
+        }
+        ServiceSchemaInfo schemas = manager.getSchemasForDefinition(definition);
+        synchronized (this) {
+            Map<String, Entry> entries = bundles.get(bundle.getBundleId());
+            if (entries == null) {
+                entries = new HashMap<>();
+                bundles.put(bundle.getBundleId(), entries);
+            }
+            Entry entry = entries.get(location);
+            if (entry == null || entry.definition != definition || entry.schemas == null) {
+                entries.put(location, new Entry(definition, schemas));
+            }
+            if (!listening && context != null) {
+                context.addBundleListener(this);
+                listening = true;
+            }
+        }
+    }
+
+    synchronized Entry get(Bundle bundle, String location) {
+        Map<String, Entry> entries = bundles.get(bundle.getBundleId());
+        return entries == null ? null : entries.get(location);
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        int type = event.getType();
+        if (type == BundleEvent.STOPPED || type == BundleEvent.UPDATED || type == BundleEvent.UNINSTALLED) {
+            synchronized (this) {
+                if (bundles.remove(event.getBundle().getBundleId()) != null) {
+                    LOG.debug("Evicted parsed WSDLs of bundle {}", event.getBundle().getSymbolicName());
+                }
+            }
+        }
+    }
+
+    synchronized void close() {
+        bundles.clear();
+        if (listening) {
+            context.removeBundleListener(this);
+            listening = false;
+        }
+    }
+
+    static final class Entry {
+        final Definition definition;
+        final ServiceSchemaInfo schemas;
+
+        Entry(Definition definition, ServiceSchemaInfo schemas) {
+            this.definition = definition;
+            this.schemas = schemas;
+        }
+    }
+}
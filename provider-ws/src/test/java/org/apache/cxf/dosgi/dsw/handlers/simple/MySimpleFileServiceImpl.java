@@ -0,0 +1,130 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.simple;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import javax.activation.DataHandler;
+import javax.activation.DataSource;
+
+public class MySimpleFileServiceImpl implements MySimpleFileService {
+
+    @Override
+    public byte[] load(int size) {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte)i;
+        }
+        return content;
+    }
+
+    @Override
+    public long store(byte[] content) {
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != (byte)i) {
+                return -1;
+            }
+        }
+        return content.length;
+    }
+
+    @Override
+    public DataHandler download(long size) {
+        return new DataHandler(new GeneratedDataSource(size));
+    }
+
+    @Override
+    public long upload(DataHandler content) {
+        try (InputStream in = content.getInputStream()) {
+            return GeneratedDataSource.verify(in);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Produces the content while it is read, so any size can be transferred without holding it in memory.
+     */
+    public static final class GeneratedDataSource implements DataSource {
+        private final long size;
+
+        public GeneratedDataSource(long size) {
+            this.size = size;
+        }
+
+        /**
+         * @return the number of bytes read or -1 if the content is not the generated one
+         */
+        public static long verify(InputStream in) throws IOException {
+            byte[] buffer = new byte[65536];
+            long count = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != (byte)(count + i)) {
+                        return -1;
+                    }
+                }
+                count += read;
+            }
+            return count;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    return position < size ? (int)(position++ & 0xff) : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (position >= size) {
+                        return -1;
+                    }
+                    int count = (int)Math.min(len, size - position);
+                    for (int i = 0; i < count; i++) {
+                        b[off + i] = (byte)position++;
+                    }
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("read only");
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public String getName() {
+            return "generated";
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.aegis.databinding.AegisDatabinding;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.wsdl.service.factory.ReflectionServiceFactoryBean;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DataBindingsTest {
+
+    @Test
+    public void testEndpointsOfAnInterfaceShareTheTypeMapping() {
+        AegisDatabinding first = DataBindings.createAegis(MySimpleEchoService.class);
+        createService(MySimpleEchoService.class, first);
+        DataBindings.share(MySimpleEchoService.class, first);
+
+        AegisDatabinding second = DataBindings.createAegis(MySimpleEchoService.class);
+        Assert.assertSame(first.getAegisContext(), second.getAegisContext());
+        createService(MySimpleEchoService.class, second);
+        Assert.assertSame(first.getAegisContext().getTypeMapping(), second.getAegisContext().getTypeMapping());
+
+        AegisDatabinding other = DataBindings.createAegis(Runnable.class);
+        createService(Runnable.class, other);
+        Assert.assertNotSame(first.getAegisContext(), other.getAegisContext());
+    }
+
+    private static void createService(Class<?> iClass, AegisDatabinding dataBinding) {
+        ReflectionServiceFactoryBean factory = new ReflectionServiceFactoryBean();
+        factory.setBus(BusFactory.getDefaultBus());
+        factory.setServiceClass(iClass);
+        factory.setDataBinding(dataBinding);
+        factory.create();
+    }
+}
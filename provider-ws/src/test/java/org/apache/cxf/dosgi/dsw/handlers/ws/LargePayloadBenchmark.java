@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.activation.DataHandler;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileServiceImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileServiceImpl.GeneratedDataSource;
+import org.easymock.EasyMock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+/**
+ * Transfers MTOM attachments much larger than the heap through an exported endpoint, e.g. with
+ * {@code -Xmx64m}. Run with {@code main}, the optional argument is the payload size in MB, defaults to 4096.
+ */
+public final class LargePayloadBenchmark {
+    private static final long MB = 1024 * 1024;
+
+    private LargePayloadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long size = (args.length > 0 ? Long.parseLong(args[0]) : 4096) * MB;
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        WsProvider provider = new WsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleFileService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, "http://localhost:9213/files");
+        Class<?>[] ifaces = new Class[] {MySimpleFileService.class};
+        System.out.printf("max heap %d MB, payload %d MB%n", Runtime.getRuntime().maxMemory() / MB, size / MB);
+        try (Endpoint endpoint = provider.exportService(new MySimpleFileServiceImpl(), context, props, ifaces)) {
+            MySimpleFileService files = (MySimpleFileService)provider.importEndpoint(
+                MySimpleFileService.class.getClassLoader(), context, ifaces, endpoint.description());
+            long start = System.nanoTime();
+            DataHandler download = files.download(size);
+            try (InputStream in = download.getInputStream()) {
+                report("download", GeneratedDataSource.verify(in), size, start);
+            }
+            start = System.nanoTime();
+            report("upload", files.upload(new DataHandler(new GeneratedDataSource(size))), size, start);
+        }
+    }
+
+    private static void report(String method, long transferred, long size, long start) {
+        if (transferred != size) {
+            throw new IllegalStateException(method + " transferred " + transferred + " of " + size + " bytes");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-8s %10.1f MB/s%n", method, size / MB / seconds);
+    }
+}
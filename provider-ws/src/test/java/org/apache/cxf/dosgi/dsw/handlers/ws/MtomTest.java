@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.activation.DataHandler;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileServiceImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleFileServiceImpl.GeneratedDataSource;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+public class MtomTest {
+    private static final String ADDRESS = "http://localhost:9210/files";
+    private static final String REQUEST = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soap:Body><ns:load xmlns:ns=\"http://simple.handlers.dsw.dosgi.cxf.apache.org/\">"
+        + "<ns:arg0>16</ns:arg0></ns:load></soap:Body></soap:Envelope>";
+
+    @Test
+    public void testEnabledForBinaryInterfaces() {
+        Map<String, Object> props = new HashMap<>();
+        Assert.assertTrue(MtomSupport.isEnabled(props, MySimpleFileService.class));
+        Assert.assertFalse(MtomSupport.isEnabled(props, MySimpleEchoService.class));
+        Assert.assertFalse(MtomSupport.isEnabled(Collections.<String, Object>singletonMap(WsConstants.WS_MTOM,
+                                                                                           "false"),
+                                                 MySimpleFileService.class));
+        Assert.assertTrue(MtomSupport.isEnabled(Collections.<String, Object>singletonMap(WsConstants.WS_MTOM,
+                                                                                          true),
+                                                MySimpleEchoService.class));
+    }
+
+    @Test
+    public void testBinaryTransfer() throws IOException {
+        WsProvider provider = createProvider();
+        try (Endpoint endpoint = export(provider)) {
+            MySimpleFileService files = (MySimpleFileService)provider.importEndpoint(
+                MySimpleFileService.class.getClassLoader(), provider.bundleContext,
+                new Class[] {MySimpleFileService.class}, endpoint.description());
+
+            byte[] content = files.load(4 * 1024 * 1024);
+            Assert.assertEquals(4 * 1024 * 1024, content.length);
+            Assert.assertEquals(content.length, files.store(content));
+
+            long size = 64L * 1024 * 1024 + 1;
+            DataHandler download = files.download(size);
+            try (InputStream in = download.getInputStream()) {
+                Assert.assertEquals(size, GeneratedDataSource.verify(in));
+            }
+            Assert.assertEquals(size, files.upload(new DataHandler(new GeneratedDataSource(size))));
+
+            // the content is sent as attachment instead of Base64 in the body
+            HttpURLConnection connection = (HttpURLConnection)new URL(ADDRESS).openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "text/xml; charset=UTF-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(REQUEST.getBytes("UTF-8"));
+            }
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertTrue(connection.getContentType(), connection.getContentType().startsWith("multipart/related"));
+            Assert.assertTrue(connection.getContentType().contains("application/xop+xml"));
+        }
+    }
+
+    private static WsProvider createProvider() {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        WsProvider provider = new WsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+        return provider;
+    }
+
+    private static Endpoint export(WsProvider provider) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleFileService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, ADDRESS);
+        return provider.exportService(new MySimpleFileServiceImpl(), provider.bundleContext, props,
+                                      new Class[] {MySimpleFileService.class});
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.NotificationListener;
+import javax.management.ObjectName;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.endpoint.ServerEndpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.common.metrics.MetricsRegistry;
+import org.apache.cxf.dosgi.common.resilience.ServerBulkhead;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleNotificationService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleNotificationServiceImpl;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+public class MultipleInterfacesTest {
+    private static final String ADDRESS = "http://localhost:9218/multi";
+
+    @Test
+    public void testInterfaceAddress() {
+        Assert.assertEquals(ADDRESS, WsProvider.getInterfaceAddress(ADDRESS, MySimpleEchoService.class, 1));
+        Assert.assertEquals(ADDRESS + "/" + MySimpleEchoService.class.getName(),
+                            WsProvider.getInterfaceAddress(ADDRESS, MySimpleEchoService.class, 2));
+        Assert.assertEquals(ADDRESS + "/" + MySimpleEchoService.class.getName(),
+                            WsProvider.getInterfaceAddress(ADDRESS + "/", MySimpleEchoService.class, 2));
+    }
+
+    @Test
+    public void testOneEndpointForAllInterfaces() throws IOException, InterruptedException {
+        WsProvider provider = createProvider();
+        MultiService service = new MultiService();
+        service.release();
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleEchoService.class.getName(),
+                                                       MySimpleNotificationService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, ADDRESS);
+        Class<?>[] ifaces = new Class[] {MySimpleEchoService.class, MySimpleNotificationService.class};
+        try (Endpoint endpoint = provider.exportService(service, provider.bundleContext, props, ifaces)) {
+            ServerEndpoint serverEndpoint = (ServerEndpoint)endpoint;
+            Assert.assertEquals(2, serverEndpoint.getServers().size());
+            Assert.assertEquals(WsProvider.getInterfaceAddress(ADDRESS, MySimpleEchoService.class, 2),
+                                serverEndpoint.getServer().getEndpoint().getEndpointInfo().getAddress());
+
+            Object proxy = provider.importEndpoint(MySimpleEchoService.class.getClassLoader(),
+                                                   provider.bundleContext, ifaces, endpoint.description());
+            Assert.assertEquals("hello", ((MySimpleEchoService)proxy).echo("hello"));
+            MySimpleNotificationService notifications = (MySimpleNotificationService)proxy;
+            notifications.publish("hello");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (notifications.received() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(1, notifications.received());
+
+            String wsdl = WsProvider.getInterfaceAddress(ADDRESS, MySimpleNotificationService.class, 2) + "?wsdl";
+            HttpURLConnection connection = (HttpURLConnection)new URL(wsdl).openConnection();
+            Assert.assertEquals(200, connection.getResponseCode());
+        }
+    }
+
+    @Test
+    public void testMetricsAreRegisteredOncePerEndpoint() throws Exception {
+        WsProvider provider = createProvider();
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleEchoService.class.getName(),
+                                                       MySimpleNotificationService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, "http://localhost:9222/multi");
+        props.put(ServerBulkhead.MAX_CONCURRENT, 4);
+        Class<?>[] ifaces = new Class[] {MySimpleEchoService.class, MySimpleNotificationService.class};
+
+        MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+        NotificationListener listener = (notification, handback) -> {
+            if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(notification.getType())) {
+                registered.add(((MBeanServerNotification)notification).getMBeanName());
+            }
+        };
+        mbeanServer.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, null, null);
+        ObjectName name;
+        try (Endpoint endpoint = provider.exportService(new MultiService(), provider.bundleContext, props, ifaces)) {
+            name = MetricsRegistry.createName(ServerBulkhead.class.getSimpleName(), endpoint.description().getId());
+            Assert.assertTrue(mbeanServer.isRegistered(name));
+        } finally {
+            mbeanServer.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+        }
+        Assert.assertEquals(Collections.singletonList(name), registered);
+        Assert.assertFalse(mbeanServer.isRegistered(name));
+    }
+
+    private static WsProvider createProvider() {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        WsProvider provider = new WsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+        return provider;
+    }
+
+    public static class MultiService extends MySimpleNotificationServiceImpl implements MySimpleEchoService {
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.common.resilience.OneWayMethods;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleNotificationService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleNotificationServiceImpl;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+public class OneWayTest {
+    private static final String ADDRESS = "http://localhost:9215/notifications";
+    private static final String REQUEST = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soap:Body><ns:publish xmlns:ns=\"http://simple.handlers.dsw.dosgi.cxf.apache.org/\">"
+        + "<ns:arg0>raw</ns:arg0></ns:publish></soap:Body></soap:Envelope>";
+
+    @Test
+    public void testOutMessage() throws Exception {
+        OneWayServiceConfiguration config = new OneWayServiceConfiguration(
+            new OneWayMethods(Collections.<String, Object>singletonMap(OneWayMethods.ONEWAY_METHODS, "echo")));
+        Assert.assertEquals(Boolean.FALSE,
+                            config.hasOutMessage(MySimpleNotificationService.class.getMethod("publish", String.class)));
+        Assert.assertNull(config.hasOutMessage(MySimpleNotificationService.class.getMethod("received")));
+        // only void methods can be one-way
+        Assert.assertNull(config.hasOutMessage(MySimpleEchoService.class.getMethod("echo", String.class)));
+    }
+
+    @Test
+    public void testAnsweredBeforeInvocation() throws IOException, InterruptedException {
+        WsProvider provider = createProvider();
+        MySimpleNotificationServiceImpl service = new MySimpleNotificationServiceImpl();
+        try (Endpoint endpoint = export(provider, service)) {
+            MySimpleNotificationService notifications = (MySimpleNotificationService)provider.importEndpoint(
+                MySimpleNotificationService.class.getClassLoader(), provider.bundleContext,
+                new Class[] {MySimpleNotificationService.class}, endpoint.description());
+
+            long start = System.nanoTime();
+            notifications.publish("proxy");
+            Assert.assertTrue(System.nanoTime() - start < 2000000000L);
+
+            // the service still blocks, yet the request is accepted
+            HttpURLConnection connection = (HttpURLConnection)new URL(ADDRESS).openConnection();
+            connection.setDoOutput(true);
+            connection.setReadTimeout(5000);
+            connection.setRequestProperty("Content-Type", "text/xml; charset=UTF-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(REQUEST.getBytes("UTF-8"));
+            }
+            Assert.assertEquals(202, connection.getResponseCode());
+            Assert.assertEquals(0, service.received());
+
+            service.release();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (notifications.received() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(2, notifications.received());
+        }
+    }
+
+    private static WsProvider createProvider() {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        WsProvider provider = new WsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+        return provider;
+    }
+
+    private static Endpoint export(WsProvider provider, MySimpleNotificationService service) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleNotificationService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, ADDRESS);
+        return provider.exportService(service, provider.bundleContext, props,
+                                      new Class[] {MySimpleNotificationService.class});
+    }
+}
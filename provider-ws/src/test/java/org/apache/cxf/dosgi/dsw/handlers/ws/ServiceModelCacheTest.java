@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoServiceImpl;
+import org.apache.cxf.frontend.ServerFactoryBean;
+import org.apache.cxf.ws.addressing.WSAddressingFeature;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+import org.osgi.service.remoteserviceadmin.EndpointDescription;
+
+public class ServiceModelCacheTest {
+    private File dataDir;
+
+    @Before
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("dosgi-model").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(dataDir);
+    }
+
+    @Test
+    public void testKeyDependsOnVersionAndIntents() {
+        ServiceModelCache cache = new ServiceModelCache(dataDir, "1.0.0");
+        String key = cache.getKey(MySimpleEchoService.class, Collections.emptyList());
+        Assert.assertEquals(key, cache.getKey(MySimpleEchoService.class, Collections.emptyList()));
+        Assert.assertTrue(key.startsWith("MySimpleEchoService-"));
+        Assert.assertNotEquals(key, new ServiceModelCache(dataDir, "1.0.1")
+            .getKey(MySimpleEchoService.class, Collections.emptyList()));
+        Assert.assertNotEquals(key, cache.getKey(MySimpleEchoService.class,
+                                                 Collections.<Object>singletonList(new WSAddressingFeature())));
+    }
+
+    @Test
+    public void testRestartUsesStoredModel() throws IOException {
+        final String[] wsdlUrl = new String[1];
+        WsProvider provider = createProvider(wsdlUrl);
+        try (Endpoint endpoint = export(provider, "http://localhost:9204/echo")) {
+            Assert.assertNull(wsdlUrl[0]);
+            Assert.assertEquals("first", importEndpoint(provider, endpoint.description()).echo("first"));
+        }
+        File[] stored = new File(dataDir, "service-models").listFiles();
+        Assert.assertEquals(1, stored.length);
+
+        // a new provider with the same data area behaves like a restarted framework
+        WsProvider restarted = createProvider(wsdlUrl);
+        try (Endpoint endpoint = export(restarted, "http://localhost:9205/echo")) {
+            Assert.assertEquals(stored[0].toURI().toString(), wsdlUrl[0]);
+            Assert.assertEquals("second", importEndpoint(restarted, endpoint.description()).echo("second"));
+        }
+    }
+
+    @Test
+    public void testInvalidEntryIsDeleted() throws IOException {
+        final String[] wsdlUrl = new String[1];
+        WsProvider provider = createProvider(wsdlUrl);
+        ServiceModelCache cache = new ServiceModelCache(new File(dataDir, "service-models"),
+                                                        provider.bundleContext.getBundle().getVersion().toString());
+        File entry = cache.getFile(MySimpleEchoService.class, Collections.emptyList());
+        Assert.assertTrue(entry.getParentFile().mkdirs());
+        Files.write(entry.toPath(), "<broken".getBytes("UTF-8"));
+
+        try (Endpoint endpoint = export(provider, "http://localhost:9204/echo")) {
+            Assert.assertNull(wsdlUrl[0]);
+            Assert.assertEquals("ok", importEndpoint(provider, endpoint.description()).echo("ok"));
+        }
+        // replaced by the model of the new endpoint
+        Assert.assertTrue(new String(Files.readAllBytes(entry.toPath()), "UTF-8").contains("definitions"));
+    }
+
+    private WsProvider createProvider(final String[] wsdlUrl) {
+        wsdlUrl[0] = null;
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getVersion()).andReturn(new Version("2.4.0")).anyTimes();
+        EasyMock.expect(context.getBundle()).andReturn(bundle).anyTimes();
+        EasyMock.expect(context.getProperty(WsConstants.WS_MODEL_CACHE)).andReturn("true").anyTimes();
+        EasyMock.expect(context.getDataFile("service-models")).andReturn(new File(dataDir, "service-models"))
+            .anyTimes();
+        EasyMock.replay(bundle, context);
+
+        WsProvider provider = new WsProvider() {
+            @Override
+            protected Endpoint createServerFromFactory(ServerFactoryBean factory, EndpointDescription epd) {
+                wsdlUrl[0] = factory.getWsdlURL();
+                return super.createServerFromFactory(factory, epd);
+            }
+        };
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+        return provider;
+    }
+
+    private static Endpoint export(WsProvider provider, String address) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleEchoService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, address);
+        return provider.exportService(new MySimpleEchoServiceImpl(), provider.bundleContext, props,
+                                      new Class[] {MySimpleEchoService.class});
+    }
+
+    private static MySimpleEchoService importEndpoint(WsProvider provider, EndpointDescription description) {
+        return (MySimpleEchoService)provider.importEndpoint(MySimpleEchoService.class.getClassLoader(),
+                                                            provider.bundleContext,
+                                                            new Class[] {MySimpleEchoService.class}, description);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
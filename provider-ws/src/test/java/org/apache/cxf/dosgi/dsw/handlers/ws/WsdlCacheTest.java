@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.wsdl.Definition;
+import javax.xml.namespace.QName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.wsdl.WSDLManager;
+import org.apache.cxf.wsdl11.WSDLServiceBuilder;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+
+public class WsdlCacheTest {
+    private static final String WSDL = "<wsdl:definitions xmlns:wsdl='http://schemas.xmlsoap.org/wsdl/'"
+        + " xmlns:soap='http://schemas.xmlsoap.org/wsdl/soap/' xmlns:xsd='http://www.w3.org/2001/XMLSchema'"
+        + " xmlns:tns='http://test/' targetNamespace='http://test/'>"
+        + "<wsdl:types><xsd:schema targetNamespace='http://test/' elementFormDefault='qualified'>"
+        + "<xsd:element name='echo' type='xsd:string'/><xsd:element name='echoResponse' type='xsd:string'/>"
+        + "</xsd:schema></wsdl:types>"
+        + "<wsdl:message name='echo'><wsdl:part name='parameters' element='tns:echo'/></wsdl:message>"
+        + "<wsdl:message name='echoResponse'><wsdl:part name='parameters' element='tns:echoResponse'/>"
+        + "</wsdl:message>"
+        + "<wsdl:portType name='Echo'><wsdl:operation name='echo'><wsdl:input message='tns:echo'/>"
+        + "<wsdl:output message='tns:echoResponse'/></wsdl:operation></wsdl:portType>"
+        + "<wsdl:binding name='EchoBinding' type='tns:Echo'><soap:binding style='document'"
+        + " transport='http://schemas.xmlsoap.org/soap/http'/><wsdl:operation name='echo'>"
+        + "<soap:operation soapAction=''/><wsdl:input><soap:body use='literal'/></wsdl:input>"
+        + "<wsdl:output><soap:body use='literal'/></wsdl:output></wsdl:operation></wsdl:binding>"
+        + "<wsdl:service name='EchoService'><wsdl:port name='EchoPort' binding='tns:EchoBinding'>"
+        + "<soap:address location='http://localhost/echo'/></wsdl:port></wsdl:service>"
+        + "</wsdl:definitions>";
+
+    private File file;
+    private String location;
+    private Bus bus1;
+    private Bus bus2;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("echo", ".wsdl");
+        Files.write(file.toPath(), WSDL.getBytes("UTF-8"));
+        location = file.toURI().toString();
+        bus1 = BusFactory.newInstance().createBus();
+        bus2 = BusFactory.newInstance().createBus();
+    }
+
+    @After
+    public void tearDown() {
+        bus1.shutdown(true);
+        bus2.shutdown(true);
+        file.delete();
+    }
+
+    @Test
+    public void testDefinitionIsSharedBetweenBuses() throws Exception {
+        Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        EasyMock.expect(bundle.getBundleId()).andReturn(5L).anyTimes();
+        BundleContext context = EasyMock.createMock(BundleContext.class);
+        WsdlCache cache = new WsdlCache(context);
+        context.addBundleListener(cache);
+        EasyMock.expectLastCall().once();
+        context.removeBundleListener(cache);
+        EasyMock.expectLastCall().once();
+        EasyMock.replay(bundle, context);
+
+        // nothing cached yet
+        cache.prepare(bundle, location, bus1);
+        Assert.assertTrue(bus1.getExtension(WSDLManager.class).getDefinitions().isEmpty());
+
+        Definition definition = buildService(bus1);
+        cache.store(bundle, location, bus1);
+        Assert.assertNotNull(cache.get(bundle, location).schemas);
+
+        cache.prepare(bundle, location, bus2);
+        WSDLManager manager = bus2.getExtension(WSDLManager.class);
+        Assert.assertSame(definition, manager.getDefinition(location));
+        Assert.assertSame(cache.get(bundle, location).schemas, manager.getSchemasForDefinition(definition));
+        List<ServiceInfo> services = new WSDLServiceBuilder(bus2).buildServices(manager.getDefinition(location));
+        Assert.assertEquals(new QName("http://test/", "EchoService"), services.get(0).getName());
+
+        cache.bundleChanged(new BundleEvent(BundleEvent.STOPPED, bundle));
+        Assert.assertNull(cache.get(bundle, location));
+        cache.close();
+        EasyMock.verify(context);
+    }
+
+    private Definition buildService(Bus bus) throws Exception {
+        Definition definition = bus.getExtension(WSDLManager.class).getDefinition(location);
+        new WSDLServiceBuilder(bus).buildServices(definition);
+        return definition;
+    }
+}
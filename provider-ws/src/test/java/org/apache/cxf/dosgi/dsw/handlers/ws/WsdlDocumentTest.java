@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.dosgi.dsw.handlers.ws;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+
+import org.apache.aries.rsa.spi.Endpoint;
+import org.apache.cxf.dosgi.common.feature.DocumentCacheFeature;
+import org.apache.cxf.dosgi.common.httpservice.HttpServiceManager;
+import org.apache.cxf.dosgi.common.intent.impl.IntentManagerImpl;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoService;
+import org.apache.cxf.dosgi.dsw.handlers.simple.MySimpleEchoServiceImpl;
+import org.easymock.EasyMock;
+import org.junit.Assert;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+
+public class WsdlDocumentTest {
+    private static final String ADDRESS = "http://localhost:9206/echo";
+
+    @Test
+    public void testCachedWsdl() throws IOException {
+        WsProvider provider = createProvider();
+        String etag;
+        long lastModified;
+        byte[] wsdl;
+        try (Endpoint endpoint = export(provider, true)) {
+            HttpURLConnection first = get(null, 0);
+            Assert.assertEquals(200, first.getResponseCode());
+            etag = first.getHeaderField("ETag");
+            lastModified = first.getLastModified();
+            wsdl = read(first);
+            Assert.assertNotNull(etag);
+            Assert.assertTrue(lastModified > 0);
+            Assert.assertTrue(new String(wsdl, "UTF-8").contains("definitions"));
+
+            HttpURLConnection second = get(null, 0);
+            Assert.assertEquals(200, second.getResponseCode());
+            Assert.assertEquals(etag, second.getHeaderField("ETag"));
+            Assert.assertArrayEquals(wsdl, read(second));
+
+            HttpURLConnection byTag = get(etag, 0);
+            Assert.assertEquals(304, byTag.getResponseCode());
+            Assert.assertEquals(etag, byTag.getHeaderField("ETag"));
+            Assert.assertEquals(304, get(null, lastModified).getResponseCode());
+            Assert.assertEquals(200, get("\"other\"", 0).getResponseCode());
+
+            MySimpleEchoService echo = (MySimpleEchoService)provider.importEndpoint(
+                MySimpleEchoService.class.getClassLoader(), provider.bundleContext,
+                new Class[] {MySimpleEchoService.class}, endpoint.description());
+            Assert.assertEquals("hi", echo.echo("hi"));
+        }
+
+        // a re-export renders the document again
+        try (Endpoint endpoint = export(provider, true)) {
+            HttpURLConnection connection = get(null, 0);
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertArrayEquals(wsdl, read(connection));
+        }
+    }
+
+    @Test
+    public void testNotCachedByDefault() throws IOException {
+        WsProvider provider = createProvider();
+        try (Endpoint endpoint = export(provider, false)) {
+            HttpURLConnection connection = get(null, 0);
+            Assert.assertEquals(200, connection.getResponseCode());
+            Assert.assertNull(connection.getHeaderField("ETag"));
+            Assert.assertTrue(new String(read(connection), "UTF-8").contains("definitions"));
+        }
+    }
+
+    private static HttpURLConnection get(String ifNoneMatch, long ifModifiedSince) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)new URL(ADDRESS + "?wsdl").openConnection();
+        if (ifNoneMatch != null) {
+            connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        }
+        connection.setIfModifiedSince(ifModifiedSince);
+        return connection;
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static WsProvider createProvider() {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+        WsProvider provider = new WsProvider();
+        HttpServiceManager httpServiceManager = new HttpServiceManager();
+        httpServiceManager.initFromConfig(new Hashtable<String, Object>());
+        provider.setHttpServiceManager(httpServiceManager);
+        provider.setIntentManager(new IntentManagerImpl());
+        provider.activate(context);
+        return provider;
+    }
+
+    private static Endpoint export(WsProvider provider, boolean cache) {
+        Map<String, Object> props = new HashMap<>();
+        if (cache) {
+            props.put(DocumentCacheFeature.DOCUMENT_CACHE, "true");
+        }
+        props.put(Constants.OBJECTCLASS, new String[] {MySimpleEchoService.class.getName()});
+        props.put(WsConstants.WS_ADDRESS_PROPERTY, ADDRESS);
+        return provider.exportService(new MySimpleEchoServiceImpl(), provider.bundleContext, props,
+                                      new Class[] {MySimpleEchoService.class});
+    }
+}